@@ -59,6 +59,18 @@ public abstract class Artifact {
     // This one is not propagated to the XML.
     private boolean permissionDiffOnly = false;
 
+    // POSIX permissions (rwxr-xr-x style) read together with the other file attributes while scanning
+    // the distributions, null when the file store does not support POSIX attributes
+    @XmlTransient
+    private String posixPermissionsA;
+
+    @XmlTransient
+    private String posixPermissionsB;
+
+    // set for artifacts in folders with the same digest in both distributions, see MerkleTree
+    @XmlTransient
+    private boolean inIdenticalSubtree;
+
     /**
      * Default constructor
      */
@@ -183,6 +195,19 @@ public abstract class Artifact {
         this.permissionDiff = permissionDiff;
     }
 
+    /**
+     * @return true if the artifact is in a folder with the same content in both distributions, content comparison
+     * phases do not need to look at it
+     * @see org.wildfly.qa.distdiff2.hashing.MerkleTree
+     */
+    public boolean isInIdenticalSubtree() {
+        return inIdenticalSubtree;
+    }
+
+    public void setInIdenticalSubtree(boolean inIdenticalSubtree) {
+        this.inIdenticalSubtree = inIdenticalSubtree;
+    }
+
     public boolean isPermissionDiffOnly() {
         return permissionDiffOnly;
     }
@@ -191,6 +216,22 @@ public abstract class Artifact {
         this.permissionDiffOnly = permissionDiffOnly;
     }
 
+    public String getPosixPermissionsA() {
+        return posixPermissionsA;
+    }
+
+    public void setPosixPermissionsA(String posixPermissionsA) {
+        this.posixPermissionsA = posixPermissionsA;
+    }
+
+    public String getPosixPermissionsB() {
+        return posixPermissionsB;
+    }
+
+    public void setPosixPermissionsB(String posixPermissionsB) {
+        this.posixPermissionsB = posixPermissionsB;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -1,13 +1,17 @@
 package org.wildfly.qa.distdiff2.artifacts;
 
+import java.util.List;
+
 import org.wildfly.qa.distdiff2.helpers.AdaptorCDATA;
 import org.wildfly.qa.distdiff2.rpm.RPMDetails;
+import org.wildfly.qa.distdiff2.tools.FileType;
 
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlAttribute;
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlTransient;
 import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
 
 /**
@@ -34,12 +38,31 @@ public class FileArtifact extends Artifact {
     @XmlAttribute(name = "size")
     private long size;
 
+    // Digests calculated by additional hash algorithms
+    @XmlElement(name = "digest")
+    private List<FileDigest> digests;
+
+    // Offset of the first different byte, set only when found by the byte comparison
+    @XmlAttribute(name = "mismatchOffset")
+    private Long mismatchOffset;
+
+    // Size of the file in distribution B, -1 if not known
+    @XmlTransient
+    private long sizeB = -1;
+
     @XmlJavaTypeAdapter(value = AdaptorCDATA.class)
     private String textDiff;
 
     @XmlElement(name = "rpm-details")
     private RPMDetails rpmDetails;
 
+    // File types sniffed from the file headers while scanning the distributions
+    @XmlTransient
+    private FileType fileTypeA;
+
+    @XmlTransient
+    private FileType fileTypeB;
+
     public FileArtifact() {
     }
 
@@ -72,6 +95,30 @@ public class FileArtifact extends Artifact {
         this.size = size;
     }
 
+    public long getSizeB() {
+        return sizeB;
+    }
+
+    public void setSizeB(long sizeB) {
+        this.sizeB = sizeB;
+    }
+
+    public List<FileDigest> getDigests() {
+        return digests;
+    }
+
+    public void setDigests(List<FileDigest> digests) {
+        this.digests = digests;
+    }
+
+    public Long getMismatchOffset() {
+        return mismatchOffset;
+    }
+
+    public void setMismatchOffset(Long mismatchOffset) {
+        this.mismatchOffset = mismatchOffset;
+    }
+
     public String getMd5sumA() {
         return md5sumA;
     }
@@ -104,6 +151,22 @@ public class FileArtifact extends Artifact {
         this.rpmDetails = rpmDetails;
     }
 
+    public FileType getFileTypeA() {
+        return fileTypeA;
+    }
+
+    public void setFileTypeA(FileType fileTypeA) {
+        this.fileTypeA = fileTypeA;
+    }
+
+    public FileType getFileTypeB() {
+        return fileTypeB;
+    }
+
+    public void setFileTypeB(FileType fileTypeB) {
+        this.fileTypeB = fileTypeB;
+    }
+
     @Override
     public boolean equals(Object o) {
         return super.equals(o);
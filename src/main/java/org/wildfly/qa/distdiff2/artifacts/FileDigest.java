@@ -0,0 +1,65 @@
+package org.wildfly.qa.distdiff2.artifacts;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * FileDigest
+ * <p>
+ * Additional digest of a file calculated along with the primary checksum (see
+ * {@link FileArtifact#getMd5sum()}), e.g. SHA-256 for audit purposes. Like the primary checksum, a single value is
+ * stored for equal files and values for both distributions are stored for different files.
+ */
+@XmlRootElement(name = "digest")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class FileDigest {
+
+    @XmlAttribute
+    private String algorithm;
+
+    @XmlAttribute
+    private String value;
+
+    @XmlAttribute
+    private String valueA;
+
+    @XmlAttribute
+    private String valueB;
+
+    public FileDigest() {
+    }
+
+    public FileDigest(String algorithm, String valueA, String valueB) {
+        this.algorithm = algorithm;
+        if (valueA != null && valueA.equals(valueB)) {
+            this.value = valueA;
+        } else {
+            this.valueA = valueA;
+            this.valueB = valueB;
+        }
+    }
+
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public String getValueA() {
+        return valueA;
+    }
+
+    public String getValueB() {
+        return valueB;
+    }
+
+    @Override
+    public String toString() {
+        return "FileDigest{algorithm='" + algorithm + "', value='" + value + "', valueA='" + valueA + "', valueB='"
+                + valueB + "'}";
+    }
+}
@@ -6,6 +6,7 @@ import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlElementWrapper;
 import javax.xml.bind.annotation.XmlElements;
 import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlTransient;
 
 import java.util.LinkedList;
 import java.util.List;
@@ -29,6 +30,14 @@ public class FolderArtifact extends Artifact implements ItemWithChild {
     })
     private List<Artifact> items;
 
+    // Merkle tree digests of the folder content, null when the folder is not in both distributions
+    // or its content differs for sure (see MerkleTree)
+    @XmlTransient
+    private String digestA;
+
+    @XmlTransient
+    private String digestB;
+
     public FolderArtifact() {
     }
 
@@ -51,6 +60,21 @@ public class FolderArtifact extends Artifact implements ItemWithChild {
         this.items = items;
     }
 
+    public String getDigestA() {
+        return digestA;
+    }
+
+    public void setDigestA(String digestA) {
+        this.digestA = digestA;
+    }
+
+    public String getDigestB() {
+        return digestB;
+    }
+
+    public void setDigestB(String digestB) {
+        this.digestB = digestB;
+    }
 
     @Override
     public boolean equals(Object o) {
@@ -6,8 +6,6 @@ import javax.xml.bind.annotation.XmlAttribute;
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
 
-import java.util.jar.Manifest;
-
 import org.wildfly.qa.distdiff2.jardiff.JarDiff;
 
 /**
@@ -103,10 +101,6 @@ public class JarArtifact extends ArchiveArtifact {
         }
     }
 
-    // Manifest information
-    private Manifest manifestA;
-    private Manifest manifestB;
-
     @XmlElement(name = "build-information-a")
     private BuildInformation buildInformationA;
     @XmlElement(name = "build-information-b")
@@ -122,22 +116,6 @@ public class JarArtifact extends ArchiveArtifact {
         super(name, relativePath, size);
     }
 
-    public Manifest getManifestA() {
-        return manifestA;
-    }
-
-    public void setManifestA(Manifest manifestA) {
-        this.manifestA = manifestA;
-    }
-
-    public Manifest getManifestB() {
-        return manifestB;
-    }
-
-    public void setManifestB(Manifest manifestB) {
-        this.manifestB = manifestB;
-    }
-
     public BuildInformation getBuildInformationA() {
         return buildInformationA;
     }
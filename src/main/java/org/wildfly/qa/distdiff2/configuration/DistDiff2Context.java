@@ -10,6 +10,10 @@ import java.util.List;
 import org.apache.log4j.Logger;
 import org.wildfly.qa.distdiff2.InvalidDistDiffConfigurationException;
 import org.wildfly.qa.distdiff2.errors.ErrorEvent;
+import org.wildfly.qa.distdiff2.hashing.HashCache;
+import org.wildfly.qa.distdiff2.hashing.HashService;
+import org.wildfly.qa.distdiff2.jardiff.DecompilationCache;
+import org.wildfly.qa.distdiff2.jardiff.ManifestCache;
 import org.wildfly.qa.distdiff2.phase.ProcessPhase;
 import org.wildfly.qa.distdiff2.serverdistributions.ServerDistribution;
 import org.wildfly.qa.distdiff2.serverdistributions.ServerDistributionDetector;
@@ -29,6 +33,9 @@ public final class DistDiff2Context {
     private final Results results;
     private final List<Class<? extends ProcessPhase>> phases;
     private final ServerDistribution serverDistribution;
+    private final HashService hashService;
+    private final DecompilationCache decompilationCache;
+    private final ManifestCache manifestCache = new ManifestCache();
     private static final Logger LOGGER = Logger.getLogger(DistDiff2Context.class.getName());
 
     private DistDiff2Context(DistDiffConfiguration distDiffConfiguration, List<Class<? extends ProcessPhase>> phases,
@@ -37,6 +44,12 @@ public final class DistDiff2Context {
         this.phases = phases;
         this.results = results;
         this.serverDistribution = serverDistribution;
+        HashCache hashCache = distDiffConfiguration.isNoHashCache() ? new HashCache()
+                : new HashCache(distDiffConfiguration.getHashCacheDir().toPath().resolve(HashCache.FILE_NAME));
+        this.hashService = new HashService(hashCache, distDiffConfiguration.getHashAlgorithmList(),
+                distDiffConfiguration.getComparisonTierSet());
+        this.decompilationCache = distDiffConfiguration.isNoDecompilationCache() ? new DecompilationCache()
+                : new DecompilationCache(distDiffConfiguration.getDecompilationCacheDir().toPath());
         // TODO it is stupid to create results in the builder, but the builder
         // needs it because only it has access to the CMD arguments
         // maybe move cmd arguments from results to configuration...
@@ -58,6 +71,27 @@ public final class DistDiff2Context {
         return serverDistribution;
     }
 
+    /**
+     * @return service calculating digests of files, shared by all phases of the run
+     */
+    public HashService getHashService() {
+        return hashService;
+    }
+
+    /**
+     * @return cache of decompiled classes, shared by all phases of the run
+     */
+    public DecompilationCache getDecompilationCache() {
+        return decompilationCache;
+    }
+
+    /**
+     * @return manifests of JARs, shared by all phases of the run
+     */
+    public ManifestCache getManifestCache() {
+        return manifestCache;
+    }
+
     public void handleError(ErrorEvent event) {
         String artifactName = null;
         if (event.getArtifact() != null) {
@@ -100,6 +134,18 @@ public final class DistDiff2Context {
                     throw new CmdLineException(parser,
                             Messages.ILLEGAL_PATH, "Folder with B distribution must point to the directory");
                 }
+                try {
+                    this.distDiffConfiguration.getComparisonTierSet();
+                } catch (IllegalArgumentException e) {
+                    throw new CmdLineException(parser, Messages.ILLEGAL_OPERAND, "--comparison-tiers",
+                            this.distDiffConfiguration.getComparisonTiers());
+                }
+                try {
+                    this.distDiffConfiguration.getHashAlgorithmList();
+                } catch (IllegalArgumentException e) {
+                    throw new CmdLineException(parser, Messages.ILLEGAL_OPERAND, "--hash-algorithm",
+                            this.distDiffConfiguration.getHashAlgorithm());
+                }
             } catch (CmdLineException e) {
                 throw new InvalidDistDiffConfigurationException(e);
             }
@@ -137,6 +183,11 @@ public final class DistDiff2Context {
             return this;
         }
 
+        public Builder output(File value) {
+            distDiffConfiguration.setOutput(value);
+            return this;
+        }
+
         public Builder decompile(boolean value) {
             distDiffConfiguration.setDecompile(value);
             return this;
@@ -192,6 +243,46 @@ public final class DistDiff2Context {
             return this;
         }
 
+        public Builder threads(int value) {
+            distDiffConfiguration.setThreads(value);
+            return this;
+        }
+
+        public Builder comparisonTiers(String value) {
+            distDiffConfiguration.setComparisonTiers(value);
+            return this;
+        }
+
+        public Builder hashAlgorithm(String value) {
+            distDiffConfiguration.setHashAlgorithm(value);
+            return this;
+        }
+
+        public Builder hashCacheDir(File value) {
+            distDiffConfiguration.setHashCacheDir(value);
+            return this;
+        }
+
+        public Builder noHashCache(boolean value) {
+            distDiffConfiguration.setNoHashCache(value);
+            return this;
+        }
+
+        public Builder decompilationCacheDir(File value) {
+            distDiffConfiguration.setDecompilationCacheDir(value);
+            return this;
+        }
+
+        public Builder noDecompilationCache(boolean value) {
+            distDiffConfiguration.setNoDecompilationCache(value);
+            return this;
+        }
+
+        public Builder textNormalizations(String value) {
+            distDiffConfiguration.setTextNormalizations(value);
+            return this;
+        }
+
         public Builder processPhase(Class<? extends ProcessPhase> clazz) {
             LOGGER.info("Registering Phase - " + clazz);
             phases.add(clazz);
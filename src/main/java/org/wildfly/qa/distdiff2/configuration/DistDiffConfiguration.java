@@ -1,8 +1,13 @@
 package org.wildfly.qa.distdiff2.configuration;
 
 import java.io.File;
+import java.util.EnumSet;
+import java.util.List;
 
 import org.wildfly.qa.distdiff2.excludelist.ExclusionPhase;
+import org.wildfly.qa.distdiff2.hashing.ComparisonTier;
+import org.wildfly.qa.distdiff2.hashing.HashAlgorithm;
+import org.wildfly.qa.distdiff2.tools.TextNormalization;
 import org.kohsuke.args4j.Option;
 
 /**
@@ -83,6 +88,30 @@ public class DistDiffConfiguration {
     private boolean permissionsDiff = false;
 
 
+    @Option(name = "-t", aliases = {"--threads"}, usage = "Number of threads used for parallel processing of files (scanning and hashing of the distributions, diffing of JARs). The default value is the number of available processors", metaVar = "N")
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    @Option(name = "--comparison-tiers", usage = "Comma separated list of checks used to compare content of files present in both distributions, evaluated from the cheapest one: 'size', 'bytes' (memory-mapped comparison which stops at the first different byte and records its offset), 'crc32c' and 'digest' (MD5 checksums stored in the report). 'crc32c' is a cheaper alternative to 'digest', e.g. 'size,crc32c' skips the MD5 calculation entirely. Combined with 'digest' it spares the MD5 of different files, but equal files are read twice. The default value is 'size,digest'", metaVar = "TIERS")
+    private String comparisonTiers = ComparisonTier.DEFAULT;
+
+    @Option(name = "--hash-algorithm", usage = "Comma separated list of hash algorithms used by the 'digest' comparison tier, all of them are calculated in a single read of each file: 'md5', 'sha-1', 'sha-256' and 'xxh64' (fast non-cryptographic hash). The first one is compared and stored as the checksum in the report, the others are stored as additional digests, e.g. 'md5,sha-256'. The default value is 'md5'", metaVar = "ALGORITHMS")
+    private String hashAlgorithm = HashAlgorithm.DEFAULT;
+
+    @Option(name = "--hash-cache", usage = "Directory with the persistent cache of file digests, unchanged files are not hashed again by the next runs. The default value is the output directory", metaVar = "DIR")
+    private File hashCacheDir;
+
+    @Option(name = "--no-hash-cache", usage = "Do not read nor write the persistent cache of file digests")
+    private boolean noHashCache = false;
+
+    @Option(name = "--decompilation-cache", usage = "Directory with the persistent cache of classes decompiled with -d/--decompile, classes decompiled by any previous run are not decompiled again. The default value is the output directory", metaVar = "DIR")
+    private File decompilationCacheDir;
+
+    @Option(name = "--no-decompilation-cache", usage = "Do not read nor write the persistent cache of decompiled classes")
+    private boolean noDecompilationCache = false;
+
+    @Option(name = "--text-normalizations", usage = "Comma separated list of differences ignored by a quick check of different text files done before diffing them: 'line-breaks' (CRLF and CR vs LF), 'trailing-whitespace' (spaces and tabs at the end of lines and empty lines at the end of the file) and 'bom' (UTF-8 byte order mark). Files equal after the normalization are not diffed, they are reported as different only in line breaks, or as same if their line breaks are the same too. 'none' disables the check. The default value is 'line-breaks'", metaVar = "NORMALIZATIONS")
+    private String textNormalizations = TextNormalization.DEFAULT;
+
     @Option(name = "--precise-exclusion-matching", usage = "Use precise matching when comparing artifacts from report with files in exclusion list. With this option enabled, files won't be treated as included in exclusion list if any of their parent directory is already included in file exclusion list. In other words you need to specify each file explicitly to be excluded from the comparison despite it's parent directory.", required = false)
     private boolean preciseExclusionMatching = false;
 
@@ -246,6 +275,97 @@ public class DistDiffConfiguration {
         this.preciseExclusionMatching = preciseExclusionMatching;
     }
 
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public String getComparisonTiers() {
+        return comparisonTiers;
+    }
+
+    public void setComparisonTiers(String comparisonTiers) {
+        this.comparisonTiers = comparisonTiers;
+    }
+
+    /**
+     * @return parsed {@link #getComparisonTiers()}
+     */
+    public EnumSet<ComparisonTier> getComparisonTierSet() {
+        return ComparisonTier.parse(comparisonTiers);
+    }
+
+    public String getHashAlgorithm() {
+        return hashAlgorithm;
+    }
+
+    public void setHashAlgorithm(String hashAlgorithm) {
+        this.hashAlgorithm = hashAlgorithm;
+    }
+
+    /**
+     * @return parsed {@link #getHashAlgorithm()}, the first algorithm is the primary one
+     */
+    public List<HashAlgorithm> getHashAlgorithmList() {
+        return HashAlgorithm.parse(hashAlgorithm);
+    }
+
+    /**
+     * @return directory of the persistent hash cache, the output directory if not set explicitly
+     */
+    public File getHashCacheDir() {
+        return (hashCacheDir != null) ? hashCacheDir : output;
+    }
+
+    public void setHashCacheDir(File hashCacheDir) {
+        this.hashCacheDir = hashCacheDir;
+    }
+
+    public boolean isNoHashCache() {
+        return noHashCache;
+    }
+
+    public void setNoHashCache(boolean noHashCache) {
+        this.noHashCache = noHashCache;
+    }
+
+    /**
+     * @return directory of the persistent decompilation cache, the output directory if not set explicitly
+     */
+    public File getDecompilationCacheDir() {
+        return (decompilationCacheDir != null) ? decompilationCacheDir : output;
+    }
+
+    public void setDecompilationCacheDir(File decompilationCacheDir) {
+        this.decompilationCacheDir = decompilationCacheDir;
+    }
+
+    public boolean isNoDecompilationCache() {
+        return noDecompilationCache;
+    }
+
+    public void setNoDecompilationCache(boolean noDecompilationCache) {
+        this.noDecompilationCache = noDecompilationCache;
+    }
+
+    public String getTextNormalizations() {
+        return textNormalizations;
+    }
+
+    public void setTextNormalizations(String textNormalizations) {
+        this.textNormalizations = textNormalizations;
+    }
+
+    /**
+     * @return parsed {@link #getTextNormalizations()}
+     */
+    public EnumSet<TextNormalization> getTextNormalizationSet() {
+        return TextNormalization.parse(textNormalizations);
+    }
+
     @Override
     public String toString() {
         return "Configuration{" +
@@ -268,6 +388,14 @@ public class DistDiffConfiguration {
                 ", modifiedFilesFile='" + modifiedFilesFile + '\'' +
                 ", permissionsDiff=" + permissionsDiff + '\'' +
                 ", preciseExclusionMatching=" + preciseExclusionMatching +
+                ", threads=" + threads +
+                ", comparisonTiers='" + comparisonTiers + '\'' +
+                ", hashAlgorithm='" + hashAlgorithm + '\'' +
+                ", hashCacheDir=" + hashCacheDir +
+                ", noHashCache=" + noHashCache +
+                ", decompilationCacheDir=" + decompilationCacheDir +
+                ", noDecompilationCache=" + noDecompilationCache +
+                ", textNormalizations='" + textNormalizations + '\'' +
                 '}';
     }
 }
@@ -1,16 +1,17 @@
 package org.wildfly.qa.distdiff2.execution;
 
-import java.io.File;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ForkJoinTask;
 
 import org.apache.log4j.Logger;
 import org.wildfly.qa.distdiff2.artifacts.Artifact;
 import org.wildfly.qa.distdiff2.configuration.DistDiffConfiguration;
 import org.wildfly.qa.distdiff2.configuration.DistDiff2Context;
+import org.wildfly.qa.distdiff2.hashing.ComparisonTier;
+import org.wildfly.qa.distdiff2.hashing.MerkleTree;
 import org.wildfly.qa.distdiff2.phase.ProcessPhase;
 import org.wildfly.qa.distdiff2.results.Results;
-import org.wildfly.qa.distdiff2.results.Status;
+import org.wildfly.qa.distdiff2.tools.DistributionScanner;
 import org.wildfly.qa.distdiff2.tools.Tools;
 
 /**
@@ -36,19 +37,25 @@ public class DistDiff2Execution {
             LOGGER.info("Configuration - " + distDiffConfiguration);
         }
 
-        // Read all files from distribution A and B
-        List<Artifact> filesA = Tools.readAllItemsFromFolder(distDiffConfiguration.getFolderA(), true);
-        List<Artifact> filesB = Tools.readAllItemsFromFolder(distDiffConfiguration.getFolderB(), false);
+        // Read all files from distribution A and B, both distributions are scanned at the same time
+        List<Artifact> filesA;
+        List<Artifact> filesB;
+        try (DistributionScanner scanner = new DistributionScanner(distDiffConfiguration.getThreads())) {
+            ForkJoinTask<List<Artifact>> scanA = scanner.submit(distDiffConfiguration.getFolderA(), true);
+            ForkJoinTask<List<Artifact>> scanB = scanner.submit(distDiffConfiguration.getFolderB(), false);
+            filesA = scanA.join();
+            filesB = scanB.join();
+        }
+
+        // Basic comparison - added, removed and same items
+        List<Artifact> artifactList = Tools.mergeArtifactLists(filesA, filesB);
 
-        // Basic comparison - added and removed items
-        List<Artifact> artifactList = new LinkedList<>();
-        artifactList.addAll(Tools.walkThroughList(filesA, filesB, Status.REMOVED));
-        artifactList.addAll(Tools.walkThroughList(filesB, filesA, Status.ADDED));
-        for (Artifact artifact : filesA) {
-            artifact.setStatus(Status.SAME, "InitialComparison", "File exists in both distributions");
-            artifact.setPathB(distDiffConfiguration.getFolderB().getAbsolutePath() + File.separator + artifact
-                    .getRelativePath());
-            artifactList.add(artifact);
+        // Folders with the same digest in both distributions are decided at once, the phases skip their content
+        if (distDiffConfiguration.getComparisonTierSet().contains(ComparisonTier.DIGEST)) {
+            MerkleTree merkleTree = new MerkleTree(context.getHashService(),
+                    distDiffConfiguration.getHashAlgorithmList(), distDiffConfiguration.getThreads());
+            int identical = merkleTree.build(artifactList);
+            LOGGER.info(identical + " artifacts are in folders identical in both distributions");
         }
 
         results.setFolderA(distDiffConfiguration.getFolderA().getAbsolutePath());
@@ -80,5 +87,8 @@ public class DistDiff2Execution {
                 ex.printStackTrace();
             }
         }
+
+        // digests of unchanged files are reused by the next run
+        context.getHashService().save();
     }
 }
@@ -0,0 +1,63 @@
+package org.wildfly.qa.distdiff2.hashing;
+
+import java.util.EnumSet;
+import java.util.Locale;
+
+/**
+ * Tiers of the file equality check performed by {@link TieredFileComparator}. The tiers are always evaluated from
+ * the cheapest to the most expensive one (in the order of declaration), the first tier which finds a difference
+ * decides.
+ */
+public enum ComparisonTier {
+
+    /**
+     * Compares file sizes, costs nothing as the sizes are known from the scan
+     */
+    SIZE,
+
+    /**
+     * Compares memory-mapped content of the files and stops at the first different byte, see
+     * {@link MappedFileComparator}. Records offset of the first difference.
+     */
+    BYTES,
+
+    /**
+     * Compares hardware accelerated CRC32C checksums of the files, a cheaper alternative to {@link #DIGEST} when the
+     * checksums are not needed in the report. Before {@link #DIGEST} it spares the digests of different files, but
+     * equal files are read twice.
+     */
+    CRC32C,
+
+    /**
+     * Compares full cryptographic digests of the files, the digests are stored on the artifact
+     */
+    DIGEST;
+
+    /**
+     * Default tiers - sizes and the digests stored in the report, byte and CRC32C comparisons are alternative
+     * strategies which have to be enabled explicitly
+     */
+    public static final String DEFAULT = "size,digest";
+
+    /**
+     * Parses comma separated list of tiers, e.g. 'size,crc32c'.
+     *
+     * @param value comma separated list of tier names (case insensitive)
+     * @return set of tiers
+     * @throws IllegalArgumentException if the list contains unknown tier or no tier at all
+     */
+    public static EnumSet<ComparisonTier> parse(String value) {
+        EnumSet<ComparisonTier> tiers = EnumSet.noneOf(ComparisonTier.class);
+        if (value != null) {
+            for (String name : value.split(",")) {
+                if (!name.trim().isEmpty()) {
+                    tiers.add(ComparisonTier.valueOf(name.trim().toUpperCase(Locale.ENGLISH)));
+                }
+            }
+        }
+        if (tiers.isEmpty()) {
+            throw new IllegalArgumentException("At least one comparison tier has to be specified");
+        }
+        return tiers;
+    }
+}
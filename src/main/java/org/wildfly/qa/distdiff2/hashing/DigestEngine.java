@@ -0,0 +1,97 @@
+package org.wildfly.qa.distdiff2.hashing;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * DigestEngine
+ * <p>
+ * Calculates digests of files with any combination of {@link HashAlgorithm}s in a single read of the file. Every
+ * thread reuses its own hash function instances and its own direct read buffer, so nothing but the resulting strings
+ * is allocated per file. Digests are encoded to fixed width hexadecimal strings (see {@link Hex}).
+ */
+public final class DigestEngine {
+
+    /**
+     * Size of the direct buffer used by each thread for reading files
+     */
+    public static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final ThreadLocal<ByteBuffer> BUFFERS =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(BUFFER_SIZE));
+
+    private static final ThreadLocal<Map<HashAlgorithm, Hasher>> HASHERS =
+            ThreadLocal.withInitial(() -> new EnumMap<>(HashAlgorithm.class));
+
+    private DigestEngine() {
+    }
+
+    /**
+     * Calculates a single digest of a file.
+     *
+     * @param file      file to read
+     * @param algorithm algorithm to use
+     * @return hexadecimal digest
+     * @throws IOException if the file cannot be read
+     */
+    public static String digest(Path file, HashAlgorithm algorithm) throws IOException {
+        return digest(file, Collections.singleton(algorithm)).get(algorithm);
+    }
+
+    /**
+     * Calculates several digests of a file, the file is read only once.
+     *
+     * @param file       file to read
+     * @param algorithms algorithms to use
+     * @return hexadecimal digests by algorithm
+     * @throws IOException if the file cannot be read
+     */
+    public static Map<HashAlgorithm, String> digest(Path file, Collection<HashAlgorithm> algorithms)
+            throws IOException {
+        Set<HashAlgorithm> distinct = EnumSet.noneOf(HashAlgorithm.class);
+        distinct.addAll(algorithms);
+        Map<HashAlgorithm, Hasher> threadHashers = HASHERS.get();
+        Hasher[] hashers = new Hasher[distinct.size()];
+        int count = 0;
+        for (HashAlgorithm algorithm : distinct) {
+            hashers[count++] = threadHashers.computeIfAbsent(algorithm, HashAlgorithm::newHasher);
+        }
+
+        ByteBuffer buffer = BUFFERS.get();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer.clear();
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                int limit = buffer.limit();
+                for (Hasher hasher : hashers) {
+                    buffer.position(0);
+                    buffer.limit(limit);
+                    hasher.update(buffer);
+                }
+                buffer.clear();
+            }
+        } catch (IOException | RuntimeException e) {
+            // do not leak partial state of the reused hash functions into the next file
+            for (HashAlgorithm algorithm : distinct) {
+                threadHashers.remove(algorithm);
+            }
+            throw e;
+        }
+
+        Map<HashAlgorithm, String> digests = new EnumMap<>(HashAlgorithm.class);
+        int i = 0;
+        for (HashAlgorithm algorithm : distinct) {
+            digests.put(algorithm, hashers[i++].finish());
+        }
+        return digests;
+    }
+}
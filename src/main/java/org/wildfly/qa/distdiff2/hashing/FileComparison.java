@@ -0,0 +1,158 @@
+package org.wildfly.qa.distdiff2.hashing;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Result of comparison of two files done by {@link TieredFileComparator}.
+ */
+public final class FileComparison {
+
+    private final boolean equal;
+    private final ComparisonTier decidingTier;
+    private final String valueA;
+    private final String valueB;
+    private final HashAlgorithm primaryAlgorithm;
+    private final Map<HashAlgorithm, String> digestsA;
+    private final Map<HashAlgorithm, String> digestsB;
+    private final long mismatchOffset;
+
+    FileComparison(boolean equal, ComparisonTier decidingTier, String valueA, String valueB) {
+        this(equal, decidingTier, valueA, valueB, null, null, null);
+    }
+
+    /**
+     * Difference found by {@link ComparisonTier#BYTES}
+     */
+    FileComparison(String byteA, String byteB, long mismatchOffset) {
+        this.equal = false;
+        this.decidingTier = ComparisonTier.BYTES;
+        this.valueA = byteA;
+        this.valueB = byteB;
+        this.primaryAlgorithm = null;
+        this.digestsA = Collections.emptyMap();
+        this.digestsB = Collections.emptyMap();
+        this.mismatchOffset = mismatchOffset;
+    }
+
+    FileComparison(boolean equal, ComparisonTier decidingTier, String valueA, String valueB,
+                   HashAlgorithm primaryAlgorithm, Map<HashAlgorithm, String> digestsA,
+                   Map<HashAlgorithm, String> digestsB) {
+        this.equal = equal;
+        this.decidingTier = decidingTier;
+        this.valueA = valueA;
+        this.valueB = valueB;
+        this.primaryAlgorithm = primaryAlgorithm;
+        this.digestsA = (digestsA != null) ? digestsA : Collections.emptyMap();
+        this.digestsB = (digestsB != null) ? digestsB : Collections.emptyMap();
+        this.mismatchOffset = -1;
+    }
+
+    /**
+     * @return true if all enabled tiers consider the files equal
+     */
+    public boolean isEqual() {
+        return equal;
+    }
+
+    /**
+     * @return tier which found the difference, or the last evaluated tier for equal files
+     */
+    public ComparisonTier getDecidingTier() {
+        return decidingTier;
+    }
+
+    /**
+     * @return value of file A compared by the deciding tier (size, byte, CRC32C or digest)
+     */
+    public String getValueA() {
+        return valueA;
+    }
+
+    /**
+     * @return value of file B compared by the deciding tier (size, byte, CRC32C or digest)
+     */
+    public String getValueB() {
+        return valueB;
+    }
+
+    /**
+     * @return algorithm of {@link #getDigestA()} and {@link #getDigestB()}, null if the digest tier was not evaluated
+     */
+    public HashAlgorithm getPrimaryAlgorithm() {
+        return primaryAlgorithm;
+    }
+
+    /**
+     * @return digest of file A calculated by the primary algorithm, null if the digest tier was not evaluated
+     */
+    public String getDigestA() {
+        return digestsA.get(primaryAlgorithm);
+    }
+
+    /**
+     * @return digest of file B calculated by the primary algorithm, null if the digest tier was not evaluated
+     */
+    public String getDigestB() {
+        return digestsB.get(primaryAlgorithm);
+    }
+
+    /**
+     * @return all digests of file A including the primary one, empty if the digest tier was not evaluated
+     */
+    public Map<HashAlgorithm, String> getDigestsA() {
+        return Collections.unmodifiableMap(digestsA);
+    }
+
+    /**
+     * @return all digests of file B including the primary one, empty if the digest tier was not evaluated
+     */
+    public Map<HashAlgorithm, String> getDigestsB() {
+        return Collections.unmodifiableMap(digestsB);
+    }
+
+    /**
+     * @return offset of the first different byte, -1 if not known (the difference was not found by
+     * {@link ComparisonTier#BYTES})
+     */
+    public long getMismatchOffset() {
+        return mismatchOffset;
+    }
+
+    /**
+     * @return short name of the compared values, e.g. 'MD5'
+     */
+    public String getLabel() {
+        switch (decidingTier) {
+            case SIZE:
+                return "size";
+            case BYTES:
+                return "bytes";
+            case CRC32C:
+                return "CRC32C";
+            case DIGEST:
+                return primaryAlgorithm.getDisplayName();
+            default:
+                throw new IllegalStateException("Unknown comparison tier " + decidingTier);
+        }
+    }
+
+    /**
+     * @return description of the difference, e.g. 'MD5 checksums differ'
+     */
+    public String getDifference() {
+        switch (decidingTier) {
+            case SIZE:
+                return "File sizes differ";
+            case BYTES:
+                return "Files differ at offset " + mismatchOffset;
+            default:
+                return getLabel() + " checksums differ";
+        }
+    }
+
+    @Override
+    public String toString() {
+        return (equal ? "equal" : getDifference()) + " (A=" + valueA + ", B=" + valueB + ")";
+    }
+}
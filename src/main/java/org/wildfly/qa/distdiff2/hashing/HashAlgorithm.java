@@ -0,0 +1,109 @@
+package org.wildfly.qa.distdiff2.hashing;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Algorithms supported by {@link DigestEngine}.
+ */
+public enum HashAlgorithm {
+
+    MD5("MD5"),
+    SHA1("SHA-1"),
+    SHA256("SHA-256"),
+
+    /**
+     * Fast non-cryptographic 64-bit hash, see {@link Xxh64}
+     */
+    XXH64("XXH64"),
+
+    /**
+     * Hardware accelerated 32-bit checksum, used by {@link ComparisonTier#CRC32C}
+     */
+    CRC32C("CRC32C");
+
+    /**
+     * Default algorithm - MD5 for backward compatibility of the reports
+     */
+    public static final String DEFAULT = "md5";
+
+    private final String displayName;
+
+    HashAlgorithm(String displayName) {
+        this.displayName = displayName;
+    }
+
+    /**
+     * @return name of the algorithm used in the reports, e.g. 'SHA-256'
+     */
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * @return new instance of the hash function
+     */
+    Hasher newHasher() {
+        switch (this) {
+            case XXH64:
+                return new Xxh64();
+            case CRC32C:
+                return new Hasher.Crc32cHasher();
+            default:
+                try {
+                    return new Hasher.MessageDigestHasher(MessageDigest.getInstance(displayName));
+                } catch (NoSuchAlgorithmException e) {
+                    throw new IllegalStateException("Algorithm " + displayName + " is not supported by the JVM", e);
+                }
+        }
+    }
+
+    /**
+     * Finds algorithm by its name, either the enum constant name or the display name (case insensitive).
+     *
+     * @param name name of the algorithm, e.g. 'sha-256' or 'sha256'
+     * @return the algorithm
+     * @throws IllegalArgumentException if there is no such algorithm
+     */
+    public static HashAlgorithm forName(String name) {
+        String normalized = name.trim().toUpperCase(Locale.ENGLISH);
+        for (HashAlgorithm algorithm : values()) {
+            if (algorithm.name().equals(normalized) || algorithm.displayName.equals(normalized)) {
+                return algorithm;
+            }
+        }
+        throw new IllegalArgumentException("Unknown hash algorithm '" + name + "'");
+    }
+
+    /**
+     * Parses comma separated list of algorithms, e.g. 'md5,sha-256'. The order is preserved, duplicates are removed.
+     * {@link #CRC32C} is not accepted, it is calculated by the {@link ComparisonTier#CRC32C} tier only.
+     *
+     * @param value comma separated list of algorithm names
+     * @return list of algorithms, the first one is the primary algorithm
+     * @throws IllegalArgumentException if the list contains unknown algorithm, CRC32C or no algorithm at all
+     */
+    public static List<HashAlgorithm> parse(String value) {
+        Set<HashAlgorithm> algorithms = new LinkedHashSet<>();
+        if (value != null) {
+            for (String name : value.split(",")) {
+                if (!name.trim().isEmpty()) {
+                    HashAlgorithm algorithm = forName(name);
+                    if (algorithm == CRC32C) {
+                        throw new IllegalArgumentException("CRC32C is a comparison tier, not a hash algorithm");
+                    }
+                    algorithms.add(algorithm);
+                }
+            }
+        }
+        if (algorithms.isEmpty()) {
+            throw new IllegalArgumentException("At least one hash algorithm has to be specified");
+        }
+        return new ArrayList<>(algorithms);
+    }
+}
@@ -0,0 +1,272 @@
+package org.wildfly.qa.distdiff2.hashing;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+
+/**
+ * HashCache
+ * <p>
+ * Persistent cache of file digests shared by consecutive runs, similar to the git index. Entries are keyed by the
+ * real path (symbolic links resolved, so a file reached through different links has a single entry) and validated
+ * by the size, modification time and file key (inode) of the file, so an unchanged file costs a single
+ * <code>stat</code>. Digests of changed or unknown files are calculated by
+ * {@link DigestEngine} and remembered.
+ * <p>
+ * Files modified less than {@link #RACY_INTERVAL_MILLIS} before they were hashed are never cached - they could be
+ * modified again without changing their modification time (the "racily clean" problem of git).
+ * <p>
+ * Only entries used by the current run are saved, so entries of distributions which are not compared anymore do not
+ * pile up in the cache file. The cache is thread safe.
+ */
+public final class HashCache {
+
+    /**
+     * Name of the cache file in the cache directory
+     */
+    public static final String FILE_NAME = "dist-diff2-hash-cache.txt";
+
+    /**
+     * Files modified less than this interval before hashing are not cached
+     */
+    public static final long RACY_INTERVAL_MILLIS = 2000;
+
+    private static final Logger LOGGER = Logger.getLogger(HashCache.class.getName());
+
+    private static final String HEADER = "# dist-diff2 hash cache v1";
+
+    private final Path cacheFile;
+    private final Map<String, Entry> loaded = new ConcurrentHashMap<>();
+    private final Map<String, Entry> used = new ConcurrentHashMap<>();
+    private volatile boolean modified;
+
+    /**
+     * Creates in-memory cache which is never saved.
+     */
+    public HashCache() {
+        this(null);
+    }
+
+    /**
+     * Creates cache backed by given file, loads the file if it exists.
+     *
+     * @param cacheFile the cache file, null for in-memory cache
+     */
+    public HashCache(Path cacheFile) {
+        this.cacheFile = cacheFile;
+        if (cacheFile != null && Files.isRegularFile(cacheFile)) {
+            load();
+        }
+    }
+
+    /**
+     * @return the cache file, null for in-memory cache
+     */
+    public Path getCacheFile() {
+        return cacheFile;
+    }
+
+    /**
+     * Returns digest of a file, calculates it only if the file changed since it was cached.
+     *
+     * @param file      file to hash
+     * @param algorithm algorithm to use
+     * @return hexadecimal digest
+     * @throws IOException if the file cannot be read
+     */
+    public String digest(Path file, HashAlgorithm algorithm) throws IOException {
+        return digest(file, Collections.singleton(algorithm)).get(algorithm);
+    }
+
+    /**
+     * Returns digests of a file, calculates the missing ones (in a single read of the file) only if the file changed
+     * since it was cached or some of the digests were not cached yet.
+     *
+     * @param file       file to hash
+     * @param algorithms algorithms to use
+     * @return hexadecimal digests by algorithm
+     * @throws IOException if the file cannot be read
+     */
+    public Map<HashAlgorithm, String> digest(Path file, Collection<HashAlgorithm> algorithms) throws IOException {
+        String key = file.toRealPath().toString();
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        long size = attributes.size();
+        long modifiedNanos = attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+        String fileKey = String.valueOf(attributes.fileKey());
+
+        Entry entry = used.get(key);
+        if (entry == null) {
+            entry = loaded.get(key);
+        }
+        Map<HashAlgorithm, String> digests = new EnumMap<>(HashAlgorithm.class);
+        Set<HashAlgorithm> missing = EnumSet.noneOf(HashAlgorithm.class);
+        boolean valid = entry != null && entry.matches(size, modifiedNanos, fileKey);
+        for (HashAlgorithm algorithm : algorithms) {
+            String value = valid ? entry.digests.get(algorithm) : null;
+            if (value != null) {
+                digests.put(algorithm, value);
+            } else {
+                missing.add(algorithm);
+            }
+        }
+
+        if (missing.isEmpty()) {
+            used.putIfAbsent(key, entry);
+            return digests;
+        }
+
+        long hashingStarted = System.currentTimeMillis();
+        digests.putAll(DigestEngine.digest(file, missing));
+        if (modifiedNanos / 1_000_000 < hashingStarted - RACY_INTERVAL_MILLIS) {
+            Entry update = new Entry(size, modifiedNanos, fileKey, digests);
+            used.merge(key, update, Entry::merge);
+            modified = true;
+        }
+        return digests;
+    }
+
+    /**
+     * Saves entries used by this run to the cache file. Does nothing for in-memory cache or if nothing changed.
+     */
+    public void save() {
+        if (cacheFile == null || (!modified && used.keySet().equals(loaded.keySet()))) {
+            return;
+        }
+        try {
+            if (cacheFile.getParent() != null) {
+                Files.createDirectories(cacheFile.getParent());
+            }
+            Path temporary = Files.createTempFile(cacheFile.toAbsolutePath().getParent(), FILE_NAME, ".tmp");
+            try {
+                write(temporary);
+                try {
+                    Files.move(temporary, cacheFile, StandardCopyOption.REPLACE_EXISTING,
+                            StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temporary, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                // left behind only if the cache was not replaced
+                Files.deleteIfExists(temporary);
+            }
+            LOGGER.info("Saved " + used.size() + " entries to hash cache " + cacheFile);
+        } catch (IOException e) {
+            LOGGER.warn("Unable to save hash cache " + cacheFile + ": " + e.getMessage(), e);
+        }
+    }
+
+    private void write(Path temporary) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.newLine();
+            for (Map.Entry<String, Entry> entry : used.entrySet()) {
+                if (entry.getKey().indexOf('\n') < 0 && entry.getKey().indexOf('\r') < 0) {
+                    writer.write(entry.getValue().format(entry.getKey()));
+                    writer.newLine();
+                }
+            }
+        }
+    }
+
+    private void load() {
+        try (BufferedReader reader = Files.newBufferedReader(cacheFile, StandardCharsets.UTF_8)) {
+            String line = reader.readLine();
+            if (!HEADER.equals(line)) {
+                LOGGER.warn("Ignoring hash cache " + cacheFile + " with unknown format");
+                return;
+            }
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t", 5);
+                if (fields.length == 5) {
+                    try {
+                        loaded.put(fields[4], Entry.parse(fields));
+                    } catch (IllegalArgumentException e) {
+                        LOGGER.debug("Ignoring malformed hash cache entry: " + line);
+                    }
+                }
+            }
+            LOGGER.info("Loaded " + loaded.size() + " entries from hash cache " + cacheFile);
+        } catch (IOException e) {
+            LOGGER.warn("Unable to read hash cache " + cacheFile + ": " + e.getMessage(), e);
+            loaded.clear();
+        }
+    }
+
+    /**
+     * Cached digests of a file with the attributes the file had when it was hashed
+     */
+    private static final class Entry {
+        private final long size;
+        private final long modifiedNanos;
+        private final String fileKey;
+        private final Map<HashAlgorithm, String> digests;
+
+        Entry(long size, long modifiedNanos, String fileKey, Map<HashAlgorithm, String> digests) {
+            this.size = size;
+            this.modifiedNanos = modifiedNanos;
+            this.fileKey = fileKey;
+            this.digests = Collections.unmodifiableMap(new EnumMap<>(digests));
+        }
+
+        boolean matches(long size, long modifiedNanos, String fileKey) {
+            return this.size == size && this.modifiedNanos == modifiedNanos && this.fileKey.equals(fileKey);
+        }
+
+        /**
+         * Merges digests of two entries of the same file version, the newer entry wins otherwise.
+         */
+        static Entry merge(Entry older, Entry newer) {
+            if (!older.matches(newer.size, newer.modifiedNanos, newer.fileKey)) {
+                return newer;
+            }
+            Map<HashAlgorithm, String> digests = new EnumMap<>(HashAlgorithm.class);
+            digests.putAll(older.digests);
+            digests.putAll(newer.digests);
+            return new Entry(newer.size, newer.modifiedNanos, newer.fileKey, digests);
+        }
+
+        /**
+         * Format: size, modification time (ns), file key, digests (ALGORITHM=value separated by ';'), path
+         */
+        String format(String path) {
+            StringBuilder sb = new StringBuilder();
+            sb.append(size).append('\t').append(modifiedNanos).append('\t').append(fileKey).append('\t');
+            boolean first = true;
+            for (Map.Entry<HashAlgorithm, String> digest : digests.entrySet()) {
+                if (!first) {
+                    sb.append(';');
+                }
+                sb.append(digest.getKey().name()).append('=').append(digest.getValue());
+                first = false;
+            }
+            return sb.append('\t').append(path).toString();
+        }
+
+        static Entry parse(String[] fields) {
+            Map<HashAlgorithm, String> digests = new EnumMap<>(HashAlgorithm.class);
+            for (String digest : fields[3].split(";")) {
+                int separator = digest.indexOf('=');
+                if (separator > 0) {
+                    digests.put(HashAlgorithm.valueOf(digest.substring(0, separator)), digest.substring(separator + 1));
+                }
+            }
+            return new Entry(Long.parseLong(fields[0]), Long.parseLong(fields[1]), fields[2], digests);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package org.wildfly.qa.distdiff2.hashing;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * HashService
+ * <p>
+ * Run-scoped service calculating digests of files for all phases (see
+ * {@link org.wildfly.qa.distdiff2.configuration.DistDiff2Context#getHashService()}). Digests are memoized per path, so
+ * files are not read again no matter how many phases ask for them:
+ * <ul>
+ *   <li>The first lookup of a file calculates all algorithms the run needs (the configured hash algorithms and CRC32C
+ *       if the CRC32C comparison tier is enabled) in a single read, or takes them from the persistent
+ *       {@link HashCache}.</li>
+ *   <li>A lookup of CRC32C alone calculates just the checksum, the CRC32C tier is evaluated before the digests so
+ *       that different files are never digested. Equal files are then read once more for the digests.</li>
+ *   <li>Concurrent lookups of the same file wait for the first one instead of reading the file again.</li>
+ *   <li>Files are not expected to change during the run, memoized digests are not validated.</li>
+ * </ul>
+ */
+public final class HashService {
+
+    private static final Set<HashAlgorithm> CRC32C_ONLY = EnumSet.of(HashAlgorithm.CRC32C);
+
+    private final HashCache hashCache;
+    private final HashAlgorithm primaryAlgorithm;
+    private final Set<HashAlgorithm> runAlgorithms;
+    private final Map<Path, Future<Map<HashAlgorithm, String>>> digests = new ConcurrentHashMap<>();
+
+    /**
+     * @param hashCache      persistent cache of the digests
+     * @param hashAlgorithms configured hash algorithms, the first one is the primary one
+     * @param tiers          enabled comparison tiers
+     */
+    public HashService(HashCache hashCache, List<HashAlgorithm> hashAlgorithms, Set<ComparisonTier> tiers) {
+        this.hashCache = hashCache;
+        this.primaryAlgorithm = hashAlgorithms.get(0);
+        this.runAlgorithms = EnumSet.noneOf(HashAlgorithm.class);
+        if (tiers.contains(ComparisonTier.DIGEST)) {
+            runAlgorithms.addAll(hashAlgorithms);
+        }
+        if (tiers.contains(ComparisonTier.CRC32C)) {
+            runAlgorithms.add(HashAlgorithm.CRC32C);
+        }
+    }
+
+    /**
+     * @return algorithm used for checksums stored in the reports and compared by the phases
+     */
+    public HashAlgorithm getPrimaryAlgorithm() {
+        return primaryAlgorithm;
+    }
+
+    /**
+     * @return the persistent cache
+     */
+    public HashCache getHashCache() {
+        return hashCache;
+    }
+
+    /**
+     * Digest of a file calculated by the primary algorithm.
+     *
+     * @param file file to hash
+     * @return hexadecimal digest
+     * @throws IOException if the file cannot be read
+     */
+    public String digest(String file) throws IOException {
+        return digest(Paths.get(file), primaryAlgorithm);
+    }
+
+    /**
+     * Digest of a file calculated by given algorithm.
+     *
+     * @param file      file to hash
+     * @param algorithm algorithm to use
+     * @return hexadecimal digest
+     * @throws IOException if the file cannot be read
+     */
+    public String digest(Path file, HashAlgorithm algorithm) throws IOException {
+        return digests(file, Collections.singleton(algorithm)).get(algorithm);
+    }
+
+    /**
+     * Digests of a file calculated by given algorithms.
+     *
+     * @param file       file to hash
+     * @param algorithms algorithms to use
+     * @return hexadecimal digests by algorithm
+     * @throws IOException if the file cannot be read
+     */
+    public Map<HashAlgorithm, String> digests(Path file, Collection<HashAlgorithm> algorithms) throws IOException {
+        Path key = file.toAbsolutePath().normalize();
+        Set<HashAlgorithm> wanted = EnumSet.noneOf(HashAlgorithm.class);
+        wanted.addAll(algorithms);
+        if (!wanted.equals(CRC32C_ONLY)) {
+            wanted.addAll(runAlgorithms);
+        }
+        while (true) {
+            FutureTask<Map<HashAlgorithm, String>> task = new FutureTask<>(() -> hashCache.digest(key, wanted));
+            Future<Map<HashAlgorithm, String>> memoized = digests.putIfAbsent(key, task);
+            if (memoized == null) {
+                task.run();
+                memoized = task;
+            }
+            Map<HashAlgorithm, String> values;
+            try {
+                values = await(memoized);
+            } catch (IOException | RuntimeException e) {
+                digests.remove(key, memoized);
+                throw e;
+            }
+            if (values.keySet().containsAll(algorithms)) {
+                Map<HashAlgorithm, String> result = new EnumMap<>(HashAlgorithm.class);
+                for (HashAlgorithm algorithm : algorithms) {
+                    result.put(algorithm, values.get(algorithm));
+                }
+                return result;
+            }
+            // an algorithm the run does not need for every file, calculate it along with the memoized ones
+            wanted.addAll(values.keySet());
+            digests.remove(key, memoized);
+        }
+    }
+
+    /**
+     * Saves the persistent cache, to be called at the end of the run.
+     */
+    public void save() {
+        hashCache.save();
+    }
+
+    private static Map<HashAlgorithm, String> await(Future<Map<HashAlgorithm, String>> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            } else if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
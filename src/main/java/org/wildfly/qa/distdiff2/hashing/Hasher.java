@@ -0,0 +1,68 @@
+package org.wildfly.qa.distdiff2.hashing;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.zip.CRC32C;
+
+/**
+ * Streaming hash function used by {@link DigestEngine}. Instances are reused for many files but are never shared by
+ * threads.
+ */
+interface Hasher {
+
+    /**
+     * Updates the hash with the remaining bytes of the buffer, consumes them.
+     *
+     * @param buffer input bytes
+     */
+    void update(ByteBuffer buffer);
+
+    /**
+     * Completes the calculation and resets the hasher for the next file.
+     *
+     * @return the hash as fixed width lower case hexadecimal string
+     */
+    String finish();
+
+    /**
+     * Hasher backed by a JCA {@link MessageDigest}
+     */
+    final class MessageDigestHasher implements Hasher {
+
+        private final MessageDigest digest;
+
+        MessageDigestHasher(MessageDigest digest) {
+            this.digest = digest;
+        }
+
+        @Override
+        public void update(ByteBuffer buffer) {
+            digest.update(buffer);
+        }
+
+        @Override
+        public String finish() {
+            return Hex.encode(digest.digest());
+        }
+    }
+
+    /**
+     * Hasher backed by {@link CRC32C}
+     */
+    final class Crc32cHasher implements Hasher {
+
+        private final CRC32C crc = new CRC32C();
+
+        @Override
+        public void update(ByteBuffer buffer) {
+            crc.update(buffer);
+        }
+
+        @Override
+        public String finish() {
+            String value = Hex.encode(crc.getValue(), 4);
+            crc.reset();
+            return value;
+        }
+    }
+}
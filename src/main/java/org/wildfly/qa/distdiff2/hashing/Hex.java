@@ -0,0 +1,41 @@
+package org.wildfly.qa.distdiff2.hashing;
+
+/**
+ * Fixed width hexadecimal encoder - every byte is encoded to exactly two lower case characters.
+ */
+public final class Hex {
+
+    private static final char[] DIGITS = "0123456789abcdef".toCharArray();
+
+    private Hex() {
+    }
+
+    /**
+     * @param bytes bytes to encode
+     * @return hexadecimal string of length <code>2 * bytes.length</code>
+     */
+    public static String encode(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[2 * i] = DIGITS[(bytes[i] >> 4) & 0xF];
+            chars[2 * i + 1] = DIGITS[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Encodes the lowest bytes of a value in big-endian order.
+     *
+     * @param value value to encode
+     * @param bytes number of the lowest bytes of the value to encode (1-8)
+     * @return hexadecimal string of length <code>2 * bytes</code>
+     */
+    public static String encode(long value, int bytes) {
+        char[] chars = new char[bytes * 2];
+        for (int i = chars.length - 1; i >= 0; i--) {
+            chars[i] = DIGITS[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+        return new String(chars);
+    }
+}
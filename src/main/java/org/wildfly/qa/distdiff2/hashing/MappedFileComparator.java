@@ -0,0 +1,77 @@
+package org.wildfly.qa.distdiff2.hashing;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * MappedFileComparator
+ * <p>
+ * Compares content of two files byte by byte and stops at the first difference. Both files are memory-mapped in
+ * windows of {@link #WINDOW_SIZE} bytes and compared with {@link ByteBuffer#mismatch(ByteBuffer)},
+ * so files which differ early are not read to the end.
+ */
+public final class MappedFileComparator {
+
+    /**
+     * Number of bytes of each file mapped at once
+     */
+    public static final int WINDOW_SIZE = 64 * 1024 * 1024;
+
+    private MappedFileComparator() {
+    }
+
+    /**
+     * Finds the first byte which differs in given files.
+     *
+     * @param fileA file from distribution A
+     * @param fileB file from distribution B
+     * @return offset of the first different byte, -1 if the files are equal. If one file is a prefix of the other one,
+     * the length of the shorter file is returned.
+     * @throws IOException if any of the files cannot be read
+     */
+    public static long mismatch(Path fileA, Path fileB) throws IOException {
+        return mismatch(fileA, fileB, WINDOW_SIZE);
+    }
+
+    static long mismatch(Path fileA, Path fileB, int windowSize) throws IOException {
+        try (FileChannel channelA = FileChannel.open(fileA, StandardOpenOption.READ);
+             FileChannel channelB = FileChannel.open(fileB, StandardOpenOption.READ)) {
+            long sizeA = channelA.size();
+            long sizeB = channelB.size();
+            long size = Math.min(sizeA, sizeB);
+            for (long position = 0; position < size; position += windowSize) {
+                long length = Math.min(windowSize, size - position);
+                MappedByteBuffer windowA = channelA.map(FileChannel.MapMode.READ_ONLY, position, length);
+                MappedByteBuffer windowB = channelB.map(FileChannel.MapMode.READ_ONLY, position, length);
+                int mismatch = windowA.mismatch(windowB);
+                if (mismatch >= 0) {
+                    return position + mismatch;
+                }
+            }
+            return (sizeA == sizeB) ? -1 : size;
+        }
+    }
+
+    /**
+     * Reads a single byte of a file.
+     *
+     * @param file     file to read
+     * @param position offset of the byte
+     * @return value of the byte (0-255), -1 if the position is at or after the end of the file
+     * @throws IOException if the file cannot be read
+     */
+    static int byteAt(Path file, long position) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (position >= channel.size()) {
+                return -1;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(1);
+            channel.read(buffer, position);
+            return buffer.get(0) & 0xFF;
+        }
+    }
+}
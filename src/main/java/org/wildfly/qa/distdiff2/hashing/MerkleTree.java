@@ -0,0 +1,250 @@
+package org.wildfly.qa.distdiff2.hashing;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.log4j.Logger;
+import org.wildfly.qa.distdiff2.artifacts.Artifact;
+import org.wildfly.qa.distdiff2.artifacts.FileArtifact;
+import org.wildfly.qa.distdiff2.artifacts.FileDigest;
+import org.wildfly.qa.distdiff2.artifacts.FolderArtifact;
+import org.wildfly.qa.distdiff2.results.Status;
+
+/**
+ * MerkleTree
+ * <p>
+ * Bottom-up digests of folders of the compared distributions. Digest of a file is its checksum by the primary hash
+ * algorithm, digest of a folder is {@link #FOLDER_ALGORITHM} of the list of its items sorted by name - type, digest and
+ * name of each item. Folders with the same digest have the same content, so a whole subtree is decided by comparing
+ * two digests:
+ * <ul>
+ *   <li>{@link #build(List)} runs right after the scan, artifacts of folders with the same digest in both
+ *       distributions are marked as {@link Artifact#isInIdenticalSubtree() identical} and the content comparison
+ *       phases skip them.</li>
+ *   <li>Only files present in both distributions with the same size are hashed - the tiered comparison would hash
+ *       them anyway and the digests are memoized by the {@link HashService}. Folders with other items differ for sure
+ *       and get no digest.</li>
+ *   <li>{@link #digest(File, HashService, String)} calculates the same digest of a directory straight from the file
+ *       system.</li>
+ * </ul>
+ */
+public final class MerkleTree {
+
+    /**
+     * Algorithm of the folder digests
+     */
+    public static final HashAlgorithm FOLDER_ALGORITHM = HashAlgorithm.SHA256;
+
+    private static final Logger LOGGER = Logger.getLogger(MerkleTree.class.getName());
+
+    private static final char FILE = 'F';
+    private static final char FOLDER = 'D';
+
+    private final HashService hashService;
+    private final List<HashAlgorithm> hashAlgorithms;
+    private final int threads;
+
+    /**
+     * @param hashService    service providing digests of the files
+     * @param hashAlgorithms configured hash algorithms, digests of files in identical folders are stored by all of them
+     * @param threads        number of threads hashing the files
+     */
+    public MerkleTree(HashService hashService, List<HashAlgorithm> hashAlgorithms, int threads) {
+        this.hashService = hashService;
+        this.hashAlgorithms = hashAlgorithms;
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Calculates digests of all folders present in both distributions and marks artifacts of the identical ones.
+     * Checksums of files in identical folders are stored on the artifacts the same way the MD5 sums phase would do.
+     *
+     * @param artifacts merged artifacts of both distributions
+     * @return number of artifacts in identical folders
+     */
+    public int build(List<Artifact> artifacts) {
+        Map<String, List<Artifact>> items = new HashMap<>();
+        List<FolderArtifact> folders = new ArrayList<>();
+        for (Artifact artifact : artifacts) {
+            items.computeIfAbsent(artifact.getParentRelativePath(), key -> new ArrayList<>()).add(artifact);
+            if (artifact instanceof FolderArtifact && isInBoth(artifact)) {
+                folders.add((FolderArtifact) artifact);
+            }
+        }
+        Map<Artifact, String[]> leaves = hashLeaves(artifacts);
+
+        // the deepest folders first, digests of all sub-folders are known then
+        folders.sort(Comparator.comparingInt(Artifact::getLevel).reversed());
+        Set<String> identicalFolders = new HashSet<>();
+        for (FolderArtifact folder : folders) {
+            SortedMap<String, String> entriesA = new TreeMap<>();
+            SortedMap<String, String> entriesB = new TreeMap<>();
+            boolean comparable = true;
+            for (Artifact item : items.getOrDefault(folder.getRelativePath(), Collections.<Artifact>emptyList())) {
+                String[] digests = (item instanceof FolderArtifact)
+                        ? new String[]{((FolderArtifact) item).getDigestA(), ((FolderArtifact) item).getDigestB()}
+                        : leaves.get(item);
+                if (digests == null || digests[0] == null || digests[1] == null) {
+                    comparable = false;
+                    break;
+                }
+                char type = (item instanceof FolderArtifact) ? FOLDER : FILE;
+                entriesA.put(item.getName(), type + digests[0]);
+                entriesB.put(item.getName(), type + digests[1]);
+            }
+            if (comparable) {
+                folder.setDigestA(folderDigest(entriesA));
+                folder.setDigestB(folderDigest(entriesB));
+                if (folder.getDigestA().equals(folder.getDigestB())) {
+                    identicalFolders.add(folder.getRelativePath());
+                }
+            }
+        }
+
+        // sub-folders of an identical folder are identical too, the parent folder decides for files
+        int identical = 0;
+        for (Artifact artifact : artifacts) {
+            if (identicalFolders.contains(artifact.getRelativePath())
+                    || identicalFolders.contains(artifact.getParentRelativePath())) {
+                artifact.setInIdenticalSubtree(true);
+                if (artifact instanceof FileArtifact) {
+                    storeDigests((FileArtifact) artifact);
+                }
+                identical++;
+            }
+        }
+        LOGGER.debug(identicalFolders.size() + " folders are identical in both distributions");
+        return identical;
+    }
+
+    /**
+     * Calculates Merkle tree digest of a directory from the file system.
+     *
+     * @param directory    directory to hash
+     * @param hashService  service providing the file digests, null to calculate MD5 sums
+     * @param excludedName name of a direct item of the directory left out from the digest, null to hash all items
+     * @return hexadecimal digest
+     * @throws IOException if the directory or any file in it cannot be read
+     */
+    public static String digest(File directory, HashService hashService, String excludedName) throws IOException {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            throw new IOException("Cannot list directory " + directory.getAbsolutePath());
+        }
+        SortedMap<String, String> entries = new TreeMap<>();
+        for (File file : files) {
+            if (file.getName().equals(excludedName)) {
+                continue;
+            }
+            if (file.isDirectory()) {
+                entries.put(file.getName(), FOLDER + digest(file, hashService, null));
+            } else {
+                String digest = (hashService != null) ? hashService.digest(file.getAbsolutePath())
+                        : DigestEngine.digest(file.toPath(), HashAlgorithm.MD5);
+                entries.put(file.getName(), FILE + digest);
+            }
+        }
+        return folderDigest(entries);
+    }
+
+    /**
+     * @param entries type and digest of the items by name
+     * @return digest of the folder
+     */
+    static String folderDigest(SortedMap<String, String> entries) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(FOLDER_ALGORITHM.getDisplayName());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            digest.update((entry.getValue() + ' ' + entry.getKey() + '\n').getBytes(StandardCharsets.UTF_8));
+        }
+        return Hex.encode(digest.digest());
+    }
+
+    private static boolean isInBoth(Artifact artifact) {
+        return artifact.getStatus() == Status.SAME && artifact.getPathA() != null && artifact.getPathB() != null;
+    }
+
+    /**
+     * Hashes copies of files present in both distributions with the same size by a pool of worker threads.
+     *
+     * @return primary digests of A and B by artifact, files which could not be read are left out
+     */
+    private Map<Artifact, String[]> hashLeaves(List<Artifact> artifacts) {
+        Map<Artifact, Future<String[]>> pending = new IdentityHashMap<>();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (Artifact artifact : artifacts) {
+                if (artifact instanceof FileArtifact && isInBoth(artifact)
+                        && ((FileArtifact) artifact).getSize() == ((FileArtifact) artifact).getSizeB()) {
+                    pending.put(artifact, executor.submit(() -> new String[]{
+                            hashService.digest(artifact.getPathA()), hashService.digest(artifact.getPathB())}));
+                }
+            }
+            Map<Artifact, String[]> leaves = new IdentityHashMap<>();
+            for (Map.Entry<Artifact, Future<String[]>> entry : pending.entrySet()) {
+                try {
+                    leaves.put(entry.getKey(), entry.getValue().get());
+                } catch (ExecutionException e) {
+                    // the comparison phases report the file
+                    LOGGER.debug("Cannot hash '" + entry.getKey().getRelativePath() + "': " + e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(e);
+                }
+            }
+            return leaves;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Stores the checksum and the additional digests of a file with the same content in both distributions, the
+     * digests are memoized already.
+     */
+    private void storeDigests(FileArtifact file) {
+        Path path = Paths.get(file.getPathA());
+        try {
+            Map<HashAlgorithm, String> digests = hashService.digests(path, hashAlgorithms);
+            List<FileDigest> additional = null;
+            for (Map.Entry<HashAlgorithm, String> digest : digests.entrySet()) {
+                if (digest.getKey() == hashService.getPrimaryAlgorithm()) {
+                    file.setMd5sum(digest.getValue());
+                } else {
+                    if (additional == null) {
+                        additional = new ArrayList<>();
+                    }
+                    additional.add(new FileDigest(digest.getKey().getDisplayName(), digest.getValue(),
+                            digest.getValue()));
+                }
+            }
+            file.setDigests(additional);
+        } catch (IOException e) {
+            LOGGER.debug("Cannot hash '" + file.getRelativePath() + "': " + e.getMessage());
+        }
+    }
+}
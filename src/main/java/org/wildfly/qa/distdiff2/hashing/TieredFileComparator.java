@@ -0,0 +1,133 @@
+package org.wildfly.qa.distdiff2.hashing;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * TieredFileComparator
+ * <p>
+ * Decides whether two files are equal using the cheapest sufficient evidence. File sizes are compared first (they are
+ * known from the distribution scan), then the content is compared byte by byte (stops at the first difference), then
+ * CRC32C checksums are compared and finally the full digests, which are also the checksums stored in the report.
+ * <p>
+ * The CRC32C tier reads the files for the checksums only, the digests are calculated just for files with equal
+ * checksums. That saves the digests of different files, but equal files are read twice, so the CRC32C tier pays off
+ * as a cheap replacement of the {@link ComparisonTier#DIGEST} tier rather than in front of it. All the digests are
+ * calculated by {@link DigestEngine} in a single read of each file, usually through the {@link HashService} of the
+ * run. Instances are stateless and can be shared by worker threads.
+ */
+public final class TieredFileComparator {
+
+    private static final List<HashAlgorithm> CRC32C_ONLY = Collections.singletonList(HashAlgorithm.CRC32C);
+
+    private final Set<ComparisonTier> tiers;
+    private final List<HashAlgorithm> digestAlgorithms;
+    private final HashService hashService;
+
+    /**
+     * @param tiers enabled tiers, must not be empty
+     */
+    public TieredFileComparator(Set<ComparisonTier> tiers) {
+        this(tiers, Collections.singletonList(HashAlgorithm.MD5), null);
+    }
+
+    /**
+     * @param tiers            enabled tiers, must not be empty
+     * @param digestAlgorithms algorithms used by the {@link ComparisonTier#DIGEST} tier, the first one is compared
+     * @param hashService      service providing the checksums and digests, null to always calculate them
+     */
+    public TieredFileComparator(Set<ComparisonTier> tiers, List<HashAlgorithm> digestAlgorithms,
+                                HashService hashService) {
+        if (tiers == null || tiers.isEmpty()) {
+            throw new IllegalArgumentException("At least one comparison tier has to be enabled");
+        }
+        if (digestAlgorithms == null || digestAlgorithms.isEmpty()) {
+            throw new IllegalArgumentException("At least one hash algorithm has to be enabled");
+        }
+        this.tiers = EnumSet.copyOf(tiers);
+        this.digestAlgorithms = new ArrayList<>(digestAlgorithms);
+        this.hashService = hashService;
+    }
+
+    /**
+     * Compares two files.
+     *
+     * @param pathA path to the file from distribution A
+     * @param sizeA size of the file A, negative if not known
+     * @param pathB path to the file from distribution B
+     * @param sizeB size of the file B, negative if not known
+     * @return result of the comparison
+     * @throws IOException if any of the files cannot be read
+     */
+    public FileComparison compare(String pathA, long sizeA, String pathB, long sizeB) throws IOException {
+        Path fileA = Paths.get(pathA);
+        Path fileB = Paths.get(pathB);
+        ComparisonTier lastTier = null;
+        String lastValue = null;
+
+        if (tiers.contains(ComparisonTier.SIZE)) {
+            long a = (sizeA < 0) ? Files.size(fileA) : sizeA;
+            long b = (sizeB < 0) ? Files.size(fileB) : sizeB;
+            if (a != b) {
+                return new FileComparison(false, ComparisonTier.SIZE, String.valueOf(a), String.valueOf(b));
+            }
+            lastTier = ComparisonTier.SIZE;
+            lastValue = String.valueOf(a);
+        }
+
+        if (tiers.contains(ComparisonTier.BYTES)) {
+            long mismatch = MappedFileComparator.mismatch(fileA, fileB);
+            if (mismatch >= 0) {
+                return new FileComparison(byteToString(MappedFileComparator.byteAt(fileA, mismatch)),
+                        byteToString(MappedFileComparator.byteAt(fileB, mismatch)), mismatch);
+            }
+            lastTier = ComparisonTier.BYTES;
+            lastValue = "equal";
+        }
+
+        boolean crc = tiers.contains(ComparisonTier.CRC32C);
+        boolean digest = tiers.contains(ComparisonTier.DIGEST);
+        if (!crc && !digest) {
+            return new FileComparison(true, lastTier, lastValue, lastValue);
+        }
+
+        if (crc) {
+            String crcA = digest(fileA, CRC32C_ONLY).get(HashAlgorithm.CRC32C);
+            String crcB = digest(fileB, CRC32C_ONLY).get(HashAlgorithm.CRC32C);
+            if (!crcA.equals(crcB)) {
+                return new FileComparison(false, ComparisonTier.CRC32C, crcA, crcB);
+            }
+            lastTier = ComparisonTier.CRC32C;
+            lastValue = crcA;
+        }
+        if (digest) {
+            HashAlgorithm primary = digestAlgorithms.get(0);
+            Map<HashAlgorithm, String> digestsA = digest(fileA, digestAlgorithms);
+            Map<HashAlgorithm, String> digestsB = digest(fileB, digestAlgorithms);
+            String digestA = digestsA.get(primary);
+            String digestB = digestsB.get(primary);
+            return new FileComparison(digestA.equals(digestB), ComparisonTier.DIGEST, digestA, digestB, primary,
+                    digestsA, digestsB);
+        }
+        return new FileComparison(true, lastTier, lastValue, lastValue);
+    }
+
+    private Map<HashAlgorithm, String> digest(Path file, List<HashAlgorithm> algorithms) throws IOException {
+        return (hashService != null) ? hashService.digests(file, algorithms) : DigestEngine.digest(file, algorithms);
+    }
+
+    /**
+     * @return hexadecimal value of the byte or 'EOF' after the end of the file
+     */
+    private static String byteToString(int value) {
+        return (value < 0) ? "EOF" : String.format("0x%02x", value);
+    }
+}
@@ -0,0 +1,137 @@
+package org.wildfly.qa.distdiff2.hashing;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Streaming implementation of the xxHash64 algorithm (seed 0), a fast non-cryptographic 64-bit hash. Input is
+ * processed in 32 bytes long stripes, up to 31 bytes which do not form a whole stripe are kept for the next update.
+ */
+final class Xxh64 implements Hasher {
+
+    private static final long PRIME1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME3 = 0x165667B19E3779F9L;
+    private static final long PRIME4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME5 = 0x27D4EB2F165667C5L;
+
+    private static final int STRIPE = 32;
+
+    private final byte[] memory = new byte[STRIPE];
+    private final ByteBuffer memoryBuffer = ByteBuffer.wrap(memory).order(ByteOrder.LITTLE_ENDIAN);
+    private int memorySize;
+    private long totalLength;
+    private long v1;
+    private long v2;
+    private long v3;
+    private long v4;
+
+    Xxh64() {
+        reset();
+    }
+
+    private void reset() {
+        memorySize = 0;
+        totalLength = 0;
+        v1 = PRIME1 + PRIME2;
+        v2 = PRIME2;
+        v3 = 0;
+        v4 = -PRIME1;
+    }
+
+    @Override
+    public void update(ByteBuffer buffer) {
+        ByteOrder order = buffer.order();
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        int length = buffer.remaining();
+        totalLength += length;
+
+        if (memorySize + length < STRIPE) {
+            buffer.get(memory, memorySize, length);
+            memorySize += length;
+            buffer.order(order);
+            return;
+        }
+
+        if (memorySize > 0) {
+            buffer.get(memory, memorySize, STRIPE - memorySize);
+            processStripe(memoryBuffer, 0);
+            memorySize = 0;
+        }
+
+        int position = buffer.position();
+        int limit = buffer.limit();
+        while (position + STRIPE <= limit) {
+            processStripe(buffer, position);
+            position += STRIPE;
+        }
+        buffer.position(position);
+
+        memorySize = limit - position;
+        buffer.get(memory, 0, memorySize);
+        buffer.order(order);
+    }
+
+    private void processStripe(ByteBuffer buffer, int position) {
+        v1 = round(v1, buffer.getLong(position));
+        v2 = round(v2, buffer.getLong(position + 8));
+        v3 = round(v3, buffer.getLong(position + 16));
+        v4 = round(v4, buffer.getLong(position + 24));
+    }
+
+    /**
+     * @return the hash of all bytes passed since the last reset
+     */
+    long getValue() {
+        long hash;
+        if (totalLength >= STRIPE) {
+            hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            hash = mergeRound(hash, v1);
+            hash = mergeRound(hash, v2);
+            hash = mergeRound(hash, v3);
+            hash = mergeRound(hash, v4);
+        } else {
+            hash = PRIME5;
+        }
+        hash += totalLength;
+
+        int i = 0;
+        while (i + 8 <= memorySize) {
+            hash ^= round(0, memoryBuffer.getLong(i));
+            hash = Long.rotateLeft(hash, 27) * PRIME1 + PRIME4;
+            i += 8;
+        }
+        if (i + 4 <= memorySize) {
+            hash ^= (memoryBuffer.getInt(i) & 0xFFFFFFFFL) * PRIME1;
+            hash = Long.rotateLeft(hash, 23) * PRIME2 + PRIME3;
+            i += 4;
+        }
+        while (i < memorySize) {
+            hash ^= (memory[i] & 0xFF) * PRIME5;
+            hash = Long.rotateLeft(hash, 11) * PRIME1;
+            i++;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= PRIME2;
+        hash ^= hash >>> 29;
+        hash *= PRIME3;
+        hash ^= hash >>> 32;
+        return hash;
+    }
+
+    @Override
+    public String finish() {
+        String value = Hex.encode(getValue(), 8);
+        reset();
+        return value;
+    }
+
+    private static long round(long accumulator, long input) {
+        return Long.rotateLeft(accumulator + input * PRIME2, 31) * PRIME1;
+    }
+
+    private static long mergeRound(long accumulator, long value) {
+        return (accumulator ^ round(0, value)) * PRIME1 + PRIME4;
+    }
+}
@@ -0,0 +1,319 @@
+package org.wildfly.qa.distdiff2.jardiff;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Normalized listing of a method body, similar to the output of <code>javap -c</code>.
+ * <p>
+ * The listing does not depend on anything but the code itself:
+ * <ul>
+ *   <li>constant pool references are resolved to symbolic values (see {@link ConstantPool#constant(int)}), so the
+ *       order of the constant pool does not matter,</li>
+ *   <li>branch targets are relative numbers of instructions (<code>goto -12</code>) instead of offsets, so an
+ *       inserted instruction changes only the branches over it; exception handlers are ranges of instruction
+ *       numbers,</li>
+ *   <li><code>ldc_w</code> is listed as <code>ldc</code>, as it differs only in the width of the constant pool
+ *       index,</li>
+ *   <li>attributes of the code (<code>LineNumberTable</code>, <code>LocalVariableTable</code>,
+ *       <code>StackMapTable</code> etc.) are left out, so recompilation with a different debug info or line numbers
+ *       does not change the listing.</li>
+ * </ul>
+ * Two method bodies are the same if their listings are the same.
+ *
+ * @see ClassFileInfo.Member#getListing()
+ */
+final class Bytecode {
+
+    private static final String[] MNEMONICS = ("nop aconst_null iconst_m1 iconst_0 iconst_1 iconst_2 iconst_3 iconst_4"
+            + " iconst_5 lconst_0 lconst_1 fconst_0 fconst_1 fconst_2 dconst_0 dconst_1 bipush sipush ldc ldc_w ldc2_w"
+            + " iload lload fload dload aload iload_0 iload_1 iload_2 iload_3 lload_0 lload_1 lload_2 lload_3 fload_0"
+            + " fload_1 fload_2 fload_3 dload_0 dload_1 dload_2 dload_3 aload_0 aload_1 aload_2 aload_3 iaload laload"
+            + " faload daload aaload baload caload saload istore lstore fstore dstore astore istore_0 istore_1 istore_2"
+            + " istore_3 lstore_0 lstore_1 lstore_2 lstore_3 fstore_0 fstore_1 fstore_2 fstore_3 dstore_0 dstore_1"
+            + " dstore_2 dstore_3 astore_0 astore_1 astore_2 astore_3 iastore lastore fastore dastore aastore bastore"
+            + " castore sastore pop pop2 dup dup_x1 dup_x2 dup2 dup2_x1 dup2_x2 swap iadd ladd fadd dadd isub lsub fsub"
+            + " dsub imul lmul fmul dmul idiv ldiv fdiv ddiv irem lrem frem drem ineg lneg fneg dneg ishl lshl ishr lshr"
+            + " iushr lushr iand land ior lor ixor lxor iinc i2l i2f i2d l2i l2f l2d f2i f2l f2d d2i d2l d2f i2b i2c i2s"
+            + " lcmp fcmpl fcmpg dcmpl dcmpg ifeq ifne iflt ifge ifgt ifle if_icmpeq if_icmpne if_icmplt if_icmpge"
+            + " if_icmpgt if_icmple if_acmpeq if_acmpne goto jsr ret tableswitch lookupswitch ireturn lreturn freturn"
+            + " dreturn areturn return getstatic putstatic getfield putfield invokevirtual invokespecial invokestatic"
+            + " invokeinterface invokedynamic new newarray anewarray arraylength athrow checkcast instanceof monitorenter"
+            + " monitorexit wide multianewarray ifnull ifnonnull goto_w jsr_w").split(" ");
+
+    private static final int BIPUSH = 0x10;
+    private static final int SIPUSH = 0x11;
+    private static final int LDC = 0x12;
+    private static final int LDC_W = 0x13;
+    private static final int LDC2_W = 0x14;
+    private static final int ILOAD = 0x15;
+    private static final int ALOAD = 0x19;
+    private static final int ISTORE = 0x36;
+    private static final int ASTORE = 0x3a;
+    private static final int IINC = 0x84;
+    private static final int IFEQ = 0x99;
+    private static final int JSR = 0xa8;
+    private static final int RET = 0xa9;
+    private static final int TABLESWITCH = 0xaa;
+    private static final int LOOKUPSWITCH = 0xab;
+    private static final int GETSTATIC = 0xb2;
+    private static final int INVOKESTATIC = 0xb8;
+    private static final int INVOKEINTERFACE = 0xb9;
+    private static final int INVOKEDYNAMIC = 0xba;
+    private static final int NEW = 0xbb;
+    private static final int NEWARRAY = 0xbc;
+    private static final int ANEWARRAY = 0xbd;
+    private static final int CHECKCAST = 0xc0;
+    private static final int INSTANCEOF = 0xc1;
+    private static final int WIDE = 0xc4;
+    private static final int MULTIANEWARRAY = 0xc5;
+    private static final int IFNULL = 0xc6;
+    private static final int IFNONNULL = 0xc7;
+    private static final int GOTO_W = 0xc8;
+    private static final int JSR_W = 0xc9;
+
+    private static final String[] ARRAY_TYPES = {null, null, null, null, "boolean", "char", "float", "double", "byte",
+            "short", "int", "long"};
+
+    private final ConstantPool pool;
+    private final int codeStart;
+    private final int codeEnd;
+    // number of the instruction at each offset of the code, -1 inside instructions, assigned by the first pass
+    private final int[] instructions;
+    private StringBuilder builder;
+
+    private Bytecode(ConstantPool pool, int codeAttribute) throws IOException {
+        this.pool = pool;
+        // max_stack, max_locals, code_length
+        this.codeStart = codeAttribute + 8;
+        int codeLength = pool.s4(codeAttribute + 4);
+        // the code and the length of the exception table have to fit the attribute
+        if (codeLength < 0 || (long) codeStart + codeLength + 2 > (long) codeAttribute + pool.s4(codeAttribute - 4)) {
+            throw new IOException("Code of " + codeLength + " bytes does not fit the Code attribute");
+        }
+        this.codeEnd = codeStart + codeLength;
+        this.instructions = new int[codeEnd - codeStart + 1];
+        Arrays.fill(instructions, -1);
+    }
+
+    /**
+     * @param pool          constant pool of the class
+     * @param codeAttribute offset of the content of the <code>Code</code> attribute
+     * @return listing of the code, one instruction per line
+     * @throws IOException if the Code attribute is truncated or malformed
+     */
+    static String listing(ConstantPool pool, int codeAttribute) throws IOException {
+        try {
+            Bytecode bytecode = new Bytecode(pool, codeAttribute);
+            bytecode.walk();
+            bytecode.builder = new StringBuilder();
+            bytecode.walk();
+            return bytecode.builder.toString();
+        } catch (ArrayIndexOutOfBoundsException | StringIndexOutOfBoundsException e) {
+            throw new IOException("Truncated or malformed Code attribute", e);
+        }
+    }
+
+    /**
+     * Compares two listings line by line. Only the differing lines are kept, prefixed by '-' for the lines of the
+     * original listing and '+' for the lines of the new one, with a '@@' line between non-adjacent hunks.
+     *
+     * @return compact diff of the listings
+     */
+    static String diff(String original, String revised) {
+        String[] a = original.split("\n");
+        String[] b = revised.split("\n");
+        int prefix = 0;
+        while (prefix < a.length && prefix < b.length && a[prefix].equals(b[prefix])) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < a.length - prefix && suffix < b.length - prefix
+                && a[a.length - 1 - suffix].equals(b[b.length - 1 - suffix])) {
+            suffix++;
+        }
+        int n = a.length - prefix - suffix;
+        int m = b.length - prefix - suffix;
+        List<String> lines = new ArrayList<>();
+        if ((long) n * m > 1_000_000) {
+            // too long for the LCS, the whole changed part is listed
+            for (int i = 0; i < n; i++) {
+                lines.add("- " + a[prefix + i]);
+            }
+            for (int j = 0; j < m; j++) {
+                lines.add("+ " + b[prefix + j]);
+            }
+            return String.join("\n", lines);
+        }
+        // longest common subsequence of the changed part
+        int[][] lcs = new int[n + 1][m + 1];
+        for (int i = n - 1; i >= 0; i--) {
+            for (int j = m - 1; j >= 0; j--) {
+                lcs[i][j] = a[prefix + i].equals(b[prefix + j])
+                        ? lcs[i + 1][j + 1] + 1 : Math.max(lcs[i + 1][j], lcs[i][j + 1]);
+            }
+        }
+        int i = 0;
+        int j = 0;
+        boolean common = false;
+        while (i < n || j < m) {
+            if (i < n && j < m && a[prefix + i].equals(b[prefix + j])) {
+                common = true;
+                i++;
+                j++;
+                continue;
+            }
+            if (common) {
+                lines.add("@@");
+                common = false;
+            }
+            if (j >= m || (i < n && lcs[i + 1][j] >= lcs[i][j + 1])) {
+                lines.add("- " + a[prefix + i++]);
+            } else {
+                lines.add("+ " + b[prefix + j++]);
+            }
+        }
+        return String.join("\n", lines);
+    }
+
+    /**
+     * Decodes all instructions, numbers them if there is no builder yet, appends the listing otherwise.
+     */
+    private void walk() {
+        int position = codeStart;
+        int number = 0;
+        while (position < codeEnd) {
+            if (builder == null) {
+                instructions[position - codeStart] = number++;
+            }
+            position = instruction(position);
+        }
+        // end of the last exception range
+        instructions[codeEnd - codeStart] = number;
+        int exceptions = pool.u2(codeEnd);
+        for (int i = 0; i < exceptions; i++) {
+            int entry = codeEnd + 2 + 8 * i;
+            int catchType = pool.u2(entry + 6);
+            line("try", instructions[pool.u2(entry)] + " " + instructions[pool.u2(entry + 2)] + " "
+                    + instructions[pool.u2(entry + 4)] + " " + (catchType == 0 ? "any" : constant(catchType)));
+        }
+    }
+
+    /**
+     * @return position of the next instruction
+     */
+    private int instruction(int position) {
+        int offset = position - codeStart;
+        int opcode = pool.u1(position);
+        String mnemonic = (opcode < MNEMONICS.length) ? MNEMONICS[opcode] : "opcode_" + opcode;
+        if (opcode == BIPUSH) {
+            line(mnemonic, String.valueOf((byte) pool.u1(position + 1)));
+            return position + 2;
+        } else if (opcode == SIPUSH) {
+            line(mnemonic, String.valueOf((short) pool.u2(position + 1)));
+            return position + 3;
+        } else if (opcode == LDC) {
+            line(mnemonic, constant(pool.u1(position + 1)));
+            return position + 2;
+        } else if (opcode == LDC_W) {
+            line(MNEMONICS[LDC], constant(pool.u2(position + 1)));
+            return position + 3;
+        } else if (opcode == LDC2_W) {
+            line(mnemonic, constant(pool.u2(position + 1)));
+            return position + 3;
+        } else if ((opcode >= ILOAD && opcode <= ALOAD) || (opcode >= ISTORE && opcode <= ASTORE) || opcode == RET) {
+            line(mnemonic, String.valueOf(pool.u1(position + 1)));
+            return position + 2;
+        } else if (opcode == IINC) {
+            line(mnemonic, pool.u1(position + 1) + " " + (byte) pool.u1(position + 2));
+            return position + 3;
+        } else if ((opcode >= IFEQ && opcode <= JSR) || opcode == IFNULL || opcode == IFNONNULL) {
+            line(mnemonic, target(offset, (short) pool.u2(position + 1)));
+            return position + 3;
+        } else if (opcode == GOTO_W || opcode == JSR_W) {
+            line(mnemonic, target(offset, pool.s4(position + 1)));
+            return position + 5;
+        } else if (opcode == TABLESWITCH || opcode == LOOKUPSWITCH) {
+            return switchInstruction(position, opcode, mnemonic);
+        } else if ((opcode >= GETSTATIC && opcode <= INVOKESTATIC) || opcode == NEW || opcode == ANEWARRAY
+                || opcode == CHECKCAST || opcode == INSTANCEOF) {
+            line(mnemonic, constant(pool.u2(position + 1)));
+            return position + 3;
+        } else if (opcode == INVOKEINTERFACE || opcode == INVOKEDYNAMIC) {
+            line(mnemonic, constant(pool.u2(position + 1)));
+            return position + 5;
+        } else if (opcode == NEWARRAY) {
+            int type = pool.u1(position + 1);
+            line(mnemonic, (type < ARRAY_TYPES.length && ARRAY_TYPES[type] != null) ? ARRAY_TYPES[type]
+                    : String.valueOf(type));
+            return position + 2;
+        } else if (opcode == MULTIANEWARRAY) {
+            line(mnemonic, constant(pool.u2(position + 1)) + " " + pool.u1(position + 3));
+            return position + 4;
+        } else if (opcode == WIDE) {
+            int modified = pool.u1(position + 1);
+            if (modified == IINC) {
+                line(MNEMONICS[modified], pool.u2(position + 2) + " " + (short) pool.u2(position + 4));
+                return position + 6;
+            }
+            line(MNEMONICS[modified], String.valueOf(pool.u2(position + 2)));
+            return position + 4;
+        }
+        line(mnemonic, null);
+        return position + 1;
+    }
+
+    private int switchInstruction(int position, int opcode, String mnemonic) {
+        int offset = position - codeStart;
+        // the operands are aligned to four bytes from the start of the code
+        int operands = codeStart + ((offset + 4) & ~3);
+        StringBuilder operand = new StringBuilder("{ ");
+        int end;
+        if (opcode == TABLESWITCH) {
+            int low = pool.s4(operands + 4);
+            int high = pool.s4(operands + 8);
+            for (int i = 0; i <= high - low; i++) {
+                operand.append(low + i).append(": ").append(target(offset, pool.s4(operands + 12 + 4 * i))).append(", ");
+            }
+            end = operands + 12 + 4 * (high - low + 1);
+        } else {
+            int pairs = pool.s4(operands + 4);
+            for (int i = 0; i < pairs; i++) {
+                int pair = operands + 8 + 8 * i;
+                operand.append(pool.s4(pair)).append(": ").append(target(offset, pool.s4(pair + 4))).append(", ");
+            }
+            end = operands + 8 + 8 * pairs;
+        }
+        operand.append("default: ").append(target(offset, pool.s4(operands))).append(" }");
+        line(mnemonic, operand.toString());
+        return end;
+    }
+
+    /**
+     * @return number of instructions from the branch to its target, with a sign
+     */
+    private String target(int offset, int jump) {
+        if (builder == null) {
+            return null;
+        }
+        int distance = instructions[offset + jump] - instructions[offset];
+        return (distance > 0 ? "+" : "") + distance;
+    }
+
+    private String constant(int index) {
+        return (builder == null) ? null : pool.constant(index);
+    }
+
+    private void line(String mnemonic, String operand) {
+        if (builder == null) {
+            return;
+        }
+        builder.append("  ").append(mnemonic);
+        if (operand != null) {
+            builder.append(' ').append(operand);
+        }
+        builder.append('\n');
+    }
+}
@@ -0,0 +1,180 @@
+package org.wildfly.qa.distdiff2.jardiff;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import org.apache.log4j.Logger;
+import org.benf.cfr.reader.api.CfrDriver;
+import org.benf.cfr.reader.api.ClassFileSource;
+import org.benf.cfr.reader.api.OutputSinkFactory;
+import org.benf.cfr.reader.api.SinkReturns;
+import org.benf.cfr.reader.bytecode.analysis.parse.utils.Pair;
+import org.wildfly.qa.distdiff2.hashing.Hex;
+
+/**
+ * Decompiles classes of a JAR by CFR in the same process.
+ * <p>
+ * Class files are read from the already open JAR, classes not found in it (JDK classes) are left to the default CFR
+ * class file source. The decompiled source is captured by an output sink, no global state (class path, standard
+ * output) is touched, so JARs can be decompiled concurrently. An instance is bound to one JAR and reuses one CFR
+ * driver for all its classes, it is not thread-safe. Classes decompiled by any previous run are taken from the
+ * {@link DecompilationCache}.
+ *
+ * @see JarClassIndex#decompile(String)
+ */
+final class ClassDecompiler {
+
+    private static final Logger LOGGER = Logger.getLogger(ClassDecompiler.class.getName());
+
+    private final JarFile jarFile;
+    private final DecompilationCache cache;
+    private final CfrDriver driver;
+    // class files read while calculating the key of the class being decompiled
+    private Map<String, byte[]> classFiles = Collections.emptyMap();
+    // source of the class decompiled by the last run of the driver
+    private String source;
+
+    /**
+     * @param jarFile the JAR
+     * @param cache   cache of decompiled classes
+     */
+    ClassDecompiler(JarFile jarFile, DecompilationCache cache) {
+        this.jarFile = jarFile;
+        this.cache = cache;
+        // default options only, the options are not part of the DecompilationCache key
+        this.driver = new CfrDriver.Builder()
+                .withOverrideClassFileSource(new JarClassFileSource())
+                .withOutputSink(new CapturingOutputSinkFactory())
+                .build();
+    }
+
+    /**
+     * Decompiles a class unless it is in the cache already. The class file and its nested classes are read once, they
+     * are both hashed to the key and passed to CFR.
+     *
+     * @param entry         class entry of the JAR
+     * @param nestedEntries entries of the classes nested in the class, their sources are part of its source
+     * @return decompiled source of the class including the comment CFR adds to its beginning, null if the class
+     * cannot be decompiled
+     */
+    String decompile(JarEntry entry, Collection<JarEntry> nestedEntries) {
+        Map<String, byte[]> read = new HashMap<>();
+        MessageDigest digest = DecompilationCache.newKey();
+        List<JarEntry> keyEntries = new ArrayList<>();
+        keyEntries.add(entry);
+        keyEntries.addAll(nestedEntries);
+        try {
+            for (JarEntry keyEntry : keyEntries) {
+                byte[] bytes;
+                try (InputStream stream = jarFile.getInputStream(keyEntry)) {
+                    bytes = stream.readAllBytes();
+                }
+                read.put(keyEntry.getName(), bytes);
+                digest.update(keyEntry.getName().getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+                digest.update(bytes);
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Cannot read class " + entry.getName() + " from jar " + jarFile.getName() + ": "
+                    + e.getMessage());
+            return null;
+        }
+        String key = Hex.encode(digest.digest());
+        String cached = cache.get(key);
+        if (cached != null) {
+            LOGGER.trace("Decompiled class " + entry.getName() + " found in cache");
+            return cached;
+        }
+
+        LOGGER.debug("decompiling class " + entry.getName() + " from jar " + jarFile.getName());
+        classFiles = read;
+        source = null;
+        try {
+            driver.analyse(Collections.singletonList(entry.getName()));
+        } finally {
+            classFiles = Collections.emptyMap();
+        }
+        if (source != null) {
+            cache.put(key, source);
+        }
+        return source;
+    }
+
+    /**
+     * Provides class files from the JAR, null for the ones not present in it
+     */
+    private final class JarClassFileSource implements ClassFileSource {
+
+        @Override
+        public void informAnalysisRelativePathDetail(String usePath, String classFilePath) {
+        }
+
+        @Override
+        public Collection<String> addJar(String jarPath) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public String getPossiblyRenamedPath(String path) {
+            return path;
+        }
+
+        @Override
+        public Pair<byte[], String> getClassFileContent(String path) throws IOException {
+            byte[] bytes = classFiles.get(path);
+            if (bytes != null) {
+                return Pair.make(bytes, path);
+            }
+            JarEntry entry = jarFile.getJarEntry(path);
+            if (entry == null) {
+                return null;
+            }
+            try (InputStream stream = jarFile.getInputStream(entry)) {
+                return Pair.make(stream.readAllBytes(), path);
+            }
+        }
+    }
+
+    /**
+     * Keeps the decompiled source, logs exceptions and drops everything else
+     */
+    private final class CapturingOutputSinkFactory implements OutputSinkFactory {
+
+        @Override
+        public List<SinkClass> getSupportedSinks(SinkType sinkType, Collection<SinkClass> available) {
+            if (sinkType == SinkType.JAVA && available.contains(SinkClass.DECOMPILED)) {
+                return Collections.singletonList(SinkClass.DECOMPILED);
+            }
+            if (sinkType == SinkType.EXCEPTION && available.contains(SinkClass.EXCEPTION_MESSAGE)) {
+                return Collections.singletonList(SinkClass.EXCEPTION_MESSAGE);
+            }
+            return Collections.singletonList(SinkClass.STRING);
+        }
+
+        @Override
+        public <T> Sink<T> getSink(SinkType sinkType, SinkClass sinkClass) {
+            if (sinkType == SinkType.JAVA && sinkClass == SinkClass.DECOMPILED) {
+                return decompiled -> source = ((SinkReturns.Decompiled) decompiled).getJava();
+            }
+            if (sinkType == SinkType.EXCEPTION && sinkClass == SinkClass.EXCEPTION_MESSAGE) {
+                return exception -> {
+                    SinkReturns.ExceptionMessage message = (SinkReturns.ExceptionMessage) exception;
+                    LOGGER.warn("Cannot decompile " + message.getPath() + " from jar " + jarFile.getName() + ": "
+                            + message.getMessage());
+                };
+            }
+            return ignored -> {
+            };
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package org.wildfly.qa.distdiff2.jardiff;
 
-import java.lang.reflect.Modifier;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -11,14 +10,15 @@ import javax.xml.bind.annotation.XmlElementWrapper;
 import javax.xml.bind.annotation.XmlRootElement;
 import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
 
-import javassist.CtField;
-import javassist.CtMethod;
-import javassist.NotFoundException;
 import org.wildfly.qa.distdiff2.helpers.AdaptorCDATA;
 import org.wildfly.qa.distdiff2.jardiff.jaxb.FieldModifiersChange;
+import org.wildfly.qa.distdiff2.jardiff.jaxb.MethodBodyChange;
 import org.wildfly.qa.distdiff2.jardiff.jaxb.MethodModifiersChange;
 
 /**
+ * API differences of two versions of a class and methods with changed bodies. Methods and fields are kept as
+ * signature strings (see {@link ClassFileInfo.Member#getSignature()}), nothing refers to the parsed class files.
+ *
  * @author Jan Martiska
  */
 @XmlRootElement
@@ -28,24 +28,28 @@ public class ClassDiff {
     // method changes
     @XmlElementWrapper(name = "addedMethods")
     @XmlElement(name = "addedMethod")
-    private final Set<CtMethod> addedMethods;
+    private final Set<String> addedMethods;
 
     @XmlElementWrapper(name = "removedMethods")
     @XmlElement(name = "removedMethod")
-    private final Set<CtMethod> removedMethods;
+    private final Set<String> removedMethods;
 
     @XmlElementWrapper(name = "methodModifiersChanges")
     @XmlElement(name = "methodModifiersChange")
     private final Set<MethodModifiersChange> methodModifiersChanges;
 
+    @XmlElementWrapper(name = "methodBodyChanges")
+    @XmlElement(name = "methodBodyChange")
+    private final Set<MethodBodyChange> methodBodyChanges;
+
     // field changes
     @XmlElementWrapper(name = "addedFields")
     @XmlElement(name = "addedField")
-    private final Set<CtField> addedFields;
+    private final Set<String> addedFields;
 
     @XmlElementWrapper(name = "removedFields")
     @XmlElement(name = "removedField")
-    private final Set<CtField> removedFields;
+    private final Set<String> removedFields;
 
     @XmlElementWrapper(name = "fieldModifiersChanges")
     @XmlElement(name = "fieldModifiersChange")
@@ -73,20 +77,21 @@ public class ClassDiff {
         addedMethods = new HashSet<>();
         removedMethods = new HashSet<>();
         methodModifiersChanges = new HashSet<>();
+        methodBodyChanges = new HashSet<>();
         removedFields = new HashSet<>();
         fieldModifiersChanges = new HashSet<>();
         addedFields = new HashSet<>();
     }
 
-    public void addedField(CtField field) {
+    public void addedField(String field) {
         addedFields.add(field);
     }
 
-    public void removedField(CtField field) {
+    public void removedField(String field) {
         removedFields.add(field);
     }
 
-    public void fieldModifierChanged(CtField field, int originalModifier, int newModifier) {
+    public void fieldModifierChanged(String field, int originalModifier, int newModifier) {
         FieldModifiersChange change = new FieldModifiersChange(field, originalModifier, newModifier);
         fieldModifiersChanges.add(change);
     }
@@ -96,12 +101,29 @@ public class ClassDiff {
         this.newModifier = newModifier;
     }
 
-    public void methodModifiersChanged(CtMethod method, int originalModifier, int newModifier) {
+    public void methodModifiersChanged(String method, int originalModifier, int newModifier) {
         MethodModifiersChange change = new MethodModifiersChange(method, originalModifier, newModifier);
         methodModifiersChanges.add(change);
     }
 
+    /**
+     * Method with the same signature and modifiers has a different body.
+     *
+     * @param method       signature of the method
+     * @param bytecodeDiff differing lines of the bytecode listings
+     */
+    public void methodBodyChanged(String method, String bytecodeDiff) {
+        methodBodyChanges.add(new MethodBodyChange(method, bytecodeDiff));
+    }
+
     public boolean isEmpty() {
+        return isEmptyExceptMethodBodies() && methodBodyChanges.isEmpty();
+    }
+
+    /**
+     * @return true if the API, the class format version and the decompiled source (if any) are the same
+     */
+    public boolean isEmptyExceptMethodBodies() {
         return addedFields.size() +
                 removedFields.size() +
                 addedMethods.size() +
@@ -116,76 +138,14 @@ public class ClassDiff {
                 (originalClassFormatVersion.equals(newClassFormatVersion));
     }
 
-    public void addedMethod(CtMethod method) {
+    public void addedMethod(String method) {
         addedMethods.add(method);
     }
 
-    public void removedMethod(CtMethod method) {
+    public void removedMethod(String method) {
         removedMethods.add(method);
     }
 
-    /**
-     * doesn't include modifiers!
-     */
-    public static String convertToString(CtMethod method) {
-        String returnType;
-        try {
-            returnType = method.getReturnType().getName();
-        } catch (Exception e) {
-            // the return type is a class which is neither in the same JAR nor in standard library, so we cannot
-            // obtain its CtClass instance
-            // => we must parse the class name from the signature
-            // eg. (Ljava/lang/String;)Lorg/jboss/msc/service/ServiceName; becomes org.jboss.msc.service.ServiceName
-            String signature = method.getSignature();
-            returnType = signature.substring(signature.lastIndexOf(')') + 1, signature.length() - 1)
-                    .replace('/', '.');
-            // handle array types
-            while (returnType.startsWith("[")) {
-                returnType = returnType.substring(1) + "[]";
-            }
-            if (!returnType.startsWith("L")) {
-                throw new Error("Cannot parse signature: " + method.getSignature());
-            }
-            returnType = returnType.substring(1);
-        }
-        // cut out the declaring class' name from the longName, eg.
-        // org.jboss.modules.ModuleXmlParser.createMavenArtifactLoader(java.lang.String) becomes
-        // createMavenArtifactLoader(java.lang.String)
-        // ~ must cut out everything up to the last dot before the first left bracket
-        String longName = method.getLongName();
-        String myLongName = longName
-                .substring(longName.substring(0, longName.indexOf("(")).lastIndexOf(".") + 1);
-        return returnType + " " + myLongName;
-    }
-
-
-    public static String convertToString(CtField field, boolean includeModifiers) {
-        StringBuilder builder = new StringBuilder();
-        if (includeModifiers) {
-            builder.append(Modifier.toString(field.getModifiers()));
-            builder.append(" ");
-        }
-        String fieldType;
-        try {
-            fieldType = field.getType().getName();
-        } catch (NotFoundException e) {
-            String signature = field.getSignature();
-            signature = signature.replace("/", ".");
-            while (signature.startsWith("[")) {
-                signature = signature.substring(1) + "[]";
-            }
-            fieldType = signature.substring(1, signature.length() - 1);
-
-        }
-        builder.append(fieldType);
-        String name = field.getName(); // strip everything before $ if it is in the field name
-        if (name.contains("$")) {
-            name = name.substring(name.indexOf("$") + 1);
-        }
-        builder.append(" ").append(name);
-        return builder.toString();
-    }
-
     public String getHtml_sourceCodeDiff() {
         return html_sourceCodeDiff;
     }
@@ -210,11 +170,11 @@ public class ClassDiff {
         this.originalClassFormatVersion = originalClassFormatVersion;
     }
 
-    public Set<CtMethod> getAddedMethods() {
+    public Set<String> getAddedMethods() {
         return addedMethods;
     }
 
-    public Set<CtMethod> getRemovedMethods() {
+    public Set<String> getRemovedMethods() {
         return removedMethods;
     }
 
@@ -222,11 +182,15 @@ public class ClassDiff {
         return methodModifiersChanges;
     }
 
-    public Set<CtField> getAddedFields() {
+    public Set<MethodBodyChange> getMethodBodyChanges() {
+        return methodBodyChanges;
+    }
+
+    public Set<String> getAddedFields() {
         return addedFields;
     }
 
-    public Set<CtField> getRemovedFields() {
+    public Set<String> getRemovedFields() {
         return removedFields;
     }
 
@@ -0,0 +1,479 @@
+package org.wildfly.qa.distdiff2.jardiff;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.wildfly.qa.distdiff2.hashing.HashAlgorithm;
+import org.wildfly.qa.distdiff2.hashing.Hex;
+
+/**
+ * API level view of a class file - name, class file version, modifiers and signatures of the declared fields and
+ * methods.
+ * <p>
+ * The class file is parsed in a single pass without any class pool. Only offsets of the constant pool entries are
+ * recorded and just the names and descriptors of the class and its members are decoded, method bodies and all other
+ * attributes are skipped. Referenced classes are never resolved, so the signatures are built from the descriptors.
+ * Method bodies are decoded on demand only, see {@link Member#getBodyDigest()}.
+ *
+ * @see JarDiffPhase
+ */
+public final class ClassFileInfo {
+
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private static final int ACC_SUPER = 0x0020;
+
+    private final String name;
+    private final int majorVersion;
+    private int modifiers;
+    private String enclosingClass;
+    private boolean local;
+    private boolean staticInitializer;
+    // methods and initializers by name and parameter descriptor, fields by name
+    private final Map<String, Member> methods = new LinkedHashMap<>();
+    private final Map<String, Member> initializers = new LinkedHashMap<>();
+    private final Map<String, Member> fields = new LinkedHashMap<>();
+
+    /**
+     * Declared field or method
+     */
+    public static final class Member {
+
+        private final String name;
+        private final String descriptor;
+        private final int modifiers;
+        private final ConstantPool pool;
+        // offset of the Code attribute content, -1 for fields and methods without a body
+        private final int codeAttribute;
+        private String bodyDigest;
+
+        Member(String name, String descriptor, int modifiers) {
+            this(name, descriptor, modifiers, null, -1);
+        }
+
+        Member(String name, String descriptor, int modifiers, ConstantPool pool, int codeAttribute) {
+            this.name = name;
+            this.descriptor = descriptor;
+            this.modifiers = modifiers;
+            this.pool = pool;
+            this.codeAttribute = codeAttribute;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getDescriptor() {
+            return descriptor;
+        }
+
+        /**
+         * @return access flags, the values are the same as in {@link Modifier}
+         */
+        public int getModifiers() {
+            return modifiers;
+        }
+
+        /**
+         * Signature without modifiers as shown in the reports - <code>void method(int,java.lang.String[])</code> for
+         * methods, <code>java.lang.String field</code> for fields (the part of the field name up to the first '$'
+         * is left out).
+         *
+         * @return signature of the member
+         */
+        public String getSignature() {
+            StringBuilder builder = new StringBuilder();
+            if (descriptor.charAt(0) == '(') {
+                int end = descriptor.indexOf(')');
+                appendType(builder, descriptor, end + 1);
+                builder.append(' ').append(name).append('(');
+                int position = 1;
+                while (position < end) {
+                    if (position > 1) {
+                        builder.append(',');
+                    }
+                    position = appendType(builder, descriptor, position);
+                }
+                builder.append(')');
+            } else {
+                appendType(builder, descriptor, 0);
+                builder.append(' ').append(name.substring(name.indexOf('$') + 1));
+            }
+            return builder.toString();
+        }
+
+        /**
+         * Normalized listing of the method body, see {@link Bytecode}.
+         *
+         * @return the listing, null for fields and abstract or native methods
+         * @throws IOException if the Code attribute is truncated or malformed
+         */
+        public String getListing() throws IOException {
+            if (codeAttribute < 0) {
+                return null;
+            }
+            try {
+                return Bytecode.listing(pool, codeAttribute);
+            } catch (IOException e) {
+                throw new IOException("Cannot decode body of method " + name + descriptor + ": " + e.getMessage(), e);
+            }
+        }
+
+        /**
+         * Digest of {@link #getListing()}, methods with the same digest have the same body. The digest is calculated
+         * on the first call.
+         *
+         * @return hexadecimal digest, null for fields and abstract or native methods
+         * @throws IOException if the Code attribute is truncated or malformed
+         */
+        public String getBodyDigest() throws IOException {
+            if (bodyDigest == null && codeAttribute >= 0) {
+                try {
+                    MessageDigest digest = MessageDigest.getInstance(HashAlgorithm.SHA256.getDisplayName());
+                    bodyDigest = Hex.encode(digest.digest(getListing().getBytes(StandardCharsets.UTF_8)));
+                } catch (NoSuchAlgorithmException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            return bodyDigest;
+        }
+
+        @Override
+        public String toString() {
+            return getSignature();
+        }
+    }
+
+    private ClassFileInfo(String name, int majorVersion) {
+        this.name = name;
+        this.majorVersion = majorVersion;
+    }
+
+    /**
+     * Reads a class file.
+     *
+     * @param stream class file content, not closed
+     * @return the class
+     * @throws IOException if the stream cannot be read or it is not a class file
+     */
+    public static ClassFileInfo read(InputStream stream) throws IOException {
+        return new Parser(stream.readAllBytes()).parse();
+    }
+
+    /**
+     * @return fully qualified name, nested classes separated by '$'
+     */
+    public String getName() {
+        return name;
+    }
+
+    public int getMajorVersion() {
+        return majorVersion;
+    }
+
+    /**
+     * Modifiers of the class, modifiers of nested classes are taken from the InnerClasses attribute the same way
+     * javac does.
+     *
+     * @return modifiers, the values are the same as in {@link Modifier}
+     */
+    public int getModifiers() {
+        return modifiers;
+    }
+
+    /**
+     * @return name of the class enclosing a local or anonymous class, null for other classes
+     */
+    public String getEnclosingClass() {
+        return enclosingClass;
+    }
+
+    /**
+     * @return true for local and anonymous classes declared in a method or a constructor, false for the ones declared
+     * in initializers
+     */
+    public boolean isLocal() {
+        return local;
+    }
+
+    /**
+     * @return true if the class has a static initializer
+     */
+    public boolean hasStaticInitializer() {
+        return staticInitializer;
+    }
+
+    /**
+     * Declared methods, constructors and static initializers are not included. Methods with the same name and
+     * parameter types are the same method, the return type does not matter.
+     *
+     * @return methods by name and parameter descriptor
+     */
+    public Map<String, Member> getMethods() {
+        return methods;
+    }
+
+    /**
+     * Constructors (<code>&lt;init&gt;</code>) and the static initializer (<code>&lt;clinit&gt;</code>), they have no
+     * API but their bodies can change.
+     *
+     * @return initializers by name and parameter descriptor
+     */
+    public Map<String, Member> getInitializers() {
+        return initializers;
+    }
+
+    /**
+     * @return declared fields by name
+     */
+    public Map<String, Member> getFields() {
+        return fields;
+    }
+
+    /**
+     * Appends Java name of the type starting at given position of a descriptor.
+     *
+     * @return position after the type
+     */
+    private static int appendType(StringBuilder builder, String descriptor, int position) {
+        int dimensions = 0;
+        while (descriptor.charAt(position) == '[') {
+            dimensions++;
+            position++;
+        }
+        char type = descriptor.charAt(position++);
+        switch (type) {
+            case 'B':
+                builder.append("byte");
+                break;
+            case 'C':
+                builder.append("char");
+                break;
+            case 'D':
+                builder.append("double");
+                break;
+            case 'F':
+                builder.append("float");
+                break;
+            case 'I':
+                builder.append("int");
+                break;
+            case 'J':
+                builder.append("long");
+                break;
+            case 'S':
+                builder.append("short");
+                break;
+            case 'Z':
+                builder.append("boolean");
+                break;
+            case 'V':
+                builder.append("void");
+                break;
+            case 'L':
+                int end = descriptor.indexOf(';', position);
+                for (int i = position; i < end; i++) {
+                    char c = descriptor.charAt(i);
+                    builder.append(c == '/' ? '.' : c);
+                }
+                position = end + 1;
+                break;
+            default:
+                throw new IllegalArgumentException("Cannot parse descriptor: " + descriptor);
+        }
+        for (int i = 0; i < dimensions; i++) {
+            builder.append("[]");
+        }
+        return position;
+    }
+
+    /**
+     * Checks a descriptor before it is used by {@link #appendType(StringBuilder, String, int)}.
+     *
+     * @param method true for a method descriptor, false for a field descriptor
+     * @return true if the descriptor is well-formed
+     */
+    private static boolean isValidDescriptor(String descriptor, boolean method) {
+        if (!method) {
+            return skipType(descriptor, 0, false) == descriptor.length();
+        }
+        if (descriptor.isEmpty() || descriptor.charAt(0) != '(') {
+            return false;
+        }
+        int position = 1;
+        while (position < descriptor.length() && descriptor.charAt(position) != ')') {
+            position = skipType(descriptor, position, false);
+            if (position < 0) {
+                return false;
+            }
+        }
+        return position < descriptor.length() && skipType(descriptor, position + 1, true) == descriptor.length();
+    }
+
+    /**
+     * @return position after the type starting at given position of a descriptor, -1 if there is no valid type
+     */
+    private static int skipType(String descriptor, int position, boolean voidAllowed) {
+        int start = position;
+        while (position < descriptor.length() && descriptor.charAt(position) == '[') {
+            position++;
+        }
+        if (position >= descriptor.length()) {
+            return -1;
+        }
+        char type = descriptor.charAt(position);
+        if (type == 'L') {
+            int end = descriptor.indexOf(';', position);
+            return (end > position + 1) ? end + 1 : -1;
+        }
+        if ("BCDFIJSZ".indexOf(type) >= 0 || (type == 'V' && voidAllowed && position == start)) {
+            return position + 1;
+        }
+        return -1;
+    }
+
+    /**
+     * Single pass over the class file bytes
+     */
+    private static final class Parser {
+
+        private final byte[] bytes;
+        private int position;
+        private ConstantPool pool;
+
+        Parser(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        ClassFileInfo parse() throws IOException {
+            try {
+                if (u4() != MAGIC) {
+                    throw new IOException("Not a class file");
+                }
+                u2();
+                int majorVersion = u2();
+                pool = new ConstantPool(bytes, position);
+                position = pool.getEnd();
+
+                int accessFlags = u2() & ~ACC_SUPER;
+                ClassFileInfo info = new ClassFileInfo(pool.className(u2()), majorVersion);
+                // super class and interfaces
+                position += 2;
+                int interfaceCount = u2();
+                position += 2 * interfaceCount;
+
+                int fieldCount = u2();
+                for (int i = 0; i < fieldCount; i++) {
+                    Member field = readMember(false);
+                    info.fields.put(field.getName(), field);
+                }
+                int methodCount = u2();
+                for (int i = 0; i < methodCount; i++) {
+                    Member method = readMember(true);
+                    String descriptor = method.getDescriptor();
+                    String key = method.getName() + descriptor.substring(0, descriptor.indexOf(')') + 1);
+                    if ("<clinit>".equals(method.getName())) {
+                        info.staticInitializer = true;
+                        info.initializers.put(key, method);
+                    } else if ("<init>".equals(method.getName())) {
+                        info.initializers.put(key, method);
+                    } else {
+                        info.methods.put(key, method);
+                    }
+                }
+
+                int attributeCount = u2();
+                for (int i = 0; i < attributeCount; i++) {
+                    String attribute = pool.utf8(u2());
+                    int length = u4();
+                    int end = position + length;
+                    if ("EnclosingMethod".equals(attribute)) {
+                        info.enclosingClass = pool.className(u2());
+                        info.local = u2() != 0;
+                    } else if ("InnerClasses".equals(attribute)) {
+                        accessFlags = innerClassFlags(info.name, accessFlags);
+                    } else if ("BootstrapMethods".equals(attribute)) {
+                        pool.setBootstrapMethods(position);
+                    }
+                    position = end;
+                }
+                info.modifiers = accessFlags;
+                return info;
+            } catch (ArrayIndexOutOfBoundsException | StringIndexOutOfBoundsException e) {
+                throw new IOException("Truncated or malformed class file", e);
+            }
+        }
+
+        /**
+         * @throws IOException if the descriptor of the member is malformed, the signature is built from it lazily
+         */
+        private Member readMember(boolean method) throws IOException {
+            int accessFlags = u2();
+            String memberName = pool.utf8(u2());
+            String descriptor = pool.utf8(u2());
+            if (!isValidDescriptor(descriptor, method)) {
+                throw new IOException("Malformed descriptor '" + descriptor + "' of " + memberName);
+            }
+            int codeAttribute = -1;
+            int attributeCount = u2();
+            for (int i = 0; i < attributeCount; i++) {
+                String attribute = pool.utf8(u2());
+                int length = u4();
+                if ("Code".equals(attribute)) {
+                    codeAttribute = position;
+                }
+                position += length;
+            }
+            return new Member(memberName, descriptor, accessFlags, pool, codeAttribute);
+        }
+
+        /**
+         * The class file of a nested class has its real access flags in the InnerClasses attribute.
+         */
+        private int innerClassFlags(String name, int accessFlags) {
+            int count = u2();
+            for (int i = 0; i < count; i++) {
+                int innerClass = u2();
+                position += 4;
+                int innerFlags = u2();
+                if (innerClass != 0 && name.equals(pool.className(innerClass))) {
+                    int flags = accessFlags;
+                    if ((innerFlags & Modifier.STATIC) != 0) {
+                        flags |= Modifier.STATIC;
+                    }
+                    if ((innerFlags & Modifier.PUBLIC) != 0) {
+                        flags |= Modifier.PUBLIC;
+                    } else {
+                        flags &= ~Modifier.PUBLIC;
+                        if ((innerFlags & Modifier.PROTECTED) != 0) {
+                            flags |= Modifier.PROTECTED;
+                        } else if ((innerFlags & Modifier.PRIVATE) != 0) {
+                            flags |= Modifier.PRIVATE;
+                        }
+                    }
+                    return flags;
+                }
+            }
+            return accessFlags;
+        }
+
+        private int u2() {
+            int value = (bytes[position] & 0xFF) << 8 | bytes[position + 1] & 0xFF;
+            position += 2;
+            return value;
+        }
+
+        private int u4() {
+            int value = (bytes[position] & 0xFF) << 24 | (bytes[position + 1] & 0xFF) << 16
+                    | (bytes[position + 2] & 0xFF) << 8 | bytes[position + 3] & 0xFF;
+            position += 4;
+            return value;
+        }
+    }
+}
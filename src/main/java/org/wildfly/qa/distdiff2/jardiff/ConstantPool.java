@@ -0,0 +1,240 @@
+package org.wildfly.qa.distdiff2.jardiff;
+
+import java.io.IOException;
+
+/**
+ * Constant pool of a class file. Only offsets of the entries are recorded when the class file is read, the entries
+ * are decoded on demand.
+ * <p>
+ * Besides names of classes and members, constants can be rendered as symbolic values (see {@link #constant(int)}), so
+ * references from bytecode can be compared without depending on the order of the constant pool entries.
+ *
+ * @see ClassFileInfo
+ */
+final class ConstantPool {
+
+    private static final int UTF8 = 1;
+    private static final int INTEGER = 3;
+    private static final int FLOAT = 4;
+    private static final int LONG = 5;
+    private static final int DOUBLE = 6;
+    private static final int CLASS = 7;
+    private static final int STRING = 8;
+    private static final int FIELD_REF = 9;
+    private static final int METHOD_REF = 10;
+    private static final int INTERFACE_METHOD_REF = 11;
+    private static final int NAME_AND_TYPE = 12;
+    private static final int METHOD_HANDLE = 15;
+    private static final int METHOD_TYPE = 16;
+    private static final int DYNAMIC = 17;
+    private static final int INVOKE_DYNAMIC = 18;
+    private static final int MODULE = 19;
+    private static final int PACKAGE = 20;
+
+    private static final String[] REFERENCE_KINDS = {null, "getField", "getStatic", "putField", "putStatic",
+            "invokeVirtual", "invokeStatic", "invokeSpecial", "newInvokeSpecial", "invokeInterface"};
+
+    private final byte[] bytes;
+    // offset of each entry right after its tag
+    private final int[] offsets;
+    private final byte[] tags;
+    private final int end;
+    // offset of the BootstrapMethods attribute content, -1 if there is none
+    private int bootstrapMethods = -1;
+
+    /**
+     * Reads offsets of the constant pool entries.
+     *
+     * @param bytes    class file
+     * @param position offset of the constant pool count
+     * @throws IOException if the constant pool contains unknown entry
+     */
+    ConstantPool(byte[] bytes, int position) throws IOException {
+        this.bytes = bytes;
+        int count = u2(position);
+        position += 2;
+        offsets = new int[count];
+        tags = new byte[count];
+        for (int i = 1; i < count; i++) {
+            int tag = u1(position++);
+            offsets[i] = position;
+            tags[i] = (byte) tag;
+            switch (tag) {
+                case UTF8:
+                    position += 2 + u2(position);
+                    break;
+                case LONG:
+                case DOUBLE:
+                    // long and double take two entries
+                    position += 8;
+                    i++;
+                    break;
+                case INTEGER:
+                case FLOAT:
+                case FIELD_REF:
+                case METHOD_REF:
+                case INTERFACE_METHOD_REF:
+                case NAME_AND_TYPE:
+                case DYNAMIC:
+                case INVOKE_DYNAMIC:
+                    position += 4;
+                    break;
+                case METHOD_HANDLE:
+                    position += 3;
+                    break;
+                case CLASS:
+                case STRING:
+                case METHOD_TYPE:
+                case MODULE:
+                case PACKAGE:
+                    position += 2;
+                    break;
+                default:
+                    throw new IOException("Unknown constant pool tag " + tag);
+            }
+        }
+        end = position;
+    }
+
+    /**
+     * @return offset right after the constant pool
+     */
+    int getEnd() {
+        return end;
+    }
+
+    /**
+     * @param offset offset of the content of the BootstrapMethods attribute
+     */
+    void setBootstrapMethods(int offset) {
+        this.bootstrapMethods = offset;
+    }
+
+    byte[] getBytes() {
+        return bytes;
+    }
+
+    int u1(int offset) {
+        return bytes[offset] & 0xFF;
+    }
+
+    int u2(int offset) {
+        return (bytes[offset] & 0xFF) << 8 | bytes[offset + 1] & 0xFF;
+    }
+
+    int s4(int offset) {
+        return u2(offset) << 16 | u2(offset + 2);
+    }
+
+    /**
+     * @return name of a class entry, packages separated by '.'
+     */
+    String className(int index) {
+        return utf8(u2(offsets[index])).replace('/', '.');
+    }
+
+    /**
+     * Decodes modified UTF-8 constant.
+     */
+    String utf8(int index) {
+        int offset = offsets[index];
+        int length = u2(offset);
+        char[] chars = new char[length];
+        int count = 0;
+        int p = offset + 2;
+        int stop = p + length;
+        while (p < stop) {
+            int b = bytes[p++] & 0xFF;
+            if (b < 0x80) {
+                chars[count++] = (char) b;
+            } else if ((b & 0xE0) == 0xC0) {
+                chars[count++] = (char) ((b & 0x1F) << 6 | bytes[p++] & 0x3F);
+            } else {
+                chars[count++] = (char) ((b & 0x0F) << 12 | (bytes[p++] & 0x3F) << 6 | bytes[p++] & 0x3F);
+            }
+        }
+        return new String(chars, 0, count);
+    }
+
+    /**
+     * Renders an entry the way javap does, with all references resolved - e.g. <code>class java/lang/String</code>,
+     * <code>java/io/PrintStream.println:(Ljava/lang/String;)V</code> or <code>"text"</code>.
+     *
+     * @param index index of the entry
+     * @return symbolic value of the entry
+     */
+    String constant(int index) {
+        int offset = offsets[index];
+        switch (tags[index]) {
+            case UTF8:
+                return utf8(index);
+            case INTEGER:
+                return String.valueOf(s4(offset));
+            case FLOAT:
+                return Float.intBitsToFloat(s4(offset)) + "f";
+            case LONG:
+                return ((long) s4(offset) << 32 | s4(offset + 4) & 0xFFFFFFFFL) + "l";
+            case DOUBLE:
+                return Double.longBitsToDouble((long) s4(offset) << 32 | s4(offset + 4) & 0xFFFFFFFFL) + "d";
+            case CLASS:
+                return "class " + utf8(u2(offset));
+            case STRING:
+                return quote(utf8(u2(offset)));
+            case FIELD_REF:
+            case METHOD_REF:
+            case INTERFACE_METHOD_REF:
+                return utf8(u2(offsets[u2(offset)])) + "." + constant(u2(offset + 2));
+            case NAME_AND_TYPE:
+                return utf8(u2(offset)) + ":" + utf8(u2(offset + 2));
+            case METHOD_HANDLE:
+                return REFERENCE_KINDS[u1(offset)] + " " + constant(u2(offset + 1));
+            case METHOD_TYPE:
+                return "methodType " + utf8(u2(offset));
+            case DYNAMIC:
+            case INVOKE_DYNAMIC:
+                return constant(u2(offset + 2)) + " " + bootstrapMethod(u2(offset));
+            case MODULE:
+            case PACKAGE:
+                return utf8(u2(offset));
+            default:
+                return "#" + index;
+        }
+    }
+
+    /**
+     * @return method handle and static arguments of a bootstrap method
+     */
+    private String bootstrapMethod(int index) {
+        if (bootstrapMethods < 0) {
+            return "#" + index;
+        }
+        int position = bootstrapMethods + 2;
+        for (int i = 0; i < index; i++) {
+            position += 4 + 2 * u2(position + 2);
+        }
+        StringBuilder builder = new StringBuilder("[").append(constant(u2(position)));
+        int argumentCount = u2(position + 2);
+        for (int i = 0; i < argumentCount; i++) {
+            builder.append(", ").append(constant(u2(position + 4 + 2 * i)));
+        }
+        return builder.append(']').toString();
+    }
+
+    /**
+     * @return the string in double quotes, line breaks and other control characters are escaped
+     */
+    private static String quote(String value) {
+        StringBuilder builder = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                builder.append('\\').append(c);
+            } else if (c < 0x20) {
+                builder.append(String.format("\\u%04x", (int) c));
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.append('"').toString();
+    }
+}
@@ -0,0 +1,154 @@
+package org.wildfly.qa.distdiff2.jardiff;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+import org.benf.cfr.reader.util.CfrVersionInfo;
+import org.wildfly.qa.distdiff2.hashing.HashAlgorithm;
+
+/**
+ * DecompilationCache
+ * <p>
+ * Persistent content addressed cache of decompiled classes shared by consecutive runs. The key is a digest of the
+ * bytes of the class file and its nested classes (CFR decompiles them into the source of the outer class), so a class
+ * unchanged since any previous run is never decompiled again, no matter which JAR or distribution it comes from.
+ * <p>
+ * Every source is stored in its own file named by the key in a directory of the current CFR version, sources
+ * decompiled by other versions are never used. CFR options are not part of the key, the cache is valid only for
+ * the fixed option set of {@link ClassDecompiler} (CFR defaults); changing the options requires a new directory name.
+ * Files are written atomically, so the cache is thread safe and can be
+ * shared by concurrent runs. The cache directory can be deleted at any time.
+ */
+public final class DecompilationCache {
+
+    /**
+     * Name of the cache directory in the configured directory
+     */
+    public static final String DIRECTORY_NAME = "dist-diff2-decompilation-cache";
+
+    private static final Logger LOGGER = Logger.getLogger(DecompilationCache.class.getName());
+
+    private static final String SUFFIX = ".java";
+
+    private final Path directory;
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+
+    /**
+     * Creates cache which stores nothing, every class is decompiled.
+     */
+    public DecompilationCache() {
+        this(null);
+    }
+
+    /**
+     * @param cacheDirectory directory containing {@link #DIRECTORY_NAME}, null for cache which stores nothing
+     */
+    public DecompilationCache(Path cacheDirectory) {
+        this.directory = (cacheDirectory != null)
+                ? cacheDirectory.resolve(DIRECTORY_NAME).resolve("cfr-" + CfrVersionInfo.VERSION)
+                : null;
+    }
+
+    /**
+     * @return directory with the sources decompiled by the current CFR version, null if nothing is stored
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @return new digest of a key, names and bytes of the class file and its nested classes are added to it
+     */
+    static MessageDigest newKey() {
+        try {
+            return MessageDigest.getInstance(HashAlgorithm.SHA256.getDisplayName());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param key hexadecimal key of the class
+     * @return the cached source, null if the class has not been decompiled yet
+     */
+    String get(String key) {
+        if (directory == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        try {
+            String source = new String(Files.readAllBytes(file(key)), StandardCharsets.UTF_8);
+            hits.incrementAndGet();
+            return source;
+        } catch (NoSuchFileException e) {
+            misses.incrementAndGet();
+            return null;
+        } catch (IOException e) {
+            LOGGER.warn("Unable to read decompiled class " + file(key) + ": " + e.getMessage());
+            misses.incrementAndGet();
+            return null;
+        }
+    }
+
+    /**
+     * Stores a decompiled class.
+     *
+     * @param key    hexadecimal key of the class
+     * @param source decompiled source
+     */
+    void put(String key, String source) {
+        if (directory == null) {
+            return;
+        }
+        Path file = file(key);
+        try {
+            Files.createDirectories(file.getParent());
+            Path temporary = Files.createTempFile(file.getParent(), key, ".tmp");
+            try {
+                Files.write(temporary, source.getBytes(StandardCharsets.UTF_8));
+                try {
+                    Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING,
+                            StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                // left behind only if the source was not stored
+                Files.deleteIfExists(temporary);
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Unable to store decompiled class " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return number of classes taken from the cache
+     */
+    public int getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return number of classes which had to be decompiled
+     */
+    public int getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Sources are spread over sub-directories by the first two characters of the key.
+     */
+    private Path file(String key) {
+        return directory.resolve(key.substring(0, 2)).resolve(key.substring(2) + SUFFIX);
+    }
+}
@@ -0,0 +1,149 @@
+package org.wildfly.qa.distdiff2.jardiff;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Class entries of a JAR file by class name.
+ * <p>
+ * The index is built from the central directory only, so CRC-32 and uncompressed size of every entry are known
+ * without decompressing anything. Classes are parsed on demand (see {@link ClassFileInfo}) and kept only as long as
+ * the index, classes are decompiled on demand too (see {@link ClassDecompiler}).
+ *
+ * @see JarDiffPhase
+ */
+final class JarClassIndex {
+
+    private static final Logger LOGGER = Logger.getLogger(JarClassIndex.class.getName());
+
+    private static final String CLASS_SUFFIX = ".class";
+
+    private static final String VERSIONS_PREFIX = "META-INF/versions/";
+
+    private final JarFile jarFile;
+    // sorted, nested classes follow their outer class
+    private final NavigableMap<String, JarEntry> entries = new TreeMap<>();
+    // parsed classes, null for the unreadable ones
+    private final Map<String, ClassFileInfo> classes = new HashMap<>();
+    private final DecompilationCache decompilationCache;
+    private ClassDecompiler decompiler;
+
+    JarClassIndex(JarFile jarFile) {
+        this(jarFile, new DecompilationCache());
+    }
+
+    /**
+     * @param jarFile            the JAR
+     * @param decompilationCache cache of the decompiled classes
+     */
+    JarClassIndex(JarFile jarFile, DecompilationCache decompilationCache) {
+        this.jarFile = jarFile;
+        this.decompilationCache = decompilationCache;
+        // Iteration order seems to reflect the order in which files where added to the JAR, this order may differ for
+        // JARs created on different OS platform or different Java version. Since we are using map of FQDN:class, then for
+        // example with MultiRelease JARs, without deterministic order it may happen we would compare class from JAR root to
+        // the one from META-INF/versions where they will obviously differ at least in class file version.
+        // By sorting the iteration order we ensure we are comparing the same classes.
+        // TODO given the above, with current implementation we are not supporting comparing all classes in case of MultiRelease
+        //  JAR - we are ignoring potential multiple implementation of the same class and are only comparing the last class
+        //  found, which given the natural order is the original one from JAR root and not the others from META-INF/versions.
+        jarFile.stream()
+                .filter(jarEntry -> jarEntry.getName().endsWith(CLASS_SUFFIX))
+                .sorted(Comparator.comparing(JarEntry::getName))
+                .forEach(jarEntry -> entries.put(className(jarEntry.getName()), jarEntry));
+    }
+
+    /**
+     * @param entryName name of the class entry, e.g. <code>META-INF/versions/11/org/acme/Foo$Bar.class</code>
+     * @return name of the class, e.g. <code>org.acme.Foo$Bar</code>
+     */
+    static String className(String entryName) {
+        String path = entryName;
+        if (path.startsWith(VERSIONS_PREFIX)) {
+            path = path.substring(path.indexOf('/', VERSIONS_PREFIX.length()) + 1);
+        }
+        return path.substring(0, path.length() - CLASS_SUFFIX.length()).replace('/', '.');
+    }
+
+    /**
+     * Entries with the same CRC-32 and size are considered identical, their content is never compared.
+     *
+     * @return true if both entries have the same CRC-32 and uncompressed size in the central directory
+     */
+    static boolean isSameEntry(JarEntry entryA, JarEntry entryB) {
+        return entryA.getCrc() != -1 && entryA.getSize() != -1
+                && entryA.getCrc() == entryB.getCrc() && entryA.getSize() == entryB.getSize();
+    }
+
+    Set<String> getClassNames() {
+        return entries.keySet();
+    }
+
+    JarEntry getEntry(String className) {
+        return entries.get(className);
+    }
+
+    /**
+     * Parses a class unless it is an anonymous inner class. Classes declared in initializers are ignored only if the
+     * enclosing class has a static initializer or it is not in the same JAR.
+     *
+     * @param className name of the class
+     * @return the class, null if it is not in the JAR, cannot be read or it is an anonymous inner class
+     */
+    ClassFileInfo getClass(String className) {
+        ClassFileInfo clazz = parse(className);
+        if (clazz != null && clazz.getEnclosingClass() != null) {
+            ClassFileInfo enclosingClass = parse(clazz.getEnclosingClass());
+            if (clazz.isLocal() || enclosingClass == null || enclosingClass.hasStaticInitializer()) {
+                LOGGER.trace("Skipping anonymous inner class " + clazz.getName());
+                return null;
+            }
+        }
+        return clazz;
+    }
+
+    /**
+     * Decompiles a class, the decompiler is created with the first class and reused for the others.
+     *
+     * @param className name of the class
+     * @return decompiled source, null if the class is not in the JAR or it cannot be decompiled
+     */
+    String decompile(String className) {
+        JarEntry entry = entries.get(className);
+        if (entry == null) {
+            return null;
+        }
+        if (decompiler == null) {
+            decompiler = new ClassDecompiler(jarFile, decompilationCache);
+        }
+        String nestedPrefix = className + '$';
+        return decompiler.decompile(entry,
+                entries.subMap(nestedPrefix, true, nestedPrefix + Character.MAX_VALUE, false).values());
+    }
+
+    private ClassFileInfo parse(String className) {
+        if (!classes.containsKey(className)) {
+            JarEntry entry = entries.get(className);
+            ClassFileInfo clazz = null;
+            if (entry != null) {
+                try (InputStream stream = jarFile.getInputStream(entry)) {
+                    clazz = ClassFileInfo.read(stream);
+                } catch (IOException e) {
+                    LOGGER.error(e);
+                }
+            }
+            classes.put(className, clazz);
+        }
+        return classes.get(className);
+    }
+}
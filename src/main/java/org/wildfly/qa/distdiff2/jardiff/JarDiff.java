@@ -15,6 +15,7 @@ import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
 
 import org.apache.log4j.Logger;
 import org.wildfly.qa.distdiff2.helpers.AdaptorCDATA;
+import org.wildfly.qa.distdiff2.jardiff.jaxb.ChangedFile;
 
 
 /**
@@ -49,6 +50,10 @@ public class JarDiff {
     @XmlElement(name = "removedFile")
     private final Set<String> removedFiles;
 
+    @XmlElementWrapper(name = "changedFiles")
+    @XmlElement(name = "changedFile")
+    private final Set<ChangedFile> changedFiles;
+
     @XmlElement(name = "manifestDiff")
     @XmlJavaTypeAdapter(AdaptorCDATA.class)
     private String manifestDiff;
@@ -62,6 +67,7 @@ public class JarDiff {
         classDiffs = new HashMap<>();
         addedFiles = new HashSet<>();
         removedFiles = new HashSet<>();
+        changedFiles = new HashSet<>();
     }
 
     public void removedClass(String className) {
@@ -82,6 +88,7 @@ public class JarDiff {
                 classDiffs.isEmpty() &&
                 addedFiles.isEmpty() &&
                 removedFiles.isEmpty() &&
+                changedFiles.isEmpty() &&
                 (manifestDiff == null || manifestDiff.isEmpty());
     }
 
@@ -91,11 +98,13 @@ public class JarDiff {
         LOGGER.trace("class diffs: " + classDiffs.size());
         LOGGER.trace("added files: " + addedFiles.size());
         LOGGER.trace("removed files: " + removedFiles.size());
+        LOGGER.trace("changed files: " + changedFiles.size());
         return addedClasses.isEmpty() &&
                 removedClasses.isEmpty() &&
                 classDiffs.isEmpty() &&
                 addedFiles.isEmpty() &&
-                removedFiles.isEmpty();
+                removedFiles.isEmpty() &&
+                changedFiles.isEmpty();
     }
 
     public void addedFile(String path) {
@@ -106,6 +115,14 @@ public class JarDiff {
         removedFiles.add(path);
     }
 
+    /**
+     * @param path path of the entry in the JAR
+     * @param diff HTML diff of the content, null if the entry is not diffed
+     */
+    public void changedFile(String path, String diff) {
+        changedFiles.add(new ChangedFile(path, diff));
+    }
+
     // conversion to HTML is now taken care of by the XSLT template
     @Deprecated
     public String toHTMLString() {
@@ -207,4 +224,8 @@ public class JarDiff {
     public Set<String> getRemovedFiles() {
         return removedFiles;
     }
+
+    public Set<ChangedFile> getChangedFiles() {
+        return changedFiles;
+    }
 }
@@ -1,23 +1,23 @@
 package org.wildfly.qa.distdiff2.jardiff;
 
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.PrintStream;
 import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.EnumSet;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Iterator;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.jar.Manifest;
@@ -27,24 +27,19 @@ import com.google.common.base.Joiner;
 import com.sksamuel.diffpatch.DiffMatchPatch;
 
 import org.apache.log4j.Logger;
-import org.benf.cfr.reader.Main;
 import org.wildfly.qa.distdiff2.artifacts.Artifact;
 import org.wildfly.qa.distdiff2.artifacts.JarArtifact;
 import org.wildfly.qa.distdiff2.configuration.DistDiffConfiguration;
+import org.wildfly.qa.distdiff2.errors.ErrorEvent;
 import org.wildfly.qa.distdiff2.phase.ProcessPhase;
 import org.wildfly.qa.distdiff2.results.Status;
+import org.wildfly.qa.distdiff2.tools.FileTypeSniffer;
 import org.wildfly.qa.distdiff2.tools.HTMLTools;
-import org.wildfly.qa.distdiff2.tools.Tools;
-
-import javassist.ClassPool;
-import javassist.CtClass;
-import javassist.CtField;
-import javassist.CtMethod;
-import javassist.NotFoundException;
 
 /**
  * Compares contents of JAR files
- * - compares classes on API level (not bytecode)
+ * - compares classes on API level, class files are read by {@link ClassFileInfo}
+ * - compares normalized bytecode of methods present in both versions of a class, see {@link Bytecode}
  * - lists changed/added/removed files
  *
  * @author Jan Martiska
@@ -54,45 +49,121 @@ public class JarDiffPhase extends ProcessPhase {
     private static final Logger LOGGER = Logger.getLogger(JarDiffPhase.class.getName());
 
 
+    private static final EnumSet<Status> DIFFED_STATUSES =
+            EnumSet.<Status>of(Status.DIFFERENT, Status.VERSION, Status.BUILD, Status.PATCHED_WRONG);
+
+    // changed text files up to this size are diffed, larger ones are only listed as changed
+    private static final int MAX_DIFFED_FILE_SIZE = 1024 * 1024;
+
+    // main manifest attributes tolerated to change
+    private Set<String> toleratedAttributes;
+
+    /**
+     * JARs are diffed by a work-stealing pool, each task opens, indexes and decompiles its own pair of JARs. Diffs and statuses are
+     * then set in the order of artifacts in results and the class summary is sorted by path, so the results do not
+     * depend on the number of threads.
+     *
+     * @see ProcessPhase#process()
+     */
     @Override
     public void process() {
-        Map<Tuple<String, String>, JarDiff> jarDiffs = new HashMap<>();
-        for (Artifact artifact : results.getArtifacts()) {
-            if (artifact instanceof JarArtifact &&
-                    EnumSet.<Status>of(Status.DIFFERENT, Status.VERSION, Status.BUILD, Status.PATCHED_WRONG)
-                            .contains(artifact.getStatus())) {
-                LOGGER.trace("Processing diff of " + artifact.getPathA() + " against " + artifact.getPathB());
-                JarArtifact jarArtifact = (JarArtifact) artifact;
-                JarDiff diff = calculateDiff(jarArtifact);
-                if ((diff != null) && !diff.isEmpty()) {
-                    LOGGER.trace("Diff is not empty!");
-                    jarDiffs.put(new Tuple<>(
-                                    jarArtifact.getPathA()
-                                            .replace(distDiffConfiguration.getFolderA().getAbsolutePath(), "")
-                                            .substring(1),
-                                    jarArtifact.getPathB()
-                                            .replace(distDiffConfiguration.getFolderB().getAbsolutePath(), "")
-                                            .substring(1)),
-                            diff);
-                    jarArtifact.setJarDiff(diff);
-                    if (diff.isEmptyExceptChangesInManifest()) {
-                        LOGGER.trace("JarDiff is empty except for changes in manifest.");
-                        if (diff.manifestHasOnlyExpectedChangesIfAny()) {
-                            LOGGER.trace(
-                                    "Manifest has only expected/tolerated changes. Setting to EXPECTED_DIFFERENCES");
-                            artifact.setStatus(Status.EXPECTED_DIFFERENCES);
-                        } else {
-                            LOGGER.trace("Manifest has unexpected changes.");
-                        }
-                    } else {
-                        LOGGER.trace("There are changes in other places than manifest.");
-                    }
-                } else {
-                    LOGGER.trace("Diff is empty!");
+        toleratedAttributes = JarFingerprint.toleratedManifestAttributes(distDiffConfiguration.isFromSources());
+        Map<Tuple<String, String>, JarDiff> jarDiffs = new ConcurrentHashMap<>();
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, distDiffConfiguration.getThreads()));
+        try {
+            Map<Artifact, ForkJoinTask<JarDiffResult>> diffs = new IdentityHashMap<>();
+            for (Artifact artifact : results.getArtifacts()) {
+                if (artifact instanceof JarArtifact && DIFFED_STATUSES.contains(artifact.getStatus())) {
+                    JarArtifact jarArtifact = (JarArtifact) artifact;
+                    diffs.put(artifact, pool.submit(() -> diffJar(jarArtifact, jarDiffs)));
+                }
+            }
+            for (Artifact artifact : results.getArtifacts()) {
+                ForkJoinTask<JarDiffResult> diff = diffs.get(artifact);
+                if (diff != null) {
+                    processDiff((JarArtifact) artifact, diff.join());
                 }
             }
+        } finally {
+            pool.shutdownNow();
         }
         createClassSummaryReport(jarDiffs);
+        DecompilationCache decompilationCache = context.getDecompilationCache();
+        if (decompilationCache.getHits() + decompilationCache.getMisses() > 0) {
+            LOGGER.info("Decompiled " + decompilationCache.getMisses() + " classes, "
+                    + decompilationCache.getHits() + " classes were taken from decompilation cache");
+        }
+    }
+
+    /**
+     * Diff of an artifact calculated in the worker pool, the artifact is updated from it in the order of results.
+     */
+    private static final class JarDiffResult {
+
+        private final JarDiff diff;
+        // reason of the ERROR status, null if the diff was calculated
+        private final String error;
+
+        JarDiffResult(JarDiff diff, String error) {
+            this.diff = diff;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Calculates diff of an artifact, runs in the worker pool.
+     *
+     * @return the diff or the reason why it cannot be calculated
+     */
+    private JarDiffResult diffJar(JarArtifact jarArtifact, Map<Tuple<String, String>, JarDiff> jarDiffs) {
+        LOGGER.trace("Processing diff of " + jarArtifact.getPathA() + " against " + jarArtifact.getPathB());
+        JarDiffResult result = calculateDiff(jarArtifact);
+        JarDiff diff = result.diff;
+        if ((diff == null) || diff.isEmpty()) {
+            LOGGER.trace("Diff is empty!");
+            return result;
+        }
+        jarDiffs.put(new Tuple<>(
+                        jarArtifact.getPathA()
+                                .replace(distDiffConfiguration.getFolderA().getAbsolutePath(), "")
+                                .substring(1),
+                        jarArtifact.getPathB()
+                                .replace(distDiffConfiguration.getFolderB().getAbsolutePath(), "")
+                                .substring(1)),
+                diff);
+        return result;
+    }
+
+    private void processDiff(JarArtifact jarArtifact, JarDiffResult result) {
+        JarDiff diff = result.diff;
+        if (result.error != null) {
+            if (diff != null && !diff.isEmpty()) {
+                jarArtifact.setJarDiff(diff);
+            }
+            context.handleError(new ErrorEvent(result.error, jarArtifact));
+            jarArtifact.setStatus(Status.ERROR, this.getClass().getSimpleName(), result.error);
+            return;
+        }
+        if (diff.isEmpty()) {
+            // only the order of entries, timestamps or the like changed
+            jarArtifact.setStatus(Status.EXPECTED_DIFFERENCES, this.getClass().getSimpleName(),
+                    "No changes in classes, files and manifest attributes");
+            return;
+        }
+        LOGGER.trace("Diff of " + jarArtifact.getRelativePath() + " is not empty!");
+        jarArtifact.setJarDiff(diff);
+        if (diff.isEmptyExceptChangesInManifest()) {
+            LOGGER.trace("JarDiff is empty except for changes in manifest.");
+            if (diff.manifestHasOnlyExpectedChangesIfAny()) {
+                LOGGER.trace(
+                        "Manifest has only expected/tolerated changes. Setting to EXPECTED_DIFFERENCES");
+                jarArtifact.setStatus(Status.EXPECTED_DIFFERENCES);
+            } else {
+                LOGGER.trace("Manifest has unexpected changes.");
+            }
+        } else {
+            LOGGER.trace("There are changes in other places than manifest.");
+        }
     }
 
     public void createClassSummaryReport(Map<Tuple<String, String>, JarDiff> jarDiffs) {
@@ -104,7 +175,10 @@ public class JarDiffPhase extends ProcessPhase {
             writer.append("Class change summary between directories:\n");
             writer.append("--- ").append(distDiffConfiguration.getFolderA().toString()).append("\n");
             writer.append("--- ").append(distDiffConfiguration.getFolderB().toString()).append("\n\n");
-            for (Map.Entry<Tuple<String, String>, JarDiff> jarDiffEntry : jarDiffs.entrySet()) {
+            List<Map.Entry<Tuple<String, String>, JarDiff>> entries = new ArrayList<>(jarDiffs.entrySet());
+            entries.sort(Comparator.comparing((Map.Entry<Tuple<String, String>, JarDiff> entry) -> entry.getKey().getY())
+                    .thenComparing(entry -> entry.getKey().getX()));
+            for (Map.Entry<Tuple<String, String>, JarDiff> jarDiffEntry : entries) {
                 writer.append(jarDiffEntry.getKey().getX()).append(" against \n");
                 writer.append(jarDiffEntry.getKey().getY()).append(" \n");
                 writer.append(jarDiffEntry.getValue().toSimpleString());
@@ -115,28 +189,39 @@ public class JarDiffPhase extends ProcessPhase {
         }
     }
 
-    private JarDiff calculateDiff(JarArtifact artifact) {
+    /**
+     * Runs in the worker pool, a JAR which cannot be diffed must not fail the diffs of the other ones.
+     */
+    private JarDiffResult calculateDiff(JarArtifact artifact) {
         try (JarFile jarA = new JarFile(new File(artifact.getPathA()));
             JarFile jarB = new JarFile(new File(artifact.getPathB()))) {
             JarDiff jarDiff = new JarDiff();
             compareClassesFromJars(jarDiff, jarA, jarB, distDiffConfiguration);
             compareFilesFromJars(jarDiff, jarA, jarB);
-            compareManifest(artifact, jarDiff);
-            return jarDiff;
+            return new JarDiffResult(jarDiff, compareManifest(artifact, jarDiff));
         } catch (IOException e) {
             LOGGER.warn("Cannot diff file " + artifact.getPathA(), e);
-            return null;
+            return new JarDiffResult(null, "Cannot diff JAR: " + e.getMessage());
+        } catch (RuntimeException e) {
+            LOGGER.error("Error diffing file " + artifact.getPathA(), e);
+            return new JarDiffResult(null, "Error diffing JAR: " + e);
         }
     }
 
+    /**
+     * Compares non-class entries of two JARs. Entries present in both JARs are compared by CRC-32 and size from the
+     * central directories, their content is streamed only if these are not known. Changed text entries are diffed in
+     * memory, nothing is extracted to disk.
+     */
     private void compareFilesFromJars(JarDiff jarDiff, JarFile jarA, JarFile jarB) {
         Set<String> filesA = getFilesFrom(jarA);
         Set<String> filesB = getFilesFrom(jarB);
         for (String fileInA : filesA) {
             if (!filesB.contains(fileInA)) {
                 jarDiff.removedFile(fileInA);
-            } else {
-                // TODO diff the files.. did it change?
+            } else if (!fileInA.endsWith("/") && !JarFile.MANIFEST_NAME.equals(fileInA)) {
+                // MANIFEST.MF is compared by its attributes, see compareManifest
+                compareFileFromJars(jarDiff, jarA, jarB, fileInA);
             }
         }
         for (String fileInB : filesB) {
@@ -146,50 +231,115 @@ public class JarDiffPhase extends ProcessPhase {
         }
     }
 
-    private DiffMatchPatch patch = new DiffMatchPatch();
-
-    private String decompileClassUsingTheSameProcess(File containingJarPath, String className) {
-        LOGGER.debug("decompiling class " + className + " from jar " + containingJarPath.getPath());
-        String original = System.getProperty("java.class.path");
-        System.setProperty("java.class.path", original + File.pathSeparator + containingJarPath.toString());
-        ByteArrayOutputStream outGobblerBAOS = new ByteArrayOutputStream();
-        PrintStream outGobbler = new PrintStream(outGobblerBAOS);
-        PrintStream originalOut = System.out;
-        System.setOut(outGobbler);
+    private void compareFileFromJars(JarDiff jarDiff, JarFile jarA, JarFile jarB, String path) {
+        JarEntry entryA = jarA.getJarEntry(path);
+        JarEntry entryB = jarB.getJarEntry(path);
+        if (JarClassIndex.isSameEntry(entryA, entryB)) {
+            return;
+        }
         try {
-            Main.main(new String[] {className});
-        } finally {
-            System.setOut(originalOut);
-            System.setProperty("java.class.path", original);
+            if ((entryA.getCrc() == -1 || entryB.getCrc() == -1 || entryA.getSize() == -1 || entryB.getSize() == -1)
+                    && hasSameContent(jarA, entryA, jarB, entryB)) {
+                return;
+            }
+            LOGGER.trace("File " + path + " changed");
+            jarDiff.changedFile(path, diffTextEntries(jarA, entryA, jarB, entryB));
+        } catch (IOException e) {
+            LOGGER.warn("Cannot compare file " + path + " from jars " + jarA.getName() + " and " + jarB.getName()
+                    + ": " + e.getMessage());
+        }
+    }
+
+    private static boolean hasSameContent(JarFile jarA, JarEntry entryA, JarFile jarB, JarEntry entryB)
+            throws IOException {
+        try (InputStream streamA = jarA.getInputStream(entryA);
+             InputStream streamB = jarB.getInputStream(entryB)) {
+            byte[] bufferA = new byte[8192];
+            byte[] bufferB = new byte[bufferA.length];
+            while (true) {
+                int lengthA = streamA.readNBytes(bufferA, 0, bufferA.length);
+                int lengthB = streamB.readNBytes(bufferB, 0, bufferB.length);
+                if (lengthA != lengthB || !Arrays.equals(bufferA, 0, lengthA, bufferB, 0, lengthB)) {
+                    return false;
+                }
+                if (lengthA < bufferA.length) {
+                    return true;
+                }
+            }
         }
-        return outGobblerBAOS.toString();
     }
 
+    /**
+     * @return HTML diff of two text entries, null if any of them is binary or larger than
+     * {@link #MAX_DIFFED_FILE_SIZE}
+     */
+    private static String diffTextEntries(JarFile jarA, JarEntry entryA, JarFile jarB, JarEntry entryB)
+            throws IOException {
+        byte[] contentA = readTextEntry(jarA, entryA);
+        byte[] contentB = (contentA != null) ? readTextEntry(jarB, entryB) : null;
+        if (contentB == null) {
+            return null;
+        }
+        DiffMatchPatch patch = new DiffMatchPatch();
+        LinkedList<DiffMatchPatch.Diff> diffs = patch.diff_main(new String(contentA, StandardCharsets.UTF_8),
+                new String(contentB, StandardCharsets.UTF_8));
+        patch.diff_cleanupSemantic(diffs);
+        return patch.diff_prettyHtml(diffs).replaceAll("&para;", "");
+    }
+
+    /**
+     * @return content of a text entry, null if it is binary or larger than {@link #MAX_DIFFED_FILE_SIZE}
+     */
+    private static byte[] readTextEntry(JarFile jarFile, JarEntry entry) throws IOException {
+        if (entry.getSize() > MAX_DIFFED_FILE_SIZE) {
+            return null;
+        }
+        byte[] content;
+        try (InputStream stream = jarFile.getInputStream(entry)) {
+            content = stream.readNBytes(MAX_DIFFED_FILE_SIZE + 1);
+        }
+        if (content.length > MAX_DIFFED_FILE_SIZE) {
+            return null;
+        }
+        String name = entry.getName().substring(entry.getName().lastIndexOf('/') + 1);
+        boolean text = FileTypeSniffer.sniff(name, content, Math.min(content.length, FileTypeSniffer.HEADER_SIZE))
+                .isText();
+        return text ? content : null;
+    }
+
+    /**
+     * Compares classes of two JARs. Entries with the same CRC-32 and size in the central directories are skipped
+     * without decompressing, parsing or decompiling them, only the changed, added and removed classes are read.
+     */
     private void compareClassesFromJars(JarDiff jarDiff, JarFile jarA, JarFile jarB,
-                                        DistDiffConfiguration distDiffConfiguration) {
-        Map<String, CtClass> classesA = getClassesFrom(jarA);
-        Map<String, CtClass> classesB = getClassesFrom(jarB);
-        for (Map.Entry<String, CtClass> classAEntry : classesA.entrySet()) {
-            if (classesB.containsKey(classAEntry.getKey())) {
+                                        DistDiffConfiguration distDiffConfiguration) throws IOException {
+        JarClassIndex classesA = new JarClassIndex(jarA, context.getDecompilationCache());
+        JarClassIndex classesB = new JarClassIndex(jarB, context.getDecompilationCache());
+        DiffMatchPatch patch = new DiffMatchPatch();
+        for (String className : classesA.getClassNames()) {
+            JarEntry entryB = classesB.getEntry(className);
+            if (entryB != null && JarClassIndex.isSameEntry(classesA.getEntry(className), entryB)) {
+                LOGGER.trace("Skipping identical class " + className);
+                continue;
+            }
+            ClassFileInfo classA = classesA.getClass(className);
+            if (classA == null) {
+                continue;
+            }
+            ClassFileInfo classB = (entryB != null) ? classesB.getClass(className) : null;
+            if (classB != null) {
                 // compare internals of these two classes
-                ClassDiff classDiff = compareTwoClasses(classAEntry.getValue(),
-                        classesB.get(classAEntry.getKey()));
-                if (classDiff.isEmpty() || distDiffConfiguration.isDecompileAll()) {
-                    if (distDiffConfiguration.isDecompile()) {
+                ClassDiff classDiff = compareTwoClasses(classA, classB);
+                if (classDiff.isEmptyExceptMethodBodies() || distDiffConfiguration.isDecompileAll()) {
                     /* ignore classes with $bundle or $logger in their name
                        they are automatically generated, have no line information, therefore
                        the decompiled code is very different every time even though
                        nothing actually changed */
-                        if (classAEntry.getKey().contains("$bundle") || classAEntry.getKey()
-                                .contains("$logger")) {
-                            continue;
-                        }
-
-                        // try decompilation because all other methods failed (there is no API difference)
-                        String sourceCodeA = decompileClassUsingTheSameProcess(new File(jarA.getName()),
-                                classAEntry.getKey());
-                        String sourceCodeB = decompileClassUsingTheSameProcess(new File(jarB.getName()),
-                                classAEntry.getKey());
+                    if (distDiffConfiguration.isDecompile()
+                            && !className.contains("$bundle") && !className.contains("$logger")) {
+                        // decompile to show the source of the changes, there is no API difference
+                        String sourceCodeA = classesA.decompile(className);
+                        String sourceCodeB = classesB.decompile(className);
 
                         if (sourceCodeA != null && sourceCodeB != null) {
                             sourceCodeA = removeGeneratedCommentFromDecompiledClassSource(sourceCodeA);
@@ -201,8 +351,7 @@ public class JarDiffPhase extends ProcessPhase {
                             if (diffs.size() > 1) {
                                 LOGGER.info(
                                         "Found non-empty diff (" + diffs.size() + " items) on class "
-                                                + classAEntry
-                                                .getKey() + " in jar: " + jarA.getName());
+                                                + className + " in jar: " + jarA.getName());
                                 String html_sourceCodeDiff = patch.diff_prettyHtml(diffs);
                                 html_sourceCodeDiff = html_sourceCodeDiff.replace("&para;",
                                         "");  // no idea why, but sometimes every <br> gets prepended with a paragraph character
@@ -210,20 +359,24 @@ public class JarDiffPhase extends ProcessPhase {
                                         .fillLinesWithChangesWithGreyColor(html_sourceCodeDiff);
                                 html_sourceCodeDiff = "<pre>" + html_sourceCodeDiff + "</pre>";
                                 classDiff.setHtml_sourceCodeDiff(html_sourceCodeDiff);
-                                jarDiff.classDiff(classAEntry.getKey(), classDiff);
                             }
                         }
                     }
-                } else {
-                    jarDiff.classDiff(classAEntry.getKey(), classDiff);
+                }
+                if (!classDiff.isEmpty()) {
+                    jarDiff.classDiff(className, classDiff);
                 }
             } else {
-                jarDiff.removedClass(classAEntry.getKey());
+                jarDiff.removedClass(className);
             }
         }
-        for (Map.Entry<String, CtClass> classInB : classesB.entrySet()) {
-            if (!classesA.containsKey(classInB.getKey())) {
-                jarDiff.addedClass(classInB.getKey());
+        for (String className : classesB.getClassNames()) {
+            JarEntry entryA = classesA.getEntry(className);
+            if (entryA != null && JarClassIndex.isSameEntry(entryA, classesB.getEntry(className))) {
+                continue;
+            }
+            if (classesB.getClass(className) != null && (entryA == null || classesA.getClass(className) == null)) {
+                jarDiff.addedClass(className);
             }
         }
     }
@@ -247,69 +400,7 @@ public class JarDiffPhase extends ProcessPhase {
                 .collect(Collectors.toSet());
     }
 
-    /**
-     * Returns a map of classes in a JAR file.
-     * The keys are class names (FQ), the values are classes' representations
-     * Anonymous inner classes are ignored.
-     */
-    private Map<String, CtClass> getClassesFrom(JarFile jarFile) {
-        Map<String, CtClass> result = new HashMap<>();
-        ClassPool pool = new ClassPool();
-        pool.appendSystemPath();
-
-        // Iteration order seems to reflect the order in which files where added to the JAR, this order may differ for
-        // JARs created on different OS platform or different Java version. Since we are using map of FQDN:class, then for
-        // example with MultiRelease JARs, without deterministic order it may happen we would compare class from JAR root to
-        // the one from META-INF/versions where they will obviously differ at least in class file version.
-        // By sorting the iteration order we ensure we are comparing the same classes.
-        // TODO given the above, with current implementation we are not supporting comparing all classes in case of MultiRelease
-        //  JAR - we are ignoring potential multiple implementation of the same class and are only comparing the last class
-        //  found, which given the natural order is the original one from JAR root and not the others from META-INF/versions.
-        jarFile.stream()
-                .sorted(Comparator.comparing(JarEntry::getName))
-                .filter(jarEntry -> jarEntry.getName().endsWith(".class"))
-                .forEach(jarEntry -> {
-                    try (InputStream stream = jarFile.getInputStream(jarEntry)) {
-                        CtClass clazz = pool.makeClass(stream);
-                        result.put(clazz.getName(), clazz);
-                    } catch (IOException e) {
-                        LOGGER.error(e);
-                    }
-                });
-
-        /*
-          ignore anonymous inner classes
-          we iterate through the result again, cannot do it in the previous cycle
-          because JarFile.entries() doesn't guarantee sorting the files in a way that ensures
-          that inner classes will come AFTER their enclosing classes, therefore it is not possible to
-          get reference to the enclosing method if the enclosing class is not yet added to the class pool
-         */
-        // TODO - this whole part is probably irrelevant as 'clazz.getEnclosingBehavior' returns null always.
-        Set<String> classNames = result.keySet();
-        Iterator<String> iterator = classNames.iterator();
-        while (iterator.hasNext()) {
-            CtClass clazz = result.get(iterator.next());
-            try {
-                if (clazz.getEnclosingBehavior() != null) {
-                    LOGGER.trace("Skipping anonymous inner class " + clazz.getName());
-                    iterator.remove();
-                }
-            } catch (NullPointerException | NotFoundException e) {
-                LOGGER.trace(
-                        "Cannot determine if class is anonymous: " + clazz.getName() + ", because of: " + e
-                                + ", presuming that YES");
-                iterator.remove();
-            }
-        }
-        return result;
-    }
-
-    // FIXME this expects particular behavior from CtMethod's equals method
-    // it expects two methods with the same class name, method name, return type and argument list to be equal
-    // and that modifiers don't make any difference in this regard (don't break the equality)
-    // might break in a future javassist version...
-    // we might need to implement a custom equality test for CtMethod
-    private ClassDiff compareTwoClasses(final CtClass a, final CtClass b) {
+    private ClassDiff compareTwoClasses(final ClassFileInfo a, final ClassFileInfo b) throws IOException {
         LOGGER.debug("Comparing two versions of class " + a.getName());
         ClassDiff result = new ClassDiff();
 
@@ -323,95 +414,89 @@ public class JarDiffPhase extends ProcessPhase {
         }
 
         // magic numbers (class versions)
-        int classVersionOriginal = a.getClassFile().getMajorVersion();
-        int classVersionNew = b.getClassFile().getMajorVersion();
+        int classVersionOriginal = a.getMajorVersion();
+        int classVersionNew = b.getMajorVersion();
         result.setOriginalClassFormatVersion(classVersionOriginal);
         result.setNewClassFormatVersion(classVersionNew);
         LOGGER.trace("Class format: old=" + classVersionOriginal + ", new=" + classVersionNew);
 
-        // compare the set of methods
-        HashSet<CtMethod> methodsA = new HashSet<>(Arrays.asList(a.getDeclaredMethods()));
-        HashSet<CtMethod> methodsB = new HashSet<>(Arrays.asList(b.getDeclaredMethods()));
+        // compare the set of methods, methods with the same name and parameter types are the same methods
+        Map<String, ClassFileInfo.Member> methodsA = a.getMethods();
+        Map<String, ClassFileInfo.Member> methodsB = b.getMethods();
         // find removed methods (present in A, but not present in B)
-        for (CtMethod methodA : methodsA) {
+        for (Map.Entry<String, ClassFileInfo.Member> entryA : methodsA.entrySet()) {
+            ClassFileInfo.Member methodA = entryA.getValue();
             if (methodA.getName().contains("access$")) {
                 // ignore synthetic accessors in inner classes
-                LOGGER.trace("Skipping synthetic method " + methodA.getLongName());
+                LOGGER.trace("Skipping synthetic method " + entryA.getKey());
                 continue;
             }
             if (methodA.getName().contains("lambda$")) {
                 // ignore methods generated from lambda expressions
-                LOGGER.trace("Skipping lambda expression " + methodA.getLongName());
+                LOGGER.trace("Skipping lambda expression " + entryA.getKey());
                 continue;
             }
-            if (!methodsB.contains(methodA)) {
-                // FIXME here is the equals-behavior assumption
+            ClassFileInfo.Member methodB = methodsB.get(entryA.getKey());
+            if (methodB == null) {
                 LOGGER.trace("removed method : " + methodA);
-                result.removedMethod(methodA);
+                result.removedMethod(methodA.getSignature());
             } else {
-                CtMethod methodB = null;
-                for (CtMethod method : methodsB) {
-                    if (method.equals(methodA)) {
-                        methodB = method;
-                    }
-                }
-                if (methodB == null) {
-                    throw new Error("This should not happen");
-                }
                 // compare visibility
                 int modifiersMethodA = methodA.getModifiers();
                 int modifiersMethodB = methodB.getModifiers();
                 if (modifiersMethodA != modifiersMethodB) {
-                    result.methodModifiersChanged(methodA, modifiersMethodA, modifiersMethodB);
+                    result.methodModifiersChanged(methodA.getSignature(), modifiersMethodA, modifiersMethodB);
                     LOGGER.trace("Method modifiers changed for " + methodA.getName());
                 }
+                compareMethodBodies(result, methodA, methodB);
+            }
+        }
+        // constructors and static initializers have no API, only their bodies are compared
+        for (Map.Entry<String, ClassFileInfo.Member> entryA : a.getInitializers().entrySet()) {
+            ClassFileInfo.Member initializerB = b.getInitializers().get(entryA.getKey());
+            if (initializerB != null) {
+                compareMethodBodies(result, entryA.getValue(), initializerB);
             }
         }
         // find added methods (present in B, but not present in A)
-        for (CtMethod methodB : methodsB) {
+        for (Map.Entry<String, ClassFileInfo.Member> entryB : methodsB.entrySet()) {
+            ClassFileInfo.Member methodB = entryB.getValue();
             if (methodB.getName().contains("access$")) {
                 // ignore synthetic accessors in inner classes
                 continue;
             }
             if (methodB.getName().contains("lambda$")) {
                 // ignore methods generated from lambda expressions
-                LOGGER.trace("Skipping lambda expression " + methodB.getLongName());
+                LOGGER.trace("Skipping lambda expression " + entryB.getKey());
                 continue;
             }
-            if (!methodsA.contains(methodB)) {
-                result.addedMethod(methodB);
+            if (!methodsA.containsKey(entryB.getKey())) {
+                result.addedMethod(methodB.getSignature());
                 LOGGER.trace("Added method: " + methodB);
             }
         }
 
         // compare fields
         // using just the field name for equality tests
-        // store them in a map, where key is the name, value is the field
-        Map<String, CtField> fieldsA = new HashMap<>();
-        for (CtField field : a.getDeclaredFields()) {
-            fieldsA.put(field.getName(), field);
-        }
-        Map<String, CtField> fieldsB = new HashMap<>();
-        for (CtField field : b.getDeclaredFields()) {
-            fieldsB.put(field.getName(), field);
-        }
-        for (CtField fieldInA : fieldsA.values()) {
+        Map<String, ClassFileInfo.Member> fieldsA = a.getFields();
+        Map<String, ClassFileInfo.Member> fieldsB = b.getFields();
+        for (ClassFileInfo.Member fieldInA : fieldsA.values()) {
             if (fieldsB.containsKey(fieldInA.getName())) {
                 // compare visibility
                 int modA = fieldInA.getModifiers();
                 int modB = fieldsB.get(fieldInA.getName()).getModifiers();
                 if (modA != modB) {
-                    result.fieldModifierChanged(fieldInA, modA, modB);
+                    result.fieldModifierChanged(fieldInA.getSignature(), modA, modB);
                     LOGGER.trace("Field modifiers changed for field " + fieldInA.getName());
                 }
             } else {
-                result.removedField(fieldInA);
+                result.removedField(fieldInA.getSignature());
                 LOGGER.trace("Removed field: " + fieldInA.getName());
             }
         }
-        for (CtField fieldInB : fieldsB.values()) {
+        for (ClassFileInfo.Member fieldInB : fieldsB.values()) {
             if (!fieldsA.containsKey(fieldInB.getName())) {
-                result.addedField(fieldInB);
+                result.addedField(fieldInB.getSignature());
                 LOGGER.trace("Added field: " + fieldInB.getName());
             }
         }
@@ -424,87 +509,52 @@ public class JarDiffPhase extends ProcessPhase {
         return result;
     }
 
-    private void compareManifest(JarArtifact artifact, JarDiff result) {
+    /**
+     * Compares normalized bytecode of two versions of a method (see {@link Bytecode}), changes of debug information
+     * and of the constant pool order are ignored.
+     */
+    private static void compareMethodBodies(ClassDiff result, ClassFileInfo.Member methodA,
+                                            ClassFileInfo.Member methodB) throws IOException {
+        String digestA = methodA.getBodyDigest();
+        String digestB = methodB.getBodyDigest();
+        if (digestA != null && digestB != null && !digestA.equals(digestB)) {
+            LOGGER.trace("Method body changed for " + methodA.getName());
+            result.methodBodyChanged(methodA.getSignature(), Bytecode.diff(methodA.getListing(), methodB.getListing()));
+        }
+    }
+
+    /**
+     * Compares main attributes and named sections of the manifests, see {@link ManifestDiff}. The manifests are taken
+     * from the {@link ManifestCache} and evicted from it, nothing needs them once they are compared.
+     *
+     * @return reason of the ERROR status of the artifact, null if the manifests were compared
+     */
+    private String compareManifest(JarArtifact artifact, JarDiff result) {
         LOGGER.debug("Comparing MANIFEST.MF of artifact " + artifact.getRelativePath());
-        final DiffMatchPatch patch = new DiffMatchPatch();
         String fileA = artifact.getPathA();
         String fileB = artifact.getPathB();
         if (fileA != null && fileB != null) {
+            ManifestCache manifestCache = context.getManifestCache();
             try {
-                Manifest manifestA = Tools.readManifestFromJar(fileA);
-                Manifest manifestB = Tools.readManifestFromJar(fileB);
-                artifact.setManifestA(manifestA);
-                artifact.setManifestB(manifestB);
-
-                String manifestAStr;
-                String manifestBStr;
+                Manifest manifestA = manifestCache.get(fileA);
+                Manifest manifestB = manifestCache.get(fileB);
                 if (manifestA != null && manifestB != null) {
-                    ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-                    manifestA.write(byteArrayOutputStream);
-                    manifestAStr = byteArrayOutputStream.toString("utf-8");
-                    byteArrayOutputStream = new ByteArrayOutputStream();
-                    manifestB.write(byteArrayOutputStream);
-                    manifestBStr = byteArrayOutputStream.toString("utf-8");
-                    LinkedList<DiffMatchPatch.Diff> diffs = patch.diff_main(manifestAStr, manifestBStr);
-                    patch.diff_cleanupSemantic(diffs);
-                    String diff_prettyHtml = patch.diff_prettyHtml(diffs);
-                    diff_prettyHtml = diff_prettyHtml.replaceAll("&para;", "");
-                    result.setManifestDiff(diff_prettyHtml);
-
-                    if (!diffs.isEmpty()) {
-                        // some manifest attributes are tolerated (expected) to change and these changes should not be reported as an error
-                        final List<String> toleratedAttributes = new ArrayList<>();
-                        toleratedAttributes.add("Bnd-LastModified");
-                        toleratedAttributes.add("Built-By");
-                        toleratedAttributes.add("Created-By");
-                        toleratedAttributes.add("Os-Arch");
-                        toleratedAttributes.add("Os-Name");
-                        toleratedAttributes.add("Build-Jdk");
-                        toleratedAttributes.add("Os-Version");
-                        toleratedAttributes.add("Build-Timestamp");
-
-                        // if one/both of the distros are built from sources rather than productized, some more attributes are expected to be different
-                        if (distDiffConfiguration.isFromSources()) {
-                            toleratedAttributes.add("Java-Vendor");
-                            toleratedAttributes.add("JBossAS-Release-Version");
-                            toleratedAttributes.add("Java-Version");
-                            toleratedAttributes.add("Specification-Version");
-                            toleratedAttributes.add("Implementation-Version");
-                            toleratedAttributes.add("Scm-Revision");
-                            toleratedAttributes.add("Export-Package");
-                            toleratedAttributes.add("Bundle-Version");
-                        }
-
-                        for (Object s : manifestA.getMainAttributes().keySet()) {
-                            final String key = s.toString();
-                            final String value = manifestA.getMainAttributes().getValue(key);
-                            if (toleratedAttributes.contains(key)) {
-                                LOGGER.trace(
-                                        "Manifest entry " + key + "=" + value + " is tolerated, skipping");
-                                continue;
-                            }
-                            String newValue = manifestB.getMainAttributes().getValue(key);
-                            if (newValue == null) {
-                                LOGGER.trace("Manifest entry " + key + " not found in B's manifest");
-                                result.setManifestHasOnlyExpectedChanges(false);
-                            } else if (!newValue.equals(value)) {
-                                LOGGER.trace("Manifest entry " + key + "=" + value
-                                        + " is different (changed to " + newValue
-                                        + "! This is an unexpected change.");
-                                result.setManifestHasOnlyExpectedChanges(false);
-                            } else {
-                                LOGGER.trace("Manifest entry " + key + "=" + value + " is equal.");
-                            }
-                        }
-                    }
+                    // some manifest attributes are tolerated (expected) to change and these changes should not be reported as an error
+                    // if one/both of the distros are built from sources rather than productized, some more attributes are expected to be different
+                    ManifestDiff diff = ManifestDiff.compare(manifestA, manifestB, toleratedAttributes);
+                    result.setManifestDiff(diff.getHtml());
+                    result.setManifestHasOnlyExpectedChanges(diff.hasOnlyExpectedChanges());
                 }
             } catch (Exception e) {
                 LOGGER.error(e.getMessage(), e);
-                artifact.setStatus(Status.ERROR);
+                return "Cannot compare manifests: " + e.getMessage();
+            } finally {
+                manifestCache.evict(fileA);
+                manifestCache.evict(fileB);
             }
-        } else {
-            artifact.setStatus(Status.ERROR);
+            return null;
         }
+        return "JAR is missing in one of the distributions";
     }
 
 
@@ -0,0 +1,139 @@
+package org.wildfly.qa.distdiff2.jardiff;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+
+import org.wildfly.qa.distdiff2.hashing.HashAlgorithm;
+import org.wildfly.qa.distdiff2.hashing.Hex;
+
+/**
+ * Fingerprint of the content of a JAR which does not change when the JAR is rebuilt from the same sources.
+ * <p>
+ * The fingerprint is a SHA-256 digest of names, CRC-32 and sizes of the entries taken from the central directory and
+ * sorted by name, so neither timestamps nor order of the entries matter and nothing is decompressed except for the
+ * manifest. Left out are
+ * <ul>
+ *   <li>directories and signature files,</li>
+ *   <li>classes generated by JBoss Logging (<code>_$logger</code>, <code>_$bundle</code>), they are different after
+ *       every build,</li>
+ *   <li>manifest attributes which change with every build, see {@link #toleratedManifestAttributes(boolean)}.</li>
+ * </ul>
+ * JARs with the same fingerprint contain the same classes and resources, {@link JarDiffPhase} would find only
+ * tolerated changes in their manifests.
+ *
+ * @see org.wildfly.qa.distdiff2.phase.MD5SumsPhase
+ */
+public final class JarFingerprint {
+
+    // attributes set by the build tools
+    private static final List<String> BUILD_ATTRIBUTES = Arrays.asList("Bnd-LastModified", "Built-By", "Created-By",
+            "Os-Arch", "Os-Name", "Build-Jdk", "Os-Version", "Build-Timestamp");
+
+    // attributes expected to differ if one of the distributions is built from sources
+    private static final List<String> FROM_SOURCES_ATTRIBUTES = Arrays.asList("Java-Vendor",
+            "JBossAS-Release-Version", "Java-Version", "Specification-Version", "Implementation-Version",
+            "Scm-Revision", "Export-Package", "Bundle-Version");
+
+    private static final Set<String> TOLERATED = toSet(BUILD_ATTRIBUTES);
+    private static final Set<String> TOLERATED_FROM_SOURCES = toSet(BUILD_ATTRIBUTES, FROM_SOURCES_ATTRIBUTES);
+
+    private JarFingerprint() {
+    }
+
+    /**
+     * @param fromSources true if one of the distributions is built from sources rather than productized
+     * @return names of the main manifest attributes tolerated to change
+     */
+    public static Set<String> toleratedManifestAttributes(boolean fromSources) {
+        return fromSources ? TOLERATED_FROM_SOURCES : TOLERATED;
+    }
+
+    @SafeVarargs
+    private static Set<String> toSet(List<String>... lists) {
+        Set<String> attributes = new HashSet<>();
+        for (List<String> list : lists) {
+            attributes.addAll(list);
+        }
+        return Collections.unmodifiableSet(attributes);
+    }
+
+    /**
+     * @param jar         the JAR
+     * @param fromSources true if one of the distributions is built from sources, more manifest attributes are
+     *                    tolerated then
+     * @return hexadecimal fingerprint of the JAR
+     * @throws IOException if the JAR cannot be read
+     */
+    public static String of(File jar, boolean fromSources) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(HashAlgorithm.SHA256.getDisplayName());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (JarFile jarFile = new JarFile(jar, false)) {
+            Map<String, JarEntry> entries = new TreeMap<>();
+            jarFile.stream()
+                    .filter(entry -> !entry.isDirectory() && !isIgnored(entry.getName()))
+                    .forEach(entry -> entries.put(entry.getName(), entry));
+            for (JarEntry entry : entries.values()) {
+                update(digest, entry.getName() + " " + Long.toHexString(entry.getCrc()) + " " + entry.getSize());
+            }
+            Manifest manifest = jarFile.getManifest();
+            if (manifest != null) {
+                Set<String> tolerated = toleratedManifestAttributes(fromSources);
+                update(digest, JarFile.MANIFEST_NAME);
+                updateAttributes(digest, manifest.getMainAttributes(), tolerated);
+                for (Map.Entry<String, Attributes> section : new TreeMap<>(manifest.getEntries()).entrySet()) {
+                    update(digest, "Name: " + section.getKey());
+                    updateAttributes(digest, section.getValue(), Collections.emptySet());
+                }
+            }
+        }
+        return Hex.encode(digest.digest());
+    }
+
+    private static boolean isIgnored(String name) {
+        if (JarFile.MANIFEST_NAME.equals(name)) {
+            return true;
+        }
+        if (name.startsWith("META-INF/") && name.indexOf('/', "META-INF/".length()) < 0
+                && (name.endsWith(".SF") || name.endsWith(".DSA") || name.endsWith(".RSA") || name.endsWith(".EC"))) {
+            return true;
+        }
+        return name.endsWith(".class") && (name.endsWith("_$bundle.class") || name.endsWith("_$logger.class")
+                || name.contains("_$bundle_") || name.contains("_$logger_"));
+    }
+
+    private static void updateAttributes(MessageDigest digest, Attributes attributes, Set<String> tolerated) {
+        Map<String, String> sorted = new TreeMap<>();
+        for (Map.Entry<Object, Object> attribute : attributes.entrySet()) {
+            String name = attribute.getKey().toString();
+            if (!tolerated.contains(name)) {
+                sorted.put(name, String.valueOf(attribute.getValue()));
+            }
+        }
+        for (Map.Entry<String, String> attribute : sorted.entrySet()) {
+            update(digest, attribute.getKey() + ": " + attribute.getValue());
+        }
+    }
+
+    private static void update(MessageDigest digest, String line) {
+        digest.update(line.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) '\n');
+    }
+}
@@ -0,0 +1,37 @@
+package org.wildfly.qa.distdiff2.jardiff;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.jar.Manifest;
+
+import org.wildfly.qa.distdiff2.tools.Tools;
+
+/**
+ * ManifestCache
+ * <p>
+ * Manifests of JARs read during a run, shared by all phases, so a manifest is read at most once no matter how many
+ * phases need it, see {@link Tools#readManifestFromJar(String)}. The cache is thread safe, returned manifests must not
+ * be modified.
+ */
+public final class ManifestCache {
+
+    private final ConcurrentMap<String, Optional<Manifest>> manifests = new ConcurrentHashMap<>();
+
+    /**
+     * @param jar path to the JAR
+     * @return manifest of the JAR, null if the JAR has no manifest or cannot be read
+     */
+    public Manifest get(String jar) {
+        return manifests.computeIfAbsent(jar, path -> Optional.ofNullable(Tools.readManifestFromJar(path))).orElse(null);
+    }
+
+    /**
+     * Forgets the manifest of a JAR once nothing is going to ask for it anymore.
+     *
+     * @param jar path to the JAR
+     */
+    public void evict(String jar) {
+        manifests.remove(jar);
+    }
+}
@@ -0,0 +1,114 @@
+package org.wildfly.qa.distdiff2.jardiff;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.jar.Attributes;
+import java.util.jar.Manifest;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Attribute level diff of two manifests. Main attributes and attributes of the named sections are compared by name,
+ * only added, removed and changed attributes are listed in the HTML diff. Changes of the tolerated main attributes
+ * (see {@link JarFingerprint#toleratedManifestAttributes(boolean)}) are listed too, but they are expected.
+ */
+public final class ManifestDiff {
+
+    private static final Logger LOGGER = Logger.getLogger(ManifestDiff.class.getName());
+
+    private final StringBuilder html = new StringBuilder();
+    private boolean onlyExpectedChanges = true;
+
+    private ManifestDiff() {
+    }
+
+    /**
+     * @param manifestA manifest from distribution A
+     * @param manifestB manifest from distribution B
+     * @param tolerated names of the main attributes tolerated to change
+     * @return the diff
+     */
+    public static ManifestDiff compare(Manifest manifestA, Manifest manifestB, Set<String> tolerated) {
+        ManifestDiff diff = new ManifestDiff();
+        diff.compare(null, manifestA.getMainAttributes(), manifestB.getMainAttributes(), tolerated);
+        Set<String> sections = new TreeSet<>(manifestA.getEntries().keySet());
+        sections.addAll(manifestB.getEntries().keySet());
+        for (String section : sections) {
+            diff.compare(section, manifestA.getAttributes(section), manifestB.getAttributes(section),
+                    Collections.emptySet());
+        }
+        return diff;
+    }
+
+    /**
+     * @return HTML list of the changed attributes, null if there are none
+     */
+    public String getHtml() {
+        return html.length() == 0 ? null : html.toString();
+    }
+
+    /**
+     * @return false if an attribute which is not tolerated changed
+     */
+    public boolean hasOnlyExpectedChanges() {
+        return onlyExpectedChanges;
+    }
+
+    private void compare(String section, Attributes attributesA, Attributes attributesB, Set<String> tolerated) {
+        Map<String, String> valuesA = toMap(attributesA);
+        Map<String, String> valuesB = toMap(attributesB);
+        Set<String> names = new TreeSet<>(valuesA.keySet());
+        names.addAll(valuesB.keySet());
+        boolean sectionListed = false;
+        for (String name : names) {
+            String valueA = valuesA.get(name);
+            String valueB = valuesB.get(name);
+            if (valueA != null && valueA.equals(valueB)) {
+                continue;
+            }
+            boolean expected = tolerated.contains(name);
+            if (expected) {
+                LOGGER.trace("Manifest entry " + name + " is tolerated to change");
+            } else {
+                LOGGER.trace("Manifest entry " + name + " changed from " + valueA + " to " + valueB
+                        + ", this is an unexpected change.");
+                onlyExpectedChanges = false;
+            }
+            if (section != null && !sectionListed) {
+                html.append("<b>Name: ").append(escape(section)).append("</b><br>");
+                sectionListed = true;
+            }
+            html.append(section != null ? "&nbsp;&nbsp;" : "").append(escape(name)).append(": ");
+            if (valueA != null) {
+                html.append("<del style=\"background:#ffe6e6;\">").append(escape(valueA)).append("</del>");
+            }
+            if (valueA != null && valueB != null) {
+                html.append(' ');
+            }
+            if (valueB != null) {
+                html.append("<ins style=\"background:#e6ffe6;\">").append(escape(valueB)).append("</ins>");
+            }
+            if (expected) {
+                html.append(" <i>(tolerated)</i>");
+            }
+            html.append("<br>");
+        }
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
+    private static Map<String, String> toMap(Attributes attributes) {
+        Map<String, String> values = new TreeMap<>();
+        if (attributes != null) {
+            for (Map.Entry<Object, Object> attribute : attributes.entrySet()) {
+                values.put(attribute.getKey().toString(), String.valueOf(attribute.getValue()));
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,38 @@
+package org.wildfly.qa.distdiff2.jardiff.jaxb;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
+
+import org.wildfly.qa.distdiff2.helpers.AdaptorCDATA;
+
+/**
+ * Non-class entry present in both JARs with a different content, with the HTML diff of the content for text entries.
+ */
+@XmlRootElement(name = "changedFile")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class ChangedFile {
+
+    public ChangedFile() {
+    }
+
+    public ChangedFile(String path, String diff) {
+        this.path = path;
+        this.diff = diff;
+    }
+
+    private String path;
+
+    // null for binary entries and text entries too large to be diffed
+    @XmlJavaTypeAdapter(AdaptorCDATA.class)
+    private String diff;
+
+    public String getPath() {
+        return path;
+    }
+
+    public String getDiff() {
+        return diff;
+    }
+}
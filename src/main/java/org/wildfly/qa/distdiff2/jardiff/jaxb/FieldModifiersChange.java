@@ -6,8 +6,6 @@ import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlRootElement;
 
-import javassist.CtField;
-
 /**
  * @author Jan Martiska
  */
@@ -18,13 +16,13 @@ public class FieldModifiersChange {
     public FieldModifiersChange() {
     }
 
-    public FieldModifiersChange(CtField field, Integer oldModifiers, Integer newModifiers) {
+    public FieldModifiersChange(String field, Integer oldModifiers, Integer newModifiers) {
         this.field = field;
         this.oldModifiers = Modifier.toString(oldModifiers);
         this.newModifiers = Modifier.toString(newModifiers);
     }
 
-    private CtField field;
+    private String field;
 
     private String oldModifiers;
 
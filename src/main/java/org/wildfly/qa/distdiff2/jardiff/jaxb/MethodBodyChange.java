@@ -0,0 +1,39 @@
+package org.wildfly.qa.distdiff2.jardiff.jaxb;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
+
+import org.wildfly.qa.distdiff2.helpers.AdaptorCDATA;
+
+/**
+ * Method with the same signature and a different body, with the differing lines of the bytecode listings.
+ */
+@XmlRootElement(name = "methodBodyChange")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class MethodBodyChange {
+
+    public MethodBodyChange() {
+    }
+
+    public MethodBodyChange(String method, String bytecodeDiff) {
+        this.method = method;
+        this.bytecodeDiff = bytecodeDiff;
+    }
+
+    // constructors are named <init>
+    @XmlJavaTypeAdapter(AdaptorCDATA.class)
+    private String method;
+
+    @XmlJavaTypeAdapter(AdaptorCDATA.class)
+    private String bytecodeDiff;
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getBytecodeDiff() {
+        return bytecodeDiff;
+    }
+}
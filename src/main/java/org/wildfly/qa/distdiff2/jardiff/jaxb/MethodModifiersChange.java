@@ -6,8 +6,6 @@ import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlRootElement;
 
-import javassist.CtMethod;
-
 /**
  * @author Jan Martiska
  */
@@ -18,13 +16,13 @@ public class MethodModifiersChange {
     public MethodModifiersChange() {
     }
 
-    public MethodModifiersChange(CtMethod method, Integer oldModifiers, Integer newModifiers) {
+    public MethodModifiersChange(String method, Integer oldModifiers, Integer newModifiers) {
         this.method = method;
         this.oldModifiers = Modifier.toString(oldModifiers);
         this.newModifiers = Modifier.toString(newModifiers);
     }
 
-    private CtMethod method;
+    private String method;
 
     private String oldModifiers;
 
@@ -5,32 +5,42 @@ import java.util.HashMap;
 import java.util.Map;
 
 import org.apache.log4j.Logger;
+import org.wildfly.qa.distdiff2.hashing.HashService;
 import org.wildfly.qa.distdiff2.tools.Tools;
 
 /**
  * Used for caching results from computation of directories' MD5 hashes, so we don't have to compute a hash multiple times
  * for each module (each file in that directory will require to know the hash).
  * This might look like a close-to-zero optimization, but it actually saves ~6 seconds on every run!
- * In the underlying map, the key is a file handle to a directory, the value is a numeric hash code computed from all files in the directory.
+ * In the underlying map, the key is a file handle to a directory, the value is a Merkle tree digest computed from all files in the directory.
  * @author Jan Martiska
  */
 public class DirectoryHashesCache {
 
     public DirectoryHashesCache() {
+        this(null);
+    }
+
+    /**
+     * @param hashService service providing the file digests, null to always calculate the digests
+     */
+    public DirectoryHashesCache(HashService hashService) {
         moduleHashesCache = new HashMap<>();
+        this.hashService = hashService;
     }
 
-    private final Map<File, Integer> moduleHashesCache;
+    private final Map<File, String> moduleHashesCache;
+    private final HashService hashService;
     private static final Logger LOGGER = Logger.getLogger(DirectoryHashesCache.class);
 
-    public int getHash(File directory) throws Exception {
+    public String getHash(File directory) throws Exception {
         LOGGER.debug("Getting hash for directory " + directory.getAbsolutePath());
-        int result;
+        String result;
         if (moduleHashesCache.containsKey(directory)) {
             result = moduleHashesCache.get(directory);
             LOGGER.debug("Hash for directory " + directory.getAbsolutePath() + " is " + result);
         } else {
-            result = Tools.calculateHashOfDirectory(directory);
+            result = Tools.calculateHashOfDirectory(directory, hashService);
             LOGGER.debug("Hash for directory " + directory.getAbsolutePath() + "computed as " + result);
             moduleHashesCache.put(directory, result);
         }
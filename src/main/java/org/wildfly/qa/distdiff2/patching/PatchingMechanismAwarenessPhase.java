@@ -63,7 +63,7 @@ public class PatchingMechanismAwarenessPhase extends ProcessPhase {
     private static final Logger LOGGER = Logger.getLogger(PatchingMechanismAwarenessPhase.class.getName());
     public static final String OVERLAYS = ".overlays";
     public static final String OVERLAYS_REGEXP = "\\.overlays";
-    private final DirectoryHashesCache cache = new DirectoryHashesCache();
+    private DirectoryHashesCache cache;
 
     public static final String FILE_SEPARATOR_QUOTED = Pattern.quote(File.separator);
 
@@ -71,6 +71,7 @@ public class PatchingMechanismAwarenessPhase extends ProcessPhase {
     public void process() {
         final String distributionA = distDiffConfiguration.getFolderA().getAbsolutePath();
         final String distributionB = distDiffConfiguration.getFolderB().getAbsolutePath();
+        cache = new DirectoryHashesCache(context.getHashService());
 
         // Get list of layers in the distribution and perform artifact unification per each layer.
         List<String> layers = ModuleStructureTools.getLayers(distributionA, distributionB);
@@ -296,11 +297,11 @@ public class PatchingMechanismAwarenessPhase extends ProcessPhase {
     }
 
     private boolean areDirectoriesEqual(String directoryA, String directoryB) throws Exception {
-        int hashA = cache.getHash(new File(directoryA));
-        int hashB = cache.getHash(new File(directoryB));
-        LOGGER.debug("Are modules equal? A='" + directoryA + "', B='" + directoryB + "', result='" + (hashA == hashB) +
+        String hashA = cache.getHash(new File(directoryA));
+        String hashB = cache.getHash(new File(directoryB));
+        LOGGER.debug("Are modules equal? A='" + directoryA + "', B='" + directoryB + "', result='" + hashA.equals(hashB) +
                 "'.");
-        return hashA == hashB;
+        return hashA.equals(hashB);
     }
 
     private boolean areDirectoriesEqualImproved(String directoryA, String directoryB) throws Exception {
@@ -4,6 +4,7 @@ import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.HashSet;
@@ -64,7 +65,7 @@ public class ImprovedHashingUtils {
         } else if (root.getName().equals(".jar")) {
             return internalJarComparison(root);
         } else {
-            return Tools.calculateHashOfDirectory(root).toString().getBytes();
+            return Tools.calculateHashOfDirectory(root).getBytes(StandardCharsets.UTF_8);
         }
     }
 
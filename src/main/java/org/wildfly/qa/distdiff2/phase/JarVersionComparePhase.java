@@ -6,9 +6,18 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 import java.util.jar.Manifest;
 
 import org.apache.log4j.Logger;
@@ -18,7 +27,6 @@ import org.wildfly.qa.distdiff2.errors.ErrorEvent;
 import org.wildfly.qa.distdiff2.results.Status;
 import org.wildfly.qa.distdiff2.rpm.NoImplementationVersionPresentException;
 import org.wildfly.qa.distdiff2.rpm.WrongImplementationVersionPresentException;
-import org.wildfly.qa.distdiff2.tools.Tools;
 
 /**
  * JarVersionComparePhase - JAR Version Matching and Comparison Phase
@@ -37,6 +45,8 @@ import org.wildfly.qa.distdiff2.tools.Tools;
  *       <li>Find ADDED artifacts in the same directory with matching characteristics</li>
  *       <li>Filter candidates by: directory match → MD5 match → name match</li>
  *     </ol>
+ *     ADDED artifacts are indexed by these keys once per run (see {@link CandidateIndex}), so finding the candidates
+ *     does not depend on the number of JARs. MD5 sums are calculated only for directories with more candidates.
  *   </li>
  *   <li><b>Version Comparison</b>: Compare major.minor.micro versions:
  *     <ul>
@@ -107,29 +117,57 @@ public class JarVersionComparePhase extends ProcessPhase {
         if (distDiffConfiguration.isRpmAware()) {
             filenameMappingExceptions = loadFilenameMappingExceptions();
         }
-        List<JarArtifact> jarArtifacts = new LinkedList<>();
+        List<JarArtifact> jarArtifacts = new ArrayList<>();
         for (Artifact artifact : results.getArtifacts()) {
             if (artifact instanceof JarArtifact && (Status.REMOVED.equals(artifact.getStatus())
                     || Status.ADDED.equals(artifact.getStatus()))) {
+                // MD5 sums are calculated only if there are more candidates in a directory, see CandidateIndex
                 jarArtifacts.add((JarArtifact) artifact);
+            }
+        }
+        CandidateIndex candidateIndex = new CandidateIndex(jarArtifacts);
+        for (JarArtifact jarArtifact : jarArtifacts) {
+            findVersionMatch(jarArtifact, candidateIndex, filenameMappingExceptions);
+        }
+        // matched ADDED artifacts are merged into the REMOVED ones
+        if (!candidateIndex.matched.isEmpty()) {
+            results.getArtifacts().removeIf(candidateIndex.matched::contains);
+        }
+    }
 
-                // Let's compute MD5 hashsums for artifacts as we may need them later during candidates search.
-                try {
-                    if (artifact.getPathA() != null && ((JarArtifact) artifact).getMd5sumA() == null) {
-                        ((JarArtifact) artifact).setMd5sumA(Tools.calculateMD5(artifact.getPathA()));
-                    }
+    /**
+     * Checksum of a file from the hash service of the run, the file is hashed at most once per run.
+     */
+    private String calculateMD5(String path) throws IOException {
+        return context.getHashService().digest(path);
+    }
 
-                    if (artifact.getPathB() != null && ((JarArtifact) artifact).getMd5sumB() == null) {
-                        ((JarArtifact) artifact).setMd5sumB(Tools.calculateMD5(artifact.getPathB()));
-                    }
-                } catch (Exception e) {
-                    throw new RuntimeException(e);
-                }
+    /**
+     * @return MD5 sum of the copy of a REMOVED artifact, calculated on the first call and stored on the artifact
+     */
+    private String md5sumA(JarArtifact artifact) {
+        if (artifact.getMd5sumA() == null && artifact.getPathA() != null) {
+            try {
+                artifact.setMd5sumA(calculateMD5(artifact.getPathA()));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
             }
         }
-        for (JarArtifact jarArtifact : jarArtifacts) {
-            findVersionMatch(jarArtifact, jarArtifacts, results.getArtifacts(), filenameMappingExceptions);
+        return artifact.getMd5sumA();
+    }
+
+    /**
+     * @return MD5 sum of the copy of an ADDED artifact, calculated on the first call and stored on the artifact
+     */
+    private String md5sumB(JarArtifact artifact) {
+        if (artifact.getMd5sumB() == null && artifact.getPathB() != null) {
+            try {
+                artifact.setMd5sumB(calculateMD5(artifact.getPathB()));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
         }
+        return artifact.getMd5sumB();
     }
 
     private Properties loadFilenameMappingExceptions() {
@@ -180,7 +218,8 @@ public class JarVersionComparePhase extends ProcessPhase {
      *     </ul>
      *   </li>
      *   <li>Update artifact status based on match type (see class-level Javadoc)</li>
-     *   <li>Remove matched ADDED artifact from list (prevent duplicate matching)</li>
+     *   <li>Mark matched ADDED artifact as matched (prevent duplicate matching), it is removed from the results at
+     *       the end of the phase</li>
      * </ol>
      *
      * <h4>RPM-Aware Mode Logic</h4>
@@ -194,11 +233,10 @@ public class JarVersionComparePhase extends ProcessPhase {
      * </ul>
      *
      * @param artifact                  The REMOVED jar artifact to find a match for
-     * @param artifacts                 List of all JAR artifacts (both ADDED and REMOVED)
-     * @param all                       Complete list of all artifacts (for removal operations)
+     * @param candidateIndex            Index of the ADDED JAR artifacts not matched yet
      * @param filenameMappingExceptions Manual overrides for non-standard filename mappings
      */
-    private void findVersionMatch(JarArtifact artifact, List<JarArtifact> artifacts, List<Artifact> all,
+    private void findVersionMatch(JarArtifact artifact, CandidateIndex candidateIndex,
                                   Properties filenameMappingExceptions) {
         if (!Status.REMOVED.equals(artifact.getStatus())) {
             // We process here only artifacts that are marked as REMOVED - that means are present in distribution A
@@ -209,7 +247,7 @@ public class JarVersionComparePhase extends ProcessPhase {
         JarArtifact.BuildInformation inf = getBuildInformation(artifact);
         if (inf != null && inf.getName() != null) {
             // Let's eliminate as many artifacts as possible to have ideally only one candidate to match left.
-            List<JarArtifact> candidates = getListOfCandidates(artifact, inf, artifacts);
+            Collection<JarArtifact> candidates = candidateIndex.getCandidates(artifact, inf);
 
             for (JarArtifact a : candidates) {
                 LOGGER.trace("candidate: " + a);
@@ -232,7 +270,7 @@ public class JarVersionComparePhase extends ProcessPhase {
                                 LOGGER.error("Artifact '" + artifact.getRelativePath() + "': " + errorMsg);
                                 context.handleError(new ErrorEvent(errorMsg, artifact));
                                 artifact.setStatus(ERROR, this.getClass().getSimpleName(), "No Implementation-Version in manifest");
-                                all.remove(a);
+                                candidateIndex.match(a);
                                 break;
                             } catch (WrongImplementationVersionPresentException ex) {
                                 String errorMsg = "Jar " + artifact.getPathB()
@@ -242,7 +280,7 @@ public class JarVersionComparePhase extends ProcessPhase {
                                 LOGGER.error("Artifact '" + artifact.getRelativePath() + "': " + errorMsg);
                                 context.handleError(new ErrorEvent(errorMsg, artifact));
                                 artifact.setStatus(ERROR, this.getClass().getSimpleName(), "Invalid Implementation-Version in manifest: " + ex.getVersion());
-                                all.remove(a);
+                                candidateIndex.match(a);
                                 break;
                             }
                             LOGGER.debug("Translated ZIP-name to expected RPM-name: " + new File(
@@ -250,8 +288,10 @@ public class JarVersionComparePhase extends ProcessPhase {
                             if (filenameRPM.equals(expectedRPMName)) {
                                 LOGGER.debug("Artifact '" + artifact.getRelativePath() + "': RPM filename matches expected (" + expectedRPMName + "), checking MD5");
                                 try {
-                                    String md5sumA = Tools.calculateMD5(artifact.getPathA());
-                                    String md5sumB = Tools.calculateMD5(artifact.getPathB());
+                                    String md5sumA = md5sumA(artifact);
+                                    // the candidate may have been hashed by an earlier lookup already
+                                    String md5sumB = md5sumB(a);
+                                    artifact.setMd5sumB(md5sumB);
                                     if (md5sumA.equals(md5sumB)) {
                                         LOGGER.debug("Artifact '" + artifact.getRelativePath() + "': MD5 match - marking as SAME");
                                         artifact.setStatus(Status.SAME, this.getClass().getSimpleName(),
@@ -261,7 +301,7 @@ public class JarVersionComparePhase extends ProcessPhase {
                                         artifact.setStatus(Status.DIFFERENT, this.getClass().getSimpleName(),
                                             "RPM filename matches but MD5 sums differ (A=" + md5sumA + ", B=" + md5sumB + ")");
                                     }
-                                    all.remove(a);
+                                    candidateIndex.match(a);
                                     break;
                                 } catch (Exception e) {
                                     LOGGER.error("Artifact '" + artifact.getRelativePath() + "': Error calculating MD5 - " + e.getMessage(), e);
@@ -277,7 +317,7 @@ public class JarVersionComparePhase extends ProcessPhase {
                                     " to " + inf2.getMajorVersion() + "." + inf2.getMinorVersion() + "." + inf2.getMicroVersion();
                                 LOGGER.info("Artifact '" + artifact.getRelativePath() + "': " + reason);
                                 artifact.setStatus(newStatus, this.getClass().getSimpleName(), reason);
-                                all.remove(a);
+                                candidateIndex.match(a);
                                 break;
                             }
                         } else {
@@ -290,7 +330,7 @@ public class JarVersionComparePhase extends ProcessPhase {
                                 " to " + inf2.getMajorVersion() + "." + inf2.getMinorVersion() + "." + inf2.getMicroVersion();
                             LOGGER.info("Artifact '" + artifact.getRelativePath() + "': " + reason);
                             artifact.setStatus(newStatus, this.getClass().getSimpleName(), reason);
-                            all.remove(a);
+                            candidateIndex.match(a);
                             break;
                         }
                     } else if (distDiffConfiguration.isRpmAware()) {
@@ -314,8 +354,10 @@ public class JarVersionComparePhase extends ProcessPhase {
                             LOGGER.debug("Artifact '" + artifact.getRelativePath() + "': Matched translated ZIP-name with expected RPM-name: " + new File(
                                             artifact.getPathA()).getName() + " --> " + expectedRPMName);
                             try {
-                                String md5sumA = Tools.calculateMD5(artifact.getPathA());
-                                String md5sumB = Tools.calculateMD5(artifact.getPathB());
+                                String md5sumA = md5sumA(artifact);
+                                // the candidate may have been hashed by an earlier lookup already
+                                String md5sumB = md5sumB(a);
+                                artifact.setMd5sumB(md5sumB);
                                 if (md5sumA.equals(md5sumB)) {
                                     LOGGER.debug("Artifact '" + artifact.getRelativePath() + "': MD5 match after RPM translation - marking as SAME");
                                     artifact.setStatus(Status.SAME, this.getClass().getSimpleName(),
@@ -325,7 +367,7 @@ public class JarVersionComparePhase extends ProcessPhase {
                                     artifact.setStatus(Status.DIFFERENT, this.getClass().getSimpleName(),
                                         "RPM filename translation matched but MD5 sums differ (A=" + md5sumA + ", B=" + md5sumB + ")");
                                 }
-                                all.remove(a);
+                                candidateIndex.match(a);
                                 break;
                             } catch (Exception e) {
                                 LOGGER.error("Artifact '" + artifact.getRelativePath() + "': Error calculating MD5 after RPM translation - " + e.getMessage(), e);
@@ -351,7 +393,7 @@ public class JarVersionComparePhase extends ProcessPhase {
         if (mappedFromExceptionFile != null) {
             return mappedFromExceptionFile;
         } else {
-            Manifest manifest = Tools.readManifestFromJar(artifact.getPathB());
+            Manifest manifest = context.getManifestCache().get(artifact.getPathB());
             if (manifest != null) {
                 String implementationVersion = manifest.getMainAttributes()
                         .getValue("Implementation-Version");
@@ -418,92 +460,113 @@ public class JarVersionComparePhase extends ProcessPhase {
     }
 
     /**
-     * Returns list of artifacts of the {@link Status#ADDED} (missing in distribution A, present in distribution B) that
-     * look like matching candidates for given processed artifact which is in {@link Status#REMOVED} (present in
-     * distribution A, missing in distribution B).
-     * <p>
-     * Priority for matching:
+     * Artifacts of the {@link Status#ADDED} (missing in distribution A, present in distribution B) indexed by the keys
+     * used for selecting the matching candidates, each key includes the keys of the previous step:
      * <ol>
-     *     <li>artifact status ADDED</li>
-     *     <li>matching artifact directory</li>
-     *     <li>matching artifact MD5 sum</li>
-     *     <li>matching artifact</li>
+     *     <li>artifact directory</li>
+     *     <li>artifact MD5 sum</li>
+     *     <li>artifact base name</li>
      * </ol>
-     *
-     * @param processedArtifact    parent path
-     * @param processedArtifactInf build information for processed artifact
-     * @param artifacts            list of all artifacts
+     * Matched artifacts are removed from all the indexes (see {@link #match(JarArtifact)}), so the candidates are looked
+     * up without filtering. The MD5 sum and name keys of a directory are indexed only when there is more than one
+     * candidate in it for the first time, so the JARs are not hashed for the usual single candidate matches.
      */
-    private List<JarArtifact> getListOfCandidates(JarArtifact processedArtifact,
-            JarArtifact.BuildInformation processedArtifactInf, List<JarArtifact> artifacts) {
-        List<JarArtifact> candidates =
-                getListOfCandidatesByPathAndAdded(processedArtifact.getParentRelativePath(), artifacts);
+    private final class CandidateIndex {
 
-        if (candidates.size() > 1) {
-            candidates = getListOfCandidatesByMd5Sum(processedArtifact.getMd5sumA(), candidates);
+        private final Map<String, Set<JarArtifact>> byDirectory = new HashMap<>();
+        private final Map<List<String>, Set<JarArtifact>> byMd5Sum = new HashMap<>();
+        private final Map<List<String>, Set<JarArtifact>> byName = new HashMap<>();
+        // index entries of each artifact, so a matched one can be removed from all of them
+        private final Map<JarArtifact, List<Set<JarArtifact>>> entries = new IdentityHashMap<>();
+        // directories with artifacts indexed by MD5 sums and names
+        private final Set<String> hashedDirectories = new HashSet<>();
+        // ADDED artifacts which were matched with a REMOVED one already
+        private final Set<JarArtifact> matched = Collections.newSetFromMap(new IdentityHashMap<>());
 
-            if (candidates.size() > 1) {
-                candidates = getListOfCandidatesByName(processedArtifactInf.getName(), candidates);
+        /**
+         * @param artifacts ADDED and REMOVED JAR artifacts in the order of results
+         */
+        CandidateIndex(List<JarArtifact> artifacts) {
+            for (JarArtifact artifact : artifacts) {
+                String directory = artifact.getParentRelativePath();
+                if (!Status.ADDED.equals(artifact.getStatus()) || directory == null) {
+                    continue;
+                }
+                add(byDirectory.computeIfAbsent(directory, key -> new LinkedHashSet<>()), artifact);
             }
         }
 
-        return candidates;
-    }
+        private void add(Set<JarArtifact> bucket, JarArtifact artifact) {
+            bucket.add(artifact);
+            entries.computeIfAbsent(artifact, key -> new ArrayList<>(3)).add(bucket);
+        }
 
-    /**
-     * Returns list of artifacts in given folder with {@link Status#ADDED}.
-     *
-     * @param path      parent path
-     * @param artifacts List of all artifacts
-     */
-    private List<JarArtifact> getListOfCandidatesByPathAndAdded(final String path, List<JarArtifact> artifacts) {
-        List<JarArtifact> items = new LinkedList<>();
-        if (path != null) {
-            for (Artifact a : artifacts) {
-                if (Status.ADDED.equals(a.getStatus()) && path.equals(a.getParentRelativePath())) {
-                    items.add((JarArtifact) a);
+        /**
+         * Marks the ADDED artifact as matched, it is no longer a candidate for any REMOVED artifact. Collections returned
+         * by {@link #getCandidates} must not be iterated after a match.
+         */
+        void match(JarArtifact artifact) {
+            matched.add(artifact);
+            List<Set<JarArtifact>> buckets = entries.remove(artifact);
+            if (buckets != null) {
+                for (Set<JarArtifact> bucket : buckets) {
+                    bucket.remove(artifact);
                 }
             }
         }
-        return items;
-    }
 
-    /**
-     * Returns list of artifact candidates based on same MD5 hashsum.
-     *
-     * @param expectedMD5Hashsum MD5 hashsum of processed artifact
-     * @param addedArtifacts    list of all artifact in {@link Status#ADDED}
-     */
-    private List<JarArtifact> getListOfCandidatesByMd5Sum(final String expectedMD5Hashsum,
-            List<JarArtifact> addedArtifacts) {
-        List<JarArtifact> items = new LinkedList<>();
-        if (expectedMD5Hashsum != null && !expectedMD5Hashsum.isEmpty()) {
-            for (JarArtifact artifact : addedArtifacts) {
+        /**
+         * Indexes the ADDED artifacts of a directory which are not matched yet by MD5 sum and name.
+         */
+        private void hashDirectory(String directory) {
+            if (!hashedDirectories.add(directory)) {
+                return;
+            }
+            for (JarArtifact artifact : byDirectory.get(directory)) {
                 // Only check checksum of B part as this artifact is expected to be in status of ADDED.
-                if (artifact.getMd5sumB() != null && expectedMD5Hashsum.equals(artifact.getMd5sumB())) {
-                    items.add(artifact);
+                String md5sum = md5sumB(artifact);
+                if (md5sum != null) {
+                    add(byMd5Sum.computeIfAbsent(Arrays.asList(directory, md5sum), key -> new LinkedHashSet<>()),
+                            artifact);
+                    JarArtifact.BuildInformation inf = getBuildInformation(artifact);
+                    if (inf != null && inf.getName() != null) {
+                        add(byName.computeIfAbsent(Arrays.asList(directory, md5sum, inf.getName()),
+                                key -> new LinkedHashSet<>()), artifact);
+                    }
                 }
             }
         }
-        return items;
-    }
 
-    /**
-     * Returns list of artifact candidates based on same name.
-     *
-     * @param name           expected artifact name
-     * @param addedArtifacts list of all artifact in {@link Status#ADDED}
-     */
-    private List<JarArtifact> getListOfCandidatesByName(final String name, List<JarArtifact> addedArtifacts) {
-        List<JarArtifact> items = new LinkedList<>();
-        if (name != null) {
-            for (JarArtifact a : addedArtifacts) {
-                JarArtifact.BuildInformation inf = getBuildInformation(a);
-                if (inf != null && name.equals(inf.getName())) {
-                    items.add(a);
+        /**
+         * Returns not yet matched artifacts that look like matching candidates for given processed artifact which is in
+         * {@link Status#REMOVED} (present in distribution A, missing in distribution B). Candidates in the same directory
+         * are narrowed down by MD5 sum and then by name while there is more than one.
+         *
+         * @param processedArtifact    the REMOVED artifact
+         * @param processedArtifactInf build information for processed artifact
+         * @return read-only view of the index, valid until the next {@link #match(JarArtifact)}
+         */
+        Collection<JarArtifact> getCandidates(JarArtifact processedArtifact,
+                                              JarArtifact.BuildInformation processedArtifactInf) {
+            String directory = processedArtifact.getParentRelativePath();
+            Collection<JarArtifact> candidates = view(byDirectory.get(directory));
+            if (candidates.size() > 1) {
+                hashDirectory(directory);
+                String md5sum = md5sumA(processedArtifact);
+                candidates = (md5sum != null && !md5sum.isEmpty())
+                        ? view(byMd5Sum.get(Arrays.asList(directory, md5sum))) : Collections.emptySet();
+
+                if (candidates.size() > 1) {
+                    candidates = (processedArtifactInf.getName() != null)
+                            ? view(byName.get(Arrays.asList(directory, md5sum, processedArtifactInf.getName())))
+                            : Collections.emptySet();
                 }
             }
+            return candidates;
+        }
+
+        private Collection<JarArtifact> view(Set<JarArtifact> bucket) {
+            return (bucket != null) ? Collections.unmodifiableSet(bucket) : Collections.emptySet();
         }
-        return items;
     }
 }
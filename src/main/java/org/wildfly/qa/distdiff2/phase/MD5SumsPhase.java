@@ -1,11 +1,28 @@
 package org.wildfly.qa.distdiff2.phase;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.EnumSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.log4j.Logger;
 import org.wildfly.qa.distdiff2.artifacts.Artifact;
 import org.wildfly.qa.distdiff2.artifacts.FileArtifact;
+import org.wildfly.qa.distdiff2.artifacts.FileDigest;
+import org.wildfly.qa.distdiff2.artifacts.JarArtifact;
+import org.wildfly.qa.distdiff2.hashing.FileComparison;
+import org.wildfly.qa.distdiff2.hashing.HashAlgorithm;
+import org.wildfly.qa.distdiff2.hashing.MerkleTree;
+import org.wildfly.qa.distdiff2.hashing.TieredFileComparator;
+import org.wildfly.qa.distdiff2.jardiff.JarFingerprint;
 import org.wildfly.qa.distdiff2.patching.hashing.ImprovedHashingUtils;
 import org.wildfly.qa.distdiff2.results.Status;
 import org.wildfly.qa.distdiff2.tools.Tools;
@@ -22,18 +39,23 @@ import org.wildfly.qa.distdiff2.tools.Tools;
  * <h3>Processing Logic</h3>
  * <ol>
  *   <li><b>Eligible Artifacts</b>: Only processes {@link FileArtifact} instances with status
- *       {@link Status#SAME}, {@link Status#PATCHED}, or {@link Status#PATCHED_UNNECESSARILY}</li>
- *   <li><b>MD5 Calculation</b>: Computes MD5 checksums for files in both distributions</li>
+ *       {@link Status#SAME}, {@link Status#PATCHED}, or {@link Status#PATCHED_UNNECESSARILY}. Files in folders
+ *       identical in both distributions (see {@link MerkleTree}) are skipped, their checksums are stored already</li>
+ *   <li><b>Comparison</b>: Compares file sizes and MD5 checksums (or CRC32C checksums) of files in both distributions, the
+ *       first tier which finds a difference decides (see {@link TieredFileComparator})</li>
  *   <li><b>Status Transitions</b>:
  *     <ul>
  *       <li>SAME + MD5_MATCH → SAME (no change)</li>
  *       <li>SAME + MD5_DIFFER → DIFFERENT (content changed)</li>
+ *       <li>SAME + MD5_DIFFER + JAR with the same fingerprint → EXPECTED_DIFFERENCES (rebuilt only, see
+ *           {@link JarFingerprint})</li>
  *       <li>PATCHED + MD5_DIFFER → PATCHED_WRONG (unexpected change in patched file)</li>
  *     </ul>
  *   </li>
  *   <li><b>Special Cases</b>:
  *     <ul>
- *       <li><b>module.xml files</b>: If MD5 differs but parent module directory hash is identical,
+ *       <li><b>module.xml files</b>: If MD5 differs but parent module directory digest (without the module.xml) is
+ *           identical,
  *           may indicate version string changes only (expected in RPM distributions)</li>
  *       <li><b>RPM-aware mode</b>: Uses enhanced logic for module.xml validation</li>
  *     </ul>
@@ -48,7 +70,15 @@ import org.wildfly.qa.distdiff2.tools.Tools;
  *
  * <h3>Configuration Impact</h3>
  * <ul>
+ *   <li><code>threads</code>: Number of worker threads calculating the checksums</li>
+ *   <li><code>hashAlgorithm</code>: Digests calculated by the 'digest' tier, the first one is compared and stored as
+ *       the checksum, the others are stored as additional digests</li>
+ *   <li><code>comparisonTiers</code>: Tiers of the comparison, MD5 sums are not calculated without 'digest', the
+ *       'bytes' strategy records offset of the first different byte on the artifact</li>
+ *   <li><code>hashCacheDir</code>, <code>noHashCache</code>: Persistent cache of digests of files unchanged since the
+ *       previous run</li>
  *   <li><code>rpmAware</code>: Enables special handling for module.xml files</li>
+ *   <li><code>fromSources</code>: More manifest attributes are ignored by the JAR fingerprints</li>
  *   <li><code>improvedHashing</code>: Uses ImprovedHashingUtils for module directory comparison</li>
  * </ul>
  *
@@ -60,18 +90,105 @@ public class MD5SumsPhase extends ProcessPhase {
 
     private static final Logger LOGGER = Logger.getLogger(MD5SumsPhase.class.getName());
 
+    private static final EnumSet<Status> ELIGIBLE_STATUSES =
+            EnumSet.<Status>of(Status.SAME, Status.PATCHED, Status.PATCHED_UNNECESSARILY);
+
     /**
+     * Both copies of all eligible artifacts are compared by a pool of worker threads first. Statuses are then updated
+     * in the order of artifacts in results, so the status history does not depend on the number of threads.
+     *
      * @see ProcessPhase#process()
      */
     @Override
     public void process() {
-        for (Artifact artifact : results.getArtifacts()) {
-            if (artifact instanceof FileArtifact) {
-                calculateMD5((FileArtifact) artifact);
+        TieredFileComparator comparator = new TieredFileComparator(distDiffConfiguration.getComparisonTierSet(),
+                distDiffConfiguration.getHashAlgorithmList(), context.getHashService());
+        int threads = Math.max(1, distDiffConfiguration.getThreads());
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            Map<Artifact, Future<FileComparison>> comparisons = new IdentityHashMap<>();
+            // fingerprints of different JARs rebuilt from the same content, filled by the worker pool
+            Map<Artifact, String> rebuiltJars = Collections.synchronizedMap(new IdentityHashMap<>());
+            for (Artifact artifact : results.getArtifacts()) {
+                if (artifact instanceof FileArtifact && !artifact.isInIdenticalSubtree()
+                        && ELIGIBLE_STATUSES.contains(artifact.getStatus()) && artifact.getPathA() != null && artifact.getPathB() != null) {
+                    FileArtifact file = (FileArtifact) artifact;
+                    boolean jar = artifact instanceof JarArtifact && artifact.getStatus() == Status.SAME;
+                    comparisons.put(artifact, executor.submit(() -> {
+                        FileComparison comparison = comparator.compare(file.getPathA(), file.getSize(),
+                                file.getPathB(), file.getSizeB());
+                        if (jar && !comparison.isEqual()) {
+                            String fingerprint = sameJarFingerprint(file);
+                            if (fingerprint != null) {
+                                rebuiltJars.put(artifact, fingerprint);
+                            }
+                        }
+                        return comparison;
+                    }));
+                }
+            }
+            for (Artifact artifact : results.getArtifacts()) {
+                if (artifact instanceof FileArtifact && !artifact.isInIdenticalSubtree()) {
+                    // the fingerprint is put by the comparison task before it completes
+                    calculateMD5((FileArtifact) artifact, comparisons.get(artifact), rebuiltJars);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Compares fingerprints of both copies of a JAR, runs in the worker pool.
+     *
+     * @return the fingerprint if both copies have the same one, null otherwise
+     */
+    private String sameJarFingerprint(FileArtifact artifact) {
+        try {
+            String fingerprintA = JarFingerprint.of(new File(artifact.getPathA()), distDiffConfiguration.isFromSources());
+            String fingerprintB = JarFingerprint.of(new File(artifact.getPathB()), distDiffConfiguration.isFromSources());
+            return fingerprintA.equals(fingerprintB) ? fingerprintA : null;
+        } catch (IOException e) {
+            LOGGER.debug("Artifact '" + artifact.getRelativePath() + "': Cannot calculate JAR fingerprint - " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Waits for comparison done by the worker pool.
+     *
+     * @param comparison pending comparison
+     * @return result of the comparison
+     * @throws Exception the exception thrown by the comparison
+     */
+    private static FileComparison await(Future<FileComparison> comparison) throws Exception {
+        try {
+            return comparison.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
             }
+            throw e;
         }
     }
 
+    /**
+     * @return digests calculated by other than the primary algorithm, null if there are none
+     */
+    private static List<FileDigest> additionalDigests(FileComparison comparison) {
+        List<FileDigest> digests = null;
+        for (Map.Entry<HashAlgorithm, String> digestA : comparison.getDigestsA().entrySet()) {
+            if (digestA.getKey() != comparison.getPrimaryAlgorithm()) {
+                if (digests == null) {
+                    digests = new ArrayList<>();
+                }
+                digests.add(new FileDigest(digestA.getKey().getDisplayName(), digestA.getValue(),
+                        comparison.getDigestsB().get(digestA.getKey())));
+            }
+        }
+        return digests;
+    }
+
     /**
      * Calculates MD5 checksums for both copies of an artifact and updates its status.
      *
@@ -105,57 +222,69 @@ public class MD5SumsPhase extends ProcessPhase {
      * </table>
      *
      * <h4>Special Case: module.xml Files</h4>
-     * <p>When a module.xml file's MD5 differs, this method computes a hash of the entire
-     * parent module directory (excluding module.xml itself). If the module hashes are
+     * <p>When a module.xml file's MD5 differs, this method computes a Merkle tree digest of the entire
+     * parent module directory (excluding module.xml itself, see {@link MerkleTree#digest(File,
+     * org.wildfly.qa.distdiff2.hashing.HashService, String)}). If the module hashes are
      * identical, it suggests that only the module.xml metadata changed, which may be
      * expected behavior in RPM distributions where version strings are stripped.
      *
-     * @param artifact The file artifact to process
+     * <h4>Special Case: Rebuilt JARs</h4>
+     * <p>A JAR whose copies differ but have the same {@link JarFingerprint} contains the same classes and resources,
+     * only timestamps, order of entries or build related manifest attributes changed. Such JAR is marked as
+     * EXPECTED_DIFFERENCES, so it is not diffed by the later phases.
+     *
+     * <p>The checksums are compared in tiers configured by <code>comparisonTiers</code> (see
+     * {@link TieredFileComparator}), the MD5 sums are stored only when the digest tier was evaluated.
+     *
+     * @param artifact    The file artifact to process
+     * @param comparison  comparison of A and B being done by the worker pool
+     * @param rebuiltJars fingerprints of the JARs rebuilt from the same content
      * @throws Exception If MD5 calculation fails, sets artifact status to ERROR
      */
-    private void calculateMD5(FileArtifact artifact) {
-        if (EnumSet.<Status>of(Status.SAME, Status.PATCHED, Status.PATCHED_UNNECESSARILY)
-                .contains(artifact.getStatus())) {
+    private void calculateMD5(FileArtifact artifact, Future<FileComparison> comparison,
+                              Map<Artifact, String> rebuiltJars) {
+        if (ELIGIBLE_STATUSES.contains(artifact.getStatus())) {
             String fileA = artifact.getPathA();
             String fileB = artifact.getPathB();
             if (fileA != null && fileB != null) {
                 try {
-                    String md5sumA = Tools.calculateMD5(fileA);
-                    String md5sumB = Tools.calculateMD5(fileB);
-                    if (md5sumA.equals(md5sumB)) {
-                        artifact.setMd5sum(md5sumA);
+                    FileComparison result = await(comparison);
+                    String valuesAB = "A=" + result.getValueA() + ", B=" + result.getValueB();
+                    artifact.setDigests(additionalDigests(result));
+                    if (result.isEqual()) {
+                        artifact.setMd5sum(result.getDigestA());
                     } else {
-                        LOGGER.info("Artifact '" + artifact.getRelativePath() + "': MD5 sums differ (A=" + md5sumA + ", B=" + md5sumB + ")");
+                        LOGGER.info("Artifact '" + artifact.getRelativePath() + "': " + result.getDifference() + " (" + valuesAB + ")");
 
                         if (EnumSet.<Status>of(Status.PATCHED, Status.PATCHED_UNNECESSARILY)
                                 .contains(artifact.getStatus())) {
-                            LOGGER.warn("Artifact '" + artifact.getRelativePath() + "': Expected to be patched but MD5 differs - marking as PATCHED_WRONG");
+                            LOGGER.warn("Artifact '" + artifact.getRelativePath() + "': Expected to be patched but " + result.getLabel() + " differs - marking as PATCHED_WRONG");
                             artifact.setStatus(Status.PATCHED_WRONG, this.getClass().getSimpleName(),
-                                "MD5 checksums differ for supposedly patched file (A=" + md5sumA + ", B=" + md5sumB + ")");
+                                result.getDifference() + " for supposedly patched file (" + valuesAB + ")");
                         } else {
                             // if the artifact is a module.xml and the respective modules are hash-equal, that means not patched,
                             // set the module.xml's status to VERSION or EXPECTED_DIFFERENCES
                             if (artifact.getName().endsWith("module.xml")) {
                                 LOGGER.debug("Artifact '" + artifact.getRelativePath() + "': Special module.xml handling");
-                                Long hashA;
-                                Long hashB;
+                                String hashA;
+                                String hashB;
                                 File moduleDirA = new File(artifact.getPathA()).getParentFile();
                                 File moduleDirB = new File(artifact.getPathB()).getParentFile();
                                 if (distDiffConfiguration.isImprovedHashing()) {
-                                    hashA = Tools.byteArrayToInteger(
-                                            ImprovedHashingUtils.calculateHash(moduleDirA));
-                                    hashB = Tools.byteArrayToInteger(
-                                            ImprovedHashingUtils.calculateHash(moduleDirB));
+                                    hashA = String.valueOf(Tools.byteArrayToInteger(
+                                            ImprovedHashingUtils.calculateHash(moduleDirA)));
+                                    hashB = String.valueOf(Tools.byteArrayToInteger(
+                                            ImprovedHashingUtils.calculateHash(moduleDirB)));
                                 } else {
-                                    hashA = Long.valueOf(Tools.calculateHashOfDirectory(moduleDirA));
-                                    hashB = Long.valueOf(Tools.calculateHashOfDirectory(moduleDirA));
+                                    hashA = MerkleTree.digest(moduleDirA, context.getHashService(), artifact.getName());
+                                    hashB = MerkleTree.digest(moduleDirB, context.getHashService(), artifact.getName());
                                 }
                                 LOGGER.trace("hash of " + moduleDirA.getAbsolutePath() + ": " + hashA);
                                 LOGGER.trace("hash of " + moduleDirB.getAbsolutePath() + ": " + hashB);
                                 if (hashA.equals(hashB)) {
                                     // the module.xml's are different but the rests of their modules are equal..
                                     LOGGER.info("Artifact '" + artifact.getRelativePath() + "': module.xml differs but module hashes match - may be expected");
-                                    String reason = "module.xml file differs (MD5: A=" + md5sumA + ", B=" + md5sumB + ") but module directory hashes are equal (" + hashA + ")";
+                                    String reason = "module.xml file differs (" + result.getLabel() + ": " + valuesAB + ") but module directory hashes are equal (" + hashA + ")";
                                     if (distDiffConfiguration.isRpmAware()) {
                                         // in RPM mode, this might be actually correct -> check this in TextFilesDiffsPhase.
                                         artifact.setStatus(Status.EXPECTED_DIFFERENCES, this.getClass().getSimpleName(), reason + " - RPM mode");
@@ -166,16 +295,24 @@ public class MD5SumsPhase extends ProcessPhase {
                                     // Module hashes differ, so this is a real difference
                                     LOGGER.info("Artifact '" + artifact.getRelativePath() + "': module.xml and module hashes both differ - marking as DIFFERENT");
                                     artifact.setStatus(Status.DIFFERENT, this.getClass().getSimpleName(),
-                                        "module.xml differs and module directory hashes also differ (MD5: A=" + md5sumA + ", B=" + md5sumB + ")");
+                                        "module.xml differs and module directory hashes also differ (" + result.getLabel() + ": " + valuesAB + ")");
                                 }
+                            } else if (rebuiltJars.containsKey(artifact)) {
+                                LOGGER.info("Artifact '" + artifact.getRelativePath() + "': " + result.getLabel() + " differs but JAR fingerprints match - marking as EXPECTED_DIFFERENCES");
+                                artifact.setStatus(Status.EXPECTED_DIFFERENCES, this.getClass().getSimpleName(),
+                                    result.getDifference() + " (" + valuesAB + ") but JAR content fingerprints are equal ("
+                                        + rebuiltJars.get(artifact) + ") - rebuilt only");
                             } else {
-                                LOGGER.info("Artifact '" + artifact.getRelativePath() + "': MD5 differs, marking as DIFFERENT");
+                                LOGGER.info("Artifact '" + artifact.getRelativePath() + "': " + result.getLabel() + " differs, marking as DIFFERENT");
                                 artifact.setStatus(Status.DIFFERENT, this.getClass().getSimpleName(),
-                                    "MD5 checksums differ (A=" + md5sumA + ", B=" + md5sumB + ")");
+                                    result.getDifference() + " (" + valuesAB + ")");
                             }
                         }
-                        artifact.setMd5sumA(md5sumA);
-                        artifact.setMd5sumB(md5sumB);
+                        artifact.setMd5sumA(result.getDigestA());
+                        artifact.setMd5sumB(result.getDigestB());
+                        if (result.getMismatchOffset() >= 0) {
+                            artifact.setMismatchOffset(result.getMismatchOffset());
+                        }
                     }
                 } catch (Exception e) {
                     LOGGER.error("Artifact '" + artifact.getRelativePath() + "': Error calculating MD5 - " + e.getMessage(), e);
@@ -171,8 +171,8 @@ public final class PermissionDiffPhase extends ProcessPhase {
         String lineSeparator = "<br/>";
 
         if (isPosixFileSystem(artifact)) {
-            permissionsA = new PosixPermissions(artifact.getPathA());
-            permissionsB = new PosixPermissions(artifact.getPathB());
+            permissionsA = new PosixPermissions(artifact.getPathA(), artifact.getPosixPermissionsA());
+            permissionsB = new PosixPermissions(artifact.getPathB(), artifact.getPosixPermissionsB());
         } else if (isAclFileSystem(artifact)) {
             permissionsA = new AccessControlListPermissions(artifact.getPathA());
             permissionsB = new AccessControlListPermissions(artifact.getPathB());
@@ -216,10 +216,15 @@ public final class PermissionDiffPhase extends ProcessPhase {
     private static class PosixPermissions implements PermissionsRepresentation {
         private String permissions;
 
-        PosixPermissions(String source) throws IOException {
+        PosixPermissions(String source, String scannedPermissions) throws IOException {
             if (source == null) {
                 return;
             }
+            if (scannedPermissions != null) {
+                // already read while scanning the distribution
+                this.permissions = scannedPermissions;
+                return;
+            }
             Path path = Paths.get(source);
             Set<PosixFilePermission> set;
             set = Files.getPosixFilePermissions(path);
@@ -1,11 +1,20 @@
 package org.wildfly.qa.distdiff2.phase;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 import com.sksamuel.diffpatch.DiffMatchPatch;
@@ -14,8 +23,11 @@ import org.wildfly.qa.distdiff2.artifacts.Artifact;
 import org.wildfly.qa.distdiff2.artifacts.FileArtifact;
 import org.wildfly.qa.distdiff2.errors.ErrorEvent;
 import org.wildfly.qa.distdiff2.results.Status;
+import org.wildfly.qa.distdiff2.tools.FileContent;
 import org.wildfly.qa.distdiff2.tools.LineBreakStyle;
-import org.wildfly.qa.distdiff2.tools.Tools;
+import org.wildfly.qa.distdiff2.tools.LineDiff;
+import org.wildfly.qa.distdiff2.tools.TextNormalization;
+import org.wildfly.qa.distdiff2.tools.TextNormalizer;
 
 /**
  * TextFilesDiffsPhase - Text File Content Comparison Phase
@@ -29,19 +41,26 @@ import org.wildfly.qa.distdiff2.tools.Tools;
  * <ol>
  *   <li><b>Eligible Artifacts</b>: Only processes {@link FileArtifact} instances that:
  *     <ul>
- *       <li>Are text files (detected via {@link Tools#isTextFile(String)})</li>
+ *       <li>Are text files (detected via {@link org.wildfly.qa.distdiff2.tools.FileTypeSniffer}, cached on the artifact)</li>
  *       <li>Have status: EXPECTED_DIFFERENCES, DIFFERENT, PATCHED_WRONG, or VERSION</li>
  *       <li>Exist in both distributions (pathA and pathB not null)</li>
  *     </ul>
  *   </li>
+ *   <li><b>Normalized Equality Check</b>: Before the diff, both files are hashed with the configured differences
+ *     (line breaks, trailing whitespace, BOM) normalized away, see {@link TextNormalizer}. Files equal after the
+ *     normalization are not diffed at all.
+ *   </li>
  *   <li><b>Diff Generation</b>: Uses DiffMatchPatch algorithm to:
  *     <ul>
  *       <li>Calculate character-level differences between files</li>
  *       <li>Apply semantic cleanup to merge related changes</li>
  *       <li>Generate HTML-formatted diff for report</li>
  *     </ul>
+ *     Files larger than 256 KiB are diffed by lines with {@link LineDiff}, only changed lines are diffed by
+ *     characters. Artifacts are diffed by a pool of worker threads, each with its own diff engine and buffers
+ *     the files are read into just once, see {@link FileContent}.
  *   </li>
- *   <li><b>Line Break Detection</b>: Detects CRLF vs LF differences:
+ *   <li><b>Line Break Detection</b>: Detects CRLF vs LF differences in the whole files:
  *     <ul>
  *       <li>If files differ ONLY in line endings → {@link Status#DIFFERENT_LINE_BREAKS}</li>
  *       <li>Helps distinguish platform differences from real content changes</li>
@@ -62,6 +81,7 @@ import org.wildfly.qa.distdiff2.tools.Tools;
  *   <caption>Status transitions based on diff analysis</caption>
  *   <tr><th>From Status</th><th>Condition</th><th>To Status</th></tr>
  *   <tr><td>DIFFERENT</td><td>Only CRLF/LF differences</td><td>DIFFERENT_LINE_BREAKS</td></tr>
+ *   <tr><td>DIFFERENT</td><td>Equal after normalization, same line breaks</td><td>SAME</td></tr>
  *   <tr><td>EXPECTED_DIFFERENCES</td><td>module.xml with unexpected changes (RPM mode)</td><td>DIFFERENT</td></tr>
  *   <tr><td>DIFFERENT</td><td>module.xml with only expected changes (custom build)</td><td>EXPECTED_DIFFERENCES</td></tr>
  *   <tr><td>Any processable</td><td>Error during diff generation</td><td>ERROR</td></tr>
@@ -71,6 +91,8 @@ import org.wildfly.qa.distdiff2.tools.Tools;
  * <ul>
  *   <li><code>rpmAware</code>: Enables module.xml version-stripping validation</li>
  *   <li><code>fromSources</code>: Enables custom build SNAPSHOT validation</li>
+ *   <li><code>threads</code>: Number of worker threads diffing the files</li>
+ *   <li><code>textNormalizations</code>: Differences ignored by the normalized equality check</li>
  * </ul>
  *
  * <h3>Dependencies</h3>
@@ -88,38 +110,138 @@ public class TextFilesDiffsPhase extends ProcessPhase {
 
     private static final Logger LOGGER = Logger.getLogger(TextFilesDiffsPhase.class.getName());
 
-    private final DiffMatchPatch patch;
-
     public static final String NEWLINE = "\\ NEWLINE \\";
 
-    /**
-     * Default constructor
-     */
-    public TextFilesDiffsPhase() {
-        patch = new DiffMatchPatch();
-    }
+    // larger files are diffed by lines, see LineDiff
+    private static final int LINE_DIFF_THRESHOLD = 256 * 1024;
+
+    private static final EnumSet<Status> DIFFED_STATUSES = EnumSet.<Status>of(
+            Status.EXPECTED_DIFFERENCES,
+            Status.DIFFERENT,
+            Status.PATCHED_WRONG,
+            Status.VERSION);
+
+    // every worker thread has its own diff engine
+    private final ThreadLocal<DiffMatchPatch> patch = ThreadLocal.withInitial(DiffMatchPatch::new);
+
+    // and its own buffers for the content of A and B, reused for all files smaller than LINE_DIFF_THRESHOLD
+    private final ThreadLocal<byte[][]> buffers = ThreadLocal.withInitial(
+            () -> new byte[][]{new byte[LINE_DIFF_THRESHOLD], new byte[LINE_DIFF_THRESHOLD]});
+
+    private EnumSet<TextNormalization> normalizations;
 
     /**
+     * Text files are diffed by a pool of worker threads, a worker sets the diff and status of its own artifact only.
+     * Errors are reported in the order of artifacts in results once the workers finish, so the results do not depend
+     * on the number of threads.
+     *
      * @see ProcessPhase#process()
      */
     @Override
     public void process() {
-        for (Artifact artifact : results.getArtifacts()) {
-            try {
+        normalizations = distDiffConfiguration.getTextNormalizationSet();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, distDiffConfiguration.getThreads()));
+        try {
+            List<Future<List<ErrorEvent>>> diffs = new ArrayList<>();
+            for (Artifact artifact : results.getArtifacts()) {
                 //compare against statuses assigned in previously run phases
-                if (artifact instanceof FileArtifact
-                        && EnumSet.<Status>of(
-                        Status.EXPECTED_DIFFERENCES,
-                        Status.DIFFERENT,
-                        Status.PATCHED_WRONG,
-                        Status.VERSION).contains(artifact.getStatus())
-                        && Tools.isTextFile(artifact.getPathA()) && Tools.isTextFile(artifact.getPathB())) {
-                    calculateDiff((FileArtifact) artifact);
+                if (artifact instanceof FileArtifact && DIFFED_STATUSES.contains(artifact.getStatus())) {
+                    FileArtifact file = (FileArtifact) artifact;
+                    diffs.add(executor.submit(() -> diffArtifact(file)));
                 }
-            } catch (IOException e) {
-                context.handleError(
-                        new ErrorEvent("Unable to detect whether the file is text or binary", artifact));
             }
+            for (Future<List<ErrorEvent>> diff : diffs) {
+                await(diff).forEach(context::handleError);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Diffs an artifact if both its files are text, runs in the worker pool. Each file is read only once into a buffer
+     * of the worker, see {@link FileContent}. The file type sniffed while scanning the distribution is used if the
+     * artifact was scanned.
+     *
+     * @return errors to report
+     */
+    private List<ErrorEvent> diffArtifact(FileArtifact artifact) {
+        List<ErrorEvent> errors = new ArrayList<>();
+        if (artifact.getPathA() == null || artifact.getPathB() == null) {
+            return errors;
+        }
+        byte[][] buffers = this.buffers.get();
+        try {
+            FileContent contentA = new FileContent(Paths.get(artifact.getPathA()), artifact.getFileTypeA(), buffers[0]);
+            artifact.setFileTypeA(contentA.getFileType());
+            if (!contentA.getFileType().isText()) {
+                return errors;
+            }
+            FileContent contentB = new FileContent(Paths.get(artifact.getPathB()), artifact.getFileTypeB(), buffers[1]);
+            artifact.setFileTypeB(contentB.getFileType());
+            if (contentB.getFileType().isText() && !isResolvedByNormalization(artifact, contentA, contentB)) {
+                calculateDiff(artifact, contentA, contentB);
+            }
+        } catch (IOException e) {
+            errors.add(new ErrorEvent("Unable to detect whether the file is text or binary", artifact));
+        }
+        return errors;
+    }
+
+    /**
+     * Quick check of files which differ only in differences ignored by the configured normalizations. Such files are
+     * not diffed, they get {@link Status#DIFFERENT_LINE_BREAKS} if their line breaks differ, DIFFERENT files with
+     * the same line breaks get {@link Status#SAME}. Artifacts with other statuses and the same line breaks are diffed
+     * as usual, their status was decided by previous phases.
+     *
+     * @return true if the artifact needs no diff
+     */
+    private boolean isResolvedByNormalization(FileArtifact artifact, FileContent contentA, FileContent contentB) {
+        if (normalizations.isEmpty()) {
+            return false;
+        }
+        TextNormalizer.Fingerprint fingerprintA;
+        TextNormalizer.Fingerprint fingerprintB;
+        try {
+            fingerprintA = contentA.normalize(normalizations);
+            fingerprintB = contentB.normalize(normalizations);
+        } catch (IOException e) {
+            LOGGER.debug("Artifact '" + artifact.getRelativePath() + "': Unable to normalize - " + e.getMessage());
+            return false;
+        }
+        if (!fingerprintA.isEqualAfterNormalization(fingerprintB)) {
+            return false;
+        }
+        if (!fingerprintA.hasSameLineBreaks(fingerprintB)) {
+            LOGGER.info("Artifact '" + artifact.getRelativePath() + "': Only line break differences detected");
+            artifact.setTextDiff(lineBreaksMessage(fingerprintA.getLineBreakStyle(), fingerprintB.getLineBreakStyle()));
+            artifact.setStatus(Status.DIFFERENT_LINE_BREAKS, this.getClass().getSimpleName(),
+                    "Files differ only in line break style (CRLF vs LF)");
+            return true;
+        }
+        if (artifact.getStatus() == Status.DIFFERENT) {
+            LOGGER.info("Artifact '" + artifact.getRelativePath() + "': Only differences ignored by normalization detected");
+            artifact.setStatus(Status.SAME, this.getClass().getSimpleName(),
+                    "Files are equal after normalization of " + distDiffConfiguration.getTextNormalizations());
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Waits for the diff done by the worker pool.
+     */
+    private static List<ErrorEvent> await(Future<List<ErrorEvent>> diff) {
+        try {
+            return diff.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while diffing text files", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
         }
     }
 
@@ -226,72 +348,101 @@ public class TextFilesDiffsPhase extends ProcessPhase {
      * Calculate diff for text files
      *
      * @param artifact target artifacts
+     * @param contentA content of the file from distribution A
+     * @param contentB content of the file from distribution B
      */
-    private void calculateDiff(FileArtifact artifact) {
-        String fileA = artifact.getPathA();
-        String fileB = artifact.getPathB();
-        if (fileA != null && fileB != null) {
-            try {
-                String contentA = Tools.readFile(fileA);
-                String contentB = Tools.readFile(fileB);
-                LinkedList<DiffMatchPatch.Diff> diffs = patch.diff_main(contentA, contentB);
-                patch.diff_cleanupSemantic(diffs);
+    private void calculateDiff(FileArtifact artifact, FileContent contentA, FileContent contentB) {
+        try {
+            if (!contentA.isLoadable() || !contentB.isLoadable()) {
+                calculateLineDiff(artifact);
+                return;
+            }
+            DiffMatchPatch patch = this.patch.get();
+            LinkedList<DiffMatchPatch.Diff> diffs = patch.diff_main(contentA.getText(), contentB.getText());
+            patch.diff_cleanupSemantic(diffs);
 
-                for (DiffMatchPatch.Diff diff : diffs) {
-                    if (diff.text.contains("\n")) {
-                        // Diff text contains a new-line - let's make it more visible.
-                        if (DiffMatchPatch.Operation.DELETE.equals(diff.operation)) {
-                            diff.text = diff.text.replace("\n", NEWLINE);
-                        } else if (DiffMatchPatch.Operation.INSERT.equals(diff.operation)) {
-                            diff.text = diff.text.replace("\n", "\n" + NEWLINE);
-                        }
+            for (DiffMatchPatch.Diff diff : diffs) {
+                if (diff.text.contains("\n")) {
+                    // Diff text contains a new-line - let's make it more visible.
+                    if (DiffMatchPatch.Operation.DELETE.equals(diff.operation)) {
+                        diff.text = diff.text.replace("\n", NEWLINE);
+                    } else if (DiffMatchPatch.Operation.INSERT.equals(diff.operation)) {
+                        diff.text = diff.text.replace("\n", "\n" + NEWLINE);
                     }
                 }
+            }
 
-                String diff_prettyHtml = patch.diff_prettyHtml(diffs);
-                diff_prettyHtml = diff_prettyHtml.replaceAll("&para;", "");
+            String diff_prettyHtml = patch.diff_prettyHtml(diffs);
+            diff_prettyHtml = diff_prettyHtml.replaceAll("&para;", "");
 
-                // detect line ending style
-                String lineBreaksMessage = null;
-                try {
-                    LOGGER.debug("Detecting line breaks.");
-                    LineBreakStyle lineBreaksA = Tools.detectLineBreakStyle(artifact.getPathA());
-                    LineBreakStyle lineBreaksB = Tools.detectLineBreakStyle(artifact.getPathB());
-                    LOGGER.debug("A: " + lineBreaksA + ", B: " + lineBreaksB);
-                    if (lineBreaksA != lineBreaksB) {
-                        LOGGER.debug("Different line breaks detected.");
-                        lineBreaksMessage = "Artifact in A uses " + lineBreaksA + " style line endings while B uses "
-                                + lineBreaksB;
-                    }
-                } catch (Exception e) {
-                    e.printStackTrace();
-                    context.handleError(new ErrorEvent("Can't detect line endings, the cause: " + e.getMessage(), artifact));
-                }
+            String lineBreaksMessage = lineBreaksMessage(contentA.getLineBreakStyle(),
+                    contentB.getLineBreakStyle());
 
-                if (diffs.size() > 1) {
-                    if (lineBreaksMessage != null) {
-                        artifact.setTextDiff(lineBreaksMessage + "<br/><br/>" + diff_prettyHtml);
-                    } else {
-                        artifact.setTextDiff(diff_prettyHtml);
-                    }
-                    if (isDiffOfFileWithOnlyDifferentLineBreaks(diffs)) {
-                        LOGGER.info("Artifact '" + artifact.getRelativePath() + "': Only line break differences detected");
-                        artifact.setStatus(Status.DIFFERENT_LINE_BREAKS, this.getClass().getSimpleName(),
-                            "Files differ only in line break style (CRLF vs LF)");
-                    }
+            if (diffs.size() > 1) {
+                if (lineBreaksMessage != null) {
+                    artifact.setTextDiff(lineBreaksMessage + "<br/><br/>" + diff_prettyHtml);
                 } else {
-                    artifact.setTextDiff(lineBreaksMessage);
+                    artifact.setTextDiff(diff_prettyHtml);
+                }
+                if (isDiffOfFileWithOnlyDifferentLineBreaks(diffs)) {
+                    LOGGER.info("Artifact '" + artifact.getRelativePath() + "': Only line break differences detected");
+                    artifact.setStatus(Status.DIFFERENT_LINE_BREAKS, this.getClass().getSimpleName(),
+                        "Files differ only in line break style (CRLF vs LF)");
                 }
+            } else {
+                artifact.setTextDiff(lineBreaksMessage);
+            }
 
-                manageModuleXml(artifact, diffs);
-                manageModuleXmlCustomBuild(artifact, diffs);
-            } catch (Exception e) {
-                LOGGER.error("Artifact '" + artifact.getRelativePath() + "': Error calculating diff - " + e.getMessage(), e);
-                artifact.setStatus(Status.ERROR, this.getClass().getSimpleName(), "Error calculating diff: " + e.getMessage());
+            manageModuleXml(artifact, diffs);
+            manageModuleXmlCustomBuild(artifact, diffs);
+        } catch (Exception e) {
+            LOGGER.error("Artifact '" + artifact.getRelativePath() + "': Error calculating diff - " + e.getMessage(), e);
+            artifact.setStatus(Status.ERROR, this.getClass().getSimpleName(), "Error calculating diff: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Calculates line based diff of large text files, see {@link LineDiff}. Only changed lines are refined by
+     * characters, so the checks of module.xml which work with the character level diff are not done, module.xml files
+     * are never that large.
+     *
+     * @param artifact target artifact
+     */
+    private void calculateLineDiff(FileArtifact artifact) throws IOException {
+        Path fileA = Paths.get(artifact.getPathA());
+        Path fileB = Paths.get(artifact.getPathB());
+        LOGGER.debug("Artifact '" + artifact.getRelativePath() + "' is large, calculating line based diff");
+        LineDiff lineDiff = LineDiff.compare(fileA, fileB, StandardCharsets.UTF_8);
+        String lineBreaksMessage = lineBreaksMessage(lineDiff.getLineBreakStyleA(), lineDiff.getLineBreakStyleB());
+        if (!lineDiff.isEmpty()) {
+            String html = lineDiff.toHtml(fileA, fileB, StandardCharsets.UTF_8);
+            artifact.setTextDiff(lineBreaksMessage != null ? lineBreaksMessage + "<br/><br/>" + html : html);
+        } else {
+            if (lineBreaksMessage != null) {
+                artifact.setTextDiff(lineBreaksMessage);
+                LOGGER.info("Artifact '" + artifact.getRelativePath() + "': Only line break differences detected");
+                artifact.setStatus(Status.DIFFERENT_LINE_BREAKS, this.getClass().getSimpleName(),
+                        "Files differ only in line break style (CRLF vs LF)");
+            } else {
+                // different bytes decoded to the same text, e.g. malformed UTF-8 sequences
+                LOGGER.warn("Artifact '" + artifact.getRelativePath() + "': Files differ, but their lines are the same");
+                artifact.setTextDiff("Files differ, but their lines and line breaks are the same when read as UTF-8");
             }
         }
     }
 
+    /**
+     * @return message describing different line ending styles of the files, null if they use the same style
+     */
+    private static String lineBreaksMessage(LineBreakStyle lineBreaksA, LineBreakStyle lineBreaksB) {
+        LOGGER.debug("A: " + lineBreaksA + ", B: " + lineBreaksB);
+        if (lineBreaksA != lineBreaksB) {
+            LOGGER.debug("Different line breaks detected.");
+            return "Artifact in A uses " + lineBreaksA + " style line endings while B uses " + lineBreaksB;
+        }
+        return null;
+    }
+
     private boolean isDiffOfFileWithOnlyDifferentLineBreaks(LinkedList<DiffMatchPatch.Diff> diffs) {
         Set<DiffMatchPatch.Operation> distinctOperations = diffs.stream()
                 .map(diff -> diff.operation)
@@ -36,6 +36,7 @@
  *   SAME + MD5 differs → DIFFERENT
  *   PATCHED + MD5 differs → PATCHED_WRONG
  *   SAME (module.xml) + hash match → EXPECTED_DIFFERENCES (RPM mode)
+ *   SAME (JAR) + fingerprint match → EXPECTED_DIFFERENCES (rebuilt only)
  *       ↓
  * JarVersionComparePhase:
  *   REMOVED + ADDED (same jar, same version) → SAME or DIFFERENT
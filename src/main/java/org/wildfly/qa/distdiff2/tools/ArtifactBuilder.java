@@ -3,7 +3,10 @@ package org.wildfly.qa.distdiff2.tools;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
-import java.nio.file.Paths;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermissions;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
@@ -38,18 +41,45 @@ public final class ArtifactBuilder {
      * @return corresponding representation of file
      */
     public static Artifact create(File file, File distributionFolder, int level, boolean distributionA) {
+        if (file == null) {
+            return null;
+        }
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+        } catch (IOException e) {
+            // file does not exist or is not accessible
+            return null;
+        }
+        return create(file.toPath(), attributes, distributionFolder, level, distributionA);
+    }
+
+    /**
+     * Creates artifacts from given path and its already read attributes. This variant is used by
+     * {@link DistributionScanner} which reads the attributes of each entry only once.
+     *
+     * @param path               source path
+     * @param attributes         attributes of the source path, {@link PosixFileAttributes} are stored on the artifact
+     * @param distributionFolder representation of source distribution
+     * @param level              current level of processed artifact (relative from root of distribution)
+     * @param distributionA      is processed file part of the A distribution
+     * @return corresponding representation of file
+     */
+    public static Artifact create(Path path, BasicFileAttributes attributes, File distributionFolder, int level,
+                                  boolean distributionA) {
         Artifact artifact = null;
-        if (file != null) {
+        if (path != null && attributes != null) {
             // Calculation of paths
-            String absolutePath = file.getAbsolutePath();
-            String parentPath = file.getParent();
+            String absolutePath = path.toAbsolutePath().toString();
+            Path parent = path.toAbsolutePath().getParent();
+            String parentPath = (parent != null) ? parent.toString() : "";
             String distributionPath = (distributionFolder != null) ? distributionFolder.getAbsolutePath()
                     : "";
             parentPath = (parentPath.length() > distributionPath.length()) ?
                     parentPath.substring(distributionPath.length()) : "";
             String relativePath = (distributionFolder != null) ?
                     absolutePath
-                            .substring(distributionFolder.getAbsolutePath().length())
+                            .substring(distributionPath.length())
                     : "";
             if (relativePath.startsWith(File.separator)) {
                 relativePath = relativePath.substring(1);
@@ -59,16 +89,26 @@ public final class ArtifactBuilder {
             }
 
             // Create artifact
-            if (file.isDirectory()) {
-                artifact = createFolder(file, relativePath, absolutePath, distributionA);
-            } else if (file.isFile()) {
-                artifact = createFile(file, relativePath, absolutePath, distributionA);
+            String name = path.getFileName().toString();
+            if (attributes.isDirectory()) {
+                artifact = createFolder(name, relativePath, absolutePath, distributionA);
+            } else if (attributes.isRegularFile()) {
+                artifact = createFile(path, name, attributes.size(), relativePath, absolutePath, distributionA);
             }
 
             // Shared parameters for all types of artifacts
             if (artifact != null) {
                 artifact.setLevel(level);
                 artifact.setParentRelativePath(parentPath);
+                if (attributes instanceof PosixFileAttributes) {
+                    String permissions = PosixFilePermissions.toString(
+                            ((PosixFileAttributes) attributes).permissions());
+                    if (distributionA) {
+                        artifact.setPosixPermissionsA(permissions);
+                    } else {
+                        artifact.setPosixPermissionsB(permissions);
+                    }
+                }
             }
         }
 
@@ -78,16 +118,16 @@ public final class ArtifactBuilder {
     /**
      * Creates folder artifact
      *
-     * @param file          instance of file
+     * @param name          name of the folder
      * @param relativePath  relative path in distribution
      * @param absolutePath  absolute path
      * @param distributionA is distribution A?
      * @return instance of artifact
      */
-    private static Artifact createFolder(File file, String relativePath, String absolutePath,
+    private static Artifact createFolder(String name, String relativePath, String absolutePath,
                                          boolean distributionA) {
         Artifact artifact;
-        artifact = new FolderArtifact(file.getName(), relativePath);
+        artifact = new FolderArtifact(name, relativePath);
         if (distributionA) {
             artifact.setPathA(absolutePath);
         } else {
@@ -99,30 +139,32 @@ public final class ArtifactBuilder {
     /**
      * Creates file artifact
      *
-     * @param file          instance of file
+     * @param path          path of the file
+     * @param name          name of the file
+     * @param size          size of the file
      * @param relativePath  relative path in distribution
      * @param absolutePath  absolute path
      * @param distributionA is distribution A?
      * @return instance of artifact
      */
-    private static Artifact createFile(File file, String relativePath, String absolutePath,
+    private static Artifact createFile(Path path, String name, long size, String relativePath, String absolutePath,
                                        boolean distributionA) {
         FileArtifact artifact;
-        String name = file.getName();
         String extension = Tools.getExtension(name);
-        String mimeType = null;
+        FileType fileType = null;
         try {
-            mimeType = Files.probeContentType(Paths.get(file.getCanonicalPath()));
+            fileType = FileTypeSniffer.sniff(path);
         } catch (IOException e) {
-            LOGGER.error(e.getMessage(), e);
+            LOGGER.error("Cannot determine type of file " + absolutePath + ": " + e.getMessage(), e);
         }
+        String mimeType = (fileType != null) ? fileType.getMimeType() : null;
 
         if (extension != null && extension.equalsIgnoreCase("jar")) {
             mimeType = "application/x-java-archive";
         }
 
         if ("application/x-java-archive".equals(mimeType)) {
-            JarArtifact jarArtifact = new JarArtifact(name, relativePath, file.length());
+            JarArtifact jarArtifact = new JarArtifact(name, relativePath, size);
             if (distributionA) {
                 jarArtifact.setPathA(absolutePath);
             } else {
@@ -132,44 +174,23 @@ public final class ArtifactBuilder {
             artifact = jarArtifact;
 
         } else if ("class".equalsIgnoreCase(extension)) { // Class file
-            artifact = new ClassArtifact(name, relativePath, file.length());
+            artifact = new ClassArtifact(name, relativePath, size);
 
         } else if (extension != null && ZIP_ARCHIVES.contains(extension.toLowerCase())) { // Archive artifact
-            artifact = new ArchiveArtifact(name, relativePath, file.length());
+            artifact = new ArchiveArtifact(name, relativePath, size);
 
         } else { // Just file
-            artifact = new FileArtifact(name, relativePath, file.length());
+            artifact = new FileArtifact(name, relativePath, size);
         }
 
         if (distributionA) {
             artifact.setPathA(absolutePath);
+            artifact.setFileTypeA(fileType);
         } else {
             artifact.setPathB(absolutePath);
+            artifact.setFileTypeB(fileType);
         }
-
-        if (mimeType != null) {
-            try {
-                if (mimeType.equalsIgnoreCase("text/plain") && !Tools.isTextFile(file.getCanonicalPath())) {
-                    artifact.setMimeType("unknown binary format");
-                } else {
-                    artifact.setMimeType(mimeType);
-                }
-            } catch (IOException e) {
-                LOGGER.error(e);
-            }
-        } else {
-            // if the JDK cannot determine the mime type, default to text/plain, if it is a text file
-            try {
-                if (Tools.isTextFile(file.getCanonicalPath())) {
-                    artifact.setMimeType("text/plain");
-                } else {
-                    artifact.setMimeType("unknown binary format");
-                }
-
-            } catch (IOException e) {
-                LOGGER.error("Cannot determine if file is a text file " + e);
-            }
-        }
+        artifact.setMimeType(mimeType);
 
         return artifact;
     }
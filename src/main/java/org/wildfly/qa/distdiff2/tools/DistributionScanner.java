@@ -0,0 +1,173 @@
+package org.wildfly.qa.distdiff2.tools;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+import org.apache.log4j.Logger;
+import org.wildfly.qa.distdiff2.artifacts.Artifact;
+import org.wildfly.qa.distdiff2.artifacts.FolderArtifact;
+
+/**
+ * DistributionScanner
+ * <p>
+ * Reads all items of a distribution folder and creates their {@link Artifact} representations. Every directory is
+ * scanned by its own fork-join task, so both distributions and all their subtrees are read in parallel. Attributes of
+ * every entry are read only once (as {@link PosixFileAttributes} where the file store supports it) and handed over to
+ * the {@link ArtifactBuilder}.
+ * <p>
+ * The returned list is always in the same order regardless of the parallelism - each folder is followed by its
+ * content and the entries of one folder are sorted by their names.
+ */
+public final class DistributionScanner implements AutoCloseable {
+
+    // Internal logger
+    private static final Logger LOGGER = Logger.getLogger(DistributionScanner.class);
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates scanner using one thread per available processor
+     */
+    public DistributionScanner() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates scanner
+     *
+     * @param parallelism number of threads used for scanning
+     */
+    public DistributionScanner(int parallelism) {
+        this.pool = new ForkJoinPool(Math.max(1, parallelism));
+    }
+
+    /**
+     * Starts asynchronous scan of given distribution folder. Several scans can run at the same time.
+     *
+     * @param sourceFolder  source folder with distribution
+     * @param distributionA is distribution A?
+     * @return task which provides list of created representations when joined
+     */
+    public ForkJoinTask<List<Artifact>> submit(File sourceFolder, boolean distributionA) {
+        Path root = sourceFolder.toPath().toAbsolutePath();
+        return pool.submit(new FolderScanTask(root, sourceFolder, 0, distributionA, supportsPosix(root)));
+    }
+
+    /**
+     * Scans given distribution folder and waits for the result.
+     *
+     * @param sourceFolder  source folder with distribution
+     * @param distributionA is distribution A?
+     * @return List of created representations
+     */
+    public List<Artifact> scan(File sourceFolder, boolean distributionA) {
+        return submit(sourceFolder, distributionA).join();
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    private static boolean supportsPosix(Path root) {
+        try {
+            return Files.getFileStore(root).supportsFileAttributeView(PosixFileAttributeView.class);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Scans one folder, its subfolders are scanned by forked tasks
+     */
+    private static final class FolderScanTask extends RecursiveTask<List<Artifact>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Path folder;
+        private final File distributionFolder;
+        private final int level;
+        private final boolean distributionA;
+        private final boolean posix;
+
+        FolderScanTask(Path folder, File distributionFolder, int level, boolean distributionA, boolean posix) {
+            this.folder = folder;
+            this.distributionFolder = distributionFolder;
+            this.level = level;
+            this.distributionA = distributionA;
+            this.posix = posix;
+        }
+
+        @Override
+        protected List<Artifact> compute() {
+            List<Path> children = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder)) {
+                for (Path child : stream) {
+                    children.add(child);
+                }
+            } catch (IOException e) {
+                LOGGER.error("Cannot read content of folder " + folder + ": " + e.getMessage());
+                return Collections.emptyList();
+            }
+            Collections.sort(children);
+
+            Artifact[] artifacts = new Artifact[children.size()];
+            FolderScanTask[] subTasks = new FolderScanTask[children.size()];
+            for (int i = 0; i < artifacts.length; i++) {
+                Path child = children.get(i);
+                BasicFileAttributes attributes = readAttributes(child);
+                if (attributes == null) {
+                    continue;
+                }
+                artifacts[i] = ArtifactBuilder.create(child, attributes, distributionFolder, level, distributionA);
+                if (artifacts[i] instanceof FolderArtifact) {
+                    FolderScanTask subTask = new FolderScanTask(child, distributionFolder, level + 1,
+                            distributionA, posix);
+                    subTask.fork();
+                    subTasks[i] = subTask;
+                }
+            }
+
+            List<Artifact> result = new ArrayList<>();
+            for (int i = 0; i < artifacts.length; i++) {
+                if (artifacts[i] != null) {
+                    result.add(artifacts[i]);
+                }
+                if (subTasks[i] != null) {
+                    result.addAll(subTasks[i].join());
+                }
+            }
+            return result;
+        }
+
+        private BasicFileAttributes readAttributes(Path path) {
+            try {
+                if (posix) {
+                    try {
+                        return Files.readAttributes(path, PosixFileAttributes.class);
+                    } catch (UnsupportedOperationException e) {
+                        // nested file store without POSIX support
+                        return Files.readAttributes(path, BasicFileAttributes.class);
+                    }
+                }
+                return Files.readAttributes(path, BasicFileAttributes.class);
+            } catch (IOException e) {
+                // broken symbolic link or file removed in the meantime
+                LOGGER.debug("Cannot read attributes of " + path + ": " + e.getMessage());
+                return null;
+            }
+        }
+    }
+}
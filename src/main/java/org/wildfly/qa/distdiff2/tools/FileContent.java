@@ -0,0 +1,123 @@
+package org.wildfly.qa.distdiff2.tools;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+/**
+ * FileContent
+ * <p>
+ * Content of a file read at most once into a buffer supplied by the caller, so the buffer can be pooled and reused
+ * for many files. The file type, the line break style of the whole file and the text are all taken from the buffer.
+ * Files larger than the buffer are not loaded, only their type can be told (from the type cached on the artifact or
+ * from the header) and they can be streamed through the buffer by {@link #normalize(Set)}.
+ * <p>
+ * The content is valid until the buffer is passed to another instance.
+ */
+public final class FileContent {
+
+    private final Path path;
+    private final byte[] buffer;
+    private final long size;
+    private FileType fileType;
+    private int length = -1;
+
+    /**
+     * @param path     the file
+     * @param fileType type of the file if already known, null otherwise
+     * @param buffer   buffer to read the file into
+     * @throws IOException if the size of the file cannot be read
+     */
+    public FileContent(Path path, FileType fileType, byte[] buffer) throws IOException {
+        this.path = path;
+        this.fileType = fileType;
+        this.buffer = buffer;
+        this.size = Files.size(path);
+    }
+
+    /**
+     * @return true if the file fits the buffer
+     */
+    public boolean isLoadable() {
+        return size <= buffer.length;
+    }
+
+    /**
+     * @return type of the file, sniffed from the buffer if it was not known
+     * @throws IOException if the file cannot be read
+     */
+    public FileType getFileType() throws IOException {
+        if (fileType == null) {
+            if (isLoadable()) {
+                load();
+                fileType = FileTypeSniffer.sniff(path.getFileName().toString(), buffer,
+                        Math.min(length, FileTypeSniffer.HEADER_SIZE));
+            } else {
+                fileType = FileTypeSniffer.sniff(path);
+            }
+        }
+        return fileType;
+    }
+
+    /**
+     * @return line break style of the whole file
+     * @throws IOException if the file cannot be read
+     */
+    public LineBreakStyle getLineBreakStyle() throws IOException {
+        load();
+        return FileTypeSniffer.detectLineBreakStyle(buffer, length);
+    }
+
+    /**
+     * @return the content decoded as UTF-8
+     * @throws IOException if the file cannot be read
+     */
+    public String getText() throws IOException {
+        load();
+        return new String(buffer, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Hashes the normalized content, see {@link TextNormalizer}. Files which do not fit the buffer are streamed through
+     * it.
+     *
+     * @param normalizations differences to ignore
+     * @return fingerprint of the normalized content
+     * @throws IOException if the file cannot be read
+     */
+    public TextNormalizer.Fingerprint normalize(Set<TextNormalization> normalizations) throws IOException {
+        TextNormalizer normalizer = new TextNormalizer(normalizations);
+        if (isLoadable()) {
+            load();
+            normalizer.update(buffer, 0, length);
+        } else {
+            try (InputStream in = Files.newInputStream(path)) {
+                int n;
+                while ((n = in.read(buffer)) != -1) {
+                    normalizer.update(buffer, 0, n);
+                }
+            }
+        }
+        return normalizer.finish();
+    }
+
+    private void load() throws IOException {
+        if (length >= 0) {
+            return;
+        }
+        if (!isLoadable()) {
+            throw new IllegalStateException(path + " has " + size + " bytes, it does not fit the buffer");
+        }
+        int read = 0;
+        try (InputStream in = Files.newInputStream(path)) {
+            int n;
+            while (read < buffer.length && (n = in.read(buffer, read, buffer.length - read)) != -1) {
+                read += n;
+            }
+        }
+        length = read;
+    }
+}
@@ -0,0 +1,61 @@
+package org.wildfly.qa.distdiff2.tools;
+
+/**
+ * FileType
+ * <p>
+ * Result of {@link FileTypeSniffer} - everything which can be told about a file from its name and its header.
+ */
+public final class FileType {
+
+    /**
+     * Binary format recognized by the magic number at the beginning of the file
+     */
+    public enum Format {
+        ELF,
+        PE,
+        ZIP,
+        JAVA_CLASS,
+        GZIP,
+        NONE
+    }
+
+    private final String mimeType;
+    private final boolean text;
+    private final Format format;
+    private final LineBreakStyle lineBreakStyle;
+
+    FileType(String mimeType, boolean text, Format format, LineBreakStyle lineBreakStyle) {
+        this.mimeType = mimeType;
+        this.text = text;
+        this.format = format;
+        this.lineBreakStyle = lineBreakStyle;
+    }
+
+    public String getMimeType() {
+        return mimeType;
+    }
+
+    /**
+     * @return true when the header of the file consists of text characters
+     */
+    public boolean isText() {
+        return text;
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    /**
+     * @return line break style detected in the header, null for binary files
+     */
+    public LineBreakStyle getLineBreakStyle() {
+        return lineBreakStyle;
+    }
+
+    @Override
+    public String toString() {
+        return "FileType{mimeType='" + mimeType + "', text=" + text + ", format=" + format + ", lineBreakStyle="
+                + lineBreakStyle + "}";
+    }
+}
@@ -0,0 +1,291 @@
+package org.wildfly.qa.distdiff2.tools;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.FileNameMap;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * FileTypeSniffer
+ * <p>
+ * Classifies a file from its name and one small header buffer - MIME type, text or binary content, binary format
+ * (ELF, PE, zip, class file) and line break style. The header is read only once and nothing else touches the file
+ * content, the result is supposed to be cached on the artifact (see
+ * {@link org.wildfly.qa.distdiff2.artifacts.FileArtifact#getFileTypeA()}).
+ * <p>
+ * MIME types do not depend on the platform, the extension mapping is the JDK built-in one with a few overrides for the
+ * types dist-diff2 relies on. Executables are recognized by their magic number regardless of the file name.
+ */
+public final class FileTypeSniffer {
+
+    /**
+     * Number of bytes inspected at the beginning of the file
+     */
+    public static final int HEADER_SIZE = 1000;
+
+    /**
+     * MIME type used for non-text files of unknown type
+     */
+    public static final String UNKNOWN_BINARY_FORMAT = "unknown binary format";
+
+    private static final String TEXT_PLAIN = "text/plain";
+
+    // Text files need more than 95% of text characters in the header
+    private static final double TEXT_CHARACTERS_RATIO = 0.95;
+
+    // Non-ASCII characters which are considered as text characters
+    private static final String TEXT_CHARACTERS = "ßöäü§°²³´âêîôÂÊÔÎáéíóàèìòÁÉÍÓÀÈÌÒ©‰¢£¥€±¿»«¼½¾™ª";
+
+    private static final boolean[] ASCII_TEXT = new boolean[128];
+
+    private static final boolean[] LATIN_TEXT = new boolean[256];
+
+    private static final Map<String, String> MIME_TYPES = new HashMap<>();
+
+    private static final FileNameMap FILE_NAME_MAP = URLConnection.getFileNameMap();
+
+    static {
+        for (int b = 0x20; b < 0x7F; b++) {
+            ASCII_TEXT[b] = true;
+        }
+        ASCII_TEXT['\t'] = true;
+        ASCII_TEXT['\n'] = true;
+        ASCII_TEXT['\r'] = true;
+        for (char c : TEXT_CHARACTERS.toCharArray()) {
+            if (c < LATIN_TEXT.length) {
+                LATIN_TEXT[c] = true;
+            }
+        }
+
+        // 'text/xml' is the JDK-9+ default, use it on every platform
+        MIME_TYPES.put("xml", "text/xml");
+        MIME_TYPES.put("jar", "application/x-java-archive");
+        MIME_TYPES.put("sh", "application/x-sh");
+    }
+
+    private FileTypeSniffer() {
+    }
+
+    /**
+     * Reads header of given file and classifies it.
+     *
+     * @param path file to be classified
+     * @return file type
+     * @throws IOException if the file cannot be read
+     */
+    public static FileType sniff(Path path) throws IOException {
+        byte[] header = new byte[HEADER_SIZE];
+        int length = 0;
+        try (InputStream in = Files.newInputStream(path)) {
+            int read;
+            while (length < header.length && (read = in.read(header, length, header.length - length)) != -1) {
+                length += read;
+            }
+        }
+        return sniff(path.getFileName().toString(), header, length);
+    }
+
+    /**
+     * Classifies file from its name and already read header.
+     *
+     * @param fileName name of the file
+     * @param header   header buffer
+     * @param length   number of valid bytes in the header buffer
+     * @return file type
+     */
+    public static FileType sniff(String fileName, byte[] header, int length) {
+        FileType.Format format = detectFormat(header, length);
+        boolean text = format == FileType.Format.NONE && isText(header, length);
+        LineBreakStyle lineBreakStyle = text ? detectLineBreakStyle(header, length) : null;
+
+        String mimeType;
+        if (format == FileType.Format.ELF) {
+            mimeType = elfMimeType(header, length);
+        } else {
+            mimeType = mimeTypeFromName(fileName);
+            if (mimeType == null) {
+                mimeType = mimeTypeFromFormat(format);
+            }
+        }
+
+        if (mimeType == null) {
+            mimeType = text ? TEXT_PLAIN : UNKNOWN_BINARY_FORMAT;
+        } else if (TEXT_PLAIN.equalsIgnoreCase(mimeType) && !text) {
+            mimeType = UNKNOWN_BINARY_FORMAT;
+        }
+        return new FileType(mimeType, text, format, lineBreakStyle);
+    }
+
+    private static String mimeTypeFromName(String fileName) {
+        String extension = Tools.getExtension(fileName);
+        if (extension == null || extension.isEmpty()) {
+            return null;
+        }
+        String mimeType = MIME_TYPES.get(extension.toLowerCase());
+        return (mimeType != null) ? mimeType : FILE_NAME_MAP.getContentTypeFor(fileName);
+    }
+
+    private static String mimeTypeFromFormat(FileType.Format format) {
+        switch (format) {
+            case PE:
+                return "application/octet-stream";
+            case ZIP:
+                return "application/zip";
+            case JAVA_CLASS:
+                return "application/java-vm";
+            case GZIP:
+                return "application/gzip";
+            default:
+                return null;
+        }
+    }
+
+    private static FileType.Format detectFormat(byte[] header, int length) {
+        if (startsWith(header, length, 0x7F, 'E', 'L', 'F')) {
+            return FileType.Format.ELF;
+        } else if (startsWith(header, length, 'P', 'K', 0x03, 0x04) || startsWith(header, length, 'P', 'K', 0x05, 0x06)) {
+            return FileType.Format.ZIP;
+        } else if (startsWith(header, length, 0xCA, 0xFE, 0xBA, 0xBE)) {
+            return FileType.Format.JAVA_CLASS;
+        } else if (startsWith(header, length, 0x1F, 0x8B)) {
+            return FileType.Format.GZIP;
+        } else if (startsWith(header, length, 'M', 'Z') && isPortableExecutable(header, length)) {
+            return FileType.Format.PE;
+        }
+        return FileType.Format.NONE;
+    }
+
+    private static boolean startsWith(byte[] header, int length, int... magic) {
+        if (length < magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if ((header[i] & 0xFF) != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 'MZ' is followed by offset of the 'PE\0\0' signature at position 0x3C
+     */
+    private static boolean isPortableExecutable(byte[] header, int length) {
+        if (length < 0x40) {
+            return false;
+        }
+        int offset = (header[0x3C] & 0xFF) | (header[0x3D] & 0xFF) << 8 | (header[0x3E] & 0xFF) << 16
+                | (header[0x3F] & 0xFF) << 24;
+        return offset > 0 && offset + 4 <= length && header[offset] == 'P' && header[offset + 1] == 'E'
+                && header[offset + 2] == 0 && header[offset + 3] == 0;
+    }
+
+    /**
+     * ELF type is stored at offset 16 in the byte order given at offset 5
+     */
+    private static String elfMimeType(byte[] header, int length) {
+        if (length < 18) {
+            return "application/octet-stream";
+        }
+        boolean bigEndian = header[5] == 2;
+        int type = bigEndian ? (header[16] & 0xFF) << 8 | (header[17] & 0xFF)
+                : (header[17] & 0xFF) << 8 | (header[16] & 0xFF);
+        switch (type) {
+            case 1:
+                return "application/x-object";
+            case 2:
+                return "application/x-executable";
+            case 3:
+                return "application/x-sharedlib";
+            case 4:
+                return "application/x-coredump";
+            default:
+                return "application/octet-stream";
+        }
+    }
+
+    /**
+     * Decodes the header as UTF-8 and counts characters from the text characters table. Malformed sequences are
+     * counted as non-text characters, UTF-8 byte order mark at the beginning is skipped.
+     */
+    private static boolean isText(byte[] header, int length) {
+        int characters = 0;
+        int textCharacters = 0;
+        int i = hasUtf8Bom(header, length) ? 3 : 0;
+        while (i < length) {
+            int b = header[i] & 0xFF;
+            if (b < 0x80) {
+                characters++;
+                if (ASCII_TEXT[b]) {
+                    textCharacters++;
+                }
+                i++;
+                continue;
+            }
+
+            int continuationBytes;
+            int codePoint;
+            if (b >= 0xC2 && b <= 0xDF) {
+                continuationBytes = 1;
+                codePoint = b & 0x1F;
+            } else if (b >= 0xE0 && b <= 0xEF) {
+                continuationBytes = 2;
+                codePoint = b & 0x0F;
+            } else if (b >= 0xF0 && b <= 0xF4) {
+                continuationBytes = 3;
+                codePoint = b & 0x07;
+            } else {
+                characters++;
+                i++;
+                continue;
+            }
+
+            int j = 1;
+            while (j <= continuationBytes && i + j < length && (header[i + j] & 0xC0) == 0x80) {
+                codePoint = codePoint << 6 | (header[i + j] & 0x3F);
+                j++;
+            }
+            characters++;
+            if (j <= continuationBytes) {
+                // malformed or truncated sequence
+                i += j;
+                continue;
+            }
+            i += j;
+            if (codePoint >= 0x10000) {
+                // surrogate pair, never a text character
+                characters++;
+            } else if (isTextCodePoint(codePoint)) {
+                textCharacters++;
+            }
+        }
+        return characters > 0 && (double) textCharacters / characters > TEXT_CHARACTERS_RATIO;
+    }
+
+    private static boolean hasUtf8Bom(byte[] header, int length) {
+        return length >= 3 && (header[0] & 0xFF) == 0xEF && (header[1] & 0xFF) == 0xBB && (header[2] & 0xFF) == 0xBF;
+    }
+
+    private static boolean isTextCodePoint(int codePoint) {
+        if (codePoint < LATIN_TEXT.length) {
+            return LATIN_TEXT[codePoint];
+        }
+        return codePoint == '‰' || codePoint == '€' || codePoint == '™';
+    }
+
+    /**
+     * @return {@link LineBreakStyle#WINDOWS} if there is a CRLF in the buffer
+     */
+    static LineBreakStyle detectLineBreakStyle(byte[] header, int length) {
+        for (int i = 0; i + 1 < length; i++) {
+            if (header[i] == '\r' && header[i + 1] == '\n') {
+                return LineBreakStyle.WINDOWS;
+            }
+        }
+        return LineBreakStyle.UNIX;
+    }
+}
@@ -0,0 +1,660 @@
+package org.wildfly.qa.distdiff2.tools;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import com.sksamuel.diffpatch.DiffMatchPatch;
+
+/**
+ * LineDiff
+ * <p>
+ * Line oriented diff of two text files for files too large for a character level {@link DiffMatchPatch}. The files
+ * are streamed and never held in memory as a whole:
+ * <ol>
+ *   <li>every line is reduced to a 64-bit hash, hashes are interned to small numbers shared by both files and the
+ *       sequences of numbers are compared by the Myers algorithm (linear space variant); line breaks are not part of
+ *       the lines, so CRLF and LF files have the same lines, the line break style of the whole files is told by the
+ *       same pass; a second, independent hash is kept for every number to tell whether it stands for more than one
+ *       distinct line,</li>
+ *   <li>only if some number does, the files are read again and the text of the lines with such numbers paired as
+ *       unchanged is compared, so a hash collision cannot hide a change; a line of B with the hash of a different
+ *       line of A gets a number of its own and the sequences are compared again. Lines differing in neither hash
+ *       are taken as equal,</li>
+ *   <li>only the lines of the changed hunks and their context are read again to render the HTML diff, deleted and
+ *       inserted lines of a hunk are refined by a character level {@link DiffMatchPatch}.</li>
+ * </ol>
+ * The search for the shortest edit script gives up after {@link #MAX_EDIT_COST} steps and splits the compared ranges
+ * in halves instead, so the diff might not be minimal for files with many scattered changes, but it is always
+ * calculated in reasonable time.
+ */
+public final class LineDiff {
+
+    /**
+     * Number of unchanged lines shown around each change
+     */
+    public static final int CONTEXT_LINES = 3;
+
+    private static final int MAX_EDIT_COST = 1024;
+
+    // hunks with more characters on one side are not refined by characters
+    private static final int MAX_REFINED_HUNK_SIZE = 16 * 1024;
+
+    // the rendering stops once lines with this many characters were read from one file
+    private static final int MAX_RENDERED_SIZE = 1024 * 1024;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    // multiplier of the polynomial hash telling apart lines with the same FNV hash
+    private static final long CHECK_MULTIPLIER = 0x9e3779b97f4a7c15L;
+    // mixed into the hash of the last line if it is not terminated by a line break
+    private static final long NO_LINE_BREAK = 0x1_0000L;
+
+    private final int[] linesA;
+    private final int[] linesB;
+    private final LineBreakStyle lineBreakStyleA;
+    private final LineBreakStyle lineBreakStyleB;
+    private final List<Edit> edits = new ArrayList<>();
+    // generation in which a line was seen in A, see hasCommonLine
+    private final int[] seen;
+    private int generation;
+
+    /**
+     * Range of lines of A replaced by a range of lines of B, an empty range of A is an insertion, an empty range of B
+     * is a deletion. Lines are numbered from 0, ends are exclusive.
+     */
+    public static final class Edit {
+
+        private final int startA;
+        private final int endA;
+        private final int startB;
+        private final int endB;
+
+        Edit(int startA, int endA, int startB, int endB) {
+            this.startA = startA;
+            this.endA = endA;
+            this.startB = startB;
+            this.endB = endB;
+        }
+
+        public int getStartA() {
+            return startA;
+        }
+
+        public int getEndA() {
+            return endA;
+        }
+
+        public int getStartB() {
+            return startB;
+        }
+
+        public int getEndB() {
+            return endB;
+        }
+    }
+
+    private LineDiff(int[] linesA, int[] linesB, LineBreakStyle lineBreakStyleA, LineBreakStyle lineBreakStyleB) {
+        this.linesA = linesA;
+        this.linesB = linesB;
+        this.lineBreakStyleA = lineBreakStyleA;
+        this.lineBreakStyleB = lineBreakStyleB;
+        int ids = 0;
+        for (int line : linesA) {
+            ids = Math.max(ids, line + 1);
+        }
+        for (int line : linesB) {
+            ids = Math.max(ids, line + 1);
+        }
+        this.seen = new int[ids];
+        diff(0, linesA.length, 0, linesB.length);
+        mergeAdjacentEdits();
+    }
+
+    /**
+     * @param fileA   file from distribution A
+     * @param fileB   file from distribution B
+     * @param charset encoding of the files
+     * @return diff of lines of the files
+     * @throws IOException if a file cannot be read
+     */
+    public static LineDiff compare(Path fileA, Path fileB, Charset charset) throws IOException {
+        LineIds ids = new LineIds();
+        LineDiff diff;
+        try (LineReader readerA = new LineReader(fileA, charset);
+             LineReader readerB = new LineReader(fileB, charset)) {
+            int[] linesA = ids.read(readerA);
+            int[] linesB = ids.read(readerB);
+            diff = new LineDiff(linesA, linesB, readerA.getLineBreakStyle(), readerB.getLineBreakStyle());
+        }
+        return ids.colliding.isEmpty() ? diff : diff.verify(fileA, fileB, charset, ids.colliding);
+    }
+
+    /**
+     * @param fileA   file from distribution A
+     * @param fileB   file from distribution B
+     * @param charset encoding of the files
+     * @param linesA  line numbers of A, equal numbers stand for lines with equal hashes, any of them may collide
+     * @param linesB  line numbers of B
+     * @return diff of lines of the files
+     * @throws IOException if a file cannot be read
+     */
+    static LineDiff compare(Path fileA, Path fileB, Charset charset, int[] linesA, int[] linesB) throws IOException {
+        LineDiff diff = new LineDiff(linesA, linesB, null, null);
+        BitSet colliding = new BitSet();
+        colliding.set(0, diff.seen.length);
+        return diff.verify(fileA, fileB, charset, colliding);
+    }
+
+    /**
+     * @param linesA line numbers of A, equal numbers stand for equal lines
+     * @param linesB line numbers of B
+     * @return diff of the sequences
+     */
+    static LineDiff compare(int[] linesA, int[] linesB) {
+        return new LineDiff(linesA, linesB, null, null);
+    }
+
+    /**
+     * @return changed ranges of lines in the order of the files, empty if the files have the same lines
+     */
+    public List<Edit> getEdits() {
+        return Collections.unmodifiableList(edits);
+    }
+
+    public boolean isEmpty() {
+        return edits.isEmpty();
+    }
+
+    /**
+     * @return line break style of the whole file A, null if the lines were not read from a file
+     */
+    public LineBreakStyle getLineBreakStyleA() {
+        return lineBreakStyleA;
+    }
+
+    /**
+     * @return line break style of the whole file B, null if the lines were not read from a file
+     */
+    public LineBreakStyle getLineBreakStyleB() {
+        return lineBreakStyleB;
+    }
+
+    /**
+     * Renders the changes with {@link #CONTEXT_LINES} lines of context in the same style as
+     * {@link DiffMatchPatch#diff_prettyHtml(LinkedList)}, the files are read again.
+     *
+     * @param fileA   file from distribution A
+     * @param fileB   file from distribution B
+     * @param charset encoding of the files
+     * @return HTML diff, empty if there are no changes
+     * @throws IOException if a file cannot be read
+     */
+    public String toHtml(Path fileA, Path fileB, Charset charset) throws IOException {
+        List<Edit> hunks = hunks();
+        Map<Integer, String> textA = readLines(fileA, charset, hunks, true);
+        Map<Integer, String> textB = readLines(fileB, charset, hunks, false);
+        StringBuilder html = new StringBuilder();
+        DiffMatchPatch patch = new DiffMatchPatch();
+        int next = 0;
+        for (int i = 0; i < hunks.size(); i++) {
+            Edit hunk = hunks.get(i);
+            if (!isRead(textA, hunk.startA, hunk.endA) || !isRead(textB, hunk.startB, hunk.endB)) {
+                html.append("<br>... ").append(hunks.size() - i).append(" more changes not shown<br>");
+                break;
+            }
+            if (i > 0) {
+                html.append("<br>...<br>");
+            }
+            html.append("<b>@@ -").append(hunk.startA + 1).append(',').append(hunk.endA - hunk.startA)
+                    .append(" +").append(hunk.startB + 1).append(',').append(hunk.endB - hunk.startB)
+                    .append(" @@</b><br>");
+            int line = hunk.startA;
+            for (; next < edits.size() && edits.get(next).endA <= hunk.endA; next++) {
+                Edit edit = edits.get(next);
+                renderEqual(html, textA, line, edit.startA);
+                renderEdit(html, patch, join(textA, edit.startA, edit.endA), join(textB, edit.startB, edit.endB));
+                line = edit.endA;
+            }
+            renderEqual(html, textA, line, hunk.endA);
+        }
+        return html.toString();
+    }
+
+    private static boolean isRead(Map<Integer, String> text, int start, int end) {
+        return start == end || text.containsKey(end - 1);
+    }
+
+    private static void renderEdit(StringBuilder html, DiffMatchPatch patch, String deleted, String inserted) {
+        LinkedList<DiffMatchPatch.Diff> diffs;
+        if (!deleted.isEmpty() && !inserted.isEmpty()
+                && deleted.length() <= MAX_REFINED_HUNK_SIZE && inserted.length() <= MAX_REFINED_HUNK_SIZE) {
+            diffs = patch.diff_main(deleted, inserted);
+            patch.diff_cleanupSemantic(diffs);
+        } else {
+            diffs = new LinkedList<>();
+            if (!deleted.isEmpty()) {
+                diffs.add(new DiffMatchPatch.Diff(DiffMatchPatch.Operation.DELETE, deleted));
+            }
+            if (!inserted.isEmpty()) {
+                diffs.add(new DiffMatchPatch.Diff(DiffMatchPatch.Operation.INSERT, inserted));
+            }
+        }
+        html.append(patch.diff_prettyHtml(diffs).replaceAll("&para;", ""));
+    }
+
+    private static void renderEqual(StringBuilder html, Map<Integer, String> text, int start, int end) {
+        if (start < end) {
+            String equal = join(text, start, end);
+            html.append("<span>")
+                    .append(equal.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;")
+                            .replace("\n", "<br>"))
+                    .append("</span>");
+        }
+    }
+
+    private static String join(Map<Integer, String> text, int start, int end) {
+        StringBuilder builder = new StringBuilder();
+        for (int line = start; line < end; line++) {
+            builder.append(text.get(line)).append('\n');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * @return ranges of lines to render, the edits extended by the context and merged if they overlap
+     */
+    private List<Edit> hunks() {
+        List<Edit> hunks = new ArrayList<>();
+        Edit current = null;
+        for (Edit edit : edits) {
+            int startA = Math.max(0, edit.startA - CONTEXT_LINES);
+            int startB = Math.max(0, edit.startB - CONTEXT_LINES);
+            int endA = Math.min(linesA.length, edit.endA + CONTEXT_LINES);
+            int endB = Math.min(linesB.length, edit.endB + CONTEXT_LINES);
+            if (current != null && startA <= current.endA) {
+                current = new Edit(current.startA, endA, current.startB, endB);
+                hunks.set(hunks.size() - 1, current);
+            } else {
+                current = new Edit(startA, endA, startB, endB);
+                hunks.add(current);
+            }
+        }
+        return hunks;
+    }
+
+    /**
+     * @return texts of the lines in the hunks by line number, lines beyond the rendering limit are left out
+     */
+    private static Map<Integer, String> readLines(Path file, Charset charset, List<Edit> hunks, boolean sideA)
+            throws IOException {
+        Map<Integer, String> lines = new HashMap<>();
+        if (hunks.isEmpty()) {
+            return lines;
+        }
+        int size = 0;
+        try (LineReader reader = new LineReader(file, charset)) {
+            StringBuilder text = new StringBuilder();
+            int line = 0;
+            for (Edit hunk : hunks) {
+                int start = sideA ? hunk.startA : hunk.startB;
+                int end = sideA ? hunk.endA : hunk.endB;
+                for (; line < end; line++) {
+                    text.setLength(0);
+                    if (!reader.next(line >= start ? text : null)) {
+                        return lines;
+                    }
+                    if (line >= start) {
+                        size += text.length();
+                        if (size > MAX_RENDERED_SIZE) {
+                            return lines;
+                        }
+                        lines.put(line, text.toString());
+                    }
+                }
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Compares the text of the lines with colliding numbers paired as unchanged, lines of B with the hash of a
+     * different line of A get numbers of their own until the paired lines are equal.
+     *
+     * @param colliding numbers standing for more than one distinct line
+     * @return this diff if no collision pairs different lines, a diff of the corrected sequences otherwise
+     */
+    private LineDiff verify(Path fileA, Path fileB, Charset charset, BitSet colliding) throws IOException {
+        LineDiff diff = this;
+        int nextId = seen.length;
+        for (int line = diff.findCollision(fileA, fileB, charset, colliding); line >= 0;
+             line = diff.findCollision(fileA, fileB, charset, colliding)) {
+            linesB[line] = nextId++;
+            diff = new LineDiff(linesA, linesB, lineBreakStyleA, lineBreakStyleB);
+        }
+        return diff;
+    }
+
+    /**
+     * @return number of the first line of B paired as unchanged with a different line of A, -1 if there is none
+     */
+    private int findCollision(Path fileA, Path fileB, Charset charset, BitSet colliding) throws IOException {
+        try (LineReader readerA = new LineReader(fileA, charset);
+             LineReader readerB = new LineReader(fileB, charset)) {
+            StringBuilder textA = new StringBuilder();
+            StringBuilder textB = new StringBuilder();
+            int lineA = 0;
+            int lineB = 0;
+            for (int i = 0; i <= edits.size(); i++) {
+                Edit edit = (i < edits.size()) ? edits.get(i) : null;
+                int end = (edit != null) ? edit.startA : linesA.length;
+                while (lineA < end) {
+                    // other lines are known to be equal, there is no need to compare their text
+                    boolean compared = colliding.get(linesA[lineA]);
+                    textA.setLength(0);
+                    textB.setLength(0);
+                    readerA.next(compared ? textA : null);
+                    readerB.next(compared ? textB : null);
+                    if (compared && (textA.compareTo(textB) != 0 || readerA.lineBreak != readerB.lineBreak)) {
+                        return lineB;
+                    }
+                    lineA++;
+                    lineB++;
+                }
+                if (edit != null) {
+                    for (; lineA < edit.endA; lineA++) {
+                        readerA.next(null);
+                    }
+                    for (; lineB < edit.endB; lineB++) {
+                        readerB.next(null);
+                    }
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the edits between the ranges of lines and appends them in order.
+     */
+    private void diff(int startA, int endA, int startB, int endB) {
+        // common prefix and suffix
+        while (startA < endA && startB < endB && linesA[startA] == linesB[startB]) {
+            startA++;
+            startB++;
+        }
+        while (startA < endA && startB < endB && linesA[endA - 1] == linesB[endB - 1]) {
+            endA--;
+            endB--;
+        }
+        if (startA == endA && startB == endB) {
+            return;
+        }
+        if (startA == endA || startB == endB || !hasCommonLine(startA, endA, startB, endB)) {
+            edits.add(new Edit(startA, endA, startB, endB));
+            return;
+        }
+        int[] split = bisect(startA, endA - startA, startB, endB - startB);
+        if (split == null) {
+            edits.add(new Edit(startA, endA, startB, endB));
+            return;
+        }
+        diff(startA, startA + split[0], startB, startB + split[1]);
+        diff(startA + split[0], endA, startB + split[1], endB);
+    }
+
+    /**
+     * Ranges with nothing in common are replaced as a whole, there is no need to search for the edit script.
+     */
+    private boolean hasCommonLine(int startA, int endA, int startB, int endB) {
+        generation++;
+        for (int i = startA; i < endA; i++) {
+            seen[linesA[i]] = generation;
+        }
+        for (int i = startB; i < endB; i++) {
+            if (seen[linesB[i]] == generation) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds the middle snake of the shortest edit script, see E. Myers: An O(ND) Difference Algorithm and Its
+     * Variations. The search is the same as in {@link DiffMatchPatch}, just over line numbers.
+     *
+     * @return offsets of the split point in both ranges, null if the ranges have nothing in common
+     */
+    private int[] bisect(int offsetA, int n, int offsetB, int m) {
+        int maxD = (n + m + 1) / 2;
+        // the search never goes further than MAX_EDIT_COST
+        int vOffset = Math.min(maxD, MAX_EDIT_COST + 1);
+        int vLength = 2 * vOffset + 2;
+        int[] v1 = new int[vLength];
+        int[] v2 = new int[vLength];
+        Arrays.fill(v1, -1);
+        Arrays.fill(v2, -1);
+        v1[vOffset + 1] = 0;
+        v2[vOffset + 1] = 0;
+        int delta = n - m;
+        // if the total number of lines is odd, the front path collides with the reverse path
+        boolean front = (delta % 2 != 0);
+        int k1start = 0;
+        int k1end = 0;
+        int k2start = 0;
+        int k2end = 0;
+        for (int d = 0; d < maxD; d++) {
+            if (d > MAX_EDIT_COST) {
+                // too expensive, any split point gives a correct, just not the shortest, edit script
+                return new int[]{n / 2, m / 2};
+            }
+            for (int k1 = -d + k1start; k1 <= d - k1end; k1 += 2) {
+                int k1Offset = vOffset + k1;
+                int x1;
+                if (k1 == -d || (k1 != d && v1[k1Offset - 1] < v1[k1Offset + 1])) {
+                    x1 = v1[k1Offset + 1];
+                } else {
+                    x1 = v1[k1Offset - 1] + 1;
+                }
+                int y1 = x1 - k1;
+                while (x1 < n && y1 < m && linesA[offsetA + x1] == linesB[offsetB + y1]) {
+                    x1++;
+                    y1++;
+                }
+                v1[k1Offset] = x1;
+                if (x1 > n) {
+                    k1end += 2;
+                } else if (y1 > m) {
+                    k1start += 2;
+                } else if (front) {
+                    int k2Offset = vOffset + delta - k1;
+                    if (k2Offset >= 0 && k2Offset < vLength && v2[k2Offset] != -1 && x1 >= n - v2[k2Offset]) {
+                        return new int[]{x1, y1};
+                    }
+                }
+            }
+            for (int k2 = -d + k2start; k2 <= d - k2end; k2 += 2) {
+                int k2Offset = vOffset + k2;
+                int x2;
+                if (k2 == -d || (k2 != d && v2[k2Offset - 1] < v2[k2Offset + 1])) {
+                    x2 = v2[k2Offset + 1];
+                } else {
+                    x2 = v2[k2Offset - 1] + 1;
+                }
+                int y2 = x2 - k2;
+                while (x2 < n && y2 < m && linesA[offsetA + n - x2 - 1] == linesB[offsetB + m - y2 - 1]) {
+                    x2++;
+                    y2++;
+                }
+                v2[k2Offset] = x2;
+                if (x2 > n) {
+                    k2end += 2;
+                } else if (y2 > m) {
+                    k2start += 2;
+                } else if (!front) {
+                    int k1Offset = vOffset + delta - k2;
+                    if (k1Offset >= 0 && k1Offset < vLength && v1[k1Offset] != -1) {
+                        int x1 = v1[k1Offset];
+                        int y1 = vOffset + x1 - k1Offset;
+                        if (x1 >= n - x2) {
+                            return new int[]{x1, y1};
+                        }
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private void mergeAdjacentEdits() {
+        List<Edit> merged = new ArrayList<>();
+        for (Edit edit : edits) {
+            Edit last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && last.endA == edit.startA && last.endB == edit.startB) {
+                merged.set(merged.size() - 1, new Edit(last.startA, edit.endA, last.startB, edit.endB));
+            } else {
+                merged.add(edit);
+            }
+        }
+        edits.clear();
+        edits.addAll(merged);
+    }
+
+    /**
+     * Numbers of lines shared by both files, a number stands for all lines with the same hash. The second hash of the
+     * first line with a number is kept to tell whether the number stands for more than one distinct line.
+     */
+    private static final class LineIds {
+
+        private final Map<Long, Integer> ids = new HashMap<>();
+        private long[] checks = new long[1024];
+        // numbers of lines with the same hash and different second hashes
+        private final BitSet colliding = new BitSet();
+
+        /**
+         * @return numbers of the lines of the file
+         */
+        int[] read(LineReader reader) throws IOException {
+            int[] lines = new int[1024];
+            int count = 0;
+            while (reader.next(null)) {
+                if (count == lines.length) {
+                    lines = Arrays.copyOf(lines, count * 2);
+                }
+                Integer id = ids.get(reader.hash);
+                if (id == null) {
+                    id = ids.size();
+                    ids.put(reader.hash, id);
+                    if (id == checks.length) {
+                        checks = Arrays.copyOf(checks, id * 2);
+                    }
+                    checks[id] = reader.check;
+                } else if (checks[id] != reader.check) {
+                    colliding.set(id);
+                }
+                lines[count++] = id;
+            }
+            return Arrays.copyOf(lines, count);
+        }
+    }
+
+    /**
+     * Splits a file to lines terminated by LF, CR or CRLF and hashes them by two hashes without creating strings.
+     */
+    private static final class LineReader implements AutoCloseable {
+
+        private final Reader reader;
+        private final char[] buffer = new char[64 * 1024];
+        private int position;
+        private int limit;
+        private long hash;
+        private long check;
+        // false for the last line if it is not terminated by a line break
+        private boolean lineBreak;
+        private boolean crlf;
+
+        LineReader(Path file, Charset charset) throws IOException {
+            this.reader = new InputStreamReader(Files.newInputStream(file), charset);
+        }
+
+        /**
+         * @param text receives the text of the line if not null
+         * @return false at the end of the file
+         */
+        boolean next(StringBuilder text) throws IOException {
+            hash = FNV_OFFSET;
+            check = 0;
+            lineBreak = true;
+            int c = read();
+            if (c == -1) {
+                return false;
+            }
+            while (c != -1) {
+                if (c == '\n') {
+                    return true;
+                }
+                if (c == '\r') {
+                    if (peek() == '\n') {
+                        position++;
+                        crlf = true;
+                    }
+                    return true;
+                }
+                hash = (hash ^ c) * FNV_PRIME;
+                check = (check + c + 1) * CHECK_MULTIPLIER;
+                if (text != null) {
+                    text.append((char) c);
+                }
+                c = read();
+            }
+            hash = (hash ^ NO_LINE_BREAK) * FNV_PRIME;
+            check = (check + NO_LINE_BREAK) * CHECK_MULTIPLIER;
+            lineBreak = false;
+            return true;
+        }
+
+        /**
+         * @return {@link LineBreakStyle#WINDOWS} if a CRLF was read, the same as {@link FileTypeSniffer} tells from
+         * the header
+         */
+        LineBreakStyle getLineBreakStyle() {
+            return crlf ? LineBreakStyle.WINDOWS : LineBreakStyle.UNIX;
+        }
+
+        private int read() throws IOException {
+            int c = peek();
+            if (c != -1) {
+                position++;
+            }
+            return c;
+        }
+
+        private int peek() throws IOException {
+            if (position == limit) {
+                limit = reader.read(buffer);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return -1;
+                }
+            }
+            return buffer[position];
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package org.wildfly.qa.distdiff2.tools;
+
+import java.util.EnumSet;
+import java.util.Locale;
+
+/**
+ * Differences of text files ignored by {@link TextNormalizer}, text files equal after the normalization are not diffed.
+ */
+public enum TextNormalization {
+
+    /**
+     * CRLF and CR line breaks are treated as LF
+     */
+    LINE_BREAKS,
+
+    /**
+     * Spaces and tabs at the end of lines and empty lines at the end of the file (including the final line break)
+     * are ignored
+     */
+    TRAILING_WHITESPACE,
+
+    /**
+     * UTF-8 byte order mark at the beginning of the file is ignored
+     */
+    BOM;
+
+    /**
+     * Default normalizations - only line breaks, other differences are shown in the report
+     */
+    public static final String DEFAULT = "line-breaks";
+
+    /**
+     * No normalization, the normalized equality check is not done
+     */
+    public static final String NONE = "none";
+
+    /**
+     * Parses comma separated list of normalizations, e.g. 'line-breaks,bom'.
+     *
+     * @param value comma separated list of normalization names (case insensitive) or 'none'
+     * @return set of normalizations, empty for 'none'
+     * @throws IllegalArgumentException if the list contains unknown normalization
+     */
+    public static EnumSet<TextNormalization> parse(String value) {
+        EnumSet<TextNormalization> normalizations = EnumSet.noneOf(TextNormalization.class);
+        if (value != null) {
+            for (String name : value.split(",")) {
+                String trimmed = name.trim();
+                if (!trimmed.isEmpty() && !NONE.equalsIgnoreCase(trimmed)) {
+                    normalizations.add(TextNormalization.valueOf(trimmed.replace('-', '_').toUpperCase(Locale.ENGLISH)));
+                }
+            }
+        }
+        return normalizations;
+    }
+}
@@ -0,0 +1,233 @@
+package org.wildfly.qa.distdiff2.tools;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * TextNormalizer
+ * <p>
+ * Streaming normalizer of text content, hashes the content normalized by the given {@link TextNormalization}s in a
+ * single pass. Line breaks are hashed separately, so two files equal after the normalization can still be told apart
+ * by their line breaks. The bytes are normalized as they are, line breaks, whitespace and BOM are ASCII/UTF-8 bytes
+ * which do not need decoding.
+ * <p>
+ * One instance hashes one file, it is not thread safe.
+ */
+public final class TextNormalizer {
+
+    private static final String ALGORITHM = "MD5";
+
+    private static final byte[] UTF8_BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+    private static final byte[] LF = {'\n'};
+    private static final byte[] CR = {'\r'};
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    private final boolean lineBreaks;
+    private final boolean trailingWhitespace;
+
+    private final MessageDigest contentDigest = newDigest();
+    private final MessageDigest lineBreaksDigest = newDigest();
+
+    // normalized content waiting for the digest
+    private final byte[] out = new byte[8192];
+    private int outLength;
+
+    // number of BOM bytes matched so far, -1 once the beginning of the file was processed
+    private int bomIndex;
+
+    private boolean afterCr;
+    private boolean crlf;
+
+    // spaces and tabs and line breaks which are dropped if nothing but whitespace follows
+    private byte[] blanks = new byte[64];
+    private int blanksLength;
+    private byte[] pendingBreaks = new byte[64];
+    private int pendingBreaksLength;
+    private int pendingBreaksCount;
+
+    /**
+     * @param normalizations differences to ignore
+     */
+    public TextNormalizer(Set<TextNormalization> normalizations) {
+        this.lineBreaks = normalizations.contains(TextNormalization.LINE_BREAKS);
+        this.trailingWhitespace = normalizations.contains(TextNormalization.TRAILING_WHITESPACE);
+        this.bomIndex = normalizations.contains(TextNormalization.BOM) ? 0 : -1;
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Normalizes and hashes next part of the content.
+     *
+     * @param bytes  content
+     * @param offset start of the part in bytes
+     * @param length length of the part
+     */
+    public void update(byte[] bytes, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            byte b = bytes[i];
+            if (bomIndex >= 0) {
+                if (b == UTF8_BOM[bomIndex]) {
+                    bomIndex++;
+                    if (bomIndex == UTF8_BOM.length) {
+                        bomIndex = -1;
+                    }
+                    continue;
+                }
+                processPartialBom();
+            }
+            process(b);
+        }
+    }
+
+    /**
+     * Completes the hashing.
+     *
+     * @return fingerprint of the normalized content
+     */
+    public Fingerprint finish() {
+        processPartialBom();
+        if (afterCr) {
+            afterCr = false;
+            endLine(CR);
+        }
+        // trailing whitespace is never flushed, there is no content after it
+        contentDigest.update(out, 0, outLength);
+        outLength = 0;
+        return new Fingerprint(contentDigest.digest(), lineBreaksDigest.digest(),
+                crlf ? LineBreakStyle.WINDOWS : LineBreakStyle.UNIX);
+    }
+
+    /**
+     * Bytes which looked like the beginning of BOM are content.
+     */
+    private void processPartialBom() {
+        int matched = bomIndex;
+        bomIndex = -1;
+        for (int i = 0; i < matched; i++) {
+            process(UTF8_BOM[i]);
+        }
+    }
+
+    private void process(byte b) {
+        if (afterCr) {
+            afterCr = false;
+            if (b == '\n') {
+                crlf = true;
+                endLine(CRLF);
+                return;
+            }
+            endLine(CR);
+        }
+        if (b == '\r') {
+            afterCr = true;
+        } else if (b == '\n') {
+            endLine(LF);
+        } else if (trailingWhitespace && (b == ' ' || b == '\t')) {
+            blanks = append(blanks, blanksLength, b);
+            blanksLength++;
+        } else {
+            flushPending();
+            write(b);
+        }
+    }
+
+    private void endLine(byte[] lineBreak) {
+        if (trailingWhitespace) {
+            blanksLength = 0;
+            for (byte b : lineBreak) {
+                pendingBreaks = append(pendingBreaks, pendingBreaksLength, b);
+                pendingBreaksLength++;
+            }
+            pendingBreaksCount++;
+        } else {
+            lineBreaksDigest.update(lineBreak);
+            writeLineBreaks(lineBreak, lineBreak.length, 1);
+        }
+    }
+
+    private void flushPending() {
+        if (pendingBreaksCount > 0) {
+            lineBreaksDigest.update(pendingBreaks, 0, pendingBreaksLength);
+            writeLineBreaks(pendingBreaks, pendingBreaksLength, pendingBreaksCount);
+            pendingBreaksLength = 0;
+            pendingBreaksCount = 0;
+        }
+        for (int i = 0; i < blanksLength; i++) {
+            write(blanks[i]);
+        }
+        blanksLength = 0;
+    }
+
+    private void writeLineBreaks(byte[] raw, int length, int count) {
+        if (lineBreaks) {
+            for (int i = 0; i < count; i++) {
+                write(LF[0]);
+            }
+        } else {
+            for (int i = 0; i < length; i++) {
+                write(raw[i]);
+            }
+        }
+    }
+
+    private void write(byte b) {
+        if (outLength == out.length) {
+            contentDigest.update(out, 0, outLength);
+            outLength = 0;
+        }
+        out[outLength++] = b;
+    }
+
+    private static byte[] append(byte[] array, int length, byte b) {
+        byte[] result = (length == array.length) ? Arrays.copyOf(array, length * 2) : array;
+        result[length] = b;
+        return result;
+    }
+
+    /**
+     * Hashes of normalized content and of line breaks of a file
+     */
+    public static final class Fingerprint {
+
+        private final byte[] content;
+        private final byte[] lineBreaks;
+        private final LineBreakStyle lineBreakStyle;
+
+        Fingerprint(byte[] content, byte[] lineBreaks, LineBreakStyle lineBreakStyle) {
+            this.content = content;
+            this.lineBreaks = lineBreaks;
+            this.lineBreakStyle = lineBreakStyle;
+        }
+
+        /**
+         * @return true if the normalized content of the files is the same
+         */
+        public boolean isEqualAfterNormalization(Fingerprint other) {
+            return MessageDigest.isEqual(content, other.content);
+        }
+
+        /**
+         * @return true if the files use the same line breaks, line breaks dropped as trailing whitespace do not count
+         */
+        public boolean hasSameLineBreaks(Fingerprint other) {
+            return MessageDigest.isEqual(lineBreaks, other.lineBreaks);
+        }
+
+        /**
+         * @return line break style of the whole file
+         */
+        public LineBreakStyle getLineBreakStyle() {
+            return lineBreakStyle;
+        }
+    }
+}
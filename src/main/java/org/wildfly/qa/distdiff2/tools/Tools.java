@@ -2,25 +2,30 @@ package org.wildfly.qa.distdiff2.tools;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.io.Writer;
-import java.net.URL;
-import java.net.URLClassLoader;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.security.MessageDigest;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.jar.JarInputStream;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.JarFile;
 import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
@@ -33,8 +38,12 @@ import javax.xml.transform.stream.StreamSource;
 import com.sun.xml.bind.marshaller.CharacterEscapeHandler;
 import org.apache.log4j.Logger;
 import org.wildfly.qa.distdiff2.artifacts.Artifact;
-import org.wildfly.qa.distdiff2.artifacts.FolderArtifact;
+import org.wildfly.qa.distdiff2.artifacts.FileArtifact;
 import org.wildfly.qa.distdiff2.artifacts.JarArtifact;
+import org.wildfly.qa.distdiff2.hashing.DigestEngine;
+import org.wildfly.qa.distdiff2.hashing.HashAlgorithm;
+import org.wildfly.qa.distdiff2.hashing.HashService;
+import org.wildfly.qa.distdiff2.hashing.MerkleTree;
 import org.wildfly.qa.distdiff2.patching.PatchingMechanismAwarenessPhase;
 import org.wildfly.qa.distdiff2.results.Results;
 import org.wildfly.qa.distdiff2.results.Status;
@@ -49,6 +58,9 @@ public final class Tools {
     // Internal logger
     private static final Logger LOGGER = Logger.getLogger(Tools.class);
 
+    // Phase name used in the status history for the initial ADDED/REMOVED/SAME classification
+    private static final String INITIAL_COMPARISON = "InitialComparison";
+
     /**
      * Generates XML file from the given object
      *
@@ -100,37 +112,12 @@ public final class Tools {
      * @param sourceFolder  source folder with distribution
      * @param distributionA is distribution A?
      * @return List of created representations
+     * @see DistributionScanner
      */
     public static List<Artifact> readAllItemsFromFolder(File sourceFolder, boolean distributionA) {
-        return readAllItemsFromFolder(sourceFolder, sourceFolder, 0, distributionA);
-    }
-
-    /**
-     * Internal recursive method for {@link Tools#readAllItemsFromFolder(java.io.File, boolean)}
-     *
-     * @param folder     actual folder
-     * @param distFolder distribution folder
-     * @param level      current level
-     * @param distA      is distribution A?
-     * @return List of created representations
-     */
-    private static List<Artifact> readAllItemsFromFolder(File folder, File distFolder, int level, boolean distA) {
-        List<Artifact> files = new LinkedList<>();
-        if (folder.isDirectory()) {
-            File[] listOfFiles = folder.listFiles();
-            if (listOfFiles != null) {
-                for (File fileItem : listOfFiles) {
-                    Artifact artifact = ArtifactBuilder.create(fileItem, distFolder, level, distA);
-                    if (artifact != null) {
-                        files.add(artifact);
-                        if (artifact instanceof FolderArtifact) {
-                            files.addAll(readAllItemsFromFolder(fileItem, distFolder, level + 1, distA));
-                        }
-                    }
-                }
-            }
+        try (DistributionScanner scanner = new DistributionScanner()) {
+            return scanner.scan(sourceFolder, distributionA);
         }
-        return files;
     }
 
     /**
@@ -141,26 +128,12 @@ public final class Tools {
      * @throws Exception if something goes wrong
      */
     public static String calculateMD5(String fileName) throws Exception {
-        MessageDigest md = MessageDigest.getInstance("MD5");
-        StringBuilder hexString = new StringBuilder();
-        try (FileInputStream in = new FileInputStream(fileName)) {
-            byte[] buffer = new byte[8192];
-            int length;
-            while ((length = in.read(buffer)) != -1) {
-                md.update(buffer, 0, length);
-            }
-            byte[] digest = md.digest();
-
-            if (digest != null) {
-                for (byte aDigest : digest) {
-                    hexString.append(Integer.toHexString(0xFF & aDigest));
-                }
-            }
+        try {
+            return DigestEngine.digest(Paths.get(fileName), HashAlgorithm.MD5);
         } catch (Exception e) {
             LOGGER.error(e.getMessage(), e);
             throw e;
         }
-        return hexString.toString();
     }
 
     /**
@@ -175,28 +148,78 @@ public final class Tools {
     public static List<Artifact> walkThroughList(List<Artifact> source, List<Artifact> target, Status status) {
         List<Artifact> results = new LinkedList<>();
         if (source != null) {
-            for (Artifact artifact : source) {
-                if (!target.contains(artifact)) {
-                    // Determine reason based on status
-                    String reason;
-                    if (status == Status.ADDED) {
-                        reason = "File exists in distribution B but not in A";
-                    } else if (status == Status.REMOVED) {
-                        reason = "File exists in distribution A but not in B";
-                    } else {
-                        reason = "File missing in target distribution";
-                    }
-                    artifact.setStatus(status, "InitialComparison", reason);
+            Set<Artifact> targetSet = new HashSet<>(target);
+            for (Iterator<Artifact> iterator = source.iterator(); iterator.hasNext();) {
+                Artifact artifact = iterator.next();
+                if (!targetSet.contains(artifact)) {
+                    artifact.setStatus(status, INITIAL_COMPARISON, missingArtifactReason(status));
                     results.add(artifact);
+                    iterator.remove();
                 }
             }
-            if (results.size() > 0) {
-                source.removeAll(results);
-            }
         }
         return results;
     }
 
+    /**
+     * Joins artifacts of both distributions by their relative path in one pass. Artifacts missing in B are marked as
+     * {@link Status#REMOVED}, artifacts missing in A as {@link Status#ADDED} and artifacts present in both
+     * distributions as {@link Status#SAME}. For the latter the artifact from A is used and the B side (path and
+     * scanned permissions) is taken over from the matching artifact from B.
+     *
+     * @param filesA artifacts of distribution A
+     * @param filesB artifacts of distribution B
+     * @return removed artifacts followed by added and same artifacts, each group in the order of its source list
+     */
+    public static List<Artifact> mergeArtifactLists(List<Artifact> filesA, List<Artifact> filesB) {
+        Map<String, Artifact> indexB = new HashMap<>(filesB.size() * 4 / 3 + 1);
+        for (Artifact artifact : filesB) {
+            indexB.put(artifact.getRelativePath(), artifact);
+        }
+
+        List<Artifact> removed = new ArrayList<>();
+        List<Artifact> same = new ArrayList<>();
+        Set<Artifact> matchedB = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Artifact artifactA : filesA) {
+            Artifact artifactB = indexB.get(artifactA.getRelativePath());
+            if (artifactB != null && artifactA.equals(artifactB)) {
+                artifactA.setStatus(Status.SAME, INITIAL_COMPARISON, "File exists in both distributions");
+                artifactA.setPathB(artifactB.getPathB());
+                artifactA.setPosixPermissionsB(artifactB.getPosixPermissionsB());
+                if (artifactA instanceof FileArtifact) {
+                    ((FileArtifact) artifactA).setFileTypeB(((FileArtifact) artifactB).getFileTypeB());
+                    ((FileArtifact) artifactA).setSizeB(((FileArtifact) artifactB).getSize());
+                }
+                matchedB.add(artifactB);
+                same.add(artifactA);
+            } else {
+                artifactA.setStatus(Status.REMOVED, INITIAL_COMPARISON, missingArtifactReason(Status.REMOVED));
+                removed.add(artifactA);
+            }
+        }
+
+        List<Artifact> result = new ArrayList<>(filesA.size() + filesB.size() - same.size());
+        result.addAll(removed);
+        for (Artifact artifactB : filesB) {
+            if (!matchedB.contains(artifactB)) {
+                artifactB.setStatus(Status.ADDED, INITIAL_COMPARISON, missingArtifactReason(Status.ADDED));
+                result.add(artifactB);
+            }
+        }
+        result.addAll(same);
+        return result;
+    }
+
+    private static String missingArtifactReason(Status status) {
+        if (status == Status.ADDED) {
+            return "File exists in distribution B but not in A";
+        } else if (status == Status.REMOVED) {
+            return "File exists in distribution A but not in B";
+        } else {
+            return "File missing in target distribution";
+        }
+    }
+
     /**
      * Reads text file and returns it as String without losing EOLs.
      *
@@ -224,40 +247,26 @@ public final class Tools {
     }
 
     /**
-     * Reads Manifest information from the given jar file
+     * Reads Manifest information from the given jar file. The manifest is looked up by its name in the central
+     * directory, it does not have to be the first entry of the jar.
      *
      * @param fileName source jar file
-     * @return instance of class {@link Manifest}
+     * @return instance of class {@link Manifest}, null if the jar has no manifest or cannot be read
      */
     public static Manifest readManifestFromJar(final String fileName) {
-        Manifest manifest = null;
-        JarInputStream jarStream = null;
-        try {
-            jarStream = new JarInputStream(new FileInputStream(fileName));
-            manifest = jarStream.getManifest();
-            if (manifest == null) {
-                // damn JDK can't find the MANIFEST.MF if it's not the first entry in META-INF directory...
-                final URLClassLoader loader = new URLClassLoader(new URL[]{new URL("file:" + fileName)}, null);
-                final InputStream resourceAsStream = loader.getResourceAsStream("META-INF/MANIFEST.MF");
-                if (resourceAsStream != null) {
-                    manifest = new Manifest(resourceAsStream);
-                } else {
-                    LOGGER.warn("Unable to read MANIFEST.MF from " + fileName);
-                }
-                loader.close();
+        try (ZipFile zipFile = new ZipFile(fileName)) {
+            final ZipEntry entry = zipFile.getEntry(JarFile.MANIFEST_NAME);
+            if (entry == null) {
+                LOGGER.warn("Unable to read MANIFEST.MF from " + fileName);
+                return null;
+            }
+            try (InputStream stream = zipFile.getInputStream(entry)) {
+                return new Manifest(stream);
             }
         } catch (IOException e) {
             LOGGER.error(e.getMessage(), e);
-        } finally {
-            if (jarStream != null) {
-                try {
-                    jarStream.close();
-                } catch (IOException e) {
-                    LOGGER.error(e.getMessage(), e);
-                }
-            }
+            return null;
         }
-        return manifest;
     }
 
     /**
@@ -400,29 +409,26 @@ public final class Tools {
         return (sb.length() > 0) ? sb.toString() : null;
     }
 
-    public static Integer calculateHashOfDirectory(File dir) throws Exception {
+    public static String calculateHashOfDirectory(File dir) throws Exception {
+        return calculateHashOfDirectory(dir, null);
+    }
+
+    /**
+     * Calculates Merkle tree digest of a directory, see {@link MerkleTree#digest(File, HashService, String)}.
+     *
+     * @param dir       the directory
+     * @param hashService service providing the file digests, null to always calculate MD5 sums
+     * @return hash of the directory
+     * @throws Exception if any of the files cannot be read
+     */
+    public static String calculateHashOfDirectory(File dir, HashService hashService) throws Exception {
         if (dir == null) {
             throw new IllegalArgumentException("Cannot calculate hash of null");
         }
         if (!dir.isDirectory()) {
             throw new IllegalArgumentException(dir.getAbsolutePath() + " is not a directory");
         }
-        Integer result = 0;
-        File[] files = dir.listFiles();
-        if (files != null) {
-            for (File file : files) {
-                if (file.isDirectory()) {
-                    int hash = calculateHashOfDirectory(file);
-                    LOGGER.trace("Appending directory " + file.getAbsolutePath() + ", hash=" + hash);
-                    result = result + hash;
-                } else {
-                    int hash = calculateMD5(file.getAbsolutePath()).hashCode();
-                    LOGGER.trace("Appending file " + file.getAbsolutePath() + ", hash=" + hash);
-                    result = result + hash;
-                }
-            }
-        }
-        return result;
+        return MerkleTree.digest(dir, hashService, null);
     }
 
     public static File findJarInDirectory(String namePrefix, File directory) {
@@ -455,35 +461,19 @@ public final class Tools {
     }
 
     /**
-     * Stolen from http://stackoverflow.com/questions/620993/determining-binary-text-file-type-in-java
+     * Checks whether the file header consists of text characters.
+     *
+     * @param filePath path to the file
+     * @return true for text files, false for binary files or if the file does not exist
+     * @throws IOException if the file cannot be read
+     * @see FileTypeSniffer
      */
     public static boolean isTextFile(String filePath) throws IOException {
         File f = new File(filePath);
         if (!f.exists() || !f.isFile()) {
             return false;
         }
-
-        byte[] data;
-        try (FileInputStream in = new FileInputStream(f)) {
-            int size = in.available();
-            if (size > 1000) {
-                size = 1000;
-            }
-            data = new byte[size];
-            in.read(data);
-        }
-
-        String s = new String(data, StandardCharsets.UTF_8);
-        String s2 = s.replaceAll(
-                "[a-zA-Z0-9ßöäü\\.\\*!\"§\\$\\%&/()=\\?@~'#:,;\\" +
-                        "+><\\|\\[\\]\\{\\}\\^°²³\\\\ \\n\\r\\t_\\-`´âêîô" +
-                        "ÂÊÔÎáéíóàèìòÁÉÍÓÀÈÌÒ©‰¢£¥€±¿»«¼½¾™ª]", ""
-        );
-        // will delete all text signs
-
-        double d = (double) (s.length() - s2.length()) / (double) (s.length());
-        // percentage of text signs in the text
-        return d > 0.95;
+        return FileTypeSniffer.sniff(f.toPath()).isText();
     }
 
     /**
@@ -512,27 +502,12 @@ public final class Tools {
     }
 
     public static LineBreakStyle detectLineBreakStyle(String filePath) throws IOException {
-        if (!isTextFile(filePath)) {
-            throw new IllegalArgumentException(filePath + " is a binary file, I can't detect line breaks");
-        }
         File f = new File(filePath);
-        if (!f.exists()) {
-            throw new FileNotFoundException(filePath);
-        }
-        FileInputStream in = new FileInputStream(f);
-        int size = in.available();
-        if (size > 1000) {
-            size = 1000;
-        }
-        byte[] data = new byte[size];
-        in.read(data);
-        in.close();
-        String s = new String(data, StandardCharsets.UTF_8);
-        if (s.contains("\r\n")) {
-            return LineBreakStyle.WINDOWS;
-        } else {
-            return LineBreakStyle.UNIX;
+        FileType fileType = (f.isFile()) ? FileTypeSniffer.sniff(f.toPath()) : null;
+        if (fileType == null || !fileType.isText()) {
+            throw new IllegalArgumentException(filePath + " is a binary file, I can't detect line breaks");
         }
+        return fileType.getLineBreakStyle();
     }
 
 
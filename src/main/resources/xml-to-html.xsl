@@ -472,6 +472,27 @@
                         </tr>
                     </xsl:if>
 
+                    <!-- changed files -->
+                    <xsl:if test="changedFiles/changedFile">
+                        <tr>
+                            <td>
+                                <b>Changed files:</b>
+                            </td>
+                        </tr>
+                        <xsl:for-each select="changedFiles/changedFile">
+                            <tr>
+                                <td/>
+                                <td>
+                                    <xsl:value-of select="path"/>
+                                    <xsl:if test="diff">
+                                        <br/>
+                                        <xsl:value-of select="diff" disable-output-escaping="yes"/>
+                                    </xsl:if>
+                                </td>
+                            </tr>
+                        </xsl:for-each>
+                    </xsl:if>
+
 
                     <!-- added classes -->
                     <xsl:if test="addedClasses/addedClass">
@@ -600,6 +621,25 @@
 
                             </xsl:if>
 
+                            <!-- method body changes -->
+                            <xsl:if test="value/methodBodyChanges/methodBodyChange">
+                                <tr>
+                                    <td>
+                                        Changed method bodies:
+                                    </td>
+                                </tr>
+                                <xsl:for-each select="value/methodBodyChanges/methodBodyChange">
+                                    <tr>
+                                        <td colspan="1"/>
+                                        <td>
+                                            Method <xsl:value-of select="method"/>:
+                                            <pre><xsl:value-of select="bytecodeDiff"/></pre>
+                                        </td>
+                                    </tr>
+                                </xsl:for-each>
+
+                            </xsl:if>
+
                             <!-- added fields -->
                             <xsl:if test="value/addedFields/addedField">
                                 <tr>
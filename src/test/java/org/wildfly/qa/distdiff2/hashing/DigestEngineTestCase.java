@@ -0,0 +1,125 @@
+package org.wildfly.qa.distdiff2.hashing;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests for {@link DigestEngine} class.
+ */
+public class DigestEngineTestCase {
+
+    private static Path folder;
+
+    @BeforeClass
+    public static void createFolder() throws IOException {
+        folder = Files.createTempDirectory("digests");
+    }
+
+    @AfterClass
+    public static void clean() throws IOException {
+        if (folder != null && Files.exists(folder)) {
+            Files.walk(folder).sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    private static Path write(String name, byte[] content) throws IOException {
+        return Files.write(folder.resolve(name), content);
+    }
+
+    private static Path write(String name, String content) throws IOException {
+        return write(name, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void knownDigests() throws IOException {
+        Path abc = write("abc", "abc");
+        Assert.assertEquals("900150983cd24fb0d6963f7d28e17f72", DigestEngine.digest(abc, HashAlgorithm.MD5));
+        Assert.assertEquals("a9993e364706816aba3e25717850c26c9cd0d89d", DigestEngine.digest(abc, HashAlgorithm.SHA1));
+        Assert.assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad",
+                DigestEngine.digest(abc, HashAlgorithm.SHA256));
+        Assert.assertEquals("44bc2cf5ad770999", DigestEngine.digest(abc, HashAlgorithm.XXH64));
+        Assert.assertEquals("e3069283", DigestEngine.digest(write("check", "123456789"), HashAlgorithm.CRC32C));
+    }
+
+    @Test
+    public void leadingZerosArePreserved() throws IOException {
+        // MD5 of 'Test' starts with 0x0c and contains 0x05
+        Assert.assertEquals("0cbc6611f5540bd0809a388dc95a615b", DigestEngine.digest(write("test", "Test"),
+                HashAlgorithm.MD5));
+        Assert.assertEquals("ef46db3751d8e999", DigestEngine.digest(write("empty", ""), HashAlgorithm.XXH64));
+        Assert.assertEquals("00000000", DigestEngine.digest(write("empty", ""), HashAlgorithm.CRC32C));
+    }
+
+    @Test
+    public void xxh64OfLongerInput() throws IOException {
+        Assert.assertEquals("fbcea83c8a378bf1",
+                DigestEngine.digest(write("spam", "Nobody inspects the spammish repetition"), HashAlgorithm.XXH64));
+    }
+
+    /**
+     * All digests calculated in a single read have to match digests calculated separately, also for files larger
+     * than the read buffer.
+     */
+    @Test
+    public void severalDigestsInSingleRead() throws Exception {
+        byte[] content = new byte[DigestEngine.BUFFER_SIZE * 3 + 17];
+        new Random(42).nextBytes(content);
+        Path file = write("random", content);
+        Map<HashAlgorithm, String> digests = DigestEngine.digest(file, Arrays.asList(HashAlgorithm.values()));
+        Assert.assertEquals(HashAlgorithm.values().length, digests.size());
+        for (HashAlgorithm algorithm : HashAlgorithm.values()) {
+            Assert.assertEquals(algorithm.name(), DigestEngine.digest(file, algorithm), digests.get(algorithm));
+        }
+        Assert.assertEquals(Hex.encode(MessageDigest.getInstance("SHA-256").digest(content)),
+                digests.get(HashAlgorithm.SHA256));
+    }
+
+    @Test
+    public void xxh64DoesNotDependOnChunking() {
+        byte[] content = new byte[1000];
+        new Random(7).nextBytes(content);
+        Xxh64 whole = new Xxh64();
+        whole.update(ByteBuffer.wrap(content));
+        Xxh64 chunked = new Xxh64();
+        int position = 0;
+        for (int chunk = 1; position < content.length; chunk = chunk * 3 % 71 + 1) {
+            int length = Math.min(chunk, content.length - position);
+            chunked.update(ByteBuffer.wrap(content, position, length));
+            position += length;
+        }
+        Assert.assertEquals(whole.finish(), chunked.finish());
+    }
+
+    @Test
+    public void parseAlgorithms() {
+        Assert.assertEquals(Arrays.asList(HashAlgorithm.MD5), HashAlgorithm.parse(HashAlgorithm.DEFAULT));
+        Assert.assertEquals(Arrays.asList(HashAlgorithm.SHA256, HashAlgorithm.MD5),
+                HashAlgorithm.parse("SHA-256, md5,sha256"));
+        try {
+            HashAlgorithm.parse("md4");
+            Assert.fail("Unknown algorithm accepted");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+        try {
+            HashAlgorithm.parse("md5,crc32c");
+            Assert.fail("CRC32C accepted as a hash algorithm");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+    }
+}
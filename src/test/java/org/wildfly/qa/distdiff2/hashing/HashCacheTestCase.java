@@ -0,0 +1,163 @@
+package org.wildfly.qa.distdiff2.hashing;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link HashCache} class.
+ */
+public class HashCacheTestCase {
+
+    private static final FileTime LAST_WEEK = FileTime.fromMillis(System.currentTimeMillis() - 7 * 24 * 3600 * 1000L);
+
+    private Path folder;
+    private Path cacheFile;
+
+    @Before
+    public void createFolder() throws IOException {
+        folder = Files.createTempDirectory("hash-cache");
+        cacheFile = folder.resolve("cache").resolve(HashCache.FILE_NAME);
+    }
+
+    @After
+    public void clean() throws IOException {
+        Files.walk(folder).sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+    }
+
+    private Path write(String name, String content, FileTime lastModified) throws IOException {
+        Path file = Files.write(folder.resolve(name), content.getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(file, lastModified);
+        return file;
+    }
+
+    /**
+     * Rewrites content of the file in place (same inode, same size) and restores its modification time.
+     */
+    private static void rewriteKeepingAttributes(Path file, String content) throws IOException {
+        FileTime lastModified = Files.getLastModifiedTime(file);
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8), StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        Files.setLastModifiedTime(file, lastModified);
+    }
+
+    @Test
+    public void unchangedFilesAreNotHashedAgain() throws IOException {
+        Path file = write("file", "original", LAST_WEEK);
+        HashCache cache = new HashCache(cacheFile);
+        String md5 = cache.digest(file, HashAlgorithm.MD5);
+        Assert.assertEquals(DigestEngine.digest(file, HashAlgorithm.MD5), md5);
+        cache.save();
+        Assert.assertTrue(Files.exists(cacheFile));
+
+        // the cache cannot notice this change, so the cached digest proves the file was not read
+        rewriteKeepingAttributes(file, "modified");
+        Assert.assertEquals(md5, new HashCache(cacheFile).digest(file, HashAlgorithm.MD5));
+    }
+
+    @Test
+    public void changedFilesAreHashedAgain() throws IOException {
+        Path file = write("file", "original", LAST_WEEK);
+        HashCache cache = new HashCache(cacheFile);
+        String md5 = cache.digest(file, HashAlgorithm.MD5);
+        cache.save();
+
+        Files.write(file, "modified".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(LAST_WEEK.toMillis() + 1000));
+        String changed = new HashCache(cacheFile).digest(file, HashAlgorithm.MD5);
+        Assert.assertNotEquals(md5, changed);
+        Assert.assertEquals(DigestEngine.digest(file, HashAlgorithm.MD5), changed);
+    }
+
+    @Test
+    public void missingAlgorithmsAreAdded() throws IOException {
+        Path file = write("file", "content", LAST_WEEK);
+        HashCache cache = new HashCache(cacheFile);
+        cache.digest(file, HashAlgorithm.MD5);
+        List<HashAlgorithm> algorithms = Arrays.asList(HashAlgorithm.MD5, HashAlgorithm.SHA256);
+        Assert.assertEquals(DigestEngine.digest(file, algorithms), cache.digest(file, algorithms));
+        cache.save();
+
+        rewriteKeepingAttributes(file, "CONTENT");
+        Assert.assertEquals(cache.digest(file, HashAlgorithm.SHA256),
+                new HashCache(cacheFile).digest(file, HashAlgorithm.SHA256));
+    }
+
+    @Test
+    public void recentlyModifiedFilesAreNotCached() throws IOException {
+        Path file = write("file", "original", FileTime.fromMillis(System.currentTimeMillis()));
+        HashCache cache = new HashCache(cacheFile);
+        cache.digest(file, HashAlgorithm.MD5);
+        rewriteKeepingAttributes(file, "modified");
+        Assert.assertEquals(DigestEngine.digest(file, HashAlgorithm.MD5), cache.digest(file, HashAlgorithm.MD5));
+    }
+
+    @Test
+    public void onlyUsedEntriesAreSaved() throws IOException {
+        Path first = write("first", "first", LAST_WEEK);
+        Path second = write("second", "second", LAST_WEEK);
+        HashCache cache = new HashCache(cacheFile);
+        cache.digest(first, HashAlgorithm.MD5);
+        cache.digest(second, HashAlgorithm.MD5);
+        cache.save();
+        Assert.assertEquals(3, Files.readAllLines(cacheFile).size());
+
+        HashCache nextRun = new HashCache(cacheFile);
+        nextRun.digest(second, HashAlgorithm.MD5);
+        nextRun.save();
+        List<String> lines = Files.readAllLines(cacheFile);
+        Assert.assertEquals(2, lines.size());
+        Assert.assertTrue(lines.get(1).endsWith(second.toRealPath().toString()));
+    }
+
+    @Test
+    public void linkedFilesShareEntry() throws IOException {
+        Path file = write("file", "original", LAST_WEEK);
+        Path link = Files.createSymbolicLink(folder.resolve("link"), folder.resolve("file"));
+        HashCache cache = new HashCache(cacheFile);
+        String md5 = cache.digest(file, HashAlgorithm.MD5);
+        cache.save();
+
+        rewriteKeepingAttributes(file, "modified");
+        Assert.assertEquals(md5, new HashCache(cacheFile).digest(link, HashAlgorithm.MD5));
+    }
+
+    @Test
+    public void failedSaveLeavesNoTemporaryFile() throws IOException {
+        // a non-empty directory in place of the cache file cannot be replaced
+        Files.createDirectories(cacheFile.resolve("blocker"));
+        Path file = write("file", "content", LAST_WEEK);
+        HashCache cache = new HashCache(cacheFile);
+        cache.digest(file, HashAlgorithm.MD5);
+        cache.save();
+
+        Assert.assertTrue(Files.isDirectory(cacheFile));
+        try (Stream<Path> files = Files.list(cacheFile.getParent())) {
+            Assert.assertEquals(Collections.singletonList(cacheFile), files.collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    public void corruptedCacheIsIgnored() throws IOException {
+        Files.createDirectories(cacheFile.getParent());
+        Files.write(cacheFile, "garbage\n1\t2".getBytes(StandardCharsets.UTF_8));
+        Path file = write("file", "content", LAST_WEEK);
+        Assert.assertEquals(DigestEngine.digest(file, HashAlgorithm.MD5),
+                new HashCache(cacheFile).digest(file, HashAlgorithm.MD5));
+    }
+}
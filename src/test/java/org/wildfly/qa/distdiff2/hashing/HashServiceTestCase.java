@@ -0,0 +1,130 @@
+package org.wildfly.qa.distdiff2.hashing;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link HashService} class.
+ */
+public class HashServiceTestCase {
+
+    private Path folder;
+
+    @Before
+    public void createFolder() throws IOException {
+        folder = Files.createTempDirectory("hash-service");
+    }
+
+    @After
+    public void clean() throws IOException {
+        Files.walk(folder).sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+    }
+
+    private Path write(String name, String content) throws IOException {
+        return Files.write(folder.resolve(name), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static HashService service(String tiers, String algorithms) {
+        return new HashService(new HashCache(), HashAlgorithm.parse(algorithms), ComparisonTier.parse(tiers));
+    }
+
+    /**
+     * The first lookup calculates all digests the run needs, the file is not read again.
+     */
+    @Test
+    public void allRunAlgorithmsAreCalculatedByFirstLookup() throws IOException {
+        Path file = write("file", "original");
+        String md5 = DigestEngine.digest(file, HashAlgorithm.MD5);
+        String sha256 = DigestEngine.digest(file, HashAlgorithm.SHA256);
+        String crc = DigestEngine.digest(file, HashAlgorithm.CRC32C);
+        HashService service = service("size,crc32c,digest", "md5,sha-256");
+        service.digest(file.toString());
+
+        write("file", "modified content");
+        Assert.assertEquals(md5, service.digest(file.toString()));
+        Assert.assertEquals(sha256, service.digest(file, HashAlgorithm.SHA256));
+        Assert.assertEquals(crc, service.digest(file, HashAlgorithm.CRC32C));
+        Assert.assertEquals(md5, service.digest(folder.resolve(".").resolve("file"), HashAlgorithm.MD5));
+    }
+
+    /**
+     * The CRC32C tier asks for the checksum alone, the digests are calculated only if the file is digested later.
+     */
+    @Test
+    public void crcLookupDoesNotCalculateDigests() throws IOException {
+        Path file = write("file", "original");
+        String crc = DigestEngine.digest(file, HashAlgorithm.CRC32C);
+        HashService service = service("size,crc32c,digest", "md5");
+        Assert.assertEquals(crc, service.digest(file, HashAlgorithm.CRC32C));
+
+        write("file", "modified content");
+        Assert.assertEquals(crc, service.digest(file, HashAlgorithm.CRC32C));
+        Assert.assertEquals(DigestEngine.digest(file, HashAlgorithm.MD5), service.digest(file.toString()));
+    }
+
+    @Test
+    public void otherAlgorithmsAreCalculatedOnDemand() throws IOException {
+        Path file = write("file", "content");
+        HashService service = service("size,crc32c", "md5");
+        Assert.assertEquals(HashAlgorithm.MD5, service.getPrimaryAlgorithm());
+        Assert.assertEquals(DigestEngine.digest(file, HashAlgorithm.CRC32C), service.digest(file, HashAlgorithm.CRC32C));
+        Assert.assertEquals(DigestEngine.digest(file, Arrays.asList(HashAlgorithm.SHA1, HashAlgorithm.CRC32C)),
+                service.digests(file, Arrays.asList(HashAlgorithm.SHA1, HashAlgorithm.CRC32C)));
+        Assert.assertEquals(Collections.singleton(HashAlgorithm.MD5),
+                service.digests(file, Collections.singleton(HashAlgorithm.MD5)).keySet());
+    }
+
+    @Test
+    public void failedLookupIsRepeated() throws IOException {
+        Path file = folder.resolve("missing");
+        HashService service = service(ComparisonTier.DEFAULT, "md5");
+        try {
+            service.digest(file.toString());
+            Assert.fail("Digest of missing file calculated");
+        } catch (IOException expected) {
+            // expected
+        }
+        write("missing", "content");
+        Assert.assertEquals(DigestEngine.digest(file, HashAlgorithm.MD5), service.digest(file.toString()));
+    }
+
+    @Test
+    public void concurrentLookups() throws Exception {
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            files.add(write("file" + i, "content " + i));
+        }
+        HashService service = service(ComparisonTier.DEFAULT, "md5");
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> digests = new ArrayList<>();
+            for (int round = 0; round < 10; round++) {
+                for (Path file : files) {
+                    digests.add(executor.submit(() -> service.digest(file.toString())));
+                }
+            }
+            for (int i = 0; i < digests.size(); i++) {
+                Assert.assertEquals(DigestEngine.digest(files.get(i % files.size()), HashAlgorithm.MD5),
+                        digests.get(i).get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package org.wildfly.qa.distdiff2.hashing;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link MappedFileComparator} class.
+ */
+public class MappedFileComparatorTestCase {
+
+    private Path folder;
+
+    @Before
+    public void createFolder() throws IOException {
+        folder = Files.createTempDirectory("mapped");
+    }
+
+    @After
+    public void clean() throws IOException {
+        Files.walk(folder).sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+    }
+
+    private Path write(String name, byte[] content) throws IOException {
+        return Files.write(folder.resolve(name), content);
+    }
+
+    private static byte[] content(int length) {
+        byte[] content = new byte[length];
+        for (int i = 0; i < length; i++) {
+            content[i] = (byte) (i * 31);
+        }
+        return content;
+    }
+
+    @Test
+    public void equalFiles() throws IOException {
+        Path a = write("a", content(1000));
+        Path b = write("b", content(1000));
+        Assert.assertEquals(-1, MappedFileComparator.mismatch(a, b));
+        Assert.assertEquals(-1, MappedFileComparator.mismatch(a, b, 7));
+        Assert.assertEquals(-1, MappedFileComparator.mismatch(write("empty-a", new byte[0]), write("empty-b", new byte[0])));
+    }
+
+    @Test
+    public void firstDifferenceIsFoundInAnyWindow() throws IOException {
+        byte[] changed = content(1000);
+        changed[777]++;
+        Path a = write("a", content(1000));
+        Path b = write("b", changed);
+        Assert.assertEquals(777, MappedFileComparator.mismatch(a, b));
+        // difference in the middle of the last but one window
+        Assert.assertEquals(777, MappedFileComparator.mismatch(a, b, 100));
+        Assert.assertEquals(777, MappedFileComparator.mismatch(a, b, 1));
+        Assert.assertEquals((changed[777] & 0xFF), MappedFileComparator.byteAt(b, 777));
+    }
+
+    @Test
+    public void prefixDiffersAtTheEndOfShorterFile() throws IOException {
+        Path a = write("a", content(1000));
+        Path b = write("b", content(600));
+        Assert.assertEquals(600, MappedFileComparator.mismatch(a, b, 256));
+        Assert.assertEquals(600, MappedFileComparator.mismatch(b, a, 256));
+        Assert.assertEquals(-1, MappedFileComparator.byteAt(b, 600));
+    }
+}
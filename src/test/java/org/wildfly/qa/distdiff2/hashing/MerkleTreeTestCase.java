@@ -0,0 +1,140 @@
+package org.wildfly.qa.distdiff2.hashing;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.wildfly.qa.distdiff2.artifacts.Artifact;
+import org.wildfly.qa.distdiff2.artifacts.FileArtifact;
+import org.wildfly.qa.distdiff2.artifacts.FolderArtifact;
+import org.wildfly.qa.distdiff2.configuration.DistDiff2Context;
+import org.wildfly.qa.distdiff2.execution.DistDiff2Execution;
+import org.wildfly.qa.distdiff2.phase.MD5SumsPhase;
+import org.wildfly.qa.distdiff2.results.Results;
+import org.wildfly.qa.distdiff2.results.Status;
+
+/**
+ * Tests for {@link MerkleTree} class.
+ */
+public class MerkleTreeTestCase {
+
+    private static final String FS = File.separator;
+
+    private Path rootA;
+    private Path rootB;
+
+    @Before
+    public void prepareDistributions() throws IOException {
+        rootA = Files.createTempDirectory("merkleA");
+        rootB = Files.createTempDirectory("merkleB");
+        for (Path root : new Path[]{rootA, rootB}) {
+            write(root, "same/sub/first.txt", "first");
+            write(root, "same/second.txt", "second");
+            write(root, "other/third.txt", "third");
+        }
+        write(rootA, "different/fourth.txt", "fourth");
+        write(rootB, "different/fourth.txt", "FOURTH");
+        write(rootA, "different/same.txt", "same");
+        write(rootB, "different/same.txt", "same");
+        write(rootB, "other/added.txt", "added");
+    }
+
+    @After
+    public void clean() throws IOException {
+        for (Path root : new Path[]{rootA, rootB}) {
+            if (root != null && Files.exists(root)) {
+                Files.walk(root).sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+    }
+
+    private static void write(Path root, String path, String content) throws IOException {
+        Path file = root.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Results execute(String comparisonTiers) {
+        DistDiff2Context ctx = new DistDiff2Context.Builder()
+                .pathA(rootA.toAbsolutePath().toString())
+                .pathB(rootB.toAbsolutePath().toString())
+                .noHashCache(true)
+                .comparisonTiers(comparisonTiers)
+                .processPhase(MD5SumsPhase.class)
+                .build();
+        new DistDiff2Execution(ctx).execute();
+        return ctx.getResults();
+    }
+
+    @Test
+    public void identicalSubtreesArePruned() {
+        Results results = execute(ComparisonTier.DEFAULT);
+        for (String path : new String[]{"same", "same" + FS + "sub", "same" + FS + "sub" + FS + "first.txt",
+                "same" + FS + "second.txt"}) {
+            Artifact artifact = results.findArtifactByRelativePath(path);
+            Assert.assertTrue(path, artifact.isInIdenticalSubtree());
+            Assert.assertEquals(path, Status.SAME, artifact.getStatus());
+        }
+        FileArtifact second = (FileArtifact) results.findArtifactByRelativePath("same" + FS + "second.txt");
+        Assert.assertEquals("a9f0e61a137d86aa9db53465e0801612", second.getMd5sum());
+
+        FolderArtifact same = (FolderArtifact) results.findArtifactByRelativePath("same");
+        Assert.assertEquals(64, same.getDigestA().length());
+        Assert.assertEquals(same.getDigestA(), same.getDigestB());
+
+        // content differs, the comparison phase decides the files
+        FolderArtifact different = (FolderArtifact) results.findArtifactByRelativePath("different");
+        Assert.assertNotEquals(different.getDigestA(), different.getDigestB());
+        Assert.assertFalse(different.isInIdenticalSubtree());
+        Assert.assertEquals(Status.DIFFERENT,
+                results.findArtifactByRelativePath("different" + FS + "fourth.txt").getStatus());
+        Artifact sameFile = results.findArtifactByRelativePath("different" + FS + "same.txt");
+        Assert.assertFalse(sameFile.isInIdenticalSubtree());
+        Assert.assertEquals(Status.SAME, sameFile.getStatus());
+
+        // added file, the folder differs without hashing
+        FolderArtifact other = (FolderArtifact) results.findArtifactByRelativePath("other");
+        Assert.assertNull(other.getDigestA());
+        Assert.assertFalse(other.isInIdenticalSubtree());
+    }
+
+    @Test
+    public void treeIsNotBuiltWithoutDigests() {
+        Results results = execute("size,crc32c");
+        FolderArtifact same = (FolderArtifact) results.findArtifactByRelativePath("same");
+        Assert.assertNull(same.getDigestA());
+        Assert.assertFalse(same.isInIdenticalSubtree());
+        Assert.assertNull(((FileArtifact) results.findArtifactByRelativePath("same" + FS + "second.txt")).getMd5sum());
+    }
+
+    @Test
+    public void fileSystemDigestMatchesTree() throws IOException {
+        Results results = execute(ComparisonTier.DEFAULT);
+        FolderArtifact same = (FolderArtifact) results.findArtifactByRelativePath("same");
+        Assert.assertEquals(same.getDigestA(), MerkleTree.digest(rootA.resolve("same").toFile(), null, null));
+    }
+
+    @Test
+    public void namesAreHashed() throws IOException {
+        String digest = MerkleTree.digest(rootA.resolve("same").toFile(), null, null);
+        Files.move(rootA.resolve("same/second.txt"), rootA.resolve("same/renamed.txt"));
+        Assert.assertNotEquals(digest, MerkleTree.digest(rootA.resolve("same").toFile(), null, null));
+        Assert.assertEquals(MerkleTree.digest(rootA.resolve("same").toFile(), null, "renamed.txt"),
+                MerkleTree.digest(rootB.resolve("same").toFile(), null, "second.txt"));
+    }
+
+    @Test
+    public void excludedItemIsLeftOut() throws IOException {
+        Assert.assertEquals(MerkleTree.digest(rootA.resolve("different").toFile(), null, "fourth.txt"),
+                MerkleTree.digest(rootB.resolve("different").toFile(), null, "fourth.txt"));
+        Assert.assertNotEquals(MerkleTree.digest(rootA.resolve("different").toFile(), null, null),
+                MerkleTree.digest(rootB.resolve("different").toFile(), null, null));
+    }
+}
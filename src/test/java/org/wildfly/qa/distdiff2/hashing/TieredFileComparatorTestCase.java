@@ -0,0 +1,154 @@
+package org.wildfly.qa.distdiff2.hashing;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.wildfly.qa.distdiff2.tools.Tools;
+
+/**
+ * Tests for {@link TieredFileComparator} class.
+ */
+public class TieredFileComparatorTestCase {
+
+    private static Path folder;
+    private static String original;
+    private static String copy;
+    private static String sameSize;
+    private static String longer;
+
+    @BeforeClass
+    public static void prepareFiles() throws IOException {
+        folder = Files.createTempDirectory("tiers");
+        original = write("original", "content of the file");
+        copy = write("copy", "content of the file");
+        sameSize = write("same-size", "content of the fil3");
+        longer = write("longer", "content of the file, but longer");
+    }
+
+    @AfterClass
+    public static void clean() throws IOException {
+        if (folder != null && Files.exists(folder)) {
+            Files.walk(folder).sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    private static String write(String name, String content) throws IOException {
+        return Files.write(folder.resolve(name), content.getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    private static FileComparison compare(String tiers, String fileA, String fileB) throws IOException {
+        return new TieredFileComparator(ComparisonTier.parse(tiers)).compare(fileA, -1, fileB, -1);
+    }
+
+    @Test
+    public void sizeDecidesWithoutReadingContent() throws IOException {
+        FileComparison comparison = compare(ComparisonTier.DEFAULT, original, longer);
+        Assert.assertFalse(comparison.isEqual());
+        Assert.assertEquals(ComparisonTier.SIZE, comparison.getDecidingTier());
+        Assert.assertEquals("19", comparison.getValueA());
+        Assert.assertNull(comparison.getDigestA());
+        Assert.assertNull(comparison.getDigestB());
+    }
+
+    @Test
+    public void crcDecidesForFilesOfTheSameSize() throws IOException {
+        FileComparison comparison = compare("size,crc32c", original, sameSize);
+        Assert.assertFalse(comparison.isEqual());
+        Assert.assertEquals(ComparisonTier.CRC32C, comparison.getDecidingTier());
+        Assert.assertEquals(8, comparison.getValueA().length());
+        Assert.assertNull(comparison.getDigestA());
+    }
+
+    @Test
+    public void digestIsTheTieBreak() throws Exception {
+        FileComparison comparison = compare(ComparisonTier.DEFAULT, original, copy);
+        Assert.assertTrue(comparison.isEqual());
+        Assert.assertEquals(ComparisonTier.DIGEST, comparison.getDecidingTier());
+        Assert.assertEquals(Tools.calculateMD5(original), comparison.getDigestA());
+        Assert.assertEquals(comparison.getDigestA(), comparison.getDigestB());
+
+        comparison = compare("digest", original, sameSize);
+        Assert.assertFalse(comparison.isEqual());
+        Assert.assertEquals("MD5 checksums differ", comparison.getDifference());
+    }
+
+    /**
+     * Different files are told apart by CRC32C alone, the digests are calculated only for files with equal checksums.
+     */
+    @Test
+    public void crcSparesDigestsOfDifferentFiles() throws Exception {
+        Set<ComparisonTier> tiers = ComparisonTier.parse("size,crc32c,digest");
+        HashService service = new HashService(new HashCache(), Collections.singletonList(HashAlgorithm.MD5), tiers);
+        TieredFileComparator comparator = new TieredFileComparator(tiers,
+                Collections.singletonList(HashAlgorithm.MD5), service);
+
+        String different = write("crc-different", "content of the fil3");
+        FileComparison comparison = comparator.compare(original, -1, different, -1);
+        Assert.assertFalse(comparison.isEqual());
+        Assert.assertEquals(ComparisonTier.CRC32C, comparison.getDecidingTier());
+        Assert.assertNull(comparison.getDigestA());
+        Assert.assertNull(comparison.getDigestB());
+
+        comparison = comparator.compare(original, -1, copy, -1);
+        Assert.assertTrue(comparison.isEqual());
+        Assert.assertEquals(ComparisonTier.DIGEST, comparison.getDecidingTier());
+
+        // MD5 of the file compared by CRC32C only was not memoized, it is calculated from the new content
+        write("crc-different", "modified content");
+        Assert.assertEquals(DigestEngine.digest(Paths.get(different), HashAlgorithm.MD5), service.digest(different));
+        Assert.assertEquals(Tools.calculateMD5(original), service.digest(original));
+    }
+
+    @Test
+    public void cheapTiersOnly() throws IOException {
+        FileComparison comparison = compare("size", original, sameSize);
+        Assert.assertTrue(comparison.isEqual());
+        Assert.assertEquals(ComparisonTier.SIZE, comparison.getDecidingTier());
+        Assert.assertTrue(compare("crc32c,size", original, copy).isEqual());
+        Assert.assertNull(compare("crc32c,size", original, copy).getDigestA());
+    }
+
+    @Test
+    public void bytesStopAtFirstDifference() throws IOException {
+        FileComparison comparison = compare("size,bytes", original, sameSize);
+        Assert.assertFalse(comparison.isEqual());
+        Assert.assertEquals(ComparisonTier.BYTES, comparison.getDecidingTier());
+        Assert.assertEquals(18, comparison.getMismatchOffset());
+        Assert.assertEquals("0x65", comparison.getValueA());
+        Assert.assertEquals("0x33", comparison.getValueB());
+        Assert.assertTrue(compare("bytes", original, copy).isEqual());
+        Assert.assertEquals(-1, compare("bytes", original, copy).getMismatchOffset());
+        Assert.assertEquals("EOF", compare("bytes", original, longer).getValueA());
+    }
+
+    @Test
+    public void parseTiers() {
+        Assert.assertEquals(EnumSet.of(ComparisonTier.SIZE, ComparisonTier.DIGEST),
+                ComparisonTier.parse(ComparisonTier.DEFAULT));
+        Assert.assertEquals(EnumSet.of(ComparisonTier.SIZE, ComparisonTier.CRC32C), ComparisonTier.parse(" CRC32C, size"));
+        try {
+            ComparisonTier.parse("size,sha1");
+            Assert.fail("Unknown tier accepted");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+        try {
+            ComparisonTier.parse(",");
+            Assert.fail("Empty list accepted");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+    }
+}
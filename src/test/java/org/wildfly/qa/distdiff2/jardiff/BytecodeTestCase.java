@@ -0,0 +1,148 @@
+package org.wildfly.qa.distdiff2.jardiff;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for {@link Bytecode} class.
+ */
+public class BytecodeTestCase {
+
+    @SuppressWarnings("unused")
+    private static final class Original {
+
+        static int unchanged(int value) {
+            return value * 2;
+        }
+
+        static int changed(int value) {
+            switch (value) {
+                case 0:
+                    return 1;
+                case 1:
+                    return 2;
+                case 2:
+                    return 3;
+                default:
+                    return 0;
+            }
+        }
+
+        static String caught(String value) {
+            try {
+                return value.trim();
+            } catch (NullPointerException e) {
+                return "\n";
+            }
+        }
+    }
+
+    @SuppressWarnings("unused")
+    private static final class Revised {
+
+        static int unchanged(int value) {
+            return value * 2;
+        }
+
+        static int changed(int value) {
+            switch (value) {
+                case 0:
+                    return 1;
+                case 1:
+                    return 5;
+                case 2:
+                    return 3;
+                default:
+                    return 0;
+            }
+        }
+    }
+
+    private static ClassFileInfo read(Class<?> clazz) throws IOException {
+        return ClassFileInfo.read(new ByteArrayInputStream(bytes(clazz)));
+    }
+
+    private static byte[] bytes(Class<?> clazz) throws IOException {
+        String resource = "/" + clazz.getName().replace('.', '/') + ".class";
+        try (InputStream stream = BytecodeTestCase.class.getResourceAsStream(resource)) {
+            return stream.readAllBytes();
+        }
+    }
+
+    @Test
+    public void sameBodiesHaveSameDigest() throws IOException {
+        ClassFileInfo original = read(Original.class);
+        ClassFileInfo revised = read(Revised.class);
+        Assert.assertEquals(original.getMethods().get("unchanged(I)").getBodyDigest(),
+                revised.getMethods().get("unchanged(I)").getBodyDigest());
+        Assert.assertNotEquals(original.getMethods().get("changed(I)").getBodyDigest(),
+                revised.getMethods().get("changed(I)").getBodyDigest());
+    }
+
+    @Test
+    public void listing() throws IOException {
+        ClassFileInfo original = read(Original.class);
+        Assert.assertEquals("  iload_0\n  iconst_2\n  imul\n  ireturn\n",
+                original.getMethods().get("unchanged(I)").getListing());
+        Assert.assertEquals("  iload_0\n  tableswitch { 0: +1, 1: +3, 2: +5, default: +7 }\n"
+                        + "  iconst_1\n  ireturn\n  iconst_2\n  ireturn\n  iconst_3\n  ireturn\n  iconst_0\n  ireturn\n",
+                original.getMethods().get("changed(I)").getListing());
+
+        String caught = original.getMethods().get("caught(Ljava/lang/String;)").getListing();
+        Assert.assertTrue(caught, caught.contains("  invokevirtual java/lang/String.trim:()Ljava/lang/String;\n"));
+        Assert.assertTrue(caught, caught.contains("  ldc \"\\u000a\"\n"));
+        Assert.assertTrue(caught, caught.endsWith("  try 0 2 3 class java/lang/NullPointerException\n"));
+    }
+
+    /**
+     * Method bodies are decoded after the class file is parsed, a broken body is reported the same way as a broken
+     * class file.
+     */
+    @Test
+    public void truncatedCodeAttribute() throws IOException {
+        byte[] bytes = bytes(Original.class);
+        // code_length followed by the body of unchanged(int): iload_0, iconst_2, imul, ireturn
+        byte[] code = {0, 0, 0, 4, 0x1a, 0x05, 0x68, (byte) 0xac};
+        int position = indexOf(bytes, code);
+        Assert.assertTrue(position > 0);
+        bytes[position + 2] = 1;
+        ClassFileInfo info = ClassFileInfo.read(new ByteArrayInputStream(bytes));
+        ClassFileInfo.Member method = info.getMethods().get("unchanged(I)");
+        try {
+            method.getBodyDigest();
+            Assert.fail("Body longer than the Code attribute decoded");
+        } catch (IOException expected) {
+            Assert.assertTrue(expected.getMessage(), expected.getMessage().contains("unchanged(I)I"));
+        }
+        Assert.assertNotNull(info.getMethods().get("changed(I)").getListing());
+    }
+
+    private static int indexOf(byte[] bytes, byte[] pattern) {
+        for (int i = 0; i + pattern.length <= bytes.length; i++) {
+            if (Arrays.equals(bytes, i, i + pattern.length, pattern, 0, pattern.length)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Test
+    public void initializers() throws IOException {
+        ClassFileInfo original = read(Original.class);
+        Assert.assertNotNull(original.getInitializers().get("<init>()").getBodyDigest());
+        Assert.assertFalse(original.getMethods().containsKey("<init>()"));
+    }
+
+    @Test
+    public void diffContainsChangedLinesOnly() {
+        String original = "  iload_0\n  iconst_1\n  iadd\n  ireturn\n";
+        String revised = "  iload_0\n  iconst_2\n  iadd\n  iconst_3\n  ireturn\n";
+        Assert.assertEquals("-   iconst_1\n+   iconst_2\n@@\n+   iconst_3", Bytecode.diff(original, revised));
+        Assert.assertEquals("", Bytecode.diff(original, original));
+    }
+}
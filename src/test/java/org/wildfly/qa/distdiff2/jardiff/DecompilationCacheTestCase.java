@@ -0,0 +1,98 @@
+package org.wildfly.qa.distdiff2.jardiff;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.jar.JarFile;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link DecompilationCache} class.
+ */
+public class DecompilationCacheTestCase {
+
+    private static final String JAR = "src/test/resources/jardiff/a/thejar.jar";
+
+    private Path cacheDirectory;
+
+    @Before
+    public void prepareDirectory() throws IOException {
+        cacheDirectory = Files.createTempDirectory("decompilationCache");
+    }
+
+    @After
+    public void clean() throws IOException {
+        if (cacheDirectory != null && Files.exists(cacheDirectory)) {
+            Files.walk(cacheDirectory).sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    private static String decompile(DecompilationCache cache, String className) throws IOException {
+        try (JarFile jarFile = new JarFile(JAR)) {
+            return new JarClassIndex(jarFile, cache).decompile(className);
+        }
+    }
+
+    @Test
+    public void classIsDecompiledOnce() throws IOException {
+        DecompilationCache cache = new DecompilationCache(cacheDirectory);
+        String source = decompile(cache, "ClassWithChanges");
+        Assert.assertTrue(source, source.contains("class ClassWithChanges"));
+        Assert.assertEquals(0, cache.getHits());
+        Assert.assertEquals(1, cache.getMisses());
+
+        Assert.assertEquals(source, decompile(cache, "ClassWithChanges"));
+        Assert.assertEquals(1, cache.getHits());
+
+        // the next run
+        DecompilationCache nextRun = new DecompilationCache(cacheDirectory);
+        Assert.assertEquals(source, decompile(nextRun, "ClassWithChanges"));
+        Assert.assertEquals(1, nextRun.getHits());
+        Assert.assertEquals(0, nextRun.getMisses());
+    }
+
+    @Test
+    public void sourcesAreStoredByCfrVersion() throws IOException {
+        DecompilationCache cache = new DecompilationCache(cacheDirectory);
+        decompile(cache, "ClassWithChanges");
+        decompile(cache, "RemovedClass");
+        Assert.assertTrue(cache.getDirectory().startsWith(cacheDirectory.resolve(DecompilationCache.DIRECTORY_NAME)));
+        Assert.assertTrue(cache.getDirectory().getFileName().toString().startsWith("cfr-"));
+        Assert.assertEquals(2, Files.walk(cache.getDirectory()).filter(Files::isRegularFile).count());
+    }
+
+    @Test
+    public void failedPutLeavesNoTemporaryFile() throws IOException {
+        DecompilationCache cache = new DecompilationCache(cacheDirectory);
+        // a non-empty directory in place of the source cannot be replaced
+        Path blocked = cache.getDirectory().resolve("ab").resolve("cdef.java");
+        Files.createDirectories(blocked.resolve("blocker"));
+        cache.put("abcdef", "class Blocked {}");
+
+        Assert.assertTrue(Files.isDirectory(blocked));
+        Assert.assertEquals(0, Files.walk(cache.getDirectory()).filter(Files::isRegularFile).count());
+    }
+
+    @Test
+    public void disabledCacheStoresNothing() throws IOException {
+        DecompilationCache cache = new DecompilationCache();
+        Assert.assertNull(cache.getDirectory());
+        String source = decompile(cache, "ClassWithChanges");
+        Assert.assertEquals(source, decompile(cache, "ClassWithChanges"));
+        Assert.assertEquals(0, cache.getHits());
+        Assert.assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    public void missingClassIsNotDecompiled() throws IOException {
+        DecompilationCache cache = new DecompilationCache(cacheDirectory);
+        Assert.assertNull(decompile(cache, "org.acme.Missing"));
+        Assert.assertEquals(0, cache.getMisses());
+    }
+}
@@ -0,0 +1,80 @@
+package org.wildfly.qa.distdiff2.jardiff;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.jar.JarFile;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link JarClassIndex} class.
+ */
+public class JarClassIndexTestCase {
+
+    private Path jarA;
+    private Path jarB;
+
+    @Before
+    public void prepareJars() throws IOException {
+        byte[] classFile;
+        try (InputStream stream = ClassFileInfo.class.getResourceAsStream("ClassFileInfo.class")) {
+            classFile = stream.readAllBytes();
+        }
+        byte[] changedClassFile = classFile.clone();
+        changedClassFile[changedClassFile.length - 1]++;
+
+        jarA = Files.createTempFile("jarA", ".jar");
+        jarB = Files.createTempFile("jarB", ".jar");
+        write(jarA, classFile, classFile);
+        write(jarB, classFile, changedClassFile);
+    }
+
+    @After
+    public void clean() throws IOException {
+        Files.deleteIfExists(jarA);
+        Files.deleteIfExists(jarB);
+    }
+
+    private static void write(Path jar, byte[] same, byte[] changed) throws IOException {
+        try (OutputStream out = Files.newOutputStream(jar); ZipOutputStream zip = new ZipOutputStream(out)) {
+            zip.putNextEntry(new ZipEntry("org/acme/Same.class"));
+            zip.write(same);
+            zip.putNextEntry(new ZipEntry("org/acme/Changed.class"));
+            zip.write(changed);
+            zip.putNextEntry(new ZipEntry("META-INF/versions/11/org/acme/Same.class"));
+            zip.write(same);
+            zip.putNextEntry(new ZipEntry("META-INF/MANIFEST.MF"));
+            zip.closeEntry();
+        }
+    }
+
+    @Test
+    public void classNames() {
+        Assert.assertEquals("org.acme.Foo$Bar", JarClassIndex.className("org/acme/Foo$Bar.class"));
+        Assert.assertEquals("org.acme.Foo", JarClassIndex.className("META-INF/versions/11/org/acme/Foo.class"));
+        Assert.assertEquals("module-info", JarClassIndex.className("module-info.class"));
+    }
+
+    @Test
+    public void entriesAreComparedByCrcAndSize() throws IOException {
+        try (JarFile a = new JarFile(jarA.toFile()); JarFile b = new JarFile(jarB.toFile())) {
+            JarClassIndex indexA = new JarClassIndex(a);
+            JarClassIndex indexB = new JarClassIndex(b);
+            Assert.assertEquals(2, indexA.getClassNames().size());
+            Assert.assertTrue(JarClassIndex.isSameEntry(indexA.getEntry("org.acme.Same"),
+                    indexB.getEntry("org.acme.Same")));
+            Assert.assertFalse(JarClassIndex.isSameEntry(indexA.getEntry("org.acme.Changed"),
+                    indexB.getEntry("org.acme.Changed")));
+            Assert.assertEquals(ClassFileInfo.class.getName(), indexB.getClass("org.acme.Changed").getName());
+            Assert.assertNull(indexB.getClass("org.acme.Missing"));
+        }
+    }
+}
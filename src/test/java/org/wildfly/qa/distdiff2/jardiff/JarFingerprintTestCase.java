@@ -0,0 +1,140 @@
+package org.wildfly.qa.distdiff2.jardiff;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.wildfly.qa.distdiff2.artifacts.Artifact;
+import org.wildfly.qa.distdiff2.configuration.DistDiff2Context;
+import org.wildfly.qa.distdiff2.execution.DistDiff2Execution;
+import org.wildfly.qa.distdiff2.phase.MD5SumsPhase;
+import org.wildfly.qa.distdiff2.results.Status;
+
+/**
+ * Tests for {@link JarFingerprint} class.
+ */
+public class JarFingerprintTestCase {
+
+    private Path root;
+    private Map<String, byte[]> entries;
+
+    @Before
+    public void prepareEntries() throws IOException {
+        root = Files.createTempDirectory("jarfingerprint");
+        entries = new LinkedHashMap<>();
+        entries.put("org/acme/", new byte[0]);
+        entries.put("org/acme/Foo.class", new byte[]{(byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE, 1});
+        entries.put("org/acme/Messages_$logger.class", new byte[]{(byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE, 2});
+        entries.put("org/acme/config.properties", "a=1\n".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @After
+    public void clean() throws IOException {
+        if (root != null && Files.exists(root)) {
+            Files.walk(root).sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    private File createJar(String path, Map<String, byte[]> content, String buildJdk, long time) throws IOException {
+        Path jar = root.resolve(path);
+        Files.createDirectories(jar.getParent());
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().putValue("Manifest-Version", "1.0");
+        manifest.getMainAttributes().putValue("Build-Jdk", buildJdk);
+        manifest.getMainAttributes().putValue("Implementation-Version", "1.0.0");
+        try (OutputStream stream = Files.newOutputStream(jar);
+             JarOutputStream jarStream = new JarOutputStream(stream, manifest)) {
+            for (Map.Entry<String, byte[]> entry : content.entrySet()) {
+                JarEntry jarEntry = new JarEntry(entry.getKey());
+                jarEntry.setTime(time);
+                jarStream.putNextEntry(jarEntry);
+                jarStream.write(entry.getValue());
+                jarStream.closeEntry();
+            }
+        }
+        return jar.toFile();
+    }
+
+    /**
+     * @return the entries in the reversed order
+     */
+    private Map<String, byte[]> reversed(Map<String, byte[]> content) {
+        List<String> names = new ArrayList<>(content.keySet());
+        Collections.reverse(names);
+        Map<String, byte[]> result = new LinkedHashMap<>();
+        for (String name : names) {
+            result.put(name, content.get(name));
+        }
+        return result;
+    }
+
+    @Test
+    public void rebuiltJarHasSameFingerprint() throws IOException {
+        File original = createJar("a/the.jar", entries, "11", 1_000_000_000_000L);
+        Map<String, byte[]> rebuilt = reversed(entries);
+        rebuilt.put("org/acme/Messages_$logger.class", new byte[]{(byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE, 3});
+        File rebuiltJar = createJar("b/the.jar", rebuilt, "17", 1_600_000_000_000L);
+        Assert.assertFalse(Arrays.equals(Files.readAllBytes(original.toPath()), Files.readAllBytes(rebuiltJar.toPath())));
+        Assert.assertEquals(JarFingerprint.of(original, false), JarFingerprint.of(rebuiltJar, false));
+    }
+
+    @Test
+    public void changedContentChangesFingerprint() throws IOException {
+        File original = createJar("a/the.jar", entries, "11", 1_000_000_000_000L);
+        Map<String, byte[]> changed = new LinkedHashMap<>(entries);
+        changed.put("org/acme/config.properties", "a=2\n".getBytes(StandardCharsets.UTF_8));
+        Assert.assertNotEquals(JarFingerprint.of(original, false),
+                JarFingerprint.of(createJar("b/the.jar", changed, "11", 1_000_000_000_000L), false));
+
+        Map<String, byte[]> added = new LinkedHashMap<>(entries);
+        added.put("org/acme/Bar.class", new byte[]{(byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE, 4});
+        Assert.assertNotEquals(JarFingerprint.of(original, false),
+                JarFingerprint.of(createJar("c/the.jar", added, "11", 1_000_000_000_000L), false));
+    }
+
+    @Test
+    public void versionAttributesAreToleratedOnlyFromSources() {
+        Assert.assertTrue(JarFingerprint.toleratedManifestAttributes(false).contains("Build-Jdk"));
+        Assert.assertFalse(JarFingerprint.toleratedManifestAttributes(false).contains("Implementation-Version"));
+        Assert.assertTrue(JarFingerprint.toleratedManifestAttributes(true).contains("Implementation-Version"));
+    }
+
+    @Test
+    public void rebuiltJarIsExpectedDifference() throws IOException {
+        createJar("a/modules/rebuilt.jar", entries, "11", 1_000_000_000_000L);
+        createJar("b/modules/rebuilt.jar", reversed(entries), "17", 1_600_000_000_000L);
+        Map<String, byte[]> changed = new LinkedHashMap<>(entries);
+        changed.put("org/acme/config.properties", "a=2\n".getBytes(StandardCharsets.UTF_8));
+        createJar("a/modules/changed.jar", entries, "11", 1_000_000_000_000L);
+        createJar("b/modules/changed.jar", changed, "11", 1_000_000_000_000L);
+
+        DistDiff2Context ctx = new DistDiff2Context.Builder()
+                .pathA(root.resolve("a").toString())
+                .pathB(root.resolve("b").toString())
+                .noHashCache(true)
+                .processPhase(MD5SumsPhase.class)
+                .build();
+        new DistDiff2Execution(ctx).execute();
+        Artifact rebuilt = ctx.getResults().findArtifactBySimpleName("rebuilt.jar");
+        Artifact changedJar = ctx.getResults().findArtifactBySimpleName("changed.jar");
+        Assert.assertEquals(Status.EXPECTED_DIFFERENCES, rebuilt.getStatus());
+        Assert.assertEquals(Status.DIFFERENT, changedJar.getStatus());
+    }
+}
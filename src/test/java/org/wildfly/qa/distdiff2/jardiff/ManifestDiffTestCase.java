@@ -0,0 +1,103 @@
+package org.wildfly.qa.distdiff2.jardiff;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for {@link ManifestDiff} and {@link ManifestCache} classes.
+ */
+public class ManifestDiffTestCase {
+
+    private static Manifest manifest(String buildJdk, String version) {
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().putValue("Manifest-Version", "1.0");
+        manifest.getMainAttributes().putValue("Build-Jdk", buildJdk);
+        manifest.getMainAttributes().putValue("Implementation-Version", version);
+        return manifest;
+    }
+
+    @Test
+    public void equalManifestsHaveNoDiff() {
+        ManifestDiff diff = ManifestDiff.compare(manifest("11", "1.0"), manifest("11", "1.0"),
+                JarFingerprint.toleratedManifestAttributes(false));
+        Assert.assertNull(diff.getHtml());
+        Assert.assertTrue(diff.hasOnlyExpectedChanges());
+    }
+
+    @Test
+    public void toleratedAttributeIsExpectedChange() {
+        ManifestDiff diff = ManifestDiff.compare(manifest("11", "1.0"), manifest("17", "1.0"),
+                JarFingerprint.toleratedManifestAttributes(false));
+        Assert.assertTrue(diff.hasOnlyExpectedChanges());
+        String html = diff.getHtml();
+        Assert.assertTrue(html, html.contains("Build-Jdk: <del style=\"background:#ffe6e6;\">11</del>"
+                + " <ins style=\"background:#e6ffe6;\">17</ins>"));
+        Assert.assertFalse(html, html.contains("Manifest-Version"));
+    }
+
+    @Test
+    public void otherChangesAreUnexpected() {
+        Assert.assertFalse(ManifestDiff.compare(manifest("11", "1.0"), manifest("11", "1.1"),
+                JarFingerprint.toleratedManifestAttributes(false)).hasOnlyExpectedChanges());
+        Assert.assertTrue(ManifestDiff.compare(manifest("11", "1.0"), manifest("11", "1.1"),
+                JarFingerprint.toleratedManifestAttributes(true)).hasOnlyExpectedChanges());
+
+        Manifest added = manifest("11", "1.0");
+        added.getMainAttributes().putValue("Dependencies", "org.acme <export>");
+        ManifestDiff diff = ManifestDiff.compare(manifest("11", "1.0"), added,
+                JarFingerprint.toleratedManifestAttributes(true));
+        Assert.assertFalse(diff.hasOnlyExpectedChanges());
+        Assert.assertTrue(diff.getHtml(), diff.getHtml().contains("org.acme &lt;export&gt;"));
+    }
+
+    @Test
+    public void namedSectionsAreCompared() {
+        Manifest manifestB = manifest("11", "1.0");
+        Attributes section = new Attributes();
+        section.putValue("Sealed", "true");
+        manifestB.getEntries().put("org/acme/", section);
+        ManifestDiff diff = ManifestDiff.compare(manifest("11", "1.0"), manifestB,
+                JarFingerprint.toleratedManifestAttributes(true));
+        Assert.assertFalse(diff.hasOnlyExpectedChanges());
+        Assert.assertTrue(diff.getHtml(), diff.getHtml().contains("<b>Name: org/acme/</b>"));
+    }
+
+    @Test
+    public void manifestIsFoundAnywhereInJar() throws IOException {
+        Path directory = Files.createTempDirectory("manifestcache");
+        try {
+            File jar = directory.resolve("late-manifest.jar").toFile();
+            try (OutputStream stream = Files.newOutputStream(jar.toPath());
+                 ZipOutputStream zip = new ZipOutputStream(stream)) {
+                zip.putNextEntry(new ZipEntry("META-INF/acme.xml"));
+                zip.write("<acme/>".getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+                zip.putNextEntry(new ZipEntry(JarFile.MANIFEST_NAME));
+                manifest("11", "1.0").write(zip);
+                zip.closeEntry();
+            }
+            ManifestCache cache = new ManifestCache();
+            Manifest manifest = cache.get(jar.getPath());
+            Assert.assertNotNull(manifest);
+            Assert.assertEquals("1.0", manifest.getMainAttributes().getValue("Implementation-Version"));
+            Assert.assertSame(manifest, cache.get(jar.getPath()));
+            cache.evict(jar.getPath());
+            Assert.assertNotSame(manifest, cache.get(jar.getPath()));
+        } finally {
+            Files.walk(directory).sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+}
@@ -7,12 +7,10 @@ import static org.junit.Assert.assertTrue;
 import java.io.File;
 import java.io.FileWriter;
 
-import org.wildfly.qa.distdiff2.Platform;
 import org.wildfly.qa.distdiff2.artifacts.Artifact;
 import org.wildfly.qa.distdiff2.artifacts.FileArtifact;
 import org.wildfly.qa.distdiff2.artifacts.FolderArtifact;
 import org.wildfly.qa.distdiff2.tools.ArtifactBuilder;
-import org.wildfly.qa.distdiff2.tools.Tools;
 import org.junit.Test;
 
 /**
@@ -34,14 +32,8 @@ public class ArtifactBuilderTestCase {
         assertTrue(artifact instanceof FileArtifact);
         assertEquals(sourceFile.getName(), artifact.getName());
         assertEquals(sourceFile.getAbsolutePath(), artifact.getPathA());
-        if (Platform.isHP()) {
-            // well, this is weird...
-            assertEquals("text/plain", ((FileArtifact) artifact).getMimeType());
-        } else if (Platform.isWindows() || (Tools.getMajorJavaVersion() >= 9 && !Platform.isMac())) {
-            assertEquals("text/xml", ((FileArtifact) artifact).getMimeType());
-        } else {
-            assertEquals("application/xml", ((FileArtifact) artifact).getMimeType());
-        }
+        // MIME type detection does not depend on the platform
+        assertEquals("text/xml", ((FileArtifact) artifact).getMimeType());
 
         Artifact folder = ArtifactBuilder.create(sourceFile.getParentFile(), sourceFile.getParentFile(), 0, true);
         assertNotNull(folder);
@@ -89,7 +89,7 @@ public class ToolsTestCase {
         fw.close();
         String md5 = Tools.calculateMD5(tmpFile.getAbsolutePath());
         assertNotNull(md5);
-        assertEquals("cbc6611f554bd0809a388dc95a615b", md5);
+        assertEquals("0cbc6611f5540bd0809a388dc95a615b", md5);
     }
 
     @Test
@@ -110,6 +110,36 @@ public class ToolsTestCase {
         assertTrue(result.contains(new FileArtifact("name1", "name1", 0)));
     }
 
+    @Test
+    public void testMergeArtifactLists() {
+        List<Artifact> listA = new LinkedList<>();
+        listA.add(new FileArtifact("name1", "name1", 0));
+        listA.add(new FileArtifact("name2", "name2", 0));
+        listA.add(new FolderArtifact("name3", "name3"));
+
+        List<Artifact> listB = new LinkedList<>();
+        listB.add(new FileArtifact("name4", "name4", 0));
+        listB.add(new FileArtifact("name3", "name3", 0));
+        FileArtifact name2B = new FileArtifact("name2", "name2", 0);
+        name2B.setPathB("/b/name2");
+        listB.add(name2B);
+
+        List<Artifact> result = Tools.mergeArtifactLists(listA, listB);
+        assertEquals(5, result.size());
+        // folder and file of the same path are different artifacts
+        assertEquals(Status.REMOVED, result.get(0).getStatus());
+        assertEquals("name1", result.get(0).getName());
+        assertEquals(Status.REMOVED, result.get(1).getStatus());
+        assertTrue(result.get(1) instanceof FolderArtifact);
+        assertEquals(Status.ADDED, result.get(2).getStatus());
+        assertEquals("name4", result.get(2).getName());
+        assertEquals(Status.ADDED, result.get(3).getStatus());
+        assertEquals("name3", result.get(3).getName());
+        assertEquals(Status.SAME, result.get(4).getStatus());
+        assertEquals("/b/name2", result.get(4).getPathB());
+        assertEquals("InitialComparison", result.get(4).getStatusHistory().get(0).getPhaseName());
+    }
+
     @Test
     public void testReadFile() throws Exception {
         String[] testContent = new String[]{"Test", "another test\n",
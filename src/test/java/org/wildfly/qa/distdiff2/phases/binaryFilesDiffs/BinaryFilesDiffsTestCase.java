@@ -9,7 +9,9 @@ import org.wildfly.qa.distdiff2.results.Status;
 import org.junit.Assert;
 import org.junit.Assume;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 /**
  * This testsuite performs dist-diff operation and then check result for expected changes regarding to the compared binary
@@ -20,6 +22,9 @@ import org.junit.Test;
  */
 public class BinaryFilesDiffsTestCase {
 
+    @Rule
+    public final TemporaryFolder output = new TemporaryFolder();
+
     private static final String PATH_A = "src/test/resources/binaryComparison/a";
     private static final String PATH_B = "src/test/resources/binaryComparison/b";
     private static final String EXPECTED_FULL_BINARY_DIFF = "<span>architecture: i386:x86-64, flags 0x00000150:<br>HAS_SYMS, DYNAMIC, D_PAGED" +
@@ -133,6 +138,7 @@ public class BinaryFilesDiffsTestCase {
         final DistDiff2Context context = builder
                 .pathA(PATH_A)
                 .pathB(PATH_B)
+                .output(output.getRoot())
                 .detectServerDistributionAndRegisterPhases()
                 .build();
 
@@ -159,6 +165,7 @@ public class BinaryFilesDiffsTestCase {
         final DistDiff2Context context = builder
                 .pathA(PATH_A)
                 .pathB(PATH_B)
+                .output(output.getRoot())
                 .fullBinaryComparison(true)
                 .detectServerDistributionAndRegisterPhases()
                 .build();
@@ -192,6 +199,7 @@ public class BinaryFilesDiffsTestCase {
         final DistDiff2Context context = builder
                 .pathA(PATH_A)
                 .pathB(PATH_B)
+                .output(output.getRoot())
                 .instructionBinaryComparison(true)
                 .detectServerDistributionAndRegisterPhases()
                 .build();
@@ -216,6 +224,7 @@ public class BinaryFilesDiffsTestCase {
         final DistDiff2Context context = builder
                 .pathA(PATH_A)
                 .pathB(PATH_A)
+                .output(output.getRoot())
                 .fullBinaryComparison(true)
                 .detectServerDistributionAndRegisterPhases()
                 .build();
@@ -233,6 +242,7 @@ public class BinaryFilesDiffsTestCase {
         final DistDiff2Context context = builder
                 .pathA(PATH_A)
                 .pathB(PATH_A)
+                .output(output.getRoot())
                 .instructionBinaryComparison(true)
                 .detectServerDistributionAndRegisterPhases()
                 .build();
@@ -20,6 +20,7 @@ public class ExclusionsTestCase {
         final DistDiff2Context ctx = builder
                 .pathA("src/test/resources/exclusiontest/a")
                 .pathB("src/test/resources/exclusiontest/b")
+                .noHashCache(true)
                 .addedFilesFile("src/test/resources/exclusiontest/added-files.txt")
                 .processPhase(ExclusionPhase.class)
         .build();
@@ -41,6 +42,7 @@ public class ExclusionsTestCase {
         final DistDiff2Context ctx = builder
                 .pathA("src/test/resources/exclusiontest/a")
                 .pathB("src/test/resources/exclusiontest/b")
+                .noHashCache(true)
                 .removedFilesFile("src/test/resources/exclusiontest/removed-files.txt")
                 .processPhase(ExclusionPhase.class)
         .build();
@@ -62,6 +64,7 @@ public class ExclusionsTestCase {
         final DistDiff2Context ctx = builder
                 .pathA("src/test/resources/exclusiontest/a")
                 .pathB("src/test/resources/exclusiontest/b")
+                .noHashCache(true)
                 .addedFilesFile("src/test/resources/exclusiontest/added-files.txt")
                 .processPhase(ExclusionPhase.class)
                 .build();
@@ -80,6 +83,7 @@ public class ExclusionsTestCase {
         final DistDiff2Context ctx = builder
                 .pathA("src/test/resources/exclusiontest/a")
                 .pathB("src/test/resources/exclusiontest/b")
+                .noHashCache(true)
                 .removedFilesFile("src/test/resources/exclusiontest/removed-files.txt")
                 .processPhase(ExclusionPhase.class)
                 .build();
@@ -98,6 +102,7 @@ public class ExclusionsTestCase {
         final DistDiff2Context ctx = builder
                 .pathA("src/test/resources/exclusiontest/a")
                 .pathB("src/test/resources/exclusiontest/b")
+                .noHashCache(true)
                 .modifiedFilesFile("src/test/resources/exclusiontest/modified-files1.txt")
                 .processPhase(TextFilesDiffsPhase.class)
                 .processPhase(ExclusionPhase.class)
@@ -117,6 +122,7 @@ public class ExclusionsTestCase {
         final DistDiff2Context ctx = builder
                 .pathA("src/test/resources/exclusiontest/a")
                 .pathB("src/test/resources/exclusiontest/b")
+                .noHashCache(true)
                 .modifiedFilesFile("src/test/resources/exclusiontest/modified-files2.txt")
                 .processPhase(TextFilesDiffsPhase.class)
                 .processPhase(ExclusionPhase.class)
@@ -139,6 +145,7 @@ public class ExclusionsTestCase {
         final DistDiff2Context ctx = builder
                 .pathA("src/test/resources/exclusiontest/a")
                 .pathB("src/test/resources/exclusiontest/b")
+                .noHashCache(true)
                 .modifiedFilesFile("src/test/resources/exclusiontest/modified-files3.txt")
                 .processPhase(TextFilesDiffsPhase.class)
                 .processPhase(ExclusionPhase.class)
@@ -156,6 +163,7 @@ public class ExclusionsTestCase {
         final DistDiff2Context ctx = builder
                 .pathA("src/test/resources/exclusiontest/a")
                 .pathB("src/test/resources/exclusiontest/b")
+                .noHashCache(true)
                 .removedFilesFile("src/test/resources/exclusiontest/directory-exclusions-removed.txt")
                 .processPhase(TextFilesDiffsPhase.class)
                 .processPhase(ExclusionPhase.class)
@@ -176,6 +184,7 @@ public class ExclusionsTestCase {
         final DistDiff2Context ctx = builder
                 .pathA("src/test/resources/exclusiontest/a")
                 .pathB("src/test/resources/exclusiontest/b")
+                .noHashCache(true)
                 .addedFilesFile("src/test/resources/exclusiontest/directory-exclusions-added.txt")
                 .processPhase(TextFilesDiffsPhase.class)
                 .processPhase(ExclusionPhase.class)
@@ -196,6 +205,7 @@ public class ExclusionsTestCase {
         final DistDiff2Context ctx = builder
                 .pathA("src/test/resources/exclusiontest/a")
                 .pathB("src/test/resources/exclusiontest/b")
+                .noHashCache(true)
                 .addedFilesFile("src/test/resources/exclusiontest/directory-exclusions-added.txt")
                 .preciseExclusionMatching()
                 .processPhase(TextFilesDiffsPhase.class)
@@ -217,6 +227,7 @@ public class ExclusionsTestCase {
         final DistDiff2Context ctx = builder
                 .pathA("src/test/resources/exclusiontest/a")
                 .pathB("src/test/resources/exclusiontest/b")
+                .noHashCache(true)
                 .removedFilesFile("src/test/resources/exclusiontest/directory-exclusions-removed.txt")
                 .processPhase(TextFilesDiffsPhase.class)
                 .processPhase(ExclusionPhase.class)
@@ -236,6 +247,7 @@ public class ExclusionsTestCase {
         final DistDiff2Context ctx = builder
                 .pathA("src/test/resources/exclusiontest/a")
                 .pathB("src/test/resources/exclusiontest/b")
+                .noHashCache(true)
                 .addedFilesFile("src/test/resources/exclusiontest/directory-exclusions-added.txt")
                 .processPhase(TextFilesDiffsPhase.class)
                 .processPhase(ExclusionPhase.class)
@@ -255,6 +267,7 @@ public class ExclusionsTestCase {
         final DistDiff2Context ctx = builder
                 .pathA("src/test/resources/exclusiontest/a")
                 .pathB("src/test/resources/exclusiontest/b")
+                .noHashCache(true)
                 .addedFilesFile("src/test/resources/exclusiontest/directory-exclusions-added.txt")
                 .preciseExclusionMatching()
                 .processPhase(TextFilesDiffsPhase.class)
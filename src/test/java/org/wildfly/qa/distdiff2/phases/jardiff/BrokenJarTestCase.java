@@ -0,0 +1,126 @@
+package org.wildfly.qa.distdiff2.phases.jardiff;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.wildfly.qa.distdiff2.artifacts.JarArtifact;
+import org.wildfly.qa.distdiff2.configuration.DistDiff2Context;
+import org.wildfly.qa.distdiff2.execution.DistDiff2Execution;
+import org.wildfly.qa.distdiff2.jardiff.JarDiffPhase;
+import org.wildfly.qa.distdiff2.phase.MD5SumsPhase;
+import org.wildfly.qa.distdiff2.results.Results;
+import org.wildfly.qa.distdiff2.results.Status;
+
+/**
+ * A JAR which cannot be diffed by {@link JarDiffPhase} is reported as ERROR, the other JARs are diffed.
+ */
+public class BrokenJarTestCase {
+
+    @ClassRule
+    public static final TemporaryFolder ROOT = new TemporaryFolder();
+
+    private static final String CLASS = Sample.class.getName().replace('.', '/') + ".class";
+    private static final String PROPERTIES = "org/acme/config.properties";
+
+    private static Results results;
+
+    @SuppressWarnings("unused")
+    private static final class Sample {
+
+        static int twice(int value) {
+            return value * 2;
+        }
+    }
+
+    @BeforeClass
+    public static void prepareResults() throws IOException {
+        Path root = ROOT.getRoot().toPath();
+        byte[] sample;
+        try (InputStream stream = BrokenJarTestCase.class.getResourceAsStream("/" + CLASS)) {
+            sample = stream.readAllBytes();
+        }
+        // code_length followed by the body of twice(int): iload_0, iconst_2, imul, ireturn
+        byte[] code = {0, 0, 0, 4, 0x1a, 0x05, 0x68, (byte) 0xac};
+        byte[] truncated = sample.clone();
+        truncated[indexOf(truncated, code) + 2] = 1;
+
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        entries.put(CLASS, sample);
+        createJar(root.resolve("a/broken.jar"), entries);
+        entries.put(CLASS, truncated);
+        createJar(root.resolve("b/broken.jar"), entries);
+
+        entries.clear();
+        entries.put(PROPERTIES, "a=1\n".getBytes(StandardCharsets.UTF_8));
+        createJar(root.resolve("a/good.jar"), entries);
+        entries.put(PROPERTIES, "a=2\n".getBytes(StandardCharsets.UTF_8));
+        createJar(root.resolve("b/good.jar"), entries);
+
+        DistDiff2Context ctx = new DistDiff2Context.Builder()
+                .pathA(root.resolve("a").toString())
+                .pathB(root.resolve("b").toString())
+                .output(root.resolve("output").toFile())
+                .noHashCache(true)
+                .processPhase(MD5SumsPhase.class)
+                .processPhase(JarDiffPhase.class)
+                .build();
+        new DistDiff2Execution(ctx).execute();
+        results = ctx.getResults();
+    }
+
+    private static int indexOf(byte[] bytes, byte[] pattern) {
+        for (int i = 0; i + pattern.length <= bytes.length; i++) {
+            if (Arrays.equals(bytes, i, i + pattern.length, pattern, 0, pattern.length)) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("Body of Sample.twice(int) not found");
+    }
+
+    private static void createJar(Path path, Map<String, byte[]> entries) throws IOException {
+        Files.createDirectories(path.getParent());
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().putValue("Manifest-Version", "1.0");
+        try (OutputStream stream = Files.newOutputStream(path);
+             JarOutputStream jar = new JarOutputStream(stream, manifest)) {
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                jar.putNextEntry(new JarEntry(entry.getKey()));
+                jar.write(entry.getValue());
+                jar.closeEntry();
+            }
+        }
+    }
+
+    @Test
+    public void brokenJarIsError() {
+        JarArtifact broken = (JarArtifact) results.findArtifactBySimpleName("broken.jar");
+        Assert.assertNotNull(broken);
+        Assert.assertEquals(Status.ERROR, broken.getStatus());
+        String reason = broken.getStatusHistory().get(broken.getStatusHistory().size() - 1).getReason();
+        Assert.assertTrue(reason, reason.contains("twice(I)I"));
+    }
+
+    @Test
+    public void otherJarsAreDiffed() {
+        JarArtifact good = (JarArtifact) results.findArtifactBySimpleName("good.jar");
+        Assert.assertNotNull(good);
+        Assert.assertEquals(Status.DIFFERENT, good.getStatus());
+        Assert.assertNotNull(good.getJarDiff());
+        Assert.assertEquals(1, good.getJarDiff().getChangedFiles().size());
+    }
+}
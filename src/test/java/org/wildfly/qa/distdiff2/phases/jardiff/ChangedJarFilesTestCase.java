@@ -0,0 +1,126 @@
+package org.wildfly.qa.distdiff2.phases.jardiff;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.wildfly.qa.distdiff2.artifacts.JarArtifact;
+import org.wildfly.qa.distdiff2.configuration.DistDiff2Context;
+import org.wildfly.qa.distdiff2.execution.DistDiff2Execution;
+import org.wildfly.qa.distdiff2.jardiff.JarDiff;
+import org.wildfly.qa.distdiff2.jardiff.JarDiffPhase;
+import org.wildfly.qa.distdiff2.jardiff.jaxb.ChangedFile;
+import org.wildfly.qa.distdiff2.phase.MD5SumsPhase;
+import org.wildfly.qa.distdiff2.results.Status;
+
+/**
+ * Changed non-class entries of JARs are reported by {@link JarDiffPhase}.
+ */
+public class ChangedJarFilesTestCase {
+
+    private static final String SERVICE = "META-INF/services/org.acme.Spi";
+    private static final String PROPERTIES = "org/acme/config.properties";
+    private static final String BINARY = "org/acme/data.bin";
+    private static final String UNCHANGED = "META-INF/acme.xml";
+
+    private static Path root;
+    private static JarArtifact theJar;
+    private static Map<String, ChangedFile> changedFiles;
+
+    @BeforeClass
+    public static void prepareResults() throws IOException {
+        root = Files.createTempDirectory("changedjarfiles");
+        Map<String, byte[]> entriesA = new LinkedHashMap<>();
+        entriesA.put(SERVICE, "org.acme.Impl\n".getBytes(StandardCharsets.UTF_8));
+        entriesA.put(PROPERTIES, "a=1\nb=2\n".getBytes(StandardCharsets.UTF_8));
+        entriesA.put(BINARY, new byte[]{0, 1, 2, 3, (byte) 0xFF});
+        entriesA.put(UNCHANGED, "<acme/>\n".getBytes(StandardCharsets.UTF_8));
+        Map<String, byte[]> entriesB = new LinkedHashMap<>(entriesA);
+        entriesB.put(SERVICE, "org.acme.OtherImpl\n".getBytes(StandardCharsets.UTF_8));
+        entriesB.put(PROPERTIES, "a=1\nb=3\n".getBytes(StandardCharsets.UTF_8));
+        entriesB.put(BINARY, new byte[]{0, 1, 2, 4, (byte) 0xFF});
+        createJar(root.resolve("a/thejar.jar"), entriesA);
+        createJar(root.resolve("b/thejar.jar"), entriesB);
+
+        DistDiff2Context ctx = new DistDiff2Context.Builder()
+                .pathA(root.resolve("a").toString())
+                .pathB(root.resolve("b").toString())
+                .output(root.resolve("output").toFile())
+                .processPhase(MD5SumsPhase.class)
+                .processPhase(JarDiffPhase.class)
+                .build();
+        new DistDiff2Execution(ctx).execute();
+        theJar = (JarArtifact) ctx.getResults().findArtifactBySimpleName("thejar.jar");
+        Assert.assertNotNull(theJar);
+        JarDiff jarDiff = theJar.getJarDiff();
+        Assert.assertNotNull(jarDiff);
+        changedFiles = new HashMap<>();
+        for (ChangedFile changedFile : jarDiff.getChangedFiles()) {
+            changedFiles.put(changedFile.getPath(), changedFile);
+        }
+    }
+
+    @AfterClass
+    public static void clean() throws IOException {
+        if (root != null && Files.exists(root)) {
+            Files.walk(root).sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    private static void createJar(Path path, Map<String, byte[]> entries) throws IOException {
+        Files.createDirectories(path.getParent());
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().putValue("Manifest-Version", "1.0");
+        try (OutputStream stream = Files.newOutputStream(path);
+             JarOutputStream jar = new JarOutputStream(stream, manifest)) {
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                jar.putNextEntry(new JarEntry(entry.getKey()));
+                jar.write(entry.getValue());
+                jar.closeEntry();
+            }
+        }
+    }
+
+    @Test
+    public void changedFilesAreListed() {
+        Assert.assertEquals(3, changedFiles.size());
+        Assert.assertTrue(changedFiles.containsKey(SERVICE));
+        Assert.assertTrue(changedFiles.containsKey(PROPERTIES));
+        Assert.assertTrue(changedFiles.containsKey(BINARY));
+        Assert.assertFalse(changedFiles.containsKey(UNCHANGED));
+    }
+
+    @Test
+    public void textFilesAreDiffed() {
+        String diff = changedFiles.get(PROPERTIES).getDiff();
+        Assert.assertNotNull(diff);
+        Assert.assertTrue(diff, diff.contains("<del style=\"background:#ffe6e6;\">2</del>"));
+        Assert.assertTrue(diff, diff.contains("<ins style=\"background:#e6ffe6;\">3</ins>"));
+        Assert.assertTrue(changedFiles.get(SERVICE).getDiff().contains("Other"));
+    }
+
+    @Test
+    public void binaryFilesAreNotDiffed() {
+        Assert.assertNull(changedFiles.get(BINARY).getDiff());
+    }
+
+    @Test
+    public void changedFilesAreUnexpected() {
+        Assert.assertFalse(theJar.getJarDiff().isEmptyExceptChangesInManifest());
+        Assert.assertNotEquals(Status.EXPECTED_DIFFERENCES, theJar.getStatus());
+    }
+}
@@ -0,0 +1,111 @@
+package org.wildfly.qa.distdiff2.phases.jardiff;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.wildfly.qa.distdiff2.jardiff.ClassFileInfo;
+
+/**
+ * Tests for {@link ClassFileInfo} class.
+ */
+public class ClassFileInfoTestCase {
+
+    private static final int JAVA_11 = 55;
+
+    @SuppressWarnings("unused")
+    private static final class Nested {
+
+        static final String[][] NAMES = {};
+
+        private int this$0;
+
+        protected long[] values(int first, String[] second, Map<String, ?> third) {
+            return null;
+        }
+
+        Object local() {
+            return new Object() {
+            };
+        }
+    }
+
+    private static ClassFileInfo read(Class<?> clazz) throws IOException {
+        String resource = "/" + clazz.getName().replace('.', '/') + ".class";
+        try (InputStream stream = ClassFileInfoTestCase.class.getResourceAsStream(resource)) {
+            return ClassFileInfo.read(stream);
+        }
+    }
+
+    @Test
+    public void nestedClass() throws IOException {
+        ClassFileInfo info = read(Nested.class);
+        Assert.assertEquals(Nested.class.getName(), info.getName());
+        Assert.assertEquals(JAVA_11, info.getMajorVersion());
+        // the modifiers come from the InnerClasses attribute, the class file itself has only 'final'
+        Assert.assertEquals(Nested.class.getModifiers(), info.getModifiers());
+        Assert.assertNull(info.getEnclosingClass());
+        Assert.assertTrue(info.hasStaticInitializer());
+
+        ClassFileInfo.Member method = info.getMethods().get("values(I[Ljava/lang/String;Ljava/util/Map;)");
+        Assert.assertEquals("long[] values(int,java.lang.String[],java.util.Map)", method.getSignature());
+        Assert.assertEquals(Modifier.PROTECTED, method.getModifiers());
+        Assert.assertEquals("java.lang.Object local()", info.getMethods().get("local()").getSignature());
+        Assert.assertEquals(2, info.getMethods().size());
+
+        Assert.assertEquals("java.lang.String[][] NAMES", info.getFields().get("NAMES").getSignature());
+        Assert.assertEquals(Modifier.STATIC | Modifier.FINAL, info.getFields().get("NAMES").getModifiers());
+        Assert.assertEquals("int 0", info.getFields().get("this$0").getSignature());
+    }
+
+    @Test
+    public void anonymousClass() throws IOException {
+        ClassFileInfo info = read(new Nested().local().getClass());
+        Assert.assertTrue(info.isLocal());
+        Assert.assertEquals(Nested.class.getName(), info.getEnclosingClass());
+        Assert.assertTrue(info.getMethods().isEmpty());
+    }
+
+    @Test(expected = IOException.class)
+    public void notClassFile() throws IOException {
+        ClassFileInfo.read(new ByteArrayInputStream(new byte[]{'P', 'K', 3, 4}));
+    }
+
+    @Test(expected = IOException.class)
+    public void truncatedClassFile() throws IOException {
+        ClassFileInfo.read(new ByteArrayInputStream(new byte[]{(byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE, 0, 0}));
+    }
+
+    /**
+     * Signatures are built from the descriptors on demand, malformed descriptors are rejected while reading.
+     */
+    @Test
+    public void malformedDescriptor() throws IOException {
+        assertMalformed("[[Ljava/lang/String;", "[[Xjava/lang/String;");
+        assertMalformed("(I[Ljava/lang/String;Ljava/util/Map;)[J", "(I[Ljava/lang/String;Ljava/util/Map;)[V");
+        assertMalformed("(I[Ljava/lang/String;Ljava/util/Map;)[J", "(I[Ljava/lang/String;Ljava/util/Map;[J)");
+    }
+
+    private static void assertMalformed(String descriptor, String malformed) throws IOException {
+        String resource = "/" + Nested.class.getName().replace('.', '/') + ".class";
+        byte[] bytes;
+        try (InputStream stream = ClassFileInfoTestCase.class.getResourceAsStream(resource)) {
+            bytes = stream.readAllBytes();
+        }
+        // ISO-8859-1 maps bytes to chars one to one, the descriptors are ASCII
+        String content = new String(bytes, StandardCharsets.ISO_8859_1);
+        Assert.assertTrue(content.contains(descriptor));
+        bytes = content.replace(descriptor, malformed).getBytes(StandardCharsets.ISO_8859_1);
+        try {
+            ClassFileInfo.read(new ByteArrayInputStream(bytes));
+            Assert.fail("Malformed descriptor " + malformed + " accepted");
+        } catch (IOException expected) {
+            Assert.assertTrue(expected.getMessage(), expected.getMessage().contains(malformed));
+        }
+    }
+}
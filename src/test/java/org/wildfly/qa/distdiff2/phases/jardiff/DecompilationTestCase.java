@@ -9,19 +9,25 @@ import org.wildfly.qa.distdiff2.jardiff.JarDiffPhase;
 import org.wildfly.qa.distdiff2.phase.MD5SumsPhase;
 import org.wildfly.qa.distdiff2.tools.Tools;
 import org.junit.Assert;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 /**
  * @author Jan Martiska
  */
 public class DecompilationTestCase {
 
+    @Rule
+    public final TemporaryFolder output = new TemporaryFolder();
+
     @Test
     public void doDecompilation() {
         DistDiff2Context.Builder builder = new DistDiff2Context.Builder();
         final DistDiff2Context ctx = builder
                 .pathA("src/test/resources/decompilation/a")
                 .pathB("src/test/resources/decompilation/b")
+                .output(output.getRoot())
                 .decompile(true)
                 .decompileAll(false)
                 .processPhase(MD5SumsPhase.class)
@@ -63,6 +69,7 @@ public class DecompilationTestCase {
         final DistDiff2Context ctx = builder
                 .pathA("src/test/resources/decompilation/_everything/a")
                 .pathB("src/test/resources/decompilation/_everything/b")
+                .output(output.getRoot())
                 .decompile(true)
                 .decompileAll(true)
                 .processPhase(MD5SumsPhase.class)
@@ -9,7 +9,9 @@ import org.wildfly.qa.distdiff2.phase.MD5SumsPhase;
 import org.wildfly.qa.distdiff2.results.Results;
 import org.junit.Assert;
 import org.junit.BeforeClass;
+import org.junit.ClassRule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 /**
  * Test that lambda expressions (compiled into synthetic methods)
@@ -18,6 +20,9 @@ import org.junit.Test;
  */
 public class LambdaExpressionJarDiffTestCase {
 
+    @ClassRule
+    public static final TemporaryFolder OUTPUT = new TemporaryFolder();
+
     private static DistDiff2Context ctx;
     private static Results results;
     private static JarArtifact theJar;
@@ -28,6 +33,7 @@ public class LambdaExpressionJarDiffTestCase {
         ctx = builder
                 .pathA("src/test/resources/jardiff/a")
                 .pathB("src/test/resources/jardiff/b")
+                .output(OUTPUT.getRoot())
                 .processPhase(MD5SumsPhase.class)
                 .processPhase(JarDiffPhase.class)
                 .build();
@@ -0,0 +1,102 @@
+package org.wildfly.qa.distdiff2.phases.jardiff;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.wildfly.qa.distdiff2.artifacts.Artifact;
+import org.wildfly.qa.distdiff2.artifacts.JarArtifact;
+import org.wildfly.qa.distdiff2.configuration.DistDiff2Context;
+import org.wildfly.qa.distdiff2.execution.DistDiff2Execution;
+import org.wildfly.qa.distdiff2.jardiff.JarDiffPhase;
+import org.wildfly.qa.distdiff2.phase.MD5SumsPhase;
+
+/**
+ * Results of {@link JarDiffPhase} must not depend on the number of threads.
+ */
+public class ParallelJarDiffTestCase {
+
+    private static final int JARS = 8;
+
+    private Path root;
+
+    @Before
+    public void prepareDistributions() throws IOException {
+        root = Files.createTempDirectory("paralleljardiff");
+        for (String distribution : new String[]{"a", "b"}) {
+            Path jar = Paths.get("src/test/resources/jardiff", distribution, "thejar.jar");
+            for (int i = 0; i < JARS; i++) {
+                Path copy = root.resolve(distribution).resolve("module" + i).resolve("thejar.jar");
+                Files.createDirectories(copy.getParent());
+                Files.copy(jar, copy);
+            }
+        }
+    }
+
+    @After
+    public void clean() throws IOException {
+        if (root != null && Files.exists(root)) {
+            Files.walk(root).sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    /**
+     * @return class summary followed by the diff and status of every JAR
+     */
+    private String execute(int threads, boolean decompile) throws IOException {
+        File output = root.resolve("output" + threads + decompile).toFile();
+        DistDiff2Context ctx = new DistDiff2Context.Builder()
+                .pathA(root.resolve("a").toString())
+                .pathB(root.resolve("b").toString())
+                .output(output)
+                .threads(threads)
+                .decompile(decompile)
+                .decompileAll(decompile)
+                .processPhase(MD5SumsPhase.class)
+                .processPhase(JarDiffPhase.class)
+                .build();
+        new DistDiff2Execution(ctx).execute();
+
+        List<String> lines = new ArrayList<>(
+                Files.readAllLines(new File(output, "class-summary.txt").toPath(), StandardCharsets.UTF_8));
+        int jars = 0;
+        for (Artifact artifact : ctx.getResults().getArtifacts()) {
+            if (artifact instanceof JarArtifact) {
+                JarArtifact jar = (JarArtifact) artifact;
+                Assert.assertNotNull(jar.getRelativePath(), jar.getJarDiff());
+                lines.add(jar.getRelativePath() + " " + jar.getStatus() + " " + jar.getJarDiff().toSimpleString());
+                jar.getJarDiff().getClassDiffs().forEach((className, classDiff) ->
+                        lines.add(className + " " + classDiff.getHtml_sourceCodeDiff()));
+                jars++;
+            }
+        }
+        Assert.assertEquals(JARS, jars);
+        return String.join("\n", lines);
+    }
+
+    @Test
+    public void sameResultsAsSequentialRun() throws IOException {
+        String sequential = execute(1, false);
+        Assert.assertEquals(sequential, execute(4, false));
+        for (int i = 0; i < JARS; i++) {
+            Assert.assertTrue(sequential.contains("module" + i + File.separator + "thejar.jar against"));
+        }
+    }
+
+    @Test
+    public void decompiledInParallel() throws IOException {
+        String sequential = execute(1, true);
+        Assert.assertTrue(sequential.contains("<pre>"));
+        Assert.assertEquals(sequential, execute(4, true));
+    }
+}
@@ -3,6 +3,7 @@ package org.wildfly.qa.distdiff2.phases.jarversions;
 import java.io.File;
 
 import org.wildfly.qa.distdiff2.artifacts.Artifact;
+import org.wildfly.qa.distdiff2.artifacts.FileArtifact;
 import org.wildfly.qa.distdiff2.configuration.DistDiff2Context;
 import org.wildfly.qa.distdiff2.execution.DistDiff2Execution;
 import org.wildfly.qa.distdiff2.phase.JarVersionComparePhase;
@@ -34,6 +35,7 @@ public class JarVersionDetectorTestCase {
         DistDiff2Context ctx = builder
                 .pathA("src/test/resources/jarversions/a")
                 .pathB("src/test/resources/jarversions/b")
+                .noHashCache(true)
                 .rpmAware(true)
                 .processPhase(JarVersionComparePhase.class)
                 .build();
@@ -45,6 +47,10 @@ public class JarVersionDetectorTestCase {
         Assert.assertTrue(artifact.getPathA().contains("a" + File.separator + "artifact-1.7.jar"));
         Assert.assertTrue(artifact.getPathB().contains("b" + File.separator + "artifact.jar"));
         Assert.assertEquals(Status.SAME, artifact.getStatus());
+        // the sums compared for the RPM match are kept on the artifact
+        FileArtifact jar = (FileArtifact) artifact;
+        Assert.assertNotNull(jar.getMd5sumA());
+        Assert.assertEquals(jar.getMd5sumA(), jar.getMd5sumB());
     }
 
 }
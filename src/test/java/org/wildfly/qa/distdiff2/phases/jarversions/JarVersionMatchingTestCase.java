@@ -0,0 +1,108 @@
+package org.wildfly.qa.distdiff2.phases.jarversions;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.wildfly.qa.distdiff2.artifacts.Artifact;
+import org.wildfly.qa.distdiff2.artifacts.FileArtifact;
+import org.wildfly.qa.distdiff2.configuration.DistDiff2Context;
+import org.wildfly.qa.distdiff2.execution.DistDiff2Execution;
+import org.wildfly.qa.distdiff2.phase.JarVersionComparePhase;
+import org.wildfly.qa.distdiff2.results.Results;
+import org.wildfly.qa.distdiff2.results.Status;
+
+/**
+ * Matching of REMOVED and ADDED JARs by {@link JarVersionComparePhase}.
+ */
+public class JarVersionMatchingTestCase {
+
+    private static final int MODULES = 200;
+
+    private Path root;
+
+    @Before
+    public void prepareDirectory() throws IOException {
+        root = Files.createTempDirectory("jarversions");
+    }
+
+    @After
+    public void clean() throws IOException {
+        if (root != null && Files.exists(root)) {
+            Files.walk(root).sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    private void createJar(String path, String content) throws IOException {
+        Path jar = root.resolve(path);
+        Files.createDirectories(jar.getParent());
+        try (OutputStream stream = Files.newOutputStream(jar);
+             JarOutputStream jarStream = new JarOutputStream(stream)) {
+            jarStream.putNextEntry(new JarEntry("content.txt"));
+            jarStream.write(content.getBytes(StandardCharsets.UTF_8));
+            jarStream.closeEntry();
+        }
+    }
+
+    private Results execute() {
+        DistDiff2Context ctx = new DistDiff2Context.Builder()
+                .pathA(root.resolve("a").toString())
+                .pathB(root.resolve("b").toString())
+                .noHashCache(true)
+                .processPhase(JarVersionComparePhase.class)
+                .build();
+        new DistDiff2Execution(ctx).execute();
+        return ctx.getResults();
+    }
+
+    @Test
+    public void upgradedJarsAreMatched() throws IOException {
+        for (int i = 0; i < MODULES; i++) {
+            createJar("a/modules/module" + i + "/artifact" + i + "-1.0.0.Final.jar", "1.0.0 " + i);
+            createJar("b/modules/module" + i + "/artifact" + i + "-1.1.1.Final.jar", "1.1.1 " + i);
+        }
+        Results results = execute();
+        for (int i = 0; i < MODULES; i++) {
+            Artifact artifact = results.findArtifactBySimpleName("artifact" + i + "-1.0.0.Final.jar");
+            Assert.assertEquals(Status.VERSION, artifact.getStatus());
+            Assert.assertTrue(artifact.getPathB().endsWith("artifact" + i + "-1.1.1.Final.jar"));
+            // single candidate, nothing is hashed
+            Assert.assertNull(((FileArtifact) artifact).getMd5sumA());
+            Assert.assertNull(results.findArtifactBySimpleName("artifact" + i + "-1.1.1.Final.jar"));
+        }
+    }
+
+    @Test
+    public void addedJarIsMatchedOnce() throws IOException {
+        createJar("a/modules/module/artifact-1.0.0.Final.jar", "1.0.0");
+        createJar("a/modules/module/artifact-1.0.1.Final.jar", "1.0.1");
+        createJar("b/modules/module/artifact-2.0.2.Final.jar", "2.0.2");
+        Results results = execute();
+        Assert.assertEquals(Status.VERSION, results.findArtifactBySimpleName("artifact-1.0.0.Final.jar").getStatus());
+        Assert.assertEquals(Status.REMOVED, results.findArtifactBySimpleName("artifact-1.0.1.Final.jar").getStatus());
+        Assert.assertNull(results.findArtifactBySimpleName("artifact-2.0.2.Final.jar"));
+    }
+
+    @Test
+    public void digestBreaksTie() throws IOException {
+        createJar("a/modules/module/artifact-1.0.0.Final.jar", "content");
+        createJar("b/modules/module/artifact-2.0.2.Final.jar", "content");
+        createJar("b/modules/module/other-1.0.0.Final.jar", "other content");
+        Results results = execute();
+        FileArtifact artifact = (FileArtifact) results.findArtifactBySimpleName("artifact-1.0.0.Final.jar");
+        Assert.assertEquals(Status.VERSION, artifact.getStatus());
+        Assert.assertTrue(artifact.getPathB().endsWith("artifact-2.0.2.Final.jar"));
+        Assert.assertNotNull(artifact.getMd5sumA());
+        Assert.assertEquals(Status.ADDED, results.findArtifactBySimpleName("other-1.0.0.Final.jar").getStatus());
+    }
+}
@@ -0,0 +1,202 @@
+package org.wildfly.qa.distdiff2.phases.md5sums;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.wildfly.qa.distdiff2.artifacts.Artifact;
+import org.wildfly.qa.distdiff2.artifacts.FileArtifact;
+import org.wildfly.qa.distdiff2.artifacts.FileDigest;
+import org.wildfly.qa.distdiff2.configuration.DistDiff2Context;
+import org.wildfly.qa.distdiff2.execution.DistDiff2Execution;
+import org.wildfly.qa.distdiff2.hashing.ComparisonTier;
+import org.wildfly.qa.distdiff2.phase.MD5SumsPhase;
+import org.wildfly.qa.distdiff2.results.Results;
+import org.wildfly.qa.distdiff2.results.Status;
+import org.wildfly.qa.distdiff2.results.StatusChange;
+
+/**
+ * Test cases for {@link MD5SumsPhase}.
+ */
+public class MD5SumsPhaseTestCase {
+
+    private static final int FILES = 50;
+
+    private static Path rootA;
+    private static Path rootB;
+
+    @BeforeClass
+    public static void prepareDistributions() throws IOException {
+        rootA = Files.createTempDirectory("rootA");
+        rootB = Files.createTempDirectory("rootB");
+        for (int i = 0; i < FILES; i++) {
+            Path folderA = Files.createDirectories(rootA.resolve("folder" + (i % 5)));
+            Path folderB = Files.createDirectories(rootB.resolve("folder" + (i % 5)));
+            Files.write(folderA.resolve("file" + i), ("content " + i).getBytes(StandardCharsets.UTF_8));
+            // every third file differs
+            String contentB = (i % 3 == 0) ? "changed content " + i : "content " + i;
+            Files.write(folderB.resolve("file" + i), contentB.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @AfterClass
+    public static void clean() throws IOException {
+        for (Path root : new Path[]{rootA, rootB}) {
+            if (root != null && Files.exists(root)) {
+                Files.walk(root).sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+    }
+
+    private static Results execute(int threads) {
+        return execute(threads, ComparisonTier.DEFAULT);
+    }
+
+    private static Results execute(int threads, String comparisonTiers) {
+        DistDiff2Context ctx = new DistDiff2Context.Builder()
+                .pathA(rootA.toAbsolutePath().toString())
+                .pathB(rootB.toAbsolutePath().toString())
+                .noHashCache(true)
+                .threads(threads)
+                .comparisonTiers(comparisonTiers)
+                .processPhase(MD5SumsPhase.class)
+                .build();
+        new DistDiff2Execution(ctx).execute();
+        return ctx.getResults();
+    }
+
+    @Test
+    public void checksumsAreCompared() {
+        Results results = execute(4, "digest");
+        int different = 0;
+        for (Artifact artifact : results.getArtifacts()) {
+            if (artifact instanceof FileArtifact) {
+                FileArtifact file = (FileArtifact) artifact;
+                int index = Integer.parseInt(file.getName().substring("file".length()));
+                if (index % 3 == 0) {
+                    different++;
+                    Assert.assertEquals(Status.DIFFERENT, file.getStatus());
+                    Assert.assertNotEquals(file.getMd5sumA(), file.getMd5sumB());
+                    Assert.assertNull(file.getMd5sum());
+                } else {
+                    Assert.assertEquals(Status.SAME, file.getStatus());
+                    Assert.assertNotNull(file.getMd5sum());
+                }
+            }
+        }
+        Assert.assertEquals(17, different);
+    }
+
+    /**
+     * Files of different sizes are never hashed, the checksums are stored only for the same files.
+     */
+    @Test
+    public void sizesAreComparedFirst() {
+        Results results = execute(4);
+        for (Artifact artifact : results.getArtifacts()) {
+            if (artifact instanceof FileArtifact && artifact.getStatus() == Status.DIFFERENT) {
+                FileArtifact file = (FileArtifact) artifact;
+                Assert.assertNull(file.getMd5sumA());
+                Assert.assertNull(file.getMd5sumB());
+                String reason = file.getStatusHistory().get(file.getStatusHistory().size() - 1).getReason();
+                Assert.assertTrue(reason, reason.startsWith("File sizes differ"));
+            } else if (artifact instanceof FileArtifact) {
+                Assert.assertNotNull(((FileArtifact) artifact).getMd5sum());
+            }
+        }
+    }
+
+    @Test
+    public void digestCanBeSkipped() {
+        Results results = execute(4, "size,crc32c");
+        int different = 0;
+        for (Artifact artifact : results.getArtifacts()) {
+            if (artifact instanceof FileArtifact) {
+                Assert.assertNull(((FileArtifact) artifact).getMd5sum());
+                if (artifact.getStatus() == Status.DIFFERENT) {
+                    different++;
+                }
+            }
+        }
+        Assert.assertEquals(17, different);
+    }
+
+    @Test
+    public void additionalDigests() {
+        DistDiff2Context ctx = new DistDiff2Context.Builder()
+                .pathA(rootA.toAbsolutePath().toString())
+                .pathB(rootB.toAbsolutePath().toString())
+                .noHashCache(true)
+                .comparisonTiers("digest")
+                .hashAlgorithm("md5,sha-256")
+                .processPhase(MD5SumsPhase.class)
+                .build();
+        new DistDiff2Execution(ctx).execute();
+        for (Artifact artifact : ctx.getResults().getArtifacts()) {
+            if (artifact instanceof FileArtifact) {
+                FileArtifact file = (FileArtifact) artifact;
+                Assert.assertEquals(1, file.getDigests().size());
+                FileDigest digest = file.getDigests().get(0);
+                Assert.assertEquals("SHA-256", digest.getAlgorithm());
+                if (file.getStatus() == Status.SAME) {
+                    Assert.assertEquals(32, file.getMd5sum().length());
+                    Assert.assertEquals(64, digest.getValue().length());
+                } else {
+                    Assert.assertNull(digest.getValue());
+                    Assert.assertNotEquals(digest.getValueA(), digest.getValueB());
+                }
+            }
+        }
+    }
+
+    /**
+     * Byte comparison stops at the first different byte and records its offset.
+     */
+    @Test
+    public void bytesRecordMismatchOffset() {
+        Results results = execute(4, "bytes");
+        for (Artifact artifact : results.getArtifacts()) {
+            if (artifact instanceof FileArtifact) {
+                FileArtifact file = (FileArtifact) artifact;
+                Assert.assertNull(file.getMd5sum());
+                if (file.getStatus() == Status.DIFFERENT) {
+                    // 'content ..' vs. 'changed content ..'
+                    Assert.assertEquals(Long.valueOf(1), file.getMismatchOffset());
+                    String reason = file.getStatusHistory().get(file.getStatusHistory().size() - 1).getReason();
+                    Assert.assertEquals("Files differ at offset 1 (A=0x6f, B=0x68)", reason);
+                } else {
+                    Assert.assertNull(file.getMismatchOffset());
+                }
+            }
+        }
+    }
+
+    /**
+     * Parallel execution has to produce the same artifacts in the same order with the same status history.
+     */
+    @Test
+    public void parallelExecutionIsDeterministic() {
+        Assert.assertEquals(describe(execute(1)), describe(execute(8)));
+    }
+
+    private static List<String> describe(Results results) {
+        List<String> description = new ArrayList<>();
+        for (Artifact artifact : results.getArtifacts()) {
+            StringBuilder sb = new StringBuilder(artifact.getRelativePath()).append(':').append(artifact.getStatus());
+            for (StatusChange change : artifact.getStatusHistory()) {
+                sb.append(';').append(change.getPhaseName()).append('=').append(change.getReason());
+            }
+            description.add(sb.toString());
+        }
+        return description;
+    }
+}
@@ -7,7 +7,9 @@ import org.wildfly.qa.distdiff2.results.Results;
 import org.wildfly.qa.distdiff2.results.Status;
 import org.junit.Assert;
 import org.junit.BeforeClass;
+import org.junit.ClassRule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import java.io.File;
 
@@ -16,6 +18,9 @@ import java.io.File;
  */
 public class ModuleXmlExpectedDifferencesTestCase {
 
+    @ClassRule
+    public static final TemporaryFolder OUTPUT = new TemporaryFolder();
+
     private static DistDiff2Context ctx;
     private static Results results;
     private static final String FS = File.separator;
@@ -26,6 +31,7 @@ public class ModuleXmlExpectedDifferencesTestCase {
         ctx = builder
                 .pathA("src/test/resources/module_xml_differences/a")
                 .pathB("src/test/resources/module_xml_differences/b")
+                .output(OUTPUT.getRoot())
                 .detectServerDistributionAndRegisterPhases()
                 .isFromSources(true)
                 .build();
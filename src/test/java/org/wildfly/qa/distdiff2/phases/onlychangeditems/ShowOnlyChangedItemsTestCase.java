@@ -18,6 +18,7 @@ public class ShowOnlyChangedItemsTestCase {
         final DistDiff2Context ctx = builder
                 .pathA("src/test/resources/onlychanged/a")
                 .pathB("src/test/resources/onlychanged/b")
+                .noHashCache(true)
                 .processPhase(ShowOnlyChangedItemsPhase.class)
                 .build();
         new DistDiff2Execution(ctx).execute();
@@ -43,6 +43,7 @@ public class PermissionsChangedTestCase {
         ctx = builder
                 .pathA("src/test/resources/permissions/a")
                 .pathB("src/test/resources/permissions/b")
+                .noHashCache(true)
                 .modifiedFilesFile("src/test/resources/permissions/expected-differences.txt")
                 .permissionDiff(true)
                 // Following line is here just because of this test: testFilePermissionsDifferentFilesEqualPermissions
@@ -10,7 +10,9 @@ import org.wildfly.qa.distdiff2.configuration.DistDiff2Context;
 import org.wildfly.qa.distdiff2.execution.DistDiff2Execution;
 import org.junit.Assert;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 /**
  * This testsuite performs whole dist-diff operation and then should check generated reports.
@@ -20,6 +22,9 @@ import org.junit.Test;
  */
 public class ReportingTestCase {
 
+    @Rule
+    public final TemporaryFolder output = new TemporaryFolder();
+
     private static final String PATH_A = "src/test/resources/reporting/a";
     private static final String PATH_B = "src/test/resources/reporting/b";
     private static final String EXPECTED_ARTIFACTS_NUMBERS_RECORD = "<artifactsNumbers><a>3</a><r>2</r><d>1</d><s>2</s><o>0</o><t>8</t></artifactsNumbers>";
@@ -33,6 +38,7 @@ public class ReportingTestCase {
         final DistDiff2Context context = builder
                 .pathA(PATH_A)
                 .pathB(PATH_B)
+                .output(output.getRoot())
                 .detectServerDistributionAndRegisterPhases()
                 .build();
 
@@ -0,0 +1,99 @@
+package org.wildfly.qa.distdiff2.phases.textFilesDiffsPhase;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.wildfly.qa.distdiff2.artifacts.Artifact;
+import org.wildfly.qa.distdiff2.artifacts.FileArtifact;
+import org.wildfly.qa.distdiff2.configuration.DistDiff2Context;
+import org.wildfly.qa.distdiff2.execution.DistDiff2Execution;
+import org.wildfly.qa.distdiff2.phase.MD5SumsPhase;
+import org.wildfly.qa.distdiff2.phase.TextFilesDiffsPhase;
+import org.wildfly.qa.distdiff2.results.StatusChange;
+
+/**
+ * Results of {@link TextFilesDiffsPhase} must not depend on the number of threads.
+ */
+public class ParallelTextFilesDiffsTestCase {
+
+    private static final int FILES = 16;
+
+    private Path root;
+
+    @Before
+    public void prepareDistributions() throws IOException {
+        root = Files.createTempDirectory("paralleltextdiff");
+        StringBuilder large = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) {
+            large.append("line number ").append(i).append('\n');
+        }
+        for (int i = 0; i < FILES; i++) {
+            write("a/dir" + i + "/words.txt", "simple content " + i);
+            write("b/dir" + i + "/words.txt", "different content " + i);
+            write("a/dir" + i + "/linebreaks.txt", "first\nsecond " + i + "\n");
+            write("b/dir" + i + "/linebreaks.txt", "first\r\nsecond " + i + "\r\n");
+            write("a/dir" + i + "/large.txt", large.toString());
+            write("b/dir" + i + "/large.txt", large.toString().replace("line number " + (i * 1000), "changed"));
+        }
+    }
+
+    @After
+    public void clean() throws IOException {
+        if (root != null && Files.exists(root)) {
+            Files.walk(root).sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    private void write(String path, String content) throws IOException {
+        Path file = root.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return diff and status history of every file followed by the errors
+     */
+    private String execute(int threads) {
+        DistDiff2Context ctx = new DistDiff2Context.Builder()
+                .pathA(root.resolve("a").toString())
+                .pathB(root.resolve("b").toString())
+                .noHashCache(true)
+                .threads(threads)
+                .processPhase(MD5SumsPhase.class)
+                .processPhase(TextFilesDiffsPhase.class)
+                .build();
+        new DistDiff2Execution(ctx).execute();
+
+        List<String> lines = new ArrayList<>();
+        for (Artifact artifact : ctx.getResults().getArtifacts()) {
+            if (artifact instanceof FileArtifact) {
+                lines.add(artifact.getRelativePath() + " " + artifact.getStatus() + " "
+                        + ((FileArtifact) artifact).getTextDiff());
+                for (StatusChange change : artifact.getStatusHistory()) {
+                    lines.add(change.getFromStatus() + " -> " + change.getToStatus() + " " + change.getPhaseName()
+                            + " " + change.getReason());
+                }
+            }
+        }
+        lines.addAll(ctx.getResults().getErrorMessages());
+        return String.join("\n", lines);
+    }
+
+    @Test
+    public void sameResultsAsSequentialRun() {
+        String sequential = execute(1);
+        Assert.assertEquals(sequential, execute(4));
+        Assert.assertTrue(sequential.contains("DIFFERENT_LINE_BREAKS TextFilesDiffsPhase"));
+        Assert.assertTrue(sequential.contains("<ins style=\"background:#e6ffe6;\">changed</ins>"));
+    }
+}
@@ -6,6 +6,7 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.Comparator;
 
 import org.wildfly.qa.distdiff2.artifacts.Artifact;
@@ -95,12 +96,35 @@ public class TextFilesDiffsPhaseTestCase {
             Files.write(fileIA, ("fsimple content\r\nfnext line\r\n").getBytes(StandardCharsets.UTF_8));
             Files.write(fileIB, ("fsimple content\nfnext line\n").getBytes(StandardCharsets.UTF_8));
 
+            // large files - diffed by lines
+            StringBuilder largeA = new StringBuilder();
+            StringBuilder largeB = new StringBuilder();
+            for (int i = 0; i < 20_000; i++) {
+                largeA.append("INSERT INTO TABLE VALUES (").append(i).append(", 'value');\n");
+                largeB.append("INSERT INTO TABLE VALUES (").append(i).append(i == 10_000 ? ", 'changed');" : ", 'value');")
+                        .append('\n');
+            }
+            Files.write(rootA.resolve("large.sql"), largeA.toString().getBytes(StandardCharsets.UTF_8));
+            Files.write(rootB.resolve("large.sql"), largeB.toString().getBytes(StandardCharsets.UTF_8));
+
+            // large files - just line breaks
+            Files.write(rootA.resolve("large-crlf.sql"), largeA.toString().getBytes(StandardCharsets.UTF_8));
+            Files.write(rootB.resolve("large-crlf.sql"),
+                    largeA.toString().replace("\n", "\r\n").getBytes(StandardCharsets.UTF_8));
+
+            // large files - different malformed UTF-8 bytes past the sniffed header, the same lines when decoded
+            byte[] large = largeA.toString().getBytes(StandardCharsets.UTF_8);
+            Files.write(rootA.resolve("large-malformed.sql"), large);
+            Files.write(rootA.resolve("large-malformed.sql"), new byte[]{(byte) 0xFF, '\n'}, StandardOpenOption.APPEND);
+            Files.write(rootB.resolve("large-malformed.sql"), large);
+            Files.write(rootB.resolve("large-malformed.sql"), new byte[]{(byte) 0xFE, '\n'}, StandardOpenOption.APPEND);
 
             // Okay, resources are created, now execute dist-diff itself
             DistDiff2Context.Builder builder = new DistDiff2Context.Builder();
             DistDiff2Context ctx = builder
                     .pathA(rootA.toAbsolutePath().toString())
                     .pathB(rootB.toAbsolutePath().toString())
+                    .noHashCache(true)
                     // We need to first check files for differences so XmlFilesComparePhase is executed.
                     .processPhase(MD5SumsPhase.class)
                     .processPhase(TextFilesDiffsPhase.class)
@@ -193,9 +217,7 @@ public class TextFilesDiffsPhaseTestCase {
         Assert.assertNotNull("Expected a file in the report, but it isn't there", artifact);
         Assert.assertEquals("Files are different but report states they are NOT!", Status.DIFFERENT_LINE_BREAKS,
                 artifact.getStatus());
-        final String expectedDiff = "Artifact in A uses UNIX style line endings while B uses WINDOWS<br/><br/><span>fsimple content</span><ins style=\"background:#e6ffe6;\">\r" +
-                "</ins><span><br>fnext line</span><ins style=\"background:#e6ffe6;\">\r" +
-                "</ins><span><br></span>";
+        final String expectedDiff = "Artifact in A uses UNIX style line endings while B uses WINDOWS";
         Assert.assertEquals(expectedDiff, ((FileArtifact) artifact).getTextDiff());
     }
 
@@ -205,9 +227,37 @@ public class TextFilesDiffsPhaseTestCase {
         Assert.assertNotNull("Expected a file in the report, but it isn't there", artifact);
         Assert.assertEquals("Files are different but report states they are NOT!", Status.DIFFERENT_LINE_BREAKS,
                 artifact.getStatus());
-        final String expectedDiff = "Artifact in A uses WINDOWS style line endings while B uses UNIX<br/><br/><span>fsimple content</span><del style=\"background:#ffe6e6;\">\r" +
-                "</del><span><br>fnext line</span><del style=\"background:#ffe6e6;\">\r" +
-                "</del><span><br></span>";
+        final String expectedDiff = "Artifact in A uses WINDOWS style line endings while B uses UNIX";
         Assert.assertEquals(expectedDiff, ((FileArtifact) artifact).getTextDiff());
     }
+
+    @Test
+    public void largeFilesAreDiffedByLines() {
+        artifact = results.findArtifactByRelativePath("large.sql");
+        Assert.assertNotNull("Expected a file in the report, but it isn't there", artifact);
+        Assert.assertEquals(Status.DIFFERENT, artifact.getStatus());
+        final String textDiff = ((FileArtifact) artifact).getTextDiff();
+        Assert.assertTrue(textDiff, textDiff.startsWith("<b>@@ -9998,7 +9998,7 @@</b><br><span>INSERT INTO TABLE VALUES (9997"));
+        Assert.assertTrue(textDiff, textDiff.contains("<del style=\"background:#ffe6e6;\">value</del>"
+                + "<ins style=\"background:#e6ffe6;\">changed</ins>"));
+        Assert.assertFalse(textDiff, textDiff.contains("(9996"));
+    }
+
+    @Test
+    public void largeFilesLineBreaksDetectionStatus() {
+        artifact = results.findArtifactByRelativePath("large-crlf.sql");
+        Assert.assertNotNull("Expected a file in the report, but it isn't there", artifact);
+        Assert.assertEquals(Status.DIFFERENT_LINE_BREAKS, artifact.getStatus());
+        Assert.assertEquals("Artifact in A uses UNIX style line endings while B uses WINDOWS",
+                ((FileArtifact) artifact).getTextDiff());
+    }
+
+    @Test
+    public void largeFilesWithTheSameLines() {
+        artifact = results.findArtifactByRelativePath("large-malformed.sql");
+        Assert.assertNotNull("Expected a file in the report, but it isn't there", artifact);
+        Assert.assertEquals(Status.DIFFERENT, artifact.getStatus());
+        Assert.assertEquals("Files differ, but their lines and line breaks are the same when read as UTF-8",
+                ((FileArtifact) artifact).getTextDiff());
+    }
 }
@@ -0,0 +1,108 @@
+package org.wildfly.qa.distdiff2.phases.textFilesDiffsPhase;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.wildfly.qa.distdiff2.artifacts.FileArtifact;
+import org.wildfly.qa.distdiff2.configuration.DistDiff2Context;
+import org.wildfly.qa.distdiff2.execution.DistDiff2Execution;
+import org.wildfly.qa.distdiff2.phase.MD5SumsPhase;
+import org.wildfly.qa.distdiff2.phase.TextFilesDiffsPhase;
+import org.wildfly.qa.distdiff2.results.Results;
+import org.wildfly.qa.distdiff2.results.Status;
+
+/**
+ * Normalized equality check of {@link TextFilesDiffsPhase} with different text normalizations.
+ */
+public class TextNormalizationsTestCase {
+
+    private Path root;
+
+    @Before
+    public void prepareDistributions() throws IOException {
+        root = Files.createTempDirectory("textnormalizations");
+        write("a/linebreaks.txt", "first\nsecond\n");
+        write("b/linebreaks.txt", "first\r\nsecond\r\n");
+        write("a/whitespace.txt", "first\nsecond\n");
+        write("b/whitespace.txt", "first  \nsecond");
+        write("a/bom.txt", "\uFEFFfirst\nsecond\n");
+        write("b/bom.txt", "first\nsecond\n");
+        write("a/different.txt", "first\nsecond\n");
+        write("b/different.txt", "first\r\nthird \r\n");
+    }
+
+    @After
+    public void clean() throws IOException {
+        if (root != null && Files.exists(root)) {
+            Files.walk(root).sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    private void write(String path, String content) throws IOException {
+        Path file = root.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Results execute(String normalizations) {
+        DistDiff2Context ctx = new DistDiff2Context.Builder()
+                .pathA(root.resolve("a").toString())
+                .pathB(root.resolve("b").toString())
+                .noHashCache(true)
+                .textNormalizations(normalizations)
+                .processPhase(MD5SumsPhase.class)
+                .processPhase(TextFilesDiffsPhase.class)
+                .build();
+        new DistDiff2Execution(ctx).execute();
+        return ctx.getResults();
+    }
+
+    private static FileArtifact artifact(Results results, String path) {
+        FileArtifact artifact = (FileArtifact) results.findArtifactByRelativePath(path);
+        Assert.assertNotNull("Expected a file in the report, but it isn't there", artifact);
+        return artifact;
+    }
+
+    @Test
+    public void allNormalizations() {
+        Results results = execute("line-breaks,trailing-whitespace,bom");
+
+        FileArtifact lineBreaks = artifact(results, "linebreaks.txt");
+        Assert.assertEquals(Status.DIFFERENT_LINE_BREAKS, lineBreaks.getStatus());
+        Assert.assertEquals("Artifact in A uses UNIX style line endings while B uses WINDOWS", lineBreaks.getTextDiff());
+
+        FileArtifact whitespace = artifact(results, "whitespace.txt");
+        Assert.assertEquals(Status.SAME, whitespace.getStatus());
+        Assert.assertNull(whitespace.getTextDiff());
+        Assert.assertEquals(Status.SAME, artifact(results, "bom.txt").getStatus());
+
+        FileArtifact different = artifact(results, "different.txt");
+        Assert.assertEquals(Status.DIFFERENT, different.getStatus());
+        Assert.assertTrue(different.getTextDiff(), different.getTextDiff().contains("third"));
+    }
+
+    @Test
+    public void defaultNormalizations() {
+        Results results = execute("line-breaks");
+        Assert.assertEquals(Status.DIFFERENT_LINE_BREAKS, artifact(results, "linebreaks.txt").getStatus());
+        Assert.assertEquals(Status.DIFFERENT, artifact(results, "whitespace.txt").getStatus());
+        Assert.assertEquals(Status.DIFFERENT, artifact(results, "bom.txt").getStatus());
+    }
+
+    @Test
+    public void noNormalization() {
+        Results results = execute("none");
+        FileArtifact lineBreaks = artifact(results, "linebreaks.txt");
+        Assert.assertEquals(Status.DIFFERENT_LINE_BREAKS, lineBreaks.getStatus());
+        Assert.assertTrue(lineBreaks.getTextDiff(), lineBreaks.getTextDiff().startsWith(
+                "Artifact in A uses UNIX style line endings while B uses WINDOWS<br/><br/><span>first</span>"));
+    }
+}
@@ -35,6 +35,7 @@ public class XmlFilesComparePhaseTestCase {
         ctx = builder
                 .pathA("src/test/resources/xmlComparison/a")
                 .pathB("src/test/resources/xmlComparison/b")
+                .noHashCache(true)
                 // We need to first check files for differences so XmlFilesComparePhase is executed.
                 .processPhase(MD5SumsPhase.class)
                 .processPhase(XmlFilesComparePhase.class)
@@ -48,6 +49,7 @@ public class XmlFilesComparePhaseTestCase {
         ctx = builder
                 .pathA("src/test/resources/xmlComparison/a")
                 .pathB("src/test/resources/xmlComparison/b")
+                .noHashCache(true)
                 // We need to first check files for differences so XmlFilesComparePhase is executed.
                 .processPhase(MD5SumsPhase.class)
                 .processPhase(XmlFilesComparePhase.class)
@@ -18,6 +18,7 @@ public class VersionTestCase {
         final DistDiff2Context ctx = builder
                 .pathA("src/test/resources/empty")
                 .pathB("src/test/resources/empty")
+                .noHashCache(true)
                 .processPhase(DummyPhase.class)
                 .build();
 
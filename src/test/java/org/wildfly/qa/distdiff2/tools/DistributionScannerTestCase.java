@@ -0,0 +1,112 @@
+package org.wildfly.qa.distdiff2.tools;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.wildfly.qa.distdiff2.artifacts.Artifact;
+import org.wildfly.qa.distdiff2.artifacts.FileArtifact;
+import org.wildfly.qa.distdiff2.artifacts.FolderArtifact;
+import org.wildfly.qa.distdiff2.artifacts.JarArtifact;
+
+/**
+ * Tests for {@link DistributionScanner} class.
+ */
+public class DistributionScannerTestCase {
+
+    private Path root;
+
+    @Before
+    public void prepare() throws IOException {
+        root = Files.createTempDirectory("rootA");
+        Files.createDirectories(root.resolve("modules").resolve("system"));
+        Files.createDirectories(root.resolve("bin"));
+        Files.write(root.resolve("bin").resolve("standalone.sh"), "#!/bin/sh".getBytes(StandardCharsets.UTF_8));
+        Files.write(root.resolve("modules").resolve("system").resolve("lib.jar"), new byte[0]);
+        Files.write(root.resolve("modules").resolve("module.xml"), "<module/>".getBytes(StandardCharsets.UTF_8));
+        Files.write(root.resolve("README.txt"), "readme".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @After
+    public void clean() throws IOException {
+        if (Files.exists(root)) {
+            Files.walk(root).sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    /**
+     * Folders are followed by their content, entries of one folder are sorted by name.
+     */
+    @Test
+    public void scanOrderIsDeterministic() {
+        List<Artifact> artifacts;
+        try (DistributionScanner scanner = new DistributionScanner(4)) {
+            artifacts = scanner.scan(root.toFile(), true);
+        }
+
+        List<String> relativePaths = new ArrayList<>();
+        for (Artifact artifact : artifacts) {
+            relativePaths.add(artifact.getRelativePath());
+        }
+        Assert.assertEquals(Arrays.asList(
+                "README.txt",
+                "bin",
+                "bin" + File.separator + "standalone.sh",
+                "modules",
+                "modules" + File.separator + "module.xml",
+                "modules" + File.separator + "system",
+                "modules" + File.separator + "system" + File.separator + "lib.jar"), relativePaths);
+
+        Artifact jar = artifacts.get(6);
+        Assert.assertTrue(jar instanceof JarArtifact);
+        Assert.assertEquals(2, jar.getLevel());
+        Assert.assertEquals("modules" + File.separator + "system", jar.getParentRelativePath());
+        Assert.assertEquals(root.resolve("modules").resolve("system").resolve("lib.jar").toString(), jar.getPathA());
+        Assert.assertNull(jar.getPathB());
+
+        Assert.assertTrue(artifacts.get(1) instanceof FolderArtifact);
+        Assert.assertEquals(0, artifacts.get(1).getLevel());
+        Assert.assertEquals("", artifacts.get(1).getParentRelativePath());
+        Assert.assertEquals(6, ((FileArtifact) artifacts.get(0)).getSize());
+    }
+
+    /**
+     * Both distributions can be scanned at the same time by one scanner.
+     */
+    @Test
+    public void scanBothDistributions() {
+        try (DistributionScanner scanner = new DistributionScanner()) {
+            List<Artifact> artifactsA = scanner.submit(root.toFile(), true).join();
+            List<Artifact> artifactsB = scanner.submit(root.toFile(), false).join();
+            Assert.assertEquals(artifactsA, artifactsB);
+            Assert.assertEquals(Tools.readAllItemsFromFolder(root.toFile(), true), artifactsA);
+            Assert.assertNotNull(artifactsB.get(0).getPathB());
+        }
+    }
+
+    /**
+     * POSIX permissions are read together with the rest of the attributes.
+     */
+    @Test
+    public void posixPermissionsAreScanned() throws IOException {
+        Assume.assumeTrue(Files.getFileStore(root).supportsFileAttributeView(PosixFileAttributeView.class));
+        Files.setPosixFilePermissions(root.resolve("README.txt"), PosixFilePermissions.fromString("rw-r-----"));
+
+        List<Artifact> artifacts = Tools.readAllItemsFromFolder(root.toFile(), false);
+        Assert.assertEquals("rw-r-----", artifacts.get(0).getPosixPermissionsB());
+        Assert.assertNull(artifacts.get(0).getPosixPermissionsA());
+    }
+}
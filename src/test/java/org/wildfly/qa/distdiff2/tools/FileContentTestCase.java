@@ -0,0 +1,82 @@
+package org.wildfly.qa.distdiff2.tools;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link FileContent} class.
+ */
+public class FileContentTestCase {
+
+    private Path root;
+
+    @Before
+    public void prepareDirectory() throws IOException {
+        root = Files.createTempDirectory("filecontent");
+    }
+
+    @After
+    public void clean() throws IOException {
+        if (root != null && Files.exists(root)) {
+            Files.walk(root).sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    private Path write(String name, String content) throws IOException {
+        return Files.write(root.resolve(name), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String header(int length) {
+        StringBuilder header = new StringBuilder();
+        while (header.length() < length) {
+            header.append("the same line\n");
+        }
+        return header.toString();
+    }
+
+    @Test
+    public void lineBreaksAreDetectedInWholeFile() throws IOException {
+        String text = header(FileTypeSniffer.HEADER_SIZE * 2) + "windows\r\nline\r\n";
+        FileContent content = new FileContent(write("mixed.txt", text), null, new byte[64 * 1024]);
+        Assert.assertEquals(LineBreakStyle.WINDOWS, content.getLineBreakStyle());
+        Assert.assertEquals(text, content.getText());
+    }
+
+    @Test
+    public void fileTypeIsSniffedOnlyIfUnknown() throws IOException {
+        Path file = write("file.txt", "plain text\n");
+        FileContent content = new FileContent(file, null, new byte[1024]);
+        Assert.assertTrue(content.getFileType().isText());
+        FileType binary = new FileType(FileTypeSniffer.UNKNOWN_BINARY_FORMAT, false, FileType.Format.NONE, null);
+        Assert.assertSame(binary, new FileContent(file, binary, new byte[1024]).getFileType());
+    }
+
+    @Test
+    public void bufferIsReused() throws IOException {
+        byte[] buffer = new byte[1024];
+        Assert.assertEquals("first\n", new FileContent(write("a.txt", "first\n"), null, buffer).getText());
+        Assert.assertEquals("2nd\n", new FileContent(write("b.txt", "2nd\n"), null, buffer).getText());
+    }
+
+    @Test
+    public void largeFileIsNotLoaded() throws IOException {
+        FileContent content = new FileContent(write("large.txt", header(2048)), null, new byte[1024]);
+        Assert.assertFalse(content.isLoadable());
+        Assert.assertTrue(content.getFileType().isText());
+        try {
+            content.getText();
+            Assert.fail("Content larger than the buffer must not be loaded");
+        } catch (IllegalStateException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("does not fit the buffer"));
+        }
+    }
+}
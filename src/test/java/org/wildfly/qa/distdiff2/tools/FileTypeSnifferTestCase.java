@@ -0,0 +1,89 @@
+package org.wildfly.qa.distdiff2.tools;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for {@link FileTypeSniffer} class.
+ */
+public class FileTypeSnifferTestCase {
+
+    @Test
+    public void textFile() throws Exception {
+        FileType fileType = FileTypeSniffer.sniff(
+                Paths.get(ClassLoader.getSystemResource("fileanalysis/textorbinary/text-file").toURI()));
+        Assert.assertTrue(fileType.isText());
+        Assert.assertEquals("text/plain", fileType.getMimeType());
+        Assert.assertEquals(FileType.Format.NONE, fileType.getFormat());
+    }
+
+    @Test
+    public void binaryFile() throws Exception {
+        FileType fileType = FileTypeSniffer.sniff(
+                Paths.get(ClassLoader.getSystemResource("fileanalysis/textorbinary/not-a-text-file.png").toURI()));
+        Assert.assertFalse(fileType.isText());
+        Assert.assertEquals("image/png", fileType.getMimeType());
+        Assert.assertNull(fileType.getLineBreakStyle());
+    }
+
+    @Test
+    public void lineBreaks() {
+        Assert.assertEquals(LineBreakStyle.WINDOWS, sniff("a.txt", "first\r\nsecond\r\n").getLineBreakStyle());
+        Assert.assertEquals(LineBreakStyle.UNIX, sniff("a.txt", "first\nsecond\n").getLineBreakStyle());
+        Assert.assertEquals(LineBreakStyle.UNIX, sniff("a.txt", "single line").getLineBreakStyle());
+    }
+
+    @Test
+    public void accentedCharactersAreText() {
+        Assert.assertTrue(sniff("README", "Grüße, voilà - 5 €").isText());
+        Assert.assertFalse(sniff("README", "\u0000\u0001\u0002\u0003abc").isText());
+        Assert.assertFalse(sniff("README", "").isText());
+        // byte order mark is not a character of the text
+        Assert.assertTrue(sniff("README", "\uFEFFok").isText());
+    }
+
+    @Test
+    public void mimeTypes() {
+        Assert.assertEquals("text/xml", sniff("module.xml", "<module/>").getMimeType());
+        Assert.assertEquals("text/plain", sniff("standalone.conf", "JAVA_OPTS=").getMimeType());
+        // text/plain by extension, but binary content
+        Assert.assertEquals(FileTypeSniffer.UNKNOWN_BINARY_FORMAT, sniff("data.txt", "\u0000\u0001\u0002").getMimeType());
+    }
+
+    @Test
+    public void magicNumbers() {
+        byte[] elf = new byte[64];
+        elf[0] = 0x7F;
+        elf[1] = 'E';
+        elf[2] = 'L';
+        elf[3] = 'F';
+        elf[5] = 1;
+        elf[16] = 3;
+        FileType sharedLibrary = FileTypeSniffer.sniff("libnative", elf, elf.length);
+        Assert.assertEquals(FileType.Format.ELF, sharedLibrary.getFormat());
+        Assert.assertEquals("application/x-sharedlib", sharedLibrary.getMimeType());
+        elf[16] = 2;
+        Assert.assertEquals("application/x-executable", FileTypeSniffer.sniff("app.so", elf, elf.length).getMimeType());
+
+        byte[] zip = {'P', 'K', 3, 4, 0, 0};
+        Assert.assertEquals(FileType.Format.ZIP, FileTypeSniffer.sniff("archive", zip, zip.length).getFormat());
+        Assert.assertEquals("application/zip", FileTypeSniffer.sniff("archive", zip, zip.length).getMimeType());
+        Assert.assertEquals("application/x-java-archive", FileTypeSniffer.sniff("a.jar", zip, zip.length).getMimeType());
+
+        byte[] pe = new byte[128];
+        pe[0] = 'M';
+        pe[1] = 'Z';
+        pe[0x3C] = 0x40;
+        pe[0x40] = 'P';
+        pe[0x41] = 'E';
+        Assert.assertEquals(FileType.Format.PE, FileTypeSniffer.sniff("tool", pe, pe.length).getFormat());
+    }
+
+    private static FileType sniff(String name, String content) {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        return FileTypeSniffer.sniff(name, bytes, bytes.length);
+    }
+}
@@ -0,0 +1,171 @@
+package org.wildfly.qa.distdiff2.tools;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link LineDiff} class.
+ */
+public class LineDiffTestCase {
+
+    private Path root;
+
+    @Before
+    public void prepareDirectory() throws IOException {
+        root = Files.createTempDirectory("linediff");
+    }
+
+    @After
+    public void clean() throws IOException {
+        if (root != null && Files.exists(root)) {
+            Files.walk(root).sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    private Path write(String name, String content) throws IOException {
+        return Files.write(root.resolve(name), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Applies the edits to A, the result must be B.
+     */
+    private static void assertEditScript(int[] a, int[] b, LineDiff diff) {
+        List<Integer> result = new ArrayList<>();
+        int line = 0;
+        for (LineDiff.Edit edit : diff.getEdits()) {
+            Assert.assertTrue(edit.getStartA() >= line);
+            for (; line < edit.getStartA(); line++) {
+                result.add(a[line]);
+            }
+            for (int i = edit.getStartB(); i < edit.getEndB(); i++) {
+                result.add(b[i]);
+            }
+            line = edit.getEndA();
+        }
+        for (; line < a.length; line++) {
+            result.add(a[line]);
+        }
+        Assert.assertEquals(Arrays.toString(b), result.toString());
+    }
+
+    @Test
+    public void shortestEditScript() {
+        int[] a = {1, 2, 3, 4, 5, 6};
+        int[] b = {1, 3, 4, 7, 5, 6, 8};
+        LineDiff diff = LineDiff.compare(a, b);
+        assertEditScript(a, b, diff);
+        Assert.assertEquals(3, diff.getEdits().size());
+        Assert.assertTrue(LineDiff.compare(a, a.clone()).isEmpty());
+    }
+
+    @Test
+    public void randomEditScripts() {
+        Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            int[] a = random.ints(random.nextInt(60), 0, 6).toArray();
+            int[] b = random.ints(random.nextInt(60), 0, 6).toArray();
+            assertEditScript(a, b, LineDiff.compare(a, b));
+        }
+    }
+
+    @Test
+    public void differentFilesAreDiffedQuickly() {
+        int[] a = new int[200_000];
+        int[] b = new int[200_000];
+        for (int i = 0; i < a.length; i++) {
+            a[i] = i;
+            b[i] = a.length + i;
+        }
+        long start = System.nanoTime();
+        LineDiff diff = LineDiff.compare(a, b);
+        Assert.assertTrue(System.nanoTime() - start < 30_000_000_000L);
+        assertEditScript(a, b, diff);
+    }
+
+    @Test
+    public void lineBreaksAreNotPartOfLines() throws IOException {
+        Path fileA = write("a.txt", "first\nsecond\nthird\n");
+        Path fileB = write("b.txt", "first\r\nsecond\r\nthird\r\n");
+        Assert.assertTrue(LineDiff.compare(fileA, fileB, StandardCharsets.UTF_8).isEmpty());
+        Path noLineBreak = write("c.txt", "first\nsecond\nthird");
+        Assert.assertFalse(LineDiff.compare(fileA, noLineBreak, StandardCharsets.UTF_8).isEmpty());
+    }
+
+    /**
+     * Lines with equal hashes but different text are changed lines, simulated by the line numbers passed in.
+     */
+    @Test
+    public void hashCollisionDoesNotHideChange() throws IOException {
+        Path fileA = write("a.txt", "same\nfirst\nsame\nfirst\n");
+        Path fileB = write("b.txt", "same\nsecond\nsame\nsecond");
+        int[] lines = {0, 1, 0, 1};
+        LineDiff diff = LineDiff.compare(fileA, fileB, StandardCharsets.UTF_8, lines, lines.clone());
+        Assert.assertEquals(2, diff.getEdits().size());
+        Assert.assertEquals(1, diff.getEdits().get(0).getStartB());
+        Assert.assertEquals(3, diff.getEdits().get(1).getStartB());
+        String html = diff.toHtml(fileA, fileB, StandardCharsets.UTF_8);
+        Assert.assertTrue(html, html.contains("second"));
+
+        // the same text, only the last line is not terminated by a line break
+        Path noLineBreak = write("c.txt", "same\nfirst\nsame\nfirst");
+        diff = LineDiff.compare(fileA, noLineBreak, StandardCharsets.UTF_8, lines, lines.clone());
+        Assert.assertEquals(1, diff.getEdits().size());
+        Assert.assertEquals(3, diff.getEdits().get(0).getStartA());
+        Assert.assertTrue(LineDiff.compare(fileA, fileA, StandardCharsets.UTF_8, lines, lines.clone()).isEmpty());
+    }
+
+    @Test
+    public void changedLinesAreRefined() throws IOException {
+        StringBuilder contentA = new StringBuilder();
+        StringBuilder contentB = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            contentA.append("line ").append(i).append('\n');
+            contentB.append("line ").append(i == 50 ? "fifty" : String.valueOf(i)).append('\n');
+        }
+        contentB.append("<added/>\n");
+        Path fileA = write("a.txt", contentA.toString());
+        Path fileB = write("b.txt", contentB.toString());
+        LineDiff diff = LineDiff.compare(fileA, fileB, StandardCharsets.UTF_8);
+        Assert.assertEquals(2, diff.getEdits().size());
+        String html = diff.toHtml(fileA, fileB, StandardCharsets.UTF_8);
+        Assert.assertTrue(html, html.contains("<del style=\"background:#ffe6e6;\">50</del>"
+                + "<ins style=\"background:#e6ffe6;\">fifty</ins>"));
+        Assert.assertTrue(html, html.contains("<ins style=\"background:#e6ffe6;\">&lt;added/&gt;"));
+        Assert.assertTrue(html, html.contains("<b>@@ -48,7 +48,7 @@</b>"));
+        Assert.assertTrue(html, html.contains("line 47"));
+        Assert.assertFalse(html, html.contains("line 46"));
+    }
+
+    @Test
+    public void largeFileIsDiffedByLines() throws IOException {
+        Path fileA = root.resolve("a.sql");
+        Path fileB = root.resolve("b.sql");
+        try (BufferedWriter writerA = Files.newBufferedWriter(fileA, StandardCharsets.UTF_8);
+             BufferedWriter writerB = Files.newBufferedWriter(fileB, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < 200_000; i++) {
+                String line = "INSERT INTO TABLE_" + (i % 100) + " VALUES (" + i + ", 'value');\n";
+                writerA.write(line);
+                writerB.write(i % 20_000 == 0 ? line.replace("value", "changed") : line);
+            }
+        }
+        LineDiff diff = LineDiff.compare(fileA, fileB, StandardCharsets.UTF_8);
+        Assert.assertEquals(10, diff.getEdits().size());
+        String html = diff.toHtml(fileA, fileB, StandardCharsets.UTF_8);
+        Assert.assertTrue(html.length() < 10_000);
+        Assert.assertTrue(html, html.contains("<ins style=\"background:#e6ffe6;\">changed</ins>"));
+    }
+}
@@ -0,0 +1,94 @@
+package org.wildfly.qa.distdiff2.tools;
+
+import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for {@link TextNormalizer} and {@link TextNormalization} classes.
+ */
+public class TextNormalizerTestCase {
+
+    private static final Set<TextNormalization> ALL = EnumSet.allOf(TextNormalization.class);
+
+    private static TextNormalizer.Fingerprint fingerprint(String content, Set<TextNormalization> normalizations) {
+        return fingerprint(content.getBytes(StandardCharsets.UTF_8), normalizations);
+    }
+
+    private static TextNormalizer.Fingerprint fingerprint(byte[] bytes, Set<TextNormalization> normalizations) {
+        TextNormalizer normalizer = new TextNormalizer(normalizations);
+        // byte by byte, so the line breaks and BOM are split among updates
+        for (int i = 0; i < bytes.length; i++) {
+            normalizer.update(bytes, i, 1);
+        }
+        return normalizer.finish();
+    }
+
+    private static boolean equal(String a, String b, Set<TextNormalization> normalizations) {
+        return fingerprint(a, normalizations).isEqualAfterNormalization(fingerprint(b, normalizations));
+    }
+
+    @Test
+    public void lineBreaks() {
+        Set<TextNormalization> lineBreaks = EnumSet.of(TextNormalization.LINE_BREAKS);
+        Assert.assertTrue(equal("a\nb\n", "a\r\nb\r\n", lineBreaks));
+        Assert.assertTrue(equal("a\nb\n", "a\rb\r", lineBreaks));
+        Assert.assertFalse(equal("a\nb\n", "a\n\nb\n", lineBreaks));
+        Assert.assertFalse(equal("a\nb\n", "a\r\nb\r\n", EnumSet.noneOf(TextNormalization.class)));
+
+        TextNormalizer.Fingerprint unix = fingerprint("a\nb\n", lineBreaks);
+        TextNormalizer.Fingerprint windows = fingerprint("a\r\nb\r\n", lineBreaks);
+        Assert.assertFalse(unix.hasSameLineBreaks(windows));
+        Assert.assertEquals(LineBreakStyle.UNIX, unix.getLineBreakStyle());
+        Assert.assertEquals(LineBreakStyle.WINDOWS, windows.getLineBreakStyle());
+    }
+
+    @Test
+    public void trailingWhitespace() {
+        Set<TextNormalization> trailingWhitespace = EnumSet.of(TextNormalization.TRAILING_WHITESPACE);
+        Assert.assertTrue(equal("a \t\nb\n", "a\nb  \n", trailingWhitespace));
+        Assert.assertTrue(equal("a\nb", "a\nb\n\n  \n", trailingWhitespace));
+        Assert.assertFalse(equal("a b\n", "a  b\n", trailingWhitespace));
+        Assert.assertFalse(equal("a\n\nb\n", "a\nb\n", trailingWhitespace));
+        Assert.assertFalse(equal("a\nb\n", "a\r\nb\r\n", trailingWhitespace));
+        // dropped line break at the end of the file is not a line break difference
+        Assert.assertTrue(fingerprint("a\nb", trailingWhitespace)
+                .hasSameLineBreaks(fingerprint("a\nb\n", trailingWhitespace)));
+    }
+
+    @Test
+    public void bom() {
+        Set<TextNormalization> bom = EnumSet.of(TextNormalization.BOM);
+        Assert.assertTrue(equal("\uFEFFa\n", "a\n", bom));
+        Assert.assertFalse(equal("a\uFEFF\n", "a\n", bom));
+        Assert.assertFalse(equal("\uFEFFa\n", "a\n", EnumSet.of(TextNormalization.LINE_BREAKS)));
+        // beginning of a BOM is content
+        byte[] partialBom = {(byte) 0xEF, (byte) 0xBB, 'a'};
+        Assert.assertFalse(fingerprint(partialBom, bom).isEqualAfterNormalization(fingerprint("a", bom)));
+        Assert.assertTrue(fingerprint(partialBom, bom).isEqualAfterNormalization(
+                fingerprint(partialBom, EnumSet.noneOf(TextNormalization.class))));
+        byte[] bomOnly = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+        Assert.assertTrue(fingerprint(bomOnly, bom).isEqualAfterNormalization(fingerprint("", bom)));
+    }
+
+    @Test
+    public void allNormalizations() {
+        Assert.assertTrue(equal("\uFEFFa \r\nb\r\n\r\n", "a\nb", ALL));
+        Assert.assertFalse(equal("\uFEFFa \r\nb\r\n\r\n", "a\nc", ALL));
+    }
+
+    @Test
+    public void parse() {
+        Assert.assertEquals(EnumSet.of(TextNormalization.LINE_BREAKS), TextNormalization.parse(TextNormalization.DEFAULT));
+        Assert.assertEquals(ALL, TextNormalization.parse("line-breaks, Trailing-Whitespace,BOM"));
+        Assert.assertTrue(TextNormalization.parse(TextNormalization.NONE).isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parseUnknown() {
+        TextNormalization.parse("line-breaks,tabs");
+    }
+}